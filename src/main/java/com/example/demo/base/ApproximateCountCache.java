@@ -0,0 +1,51 @@
+package com.example.demo.base;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Short-lived cache of list totals for {@link CursorPage}.
+ *
+ * <p>Keyset pages need no count, but some screens still show "about N results". Counting once per
+ * filter signature and reusing the value for a short TTL keeps that off the per-page hot path. The
+ * value may lag writes by up to the TTL, which is why it is exposed as approximate.
+ */
+@Component
+public class ApproximateCountCache {
+
+  private static final int MAX_ENTRIES = 10_000;
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final long ttlMillis;
+
+  public ApproximateCountCache(@Value("${app.pagination.count-ttl-ms:60000}") long ttlMillis) {
+    this.ttlMillis = ttlMillis;
+  }
+
+  /**
+   * Cached total for {@code key}, computed with {@code counter} when missing or expired.
+   *
+   * @param key filter signature, e.g. {@code "queue:IN_REVIEW,SUBMITTED:branch=3"}
+   */
+  public long get(String key, LongSupplier counter) {
+    long now = System.currentTimeMillis();
+    Entry entry = entries.get(key);
+    if (entry != null && entry.expiresAt() > now) {
+      return entry.count();
+    }
+    if (entries.size() >= MAX_ENTRIES) {
+      entries.values().removeIf(e -> e.expiresAt() <= now);
+      if (entries.size() >= MAX_ENTRIES) {
+        entries.clear();
+      }
+    }
+    long count = counter.getAsLong();
+    entries.put(key, new Entry(count, now + ttlMillis));
+    return count;
+  }
+
+  private record Entry(long count, long expiresAt) {}
+}
@@ -0,0 +1,164 @@
+package com.example.demo.base;
+
+import com.example.demo.dto.BatchJobStatusDTO;
+import com.example.demo.exception.BusinessException;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Run guard and progress of one long-running batch job.
+ *
+ * <p>At most one run is active at a time. Admin endpoints call {@link #start} or {@link #run} and
+ * get a {@code JOB_ALREADY_RUNNING} conflict while a run is active; scheduled triggers call {@link
+ * #tryStart}, which skips instead of throwing. The work reports progress through the counters
+ * below, which are safe to update from several partition threads.
+ */
+@Slf4j
+public class BackgroundJob {
+
+  /** Body of one run; an exception marks the run {@code FAILED} with its message. */
+  @FunctionalInterface
+  public interface Work {
+    void run() throws Exception;
+  }
+
+  private final String jobName;
+  private final String displayName;
+  private final String threadName;
+
+  private final AtomicBoolean running = new AtomicBoolean(false);
+  private final AtomicLong processedCount = new AtomicLong();
+  private final AtomicLong affectedCount = new AtomicLong();
+  private final AtomicInteger partitionsCompleted = new AtomicInteger();
+  private volatile int partitionsTotal;
+  private volatile String status = "IDLE";
+  private volatile String message;
+  private volatile LocalDateTime startedAt;
+  private volatile LocalDateTime finishedAt;
+
+  /**
+   * @param jobName name reported in {@link BatchJobStatusDTO#getJobName()}
+   * @param displayName human-readable name used in errors and logs, e.g. "Tier evaluation"
+   * @param threadName name of the virtual thread a background run uses
+   */
+  public BackgroundJob(String jobName, String displayName, String threadName) {
+    this.jobName = jobName;
+    this.displayName = displayName;
+    this.threadName = threadName;
+  }
+
+  /** Start a run in the background and return immediately; conflict if one is active. */
+  public BatchJobStatusDTO start(Work work) {
+    acquire();
+    Thread.ofVirtual().name(threadName).start(() -> execute(work));
+    return getStatus();
+  }
+
+  /**
+   * Start a run in the background unless one is active.
+   *
+   * @return false if a run was already active and nothing was started
+   */
+  public boolean tryStart(Work work) {
+    if (!tryAcquire()) {
+      log.debug("{} skipped, a run is already active", displayName);
+      return false;
+    }
+    Thread.ofVirtual().name(threadName).start(() -> execute(work));
+    return true;
+  }
+
+  /** Run on the calling thread and return the final status; conflict if a run is active. */
+  public BatchJobStatusDTO run(Work work) {
+    acquire();
+    execute(work);
+    return getStatus();
+  }
+
+  public boolean isRunning() {
+    return running.get();
+  }
+
+  public BatchJobStatusDTO getStatus() {
+    return BatchJobStatusDTO.builder()
+        .jobName(jobName)
+        .status(status)
+        .processedCount(processedCount.get())
+        .affectedCount(affectedCount.get())
+        .partitionsCompleted(partitionsCompleted.get())
+        .partitionsTotal(partitionsTotal)
+        .startedAt(startedAt)
+        .finishedAt(finishedAt)
+        .message(message)
+        .build();
+  }
+
+  public long processedCount() {
+    return processedCount.get();
+  }
+
+  public long affectedCount() {
+    return affectedCount.get();
+  }
+
+  public void addProcessed(long count) {
+    processedCount.addAndGet(count);
+  }
+
+  public void addAffected(long count) {
+    affectedCount.addAndGet(count);
+  }
+
+  public void setPartitionsTotal(int total) {
+    partitionsTotal = total;
+  }
+
+  public void partitionCompleted() {
+    partitionsCompleted.incrementAndGet();
+  }
+
+  /** Summary reported with the final status of a successful run. */
+  public void setMessage(String message) {
+    this.message = message;
+  }
+
+  private void acquire() {
+    if (!tryAcquire()) {
+      throw new BusinessException(
+          displayName + " is already running", "JOB_ALREADY_RUNNING", HttpStatus.CONFLICT);
+    }
+  }
+
+  private boolean tryAcquire() {
+    if (!running.compareAndSet(false, true)) {
+      return false;
+    }
+    processedCount.set(0);
+    affectedCount.set(0);
+    partitionsCompleted.set(0);
+    partitionsTotal = 0;
+    status = "RUNNING";
+    message = null;
+    startedAt = LocalDateTime.now();
+    finishedAt = null;
+    return true;
+  }
+
+  private void execute(Work work) {
+    try {
+      work.run();
+      status = "COMPLETED";
+    } catch (Exception e) {
+      status = "FAILED";
+      message = e.getMessage();
+      log.error("{} failed", displayName, e);
+    } finally {
+      finishedAt = LocalDateTime.now();
+      running.set(false);
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.base;
+
+import com.example.demo.exception.BusinessException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Position in a keyset-paginated list ordered by {@code (createdAt DESC, id DESC)}.
+ *
+ * <p>Clients only ever see the opaque {@link #encode() token}. Lists without a creation timestamp
+ * page on the id alone and leave {@code createdAt} null.
+ *
+ * @param createdAt creation time of the last row returned, or {@code null} for id-only keysets
+ * @param id id of the last row returned
+ */
+public record Cursor(LocalDateTime createdAt, Long id) {
+
+  /** Upper bound used as the "before everything" position of the first page. */
+  public static final LocalDateTime MAX_CREATED_AT = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+  private static final String SEPARATOR = "|";
+
+  /** Position before the first row, so the first page uses the same query as any other page. */
+  public static Cursor first() {
+    return new Cursor(MAX_CREATED_AT, Long.MAX_VALUE);
+  }
+
+  /**
+   * Decode a client token.
+   *
+   * @param token value of the {@code cursor} request parameter, blank for the first page
+   * @throws BusinessException if the token was not produced by {@link #encode()}
+   */
+  public static Cursor decode(String token) {
+    if (token == null || token.isBlank()) {
+      return first();
+    }
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      int separator = raw.indexOf(SEPARATOR);
+      String createdAt = raw.substring(0, separator);
+      return new Cursor(
+          createdAt.isEmpty() ? MAX_CREATED_AT : LocalDateTime.parse(createdAt),
+          Long.parseLong(raw.substring(separator + 1)));
+    } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+      throw new BusinessException("Invalid cursor", "INVALID_CURSOR", HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  public String encode() {
+    String raw = (createdAt != null ? createdAt.toString() : "") + SEPARATOR + id;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+}
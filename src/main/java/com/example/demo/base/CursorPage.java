@@ -0,0 +1,81 @@
+package com.example.demo.base;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+import java.util.function.Function;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * One page of a keyset-paginated list.
+ *
+ * <p>Repositories are queried with {@link #limit(int)}, which asks for one row more than the page
+ * size; the extra row only tells whether a next page exists. Unlike offset paging, every page costs
+ * the same and no {@code COUNT(*)} is needed. {@code totalElements} is only filled when the caller
+ * asked for it, and is then an approximate value from {@link ApproximateCountCache}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPage<T> {
+
+  public static final int DEFAULT_SIZE = 20;
+  public static final int MAX_SIZE = 100;
+
+  /** Row cap of the deprecated unpaged list endpoints that predate cursor paging. */
+  public static final int LEGACY_LIST_LIMIT = 1000;
+
+  private List<T> content;
+  private int size;
+  private boolean hasNext;
+  private String nextCursor;
+  private Long totalElements;
+
+  /** Clamp a client-supplied page size to {@code [1, MAX_SIZE]}. */
+  public static int clampSize(int size) {
+    return Math.max(1, Math.min(size, MAX_SIZE));
+  }
+
+  /** Pageable for a keyset query: always the first "page", one row larger than requested. */
+  public static Pageable limit(int size) {
+    return PageRequest.of(0, clampSize(size) + 1);
+  }
+
+  /** Pageable for the newest {@link #LEGACY_LIST_LIMIT} rows of a deprecated unpaged list. */
+  public static Pageable legacyLimit() {
+    return PageRequest.of(0, LEGACY_LIST_LIMIT);
+  }
+
+  /**
+   * Build a page from rows fetched with {@link #limit(int)}.
+   *
+   * @param rows query result, possibly one row longer than {@code size}
+   * @param size requested page size
+   * @param keyOf cursor of a row
+   * @param mapper row to DTO conversion
+   */
+  public static <E, T> CursorPage<T> of(
+      List<E> rows, int size, Function<E, Cursor> keyOf, Function<E, T> mapper) {
+    int pageSize = clampSize(size);
+    boolean hasNext = rows.size() > pageSize;
+    List<E> pageRows = hasNext ? rows.subList(0, pageSize) : rows;
+    return CursorPage.<T>builder()
+        .content(pageRows.stream().map(mapper).toList())
+        .size(pageSize)
+        .hasNext(hasNext)
+        .nextCursor(hasNext ? keyOf.apply(pageRows.get(pageSize - 1)).encode() : null)
+        .build();
+  }
+
+  /** Attach an (approximate) total; returns this page for chaining. */
+  public CursorPage<T> withTotal(Long total) {
+    this.totalElements = total;
+    return this;
+  }
+}
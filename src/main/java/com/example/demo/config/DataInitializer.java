@@ -1,20 +1,26 @@
 package com.example.demo.config;
 
+import com.example.demo.dto.BatchJobStatusDTO;
 import com.example.demo.entity.Branch;
+import com.example.demo.entity.DataMigration;
 import com.example.demo.entity.Menu;
 import com.example.demo.entity.Product;
 import com.example.demo.entity.Role;
 import com.example.demo.entity.RoleMenu;
 import com.example.demo.entity.User;
 import com.example.demo.repository.BranchRepository;
+import com.example.demo.repository.DataMigrationRepository;
+import com.example.demo.repository.LoanApplicationRepository;
 import com.example.demo.repository.MenuRepository;
 import com.example.demo.repository.ProductRepository;
 import com.example.demo.repository.RoleMenuRepository;
 import com.example.demo.repository.RoleRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.service.DailyLoanStatsService;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.IntSupplier;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -30,6 +36,9 @@ public class DataInitializer implements CommandLineRunner {
   private final MenuRepository menuRepository;
   private final RoleMenuRepository roleMenuRepository;
   private final BranchRepository branchRepository;
+  private final LoanApplicationRepository loanApplicationRepository;
+  private final DataMigrationRepository dataMigrationRepository;
+  private final DailyLoanStatsService dailyLoanStatsService;
   private final PasswordEncoder passwordEncoder;
 
   @Override
@@ -503,6 +512,21 @@ public class DataInitializer implements CommandLineRunner {
     // ============================================================
     initializeTierProducts();
 
+    // ============================================================
+    // QUEUE COMMENTS (denormalised from loan history)
+    // ============================================================
+    backfillQueueComments();
+
+    // ============================================================
+    // MILESTONE TIMESTAMPS (denormalised from loan history)
+    // ============================================================
+    backfillMilestones();
+
+    // ============================================================
+    // DAILY LOAN STATS (rollup behind the analytics dashboards)
+    // ============================================================
+    backfillDailyLoanStats();
+
     System.out.println("✓ Data initialization completed!");
     System.out.println("✓ Roles created: ADMIN, USER, BACK_OFFICE, BRANCH_MANAGER, MARKETING");
     System.out.println("✓ Branches created: Jakarta, Surabaya, Semarang");
@@ -510,6 +534,73 @@ public class DataInitializer implements CommandLineRunner {
     System.out.println("✓ Tier products created: BRONZE, SILVER, GOLD");
   }
 
+  private void backfillQueueComments() {
+    int updated =
+        runOnce(
+            "BACKFILL_QUEUE_COMMENTS",
+            () ->
+                loanApplicationRepository.backfillMarketingComments()
+                    + loanApplicationRepository.backfillBranchManagerComments());
+    if (updated > 0) {
+      System.out.println("✓ Backfilled queue comments on " + updated + " loan applications");
+    }
+  }
+
+  /**
+   * Run a one-off backfill unless {@code data_migrations} records {@code migrationName} as applied,
+   * and record it afterwards, so later starts skip its full-table scans.
+   *
+   * @return rows updated, 0 when skipped
+   */
+  private int runOnce(String migrationName, IntSupplier backfill) {
+    if (dataMigrationRepository.existsById(migrationName)) {
+      return 0;
+    }
+    int updated = backfill.getAsInt();
+    dataMigrationRepository.save(
+        DataMigration.builder().migrationName(migrationName).affectedRows((long) updated).build());
+    return updated;
+  }
+
+  private void backfillMilestones() {
+    int updated =
+        runOnce(
+            "BACKFILL_LOAN_MILESTONES",
+            () ->
+                loanApplicationRepository.backfillInReviewAt()
+                    + loanApplicationRepository.backfillWaitingApprovalAt()
+                    + loanApplicationRepository.backfillApprovedAt()
+                    + loanApplicationRepository.backfillDisbursedAt());
+    if (updated > 0) {
+      System.out.println("✓ Backfilled " + updated + " loan milestone timestamps");
+    }
+  }
+
+  /**
+   * Fill {@code daily_loan_stats} from the existing loans once; afterwards every write keeps it
+   * current with deltas. A failed rebuild is not recorded, so the next start tries again.
+   */
+  private void backfillDailyLoanStats() {
+    try {
+      int rows =
+          runOnce(
+              "BACKFILL_DAILY_LOAN_STATS",
+              () -> {
+                BatchJobStatusDTO result = dailyLoanStatsService.rebuild();
+                if (!"COMPLETED".equals(result.getStatus())) {
+                  throw new IllegalStateException(result.getMessage());
+                }
+                return (int) result.getAffectedCount();
+              });
+      if (rows > 0) {
+        System.out.println("✓ Built " + rows + " daily loan stats rows");
+      }
+    } catch (Exception e) {
+      System.out.println(
+          "✗ Daily loan stats backfill failed, retrying next start: " + e.getMessage());
+    }
+  }
+
   private void initializeTierProducts() {
     // Bronze Tier - Entry level
     findOrCreateTierProduct(
@@ -6,6 +6,7 @@ import com.example.demo.security.DynamicAuthorizationManager;
 import com.example.demo.security.JwtCookieAuthenticationFilter;
 import com.example.demo.security.RateLimitFilter;
 import com.example.demo.security.SpaCsrfTokenRequestHandler;
+import jakarta.servlet.DispatcherType;
 import java.util.Arrays;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
@@ -63,7 +64,10 @@ public class SecurityConfig {
         // Authorization rules
         .authorizeHttpRequests(
             auth ->
-                auth.requestMatchers(
+                // Async re-dispatches (event streams) were authorized on the original request
+                auth.dispatcherTypeMatchers(DispatcherType.ASYNC)
+                    .permitAll()
+                    .requestMatchers(
                         "/auth/login",
                         "/auth/google",
                         "/auth/register",
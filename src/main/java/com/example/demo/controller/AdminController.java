@@ -1,20 +1,47 @@
 package com.example.demo.controller;
 
 import com.example.demo.base.ApiResponse;
+import com.example.demo.base.CursorPage;
 import com.example.demo.base.ResponseUtil;
 import com.example.demo.dto.AdminLoanApplicationDTO;
+import com.example.demo.dto.BatchJobStatusDTO;
+import com.example.demo.dto.LoanSearchRequestDTO;
+import com.example.demo.dto.RepaymentImportResultDTO;
+import com.example.demo.enums.ExportFormat;
 import com.example.demo.service.AdminLoanService;
+import com.example.demo.service.DailyLoanStatsService;
+import com.example.demo.service.LoanCommentSearchService;
+import com.example.demo.service.LoanHistoryArchiveService;
+import com.example.demo.service.NotificationRetentionService;
+import com.example.demo.service.PortfolioCubeService;
+import com.example.demo.service.RepaymentImportService;
+import com.example.demo.service.TierEvaluationService;
+import com.example.demo.service.repayment.StatementFormat;
+import jakarta.validation.Valid;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -22,6 +49,13 @@ import org.springframework.web.bind.annotation.RestController;
 public class AdminController {
 
   private final AdminLoanService adminLoanService;
+  private final TierEvaluationService tierEvaluationService;
+  private final LoanHistoryArchiveService loanHistoryArchiveService;
+  private final LoanCommentSearchService loanCommentSearchService;
+  private final RepaymentImportService repaymentImportService;
+  private final DailyLoanStatsService dailyLoanStatsService;
+  private final PortfolioCubeService portfolioCubeService;
+  private final NotificationRetentionService notificationRetentionService;
 
   @GetMapping("/dashboard")
   @PreAuthorize("@accessControl.hasMenu('ADMIN_MODULE')")
@@ -54,4 +88,227 @@ public class AdminController {
             PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt")));
     return ResponseUtil.ok(loans.getContent(), "Loan applications retrieved successfully");
   }
+
+  /**
+   * Keyset-paginated variant of {@link #getAllLoanApplications(int, int)}. Deep pages cost the same
+   * as the first one; pass the returned {@code nextCursor} to fetch the next page.
+   *
+   * @param cursor opaque position from the previous page, omitted for the first page
+   * @param size page size (default 20, max 100)
+   * @param includeTotal also return an approximate total, cached for a short time
+   */
+  @GetMapping("/loan-applications/cursor")
+  @PreAuthorize("@accessControl.hasMenu('ADMIN_MODULE')")
+  public ResponseEntity<ApiResponse<CursorPage<AdminLoanApplicationDTO>>> scrollLoanApplications(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int size,
+      @RequestParam(defaultValue = "false") boolean includeTotal) {
+    CursorPage<AdminLoanApplicationDTO> loans =
+        adminLoanService.scrollLoanApplications(cursor, size, includeTotal);
+    return ResponseUtil.ok(loans, "Loan applications retrieved successfully");
+  }
+
+  /**
+   * Search loan applications by applicant (username/email prefix), NIK or phone prefix, statuses,
+   * branch, amount range and creation date range. Results are keyset pages, newest first.
+   *
+   * @param criteria filters plus {@code cursor}, {@code size} and {@code includeTotal}
+   */
+  @GetMapping("/loan-applications/search")
+  @PreAuthorize("@accessControl.hasMenu('ADMIN_MODULE')")
+  public ResponseEntity<ApiResponse<CursorPage<AdminLoanApplicationDTO>>> searchLoanApplications(
+      @Valid LoanSearchRequestDTO criteria) {
+    CursorPage<AdminLoanApplicationDTO> loans = adminLoanService.searchLoanApplications(criteria);
+    return ResponseUtil.ok(loans, "Loan applications retrieved successfully");
+  }
+
+  /**
+   * Export every loan application as a download, streamed row by row from the database. Memory use
+   * is the same for a thousand or millions of loans.
+   *
+   * @param format NDJSON (default) or CSV
+   */
+  @GetMapping("/loan-applications/export")
+  @PreAuthorize("@accessControl.hasMenu('ADMIN_MODULE')")
+  public ResponseEntity<StreamingResponseBody> exportLoanApplications(
+      @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+    String fileName = "loan-applications-" + LocalDate.now() + "." + format.getFileExtension();
+    StreamingResponseBody body = out -> adminLoanService.exportLoanApplications(format, out);
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType(format.getContentType()))
+        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+        .body(body);
+  }
+
+  /**
+   * Start a bulk re-evaluation of every active user's tier against the current product tier table.
+   * Runs in the background; poll the status endpoint for progress.
+   *
+   * @param resume continue from the last checkpoints of an interrupted run
+   * @return job status at start time
+   */
+  @PostMapping("/tier-evaluation")
+  @PreAuthorize("@accessControl.hasMenu('ADMIN_MODULE')")
+  public ResponseEntity<ApiResponse<BatchJobStatusDTO>> startTierEvaluation(
+      @RequestParam(defaultValue = "false") boolean resume) {
+    return ResponseUtil.success(
+        HttpStatus.ACCEPTED, tierEvaluationService.startAsync(resume), "Tier evaluation started");
+  }
+
+  @GetMapping("/tier-evaluation/status")
+  @PreAuthorize("@accessControl.hasMenu('ADMIN_MODULE')")
+  public ResponseEntity<ApiResponse<BatchJobStatusDTO>> getTierEvaluationStatus() {
+    return ResponseUtil.ok(
+        tierEvaluationService.getStatus(), "Tier evaluation status retrieved successfully");
+  }
+
+  /**
+   * Move history of loans closed longer than the retention period to the archive tier. Also runs
+   * nightly; runs in the background, poll the status endpoint for progress.
+   *
+   * @return job status at start time
+   */
+  @PostMapping("/loan-history/archive")
+  @PreAuthorize("@accessControl.hasMenu('ADMIN_MODULE')")
+  public ResponseEntity<ApiResponse<BatchJobStatusDTO>> startLoanHistoryArchive() {
+    return ResponseUtil.success(
+        HttpStatus.ACCEPTED,
+        loanHistoryArchiveService.startAsync(),
+        "Loan history archiving started");
+  }
+
+  @GetMapping("/loan-history/archive/status")
+  @PreAuthorize("@accessControl.hasMenu('ADMIN_MODULE')")
+  public ResponseEntity<ApiResponse<BatchJobStatusDTO>> getLoanHistoryArchiveStatus() {
+    return ResponseUtil.ok(
+        loanHistoryArchiveService.getStatus(),
+        "Loan history archive status retrieved successfully");
+  }
+
+  /**
+   * Delete read notifications older than the retention period, in small chunks. Also runs nightly;
+   * runs in the background, poll the status endpoint for progress.
+   *
+   * @return job status at start time
+   */
+  @PostMapping("/notifications/retention")
+  @PreAuthorize("@accessControl.hasMenu('ADMIN_MODULE')")
+  public ResponseEntity<ApiResponse<BatchJobStatusDTO>> startNotificationRetention() {
+    return ResponseUtil.success(
+        HttpStatus.ACCEPTED,
+        notificationRetentionService.startAsync(),
+        "Notification retention started");
+  }
+
+  @GetMapping("/notifications/retention/status")
+  @PreAuthorize("@accessControl.hasMenu('ADMIN_MODULE')")
+  public ResponseEntity<ApiResponse<BatchJobStatusDTO>> getNotificationRetentionStatus() {
+    return ResponseUtil.ok(
+        notificationRetentionService.getStatus(),
+        "Notification retention status retrieved successfully");
+  }
+
+  /**
+   * Rebuild the daily loan statistics rollup from the loans, one month per partition. Runs in the
+   * background; poll the status endpoint for progress.
+   *
+   * @return job status at start time
+   */
+  @PostMapping("/loan-stats/backfill")
+  @PreAuthorize("@accessControl.hasMenu('ADMIN_MODULE')")
+  public ResponseEntity<ApiResponse<BatchJobStatusDTO>> startLoanStatsBackfill() {
+    return ResponseUtil.success(
+        HttpStatus.ACCEPTED,
+        dailyLoanStatsService.startBackfill(),
+        "Loan statistics backfill started");
+  }
+
+  @GetMapping("/loan-stats/backfill/status")
+  @PreAuthorize("@accessControl.hasMenu('ADMIN_MODULE')")
+  public ResponseEntity<ApiResponse<BatchJobStatusDTO>> getLoanStatsBackfillStatus() {
+    return ResponseUtil.ok(
+        dailyLoanStatsService.getStatus(),
+        "Loan statistics backfill status retrieved successfully");
+  }
+
+  /**
+   * Reload the in-memory portfolio snapshot from the loans. Runs in the background; queries keep
+   * using the previous snapshot until the new one is complete.
+   *
+   * @return job status at start time
+   */
+  @PostMapping("/portfolio-cube/reload")
+  @PreAuthorize("@accessControl.hasMenu('ADMIN_MODULE')")
+  public ResponseEntity<ApiResponse<BatchJobStatusDTO>> startPortfolioCubeReload() {
+    return ResponseUtil.success(
+        HttpStatus.ACCEPTED,
+        portfolioCubeService.startReload(),
+        "Portfolio snapshot reload started");
+  }
+
+  @GetMapping("/portfolio-cube/reload/status")
+  @PreAuthorize("@accessControl.hasMenu('ADMIN_MODULE')")
+  public ResponseEntity<ApiResponse<BatchJobStatusDTO>> getPortfolioCubeReloadStatus() {
+    return ResponseUtil.ok(
+        portfolioCubeService.getStatus(),
+        "Portfolio snapshot reload status retrieved successfully");
+  }
+
+  /**
+   * Rebuild the loan comment search index from both history tiers. Runs in the background; poll the
+   * status endpoint for progress. Searches keep working, on partly rebuilt data, meanwhile.
+   *
+   * @return job status at start time
+   */
+  @PostMapping("/loan-comments/reindex")
+  @PreAuthorize("@accessControl.hasMenu('ADMIN_MODULE')")
+  public ResponseEntity<ApiResponse<BatchJobStatusDTO>> startCommentReindex() {
+    return ResponseUtil.success(
+        HttpStatus.ACCEPTED,
+        loanCommentSearchService.startRebuild(),
+        "Comment index rebuild started");
+  }
+
+  @GetMapping("/loan-comments/reindex/status")
+  @PreAuthorize("@accessControl.hasMenu('ADMIN_MODULE')")
+  public ResponseEntity<ApiResponse<BatchJobStatusDTO>> getCommentReindexStatus() {
+    return ResponseUtil.ok(
+        loanCommentSearchService.getStatus(), "Comment index status retrieved successfully");
+  }
+
+  /**
+   * Settle DISBURSED loans from a bank statement file. Lines that cannot be matched to a payable
+   * loan are collected in a reconciliation report.
+   *
+   * @param file statement file
+   * @param format CSV or FIXED_WIDTH
+   * @return import summary including the report id
+   */
+  @PostMapping(value = "/repayments/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  @PreAuthorize("@accessControl.hasMenu('ADMIN_MODULE')")
+  public ResponseEntity<ApiResponse<RepaymentImportResultDTO>> importRepayments(
+      @RequestParam("file") MultipartFile file,
+      @RequestParam(defaultValue = "CSV") StatementFormat format)
+      throws IOException {
+    Path statement = Files.createTempFile("repayment-statement-", ".tmp");
+    try {
+      file.transferTo(statement);
+      return ResponseUtil.ok(
+          repaymentImportService.importStatement(statement, format, file.getOriginalFilename()),
+          "Repayment statement imported successfully");
+    } finally {
+      Files.deleteIfExists(statement);
+    }
+  }
+
+  @GetMapping("/repayments/import/{importId}/report")
+  @PreAuthorize("@accessControl.hasMenu('ADMIN_MODULE')")
+  public ResponseEntity<Resource> downloadRepaymentReport(@PathVariable String importId) {
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType("text/csv"))
+        .header(
+            HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"repayment-reconciliation-" + importId + ".csv\"")
+        .body(new FileSystemResource(repaymentImportService.getReport(importId)));
+  }
 }
@@ -1,17 +1,25 @@
 package com.example.demo.controller;
 
 import com.example.demo.base.ApiResponse;
+import com.example.demo.base.ResponseUtil;
+import com.example.demo.dto.PushCampaignDTO;
+import com.example.demo.dto.PushCampaignRequest;
 import com.example.demo.dto.PushNotificationRequest;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.security.CustomUserDetails;
 import com.example.demo.service.FCMService;
+import com.example.demo.service.push.PushCampaignService;
 import jakarta.validation.Valid;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -27,6 +35,7 @@ public class FCMController {
 
   private final FCMService fcmService;
   private final UserRepository userRepository;
+  private final PushCampaignService pushCampaignService;
 
   /** Register device for push notifications. */
   @PostMapping("/register")
@@ -87,4 +96,43 @@ public class FCMController {
               "No devices registered for push notifications. Please login with fcmToken to register."));
     }
   }
+
+  /**
+   * Send a push notification to every device of a user segment (role, tier, branch, product). Runs
+   * in the background in checkpointed chunks; poll the campaign for progress.
+   */
+  @PostMapping("/campaigns")
+  @PreAuthorize("@accessControl.hasMenu('ADMIN_MODULE')")
+  public ResponseEntity<ApiResponse<PushCampaignDTO>> startCampaign(
+      @AuthenticationPrincipal CustomUserDetails userDetails,
+      @Valid @RequestBody PushCampaignRequest request) {
+    PushCampaignDTO campaign = pushCampaignService.create(request, userDetails.getUser().getId());
+    return ResponseUtil.success(
+        HttpStatus.ACCEPTED,
+        pushCampaignService.startAsync(campaign.getCampaignId()),
+        "Push campaign started");
+  }
+
+  @GetMapping("/campaigns/{campaignId}")
+  @PreAuthorize("@accessControl.hasMenu('ADMIN_MODULE')")
+  public ResponseEntity<ApiResponse<PushCampaignDTO>> getCampaign(@PathVariable Long campaignId) {
+    return ResponseUtil.ok(
+        pushCampaignService.getCampaign(campaignId), "Push campaign retrieved successfully");
+  }
+
+  /** Continue a failed campaign after its last checkpoint. */
+  @PostMapping("/campaigns/{campaignId}/resume")
+  @PreAuthorize("@accessControl.hasMenu('ADMIN_MODULE')")
+  public ResponseEntity<ApiResponse<PushCampaignDTO>> resumeCampaign(
+      @PathVariable Long campaignId) {
+    return ResponseUtil.success(
+        HttpStatus.ACCEPTED, pushCampaignService.startAsync(campaignId), "Push campaign resumed");
+  }
+
+  @PostMapping("/campaigns/{campaignId}/cancel")
+  @PreAuthorize("@accessControl.hasMenu('ADMIN_MODULE')")
+  public ResponseEntity<ApiResponse<PushCampaignDTO>> cancelCampaign(
+      @PathVariable Long campaignId) {
+    return ResponseUtil.ok(pushCampaignService.cancel(campaignId), "Push campaign cancelled");
+  }
 }
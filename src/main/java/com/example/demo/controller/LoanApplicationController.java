@@ -2,6 +2,7 @@ package com.example.demo.controller;
 
 import com.example.demo.base.ApiResponse;
 import com.example.demo.base.BaseController;
+import com.example.demo.base.CursorPage;
 import com.example.demo.base.ResponseUtil;
 import com.example.demo.dto.LoanApplicationDTO;
 import com.example.demo.service.LoanApplicationService;
@@ -55,12 +56,26 @@ public class LoanApplicationController extends BaseController {
     return ResponseUtil.ok(loanApplications, "Loan applications retrieved successfully");
   }
 
+  /**
+   * Newest loan applications, at most {@link CursorPage#LEGACY_LIST_LIMIT}.
+   *
+   * @deprecated kept for existing clients, page through {@code /cursor} instead
+   */
+  @Deprecated
   @GetMapping
   public ResponseEntity<ApiResponse<List<LoanApplicationDTO>>> getAllLoanApplications() {
     List<LoanApplicationDTO> loanApplications = loanApplicationService.getAllLoanApplications();
     return ResponseUtil.ok(loanApplications, "Loan applications retrieved successfully");
   }
 
+  @GetMapping("/cursor")
+  public ResponseEntity<ApiResponse<CursorPage<LoanApplicationDTO>>> scrollLoanApplications(
+      @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int size) {
+    CursorPage<LoanApplicationDTO> loanApplications =
+        loanApplicationService.getAllLoanApplications(cursor, size);
+    return ResponseUtil.ok(loanApplications, "Loan applications retrieved successfully");
+  }
+
   @PutMapping("/{loanApplicationId}")
   public ResponseEntity<ApiResponse<LoanApplicationDTO>> updateLoanApplication(
       @PathVariable Long loanApplicationId, @RequestBody LoanApplicationDTO dto) {
@@ -1,14 +1,18 @@
 package com.example.demo.controller;
 
 import com.example.demo.base.ApiResponse;
+import com.example.demo.base.CursorPage;
 import com.example.demo.base.ResponseUtil;
 import com.example.demo.dto.LoanHistoryDTO;
 import com.example.demo.dto.LoanMilestoneDTO;
 import com.example.demo.service.LoanHistoryService;
+import com.example.demo.service.LoanHistoryService.MilestoneSnapshot;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/loan-history")
@@ -39,19 +43,45 @@ public class LoanHistoryController {
     return ResponseUtil.ok(loanHistories, "Loan history retrieved successfully");
   }
 
+  /**
+   * Milestones of a loan. Tagged with the loan's version: a client sending it back in {@code
+   * If-None-Match} gets an empty 304 until the loan changes.
+   */
   @GetMapping("/milestones/{loanApplicationId}")
   public ResponseEntity<ApiResponse<List<LoanMilestoneDTO>>> getLoanMilestones(
-      @PathVariable Long loanApplicationId) {
-    List<LoanMilestoneDTO> milestones = loanHistoryService.getLoanMilestones(loanApplicationId);
-    return ResponseUtil.ok(milestones, "Loan milestones retrieved successfully");
+      @PathVariable Long loanApplicationId, WebRequest request) {
+    MilestoneSnapshot snapshot = loanHistoryService.getLoanMilestoneSnapshot(loanApplicationId);
+    String eTag = "\"" + snapshot.version() + "\"";
+    if (request.checkNotModified(eTag)) {
+      return null;
+    }
+    return ResponseEntity.ok()
+        .eTag(eTag)
+        .cacheControl(CacheControl.noCache().cachePrivate())
+        .body(
+            ResponseUtil.ok(snapshot.milestones(), "Loan milestones retrieved successfully")
+                .getBody());
   }
 
+  /**
+   * Newest loan history entries, at most {@link CursorPage#LEGACY_LIST_LIMIT}.
+   *
+   * @deprecated kept for existing clients, page through {@code /cursor} instead
+   */
+  @Deprecated
   @GetMapping
   public ResponseEntity<ApiResponse<List<LoanHistoryDTO>>> getAllLoanHistories() {
     List<LoanHistoryDTO> loanHistories = loanHistoryService.getAllLoanHistories();
     return ResponseUtil.ok(loanHistories, "Loan histories retrieved successfully");
   }
 
+  @GetMapping("/cursor")
+  public ResponseEntity<ApiResponse<CursorPage<LoanHistoryDTO>>> scrollLoanHistories(
+      @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int size) {
+    CursorPage<LoanHistoryDTO> loanHistories = loanHistoryService.getAllLoanHistories(cursor, size);
+    return ResponseUtil.ok(loanHistories, "Loan histories retrieved successfully");
+  }
+
   @DeleteMapping("/{loanHistoryId}")
   public ResponseEntity<ApiResponse<Void>> deleteLoanHistory(@PathVariable Long loanHistoryId) {
     loanHistoryService.deleteLoanHistory(loanHistoryId);
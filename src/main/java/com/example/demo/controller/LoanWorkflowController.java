@@ -1,37 +1,53 @@
 package com.example.demo.controller;
 
 import com.example.demo.base.ApiResponse;
+import com.example.demo.base.ApproximateCountCache;
 import com.example.demo.base.BaseController;
+import com.example.demo.base.Cursor;
+import com.example.demo.base.CursorPage;
 import com.example.demo.base.ResponseUtil;
 import com.example.demo.dto.ActionHistoryDTO;
 import com.example.demo.dto.ActionHistoryRequestDTO;
+import com.example.demo.dto.AdminLoanApplicationDTO;
+import com.example.demo.dto.CommentSearchHitDTO;
 import com.example.demo.dto.LoanActionRequest;
 import com.example.demo.dto.LoanApplicationDTO;
 import com.example.demo.dto.LoanQueueItemDTO;
+import com.example.demo.dto.LoanSearchRequestDTO;
 import com.example.demo.dto.LoanSubmitRequest;
-import com.example.demo.entity.Branch;
+import com.example.demo.dto.QueueStatsDTO;
 import com.example.demo.entity.LoanApplication;
-import com.example.demo.entity.LoanHistory;
 import com.example.demo.entity.User;
 import com.example.demo.enums.LoanStatus;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.repository.LoanApplicationRepository;
-import com.example.demo.repository.LoanHistoryRepository;
+import com.example.demo.repository.LoanApplicationRepository.LoanQueueRow;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.service.AccessControlService;
 import com.example.demo.service.ActionHistoryService;
+import com.example.demo.service.AdminLoanService;
 import com.example.demo.service.ILoanWorkflowService;
+import com.example.demo.service.LoanCommentSearchService;
+import com.example.demo.service.QueueStatsService;
+import com.example.demo.service.QueueStreamService;
 import jakarta.validation.Valid;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/loan-workflow")
@@ -40,9 +56,17 @@ public class LoanWorkflowController extends BaseController {
 
   private final ILoanWorkflowService loanWorkflowService;
   private final LoanApplicationRepository loanApplicationRepository;
-  private final LoanHistoryRepository loanHistoryRepository;
   private final UserRepository userRepository;
   private final ActionHistoryService actionHistoryService;
+  private final ApproximateCountCache countCache;
+  private final QueueStreamService queueStreamService;
+  private final QueueStatsService queueStatsService;
+  private final AdminLoanService adminLoanService;
+  private final AccessControlService accessControl;
+  private final LoanCommentSearchService loanCommentSearchService;
+
+  // Sentinel for "branch-scoped queue, but the user has no branch"
+  private static final Long NO_BRANCH = -1L;
 
   @PostMapping("/submit")
   public ResponseEntity<ApiResponse<LoanApplicationDTO>> submitLoan(
@@ -92,6 +116,161 @@ public class LoanWorkflowController extends BaseController {
     return ResponseUtil.ok(queue, "Back office queue retrieved successfully");
   }
 
+  // Keyset-paginated queues: every page costs the same, totals are optional and approximate
+
+  @GetMapping("/queue/marketing/cursor")
+  @PreAuthorize("@accessControl.hasMenu('LOAN_REVIEW')")
+  public ResponseEntity<ApiResponse<CursorPage<LoanQueueItemDTO>>> scrollMarketingQueue(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "10") int size,
+      @RequestParam(defaultValue = "false") boolean includeTotal) {
+    List<String> statuses = Arrays.asList(LoanStatus.SUBMITTED.name(), LoanStatus.IN_REVIEW.name());
+    CursorPage<LoanQueueItemDTO> queue =
+        scrollQueueItems(statuses, true, cursor, size, includeTotal);
+    return ResponseUtil.ok(queue, "Marketing queue retrieved successfully");
+  }
+
+  @GetMapping("/queue/branch-manager/cursor")
+  @PreAuthorize("@accessControl.hasMenu('LOAN_APPROVE')")
+  public ResponseEntity<ApiResponse<CursorPage<LoanQueueItemDTO>>> scrollBranchManagerQueue(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "10") int size,
+      @RequestParam(defaultValue = "false") boolean includeTotal) {
+    List<String> statuses = Arrays.asList(LoanStatus.WAITING_APPROVAL.name());
+    CursorPage<LoanQueueItemDTO> queue =
+        scrollQueueItems(statuses, true, cursor, size, includeTotal);
+    return ResponseUtil.ok(queue, "Branch manager queue retrieved successfully");
+  }
+
+  @GetMapping("/queue/back-office/cursor")
+  @PreAuthorize("@accessControl.hasMenu('LOAN_DISBURSE')")
+  public ResponseEntity<ApiResponse<CursorPage<LoanQueueItemDTO>>> scrollBackOfficeQueue(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "10") int size,
+      @RequestParam(defaultValue = "false") boolean includeTotal) {
+    List<String> statuses = Arrays.asList(LoanStatus.APPROVED_WAITING_DISBURSEMENT.name());
+    CursorPage<LoanQueueItemDTO> queue =
+        scrollQueueItems(statuses, false, cursor, size, includeTotal);
+    return ResponseUtil.ok(queue, "Back office queue retrieved successfully");
+  }
+
+  // Queue depth and aging for badges and dashboards, without running the queue query
+
+  /** Depth and aging of every queue the caller works on, in one call. */
+  @GetMapping("/queue/stats")
+  @PreAuthorize(
+      "@accessControl.hasMenu('LOAN_REVIEW') or @accessControl.hasMenu('LOAN_APPROVE')"
+          + " or @accessControl.hasMenu('LOAN_DISBURSE')")
+  public ResponseEntity<ApiResponse<List<QueueStatsDTO>>> getQueueStats() {
+    List<String> branchQueues = new ArrayList<>();
+    if (accessControl.hasMenu("LOAN_REVIEW")) {
+      branchQueues.add(LoanStatus.SUBMITTED.name());
+      branchQueues.add(LoanStatus.IN_REVIEW.name());
+    }
+    if (accessControl.hasMenu("LOAN_APPROVE")) {
+      branchQueues.add(LoanStatus.WAITING_APPROVAL.name());
+    }
+    List<QueueStatsDTO> stats = new ArrayList<>();
+    if (!branchQueues.isEmpty()) {
+      stats.addAll(queueStats(branchQueues, true));
+    }
+    if (accessControl.hasMenu("LOAN_DISBURSE")) {
+      stats.addAll(queueStats(List.of(LoanStatus.APPROVED_WAITING_DISBURSEMENT.name()), false));
+    }
+    return ResponseUtil.ok(stats, "Queue stats retrieved successfully");
+  }
+
+  @GetMapping("/queue/marketing/stats")
+  @PreAuthorize("@accessControl.hasMenu('LOAN_REVIEW')")
+  public ResponseEntity<ApiResponse<List<QueueStatsDTO>>> getMarketingQueueStats() {
+    List<String> statuses = Arrays.asList(LoanStatus.SUBMITTED.name(), LoanStatus.IN_REVIEW.name());
+    return ResponseUtil.ok(
+        queueStats(statuses, true), "Marketing queue stats retrieved successfully");
+  }
+
+  @GetMapping("/queue/branch-manager/stats")
+  @PreAuthorize("@accessControl.hasMenu('LOAN_APPROVE')")
+  public ResponseEntity<ApiResponse<List<QueueStatsDTO>>> getBranchManagerQueueStats() {
+    List<String> statuses = Arrays.asList(LoanStatus.WAITING_APPROVAL.name());
+    return ResponseUtil.ok(
+        queueStats(statuses, true), "Branch manager queue stats retrieved successfully");
+  }
+
+  @GetMapping("/queue/back-office/stats")
+  @PreAuthorize("@accessControl.hasMenu('LOAN_DISBURSE')")
+  public ResponseEntity<ApiResponse<List<QueueStatsDTO>>> getBackOfficeQueueStats() {
+    List<String> statuses = Arrays.asList(LoanStatus.APPROVED_WAITING_DISBURSEMENT.name());
+    return ResponseUtil.ok(
+        queueStats(statuses, false), "Back office queue stats retrieved successfully");
+  }
+
+  // Live queue changes over server-sent events; clients reload a page only on "resync"
+
+  @GetMapping(value = "/queue/marketing/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @PreAuthorize("@accessControl.hasMenu('LOAN_REVIEW')")
+  public SseEmitter streamMarketingQueue(
+      @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+    List<String> statuses = Arrays.asList(LoanStatus.SUBMITTED.name(), LoanStatus.IN_REVIEW.name());
+    return streamQueue(statuses, true, lastEventId);
+  }
+
+  @GetMapping(value = "/queue/branch-manager/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @PreAuthorize("@accessControl.hasMenu('LOAN_APPROVE')")
+  public SseEmitter streamBranchManagerQueue(
+      @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+    List<String> statuses = Arrays.asList(LoanStatus.WAITING_APPROVAL.name());
+    return streamQueue(statuses, true, lastEventId);
+  }
+
+  @GetMapping(value = "/queue/back-office/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @PreAuthorize("@accessControl.hasMenu('LOAN_DISBURSE')")
+  public SseEmitter streamBackOfficeQueue(
+      @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+    List<String> statuses = Arrays.asList(LoanStatus.APPROVED_WAITING_DISBURSEMENT.name());
+    return streamQueue(statuses, false, lastEventId);
+  }
+
+  /**
+   * Loan search for staff. Same filters as the admin search; marketing and branch managers only see
+   * their own branch, back office sees all branches.
+   */
+  @GetMapping("/search")
+  @PreAuthorize(
+      "@accessControl.hasMenu('LOAN_REVIEW') or @accessControl.hasMenu('LOAN_APPROVE')"
+          + " or @accessControl.hasMenu('LOAN_DISBURSE')")
+  public ResponseEntity<ApiResponse<CursorPage<AdminLoanApplicationDTO>>> searchLoans(
+      @Valid LoanSearchRequestDTO criteria) {
+    Long branchId = resolveQueueBranch(getCurrentUserId(), !accessControl.hasMenu("LOAN_DISBURSE"));
+    if (branchId != null) {
+      criteria.setBranchId(branchId);
+    }
+    CursorPage<AdminLoanApplicationDTO> loans = adminLoanService.searchLoanApplications(criteria);
+    return ResponseUtil.ok(loans, "Loan applications retrieved successfully");
+  }
+
+  /**
+   * Ranked full-text search over reviewer comments. Marketing and branch managers only see comments
+   * on their own branch's loans, back office sees all branches.
+   *
+   * @param q search terms
+   * @param from first day included (optional)
+   * @param to last day included (optional)
+   */
+  @GetMapping("/comments/search")
+  @PreAuthorize(
+      "@accessControl.hasMenu('LOAN_REVIEW') or @accessControl.hasMenu('LOAN_APPROVE')"
+          + " or @accessControl.hasMenu('LOAN_DISBURSE')")
+  public ResponseEntity<ApiResponse<List<CommentSearchHitDTO>>> searchComments(
+      @RequestParam String q,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+      @RequestParam(required = false, defaultValue = "20") Integer size) {
+    Long branchId = resolveQueueBranch(getCurrentUserId(), !accessControl.hasMenu("LOAN_DISBURSE"));
+    List<CommentSearchHitDTO> hits =
+        loanCommentSearchService.search(q, branchId, from, to, CursorPage.clampSize(size));
+    return ResponseUtil.ok(hits, "Comments retrieved successfully");
+  }
+
   // ==================== ACTION HISTORY ENDPOINTS ====================
 
   @GetMapping("/history/marketing")
@@ -136,6 +315,33 @@ public class LoanWorkflowController extends BaseController {
     return ResponseUtil.ok(history, "Back office action history retrieved successfully");
   }
 
+  @GetMapping("/history/marketing/cursor")
+  @PreAuthorize("@accessControl.hasMenu('LOAN_REVIEW')")
+  public ResponseEntity<ApiResponse<CursorPage<ActionHistoryDTO>>> scrollMarketingHistory(
+      @Valid ActionHistoryRequestDTO request) {
+    CursorPage<ActionHistoryDTO> history =
+        actionHistoryService.scrollMarketingHistory(getCurrentUserId(), request);
+    return ResponseUtil.ok(history, "Marketing action history retrieved successfully");
+  }
+
+  @GetMapping("/history/branch-manager/cursor")
+  @PreAuthorize("@accessControl.hasMenu('LOAN_APPROVE')")
+  public ResponseEntity<ApiResponse<CursorPage<ActionHistoryDTO>>> scrollBranchManagerHistory(
+      @Valid ActionHistoryRequestDTO request) {
+    CursorPage<ActionHistoryDTO> history =
+        actionHistoryService.scrollBranchManagerHistory(getCurrentUserId(), request);
+    return ResponseUtil.ok(history, "Branch manager action history retrieved successfully");
+  }
+
+  @GetMapping("/history/back-office/cursor")
+  @PreAuthorize("@accessControl.hasMenu('LOAN_DISBURSE')")
+  public ResponseEntity<ApiResponse<CursorPage<ActionHistoryDTO>>> scrollBackOfficeHistory(
+      @Valid ActionHistoryRequestDTO request) {
+    CursorPage<ActionHistoryDTO> history =
+        actionHistoryService.scrollBackOfficeHistory(getCurrentUserId(), request);
+    return ResponseUtil.ok(history, "Back office action history retrieved successfully");
+  }
+
   @GetMapping("/{loanId}/allowed-actions")
   public ResponseEntity<ApiResponse<List<String>>> getAllowedActions(@PathVariable Long loanId) {
     LoanApplication loanApplication =
@@ -153,109 +359,121 @@ public class LoanWorkflowController extends BaseController {
   private Page<LoanQueueItemDTO> getQueueItems(
       List<String> statuses, boolean filterByBranch, Pageable pageable) {
     Long currentUserId = getCurrentUserId();
-    User currentUser =
-        userRepository
-            .findById(currentUserId)
-            .orElseThrow(() -> new ResourceNotFoundException("User", "id", getCurrentUserId()));
-
-    Page<LoanApplication> loans;
-
-    // If filterByBranch is true and user has a branch, filter by that branch
-    if (filterByBranch && currentUser.getBranch() != null) {
-      loans =
-          loanApplicationRepository.findByCurrentStatusInAndBranch_IdOrderByCreatedAtDesc(
-              statuses, currentUser.getBranch().getId(), pageable);
-    } else if (filterByBranch && currentUser.getBranch() == null) {
+    Long branchId = resolveQueueBranch(currentUserId, filterByBranch);
+    if (NO_BRANCH.equals(branchId)) {
       // User has no branch assigned, return empty list
       return new PageImpl<>(new ArrayList<>(), pageable, 0);
-    } else {
+    }
+
+    Page<LoanQueueRow> rows =
+        branchId != null
+            ? loanApplicationRepository.findQueueByBranch(statuses, branchId, pageable)
+            : loanApplicationRepository.findQueue(statuses, pageable);
+
+    Map<String, List<String>> allowedActionsByStatus = new HashMap<>();
+    return rows.map(row -> toQueueItem(row, allowedActionsByStatus, currentUserId));
+  }
+
+  private CursorPage<LoanQueueItemDTO> scrollQueueItems(
+      List<String> statuses,
+      boolean filterByBranch,
+      String cursor,
+      int size,
+      boolean includeTotal) {
+    Long currentUserId = getCurrentUserId();
+    Long branchId = resolveQueueBranch(currentUserId, filterByBranch);
+    if (NO_BRANCH.equals(branchId)) {
+      return CursorPage.of(List.<LoanQueueRow>of(), size, r -> null, r -> null);
+    }
+
+    Cursor after = Cursor.decode(cursor);
+    Pageable limit = CursorPage.limit(size);
+    List<LoanQueueRow> rows =
+        branchId != null
+            ? loanApplicationRepository.findQueueByBranchAfter(
+                statuses, branchId, after.createdAt(), after.id(), limit)
+            : loanApplicationRepository.findQueueAfter(
+                statuses, after.createdAt(), after.id(), limit);
+
+    Map<String, List<String>> allowedActionsByStatus = new HashMap<>();
+    CursorPage<LoanQueueItemDTO> page =
+        CursorPage.of(
+            rows,
+            size,
+            row -> new Cursor(row.getCreatedAt(), row.getLoanApplicationId()),
+            row -> toQueueItem(row, allowedActionsByStatus, currentUserId));
+    if (includeTotal) {
+      page.withTotal(
+          countCache.get(
+              "queue:" + statuses + ":branch=" + branchId,
+              () ->
+                  branchId != null
+                      ? loanApplicationRepository.countByCurrentStatusInAndBranch_Id(
+                          statuses, branchId)
+                      : loanApplicationRepository.countByCurrentStatusIn(statuses)));
+    }
+    return page;
+  }
+
+  private List<QueueStatsDTO> queueStats(List<String> statuses, boolean filterByBranch) {
+    Long branchId = resolveQueueBranch(getCurrentUserId(), filterByBranch);
+    return queueStatsService.getStats(statuses, branchId);
+  }
+
+  private SseEmitter streamQueue(List<String> statuses, boolean filterByBranch, Long lastEventId) {
+    // A user without a branch subscribes with NO_BRANCH, which matches no loan
+    Long branchId = resolveQueueBranch(getCurrentUserId(), filterByBranch);
+    return queueStreamService.subscribe(statuses, branchId, lastEventId);
+  }
+
+  /**
+   * Branch to filter a queue by: null for all branches, {@link #NO_BRANCH} when the queue is
+   * branch-scoped but the user has no branch.
+   */
+  private Long resolveQueueBranch(Long currentUserId, boolean filterByBranch) {
+    if (!filterByBranch) {
       // No branch filter (e.g., Back Office sees all)
-      loans =
-          loanApplicationRepository.findByCurrentStatusInOrderByCreatedAtDesc(statuses, pageable);
+      return null;
     }
+    User currentUser =
+        userRepository
+            .findById(currentUserId)
+            .orElseThrow(() -> new ResourceNotFoundException("User", "id", currentUserId));
+    return currentUser.getBranch() != null ? currentUser.getBranch().getId() : NO_BRANCH;
+  }
 
-    return loans.map(
-        loan -> {
-          Long userId = getCurrentUserId();
-          List<String> allowedActions =
-              loanWorkflowService.getAllowedActions(loan.getCurrentStatus(), userId);
-
-          // Fetch history once to extract all comments
-          List<LoanHistory> historyList =
-              loanHistoryRepository.findByLoanApplication_LoanApplicationIdOrderByCreatedAtDesc(
-                  loan.getLoanApplicationId());
-
-          String marketingComment =
-              historyList.stream()
-                  .filter(
-                      h ->
-                          h.getComment() != null
-                              && !h.getComment().isEmpty()
-                              && (LoanStatus.SUBMITTED.name().equals(h.getFromStatus())
-                                  || LoanStatus.IN_REVIEW.name().equals(h.getFromStatus())))
-                  .findFirst()
-                  .map(LoanHistory::getComment)
-                  .orElse(null);
-
-          String branchManagerComment =
-              historyList.stream()
-                  .filter(
-                      h ->
-                          h.getComment() != null
-                              && !h.getComment().isEmpty()
-                              && LoanStatus.WAITING_APPROVAL.name().equals(h.getFromStatus()))
-                  .findFirst()
-                  .map(LoanHistory::getComment)
-                  .orElse(null);
-
-          // Get branch info
-          Branch loanBranch = loan.getBranch();
-
-          return LoanQueueItemDTO.builder()
-              .loanApplicationId(loan.getLoanApplicationId())
-              .userId(loan.getUser().getId())
-              .username(loan.getUser().getUsername())
-              .userEmail(loan.getUser().getEmail())
-              .productId(loan.getProduct().getId())
-              .productName(loan.getProduct().getName())
-              .amount(loan.getAmount())
-              .tenureMonths(loan.getTenureMonths())
-              .interestRateApplied(loan.getInterestRateApplied())
-              .currentStatus(loan.getCurrentStatus())
-              .createdAt(loan.getCreatedAt())
-              .updatedAt(loan.getUpdatedAt())
-              .latitude(loan.getLatitude())
-              .longitude(loan.getLongitude())
-              .allowedActions(allowedActions)
-              .userNik(
-                  loan.getUser().getUserProfile() != null
-                      ? loan.getUser().getUserProfile().getNik()
-                      : null)
-              .userKtpPath(
-                  loan.getUser().getUserProfile() != null
-                      ? loan.getUser().getUserProfile().getKtpPath()
-                      : null)
-              .userPhoneNumber(
-                  loan.getUser().getUserProfile() != null
-                      ? loan.getUser().getUserProfile().getPhoneNumber()
-                      : null)
-              .userAddress(
-                  loan.getUser().getUserProfile() != null
-                      ? loan.getUser().getUserProfile().getAddress()
-                      : null)
-              .userAccountNumber(
-                  loan.getUser().getUserProfile() != null
-                      ? loan.getUser().getUserProfile().getAccountNumber()
-                      : null)
-              .userBankName(
-                  loan.getUser().getUserProfile() != null
-                      ? loan.getUser().getUserProfile().getBankName()
-                      : null)
-              .marketingComment(marketingComment)
-              .branchManagerComment(branchManagerComment)
-              .branchId(loanBranch != null ? loanBranch.getId() : null)
-              .branchName(loanBranch != null ? loanBranch.getName() : null)
-              .build();
-        });
+  private LoanQueueItemDTO toQueueItem(
+      LoanQueueRow row, Map<String, List<String>> allowedActionsByStatus, Long currentUserId) {
+    return LoanQueueItemDTO.builder()
+        .loanApplicationId(row.getLoanApplicationId())
+        .userId(row.getUserId())
+        .username(row.getUsername())
+        .userEmail(row.getUserEmail())
+        .productId(row.getProductId())
+        .productName(row.getProductName())
+        .amount(row.getAmount())
+        .tenureMonths(row.getTenureMonths())
+        .interestRateApplied(row.getInterestRateApplied())
+        .currentStatus(row.getCurrentStatus())
+        .createdAt(row.getCreatedAt())
+        .updatedAt(row.getUpdatedAt())
+        .latitude(row.getLatitude())
+        .longitude(row.getLongitude())
+        // Allowed actions depend only on status and the current user, not on the loan
+        .allowedActions(
+            allowedActionsByStatus.computeIfAbsent(
+                row.getCurrentStatus(),
+                status -> loanWorkflowService.getAllowedActions(status, currentUserId)))
+        .userNik(row.getUserNik())
+        .userKtpPath(row.getUserKtpPath())
+        .userPhoneNumber(row.getUserPhoneNumber())
+        .userAddress(row.getUserAddress())
+        .userAccountNumber(row.getUserAccountNumber())
+        .userBankName(row.getUserBankName())
+        .marketingComment(row.getMarketingComment())
+        .branchManagerComment(row.getBranchManagerComment())
+        .branchId(row.getBranchId())
+        .branchName(row.getBranchName())
+        .build();
   }
 }
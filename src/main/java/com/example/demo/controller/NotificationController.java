@@ -1,13 +1,19 @@
 package com.example.demo.controller;
 
 import com.example.demo.base.ApiResponse;
+import com.example.demo.base.CursorPage;
 import com.example.demo.base.ResponseUtil;
 import com.example.demo.dto.NotificationDTO;
+import com.example.demo.security.CustomUserDetails;
 import com.example.demo.service.NotificationService;
+import com.example.demo.service.NotificationStreamService;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/notifications")
@@ -15,6 +21,7 @@ import org.springframework.web.bind.annotation.*;
 public class NotificationController {
 
   private final NotificationService notificationService;
+  private final NotificationStreamService notificationStreamService;
 
   @PostMapping
   public ResponseEntity<ApiResponse<NotificationDTO>> createNotification(
@@ -23,6 +30,15 @@ public class NotificationController {
     return ResponseUtil.created(created, "Notification created successfully");
   }
 
+  /**
+   * Live notifications of the signed-in user over server-sent events, authenticated by the JWT
+   * cookie. Clients load the inbox after the stream opens, and again on a {@code resync} event.
+   */
+  @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamNotifications(@AuthenticationPrincipal CustomUserDetails userDetails) {
+    return notificationStreamService.subscribe(userDetails.getUser().getId());
+  }
+
   @GetMapping("/{notificationId}")
   public ResponseEntity<ApiResponse<NotificationDTO>> getNotification(
       @PathVariable Long notificationId) {
@@ -31,17 +47,22 @@ public class NotificationController {
   }
 
   @GetMapping("/user/{userId}")
-  public ResponseEntity<ApiResponse<List<NotificationDTO>>> getNotificationsByUserId(
-      @PathVariable Long userId) {
-    List<NotificationDTO> notifications = notificationService.getNotificationsByUserId(userId);
+  public ResponseEntity<ApiResponse<CursorPage<NotificationDTO>>> getNotificationsByUserId(
+      @PathVariable Long userId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int size) {
+    CursorPage<NotificationDTO> notifications =
+        notificationService.getInbox(userId, false, cursor, size);
     return ResponseUtil.ok(notifications, "Notifications retrieved successfully");
   }
 
   @GetMapping("/user/{userId}/unread")
-  public ResponseEntity<ApiResponse<List<NotificationDTO>>> getUnreadNotificationsByUserId(
-      @PathVariable Long userId) {
-    List<NotificationDTO> notifications =
-        notificationService.getUnreadNotificationsByUserId(userId);
+  public ResponseEntity<ApiResponse<CursorPage<NotificationDTO>>> getUnreadNotificationsByUserId(
+      @PathVariable Long userId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int size) {
+    CursorPage<NotificationDTO> notifications =
+        notificationService.getInbox(userId, true, cursor, size);
     return ResponseUtil.ok(notifications, "Unread notifications retrieved successfully");
   }
 
@@ -55,12 +76,26 @@ public class NotificationController {
     // we provide message
   }
 
+  /**
+   * Newest notifications, at most {@link CursorPage#LEGACY_LIST_LIMIT}.
+   *
+   * @deprecated kept for existing clients, page through {@code /cursor} instead
+   */
+  @Deprecated
   @GetMapping
   public ResponseEntity<ApiResponse<List<NotificationDTO>>> getAllNotifications() {
     List<NotificationDTO> notifications = notificationService.getAllNotifications();
     return ResponseUtil.ok(notifications, "Notifications retrieved successfully");
   }
 
+  @GetMapping("/cursor")
+  public ResponseEntity<ApiResponse<CursorPage<NotificationDTO>>> scrollNotifications(
+      @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int size) {
+    CursorPage<NotificationDTO> notifications =
+        notificationService.getAllNotifications(cursor, size);
+    return ResponseUtil.ok(notifications, "Notifications retrieved successfully");
+  }
+
   @PatchMapping("/{notificationId}/read")
   public ResponseEntity<ApiResponse<NotificationDTO>> markAsRead(
       @PathVariable Long notificationId) {
@@ -68,6 +103,24 @@ public class NotificationController {
     return ResponseUtil.ok(updated, "Notification marked as read");
   }
 
+  /** Mark every unread notification of the user as read; returns how many were marked. */
+  @PatchMapping("/user/{userId}/read-all")
+  public ResponseEntity<ApiResponse<Integer>> markAllAsRead(@PathVariable Long userId) {
+    int marked = notificationService.markAllAsRead(userId);
+    return ResponseUtil.ok(marked, "Notifications marked as read");
+  }
+
+  /**
+   * Mark the user's unread notifications up to and including {@code notificationId} as read;
+   * returns how many were marked.
+   */
+  @PatchMapping("/user/{userId}/read-up-to/{notificationId}")
+  public ResponseEntity<ApiResponse<Integer>> markAsReadUpTo(
+      @PathVariable Long userId, @PathVariable Long notificationId) {
+    int marked = notificationService.markAsReadUpTo(userId, notificationId);
+    return ResponseUtil.ok(marked, "Notifications marked as read");
+  }
+
   @DeleteMapping("/{notificationId}")
   public ResponseEntity<ApiResponse<Void>> deleteNotification(@PathVariable Long notificationId) {
     notificationService.deleteNotification(notificationId);
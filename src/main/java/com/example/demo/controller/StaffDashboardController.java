@@ -4,16 +4,29 @@ import com.example.demo.base.ApiResponse;
 import com.example.demo.base.ResponseUtil;
 import com.example.demo.dto.LoanApplicationDTO;
 import com.example.demo.dto.StaffDashboardDTO;
+import com.example.demo.dto.dashboard.LoanStatsBreakdownDTO;
+import com.example.demo.dto.dashboard.PortfolioQueryDTO;
+import com.example.demo.dto.dashboard.PortfolioQueryResultDTO;
+import com.example.demo.dto.dashboard.PortfolioSnapshotDTO;
+import com.example.demo.dto.dashboard.SlaStatsDTO;
 import com.example.demo.entity.LoanApplication;
+import com.example.demo.enums.SlaStage;
 import com.example.demo.repository.LoanApplicationRepository;
+import com.example.demo.service.PortfolioCubeService;
+import com.example.demo.service.SlaHistogramService;
+import jakarta.validation.Valid;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
@@ -27,16 +40,103 @@ public class StaffDashboardController {
 
   private final LoanApplicationRepository loanApplicationRepository;
   private final com.example.demo.service.DashboardService dashboardService;
+  private final com.example.demo.service.ExecutiveDashboardCache executiveDashboardCache;
+  private final SlaHistogramService slaHistogramService;
+  private final PortfolioCubeService portfolioCubeService;
 
-  /** Executive/Analytics Dashboard. Returns high-level metrics and trends. */
+  /**
+   * Executive/Analytics Dashboard. Returns high-level metrics and trends, from a cache that may lag
+   * the latest transitions by a refresh; {@code cacheAgeMillis} and {@code stale} tell by how much.
+   */
   @GetMapping("/dashboard/analytics")
   @PreAuthorize(
       "hasAnyRole('ADMIN', 'MARKETING', 'BRANCH_MANAGER', 'BACK_OFFICE') or @accessControl.hasMenu('STAFF_DASHBOARD')")
   public ResponseEntity<ApiResponse<com.example.demo.dto.dashboard.ExecutiveDashboardDTO>>
       getAnalytics(
           @org.springframework.web.bind.annotation.RequestParam(required = false) Integer year) {
+    return ResponseUtil.ok(executiveDashboardCache.get(year), "Analytics data loaded successfully");
+  }
+
+  /**
+   * Loan totals per branch for the days {@code from} to {@code to}, both inclusive. Defaults to the
+   * current year.
+   */
+  @GetMapping("/dashboard/analytics/branches")
+  @PreAuthorize(
+      "hasAnyRole('ADMIN', 'MARKETING', 'BRANCH_MANAGER', 'BACK_OFFICE') or @accessControl.hasMenu('STAFF_DASHBOARD')")
+  public ResponseEntity<ApiResponse<List<LoanStatsBreakdownDTO>>> getBranchAnalytics(
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+    return ResponseUtil.ok(
+        dashboardService.getBranchBreakdown(rangeStart(from), rangeEnd(to)),
+        "Branch analytics loaded successfully");
+  }
+
+  /**
+   * Loan totals per product for the days {@code from} to {@code to}, both inclusive. Defaults to
+   * the current year.
+   */
+  @GetMapping("/dashboard/analytics/products")
+  @PreAuthorize(
+      "hasAnyRole('ADMIN', 'MARKETING', 'BRANCH_MANAGER', 'BACK_OFFICE') or @accessControl.hasMenu('STAFF_DASHBOARD')")
+  public ResponseEntity<ApiResponse<List<LoanStatsBreakdownDTO>>> getProductAnalytics(
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+    return ResponseUtil.ok(
+        dashboardService.getProductBreakdown(rangeStart(from), rangeEnd(to)),
+        "Product analytics loaded successfully");
+  }
+
+  /**
+   * Workflow stage duration percentiles, in seconds, for the months {@code from} to {@code to}
+   * (both inclusive, {@code yyyy-MM}). Defaults to the current month, all stages, all branches and
+   * p50/p95/p99.
+   */
+  @GetMapping("/dashboard/analytics/sla")
+  @PreAuthorize(
+      "hasAnyRole('ADMIN', 'MARKETING', 'BRANCH_MANAGER', 'BACK_OFFICE') or @accessControl.hasMenu('STAFF_DASHBOARD')")
+  public ResponseEntity<ApiResponse<List<SlaStatsDTO>>> getSlaAnalytics(
+      @RequestParam(required = false) SlaStage stage,
+      @RequestParam(required = false) Long branchId,
+      @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+      @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to,
+      @RequestParam(required = false) List<Double> percentiles) {
+    YearMonth first = from != null ? from : YearMonth.now();
+    YearMonth last = to != null ? to : first.isAfter(YearMonth.now()) ? first : YearMonth.now();
+    return ResponseUtil.ok(
+        slaHistogramService.getStats(stage, branchId, first, last, percentiles),
+        "SLA analytics loaded successfully");
+  }
+
+  /**
+   * Ad-hoc group-by over the whole portfolio, from the in-memory snapshot. List parameters are
+   * comma-separated, e.g. {@code groupBy=BRANCH,STATUS&createdFrom=2026-01-01}.
+   */
+  @GetMapping("/dashboard/analytics/portfolio")
+  @PreAuthorize(
+      "hasAnyRole('ADMIN', 'MARKETING', 'BRANCH_MANAGER', 'BACK_OFFICE') or @accessControl.hasMenu('STAFF_DASHBOARD')")
+  public ResponseEntity<ApiResponse<PortfolioQueryResultDTO>> queryPortfolio(
+      @Valid PortfolioQueryDTO query) {
     return ResponseUtil.ok(
-        dashboardService.getExecutiveDashboard(year), "Analytics data loaded successfully");
+        portfolioCubeService.query(query), "Portfolio analytics loaded successfully");
+  }
+
+  /** Row count, memory footprint and load time of the portfolio snapshot. */
+  @GetMapping("/dashboard/analytics/portfolio/snapshot")
+  @PreAuthorize(
+      "hasAnyRole('ADMIN', 'MARKETING', 'BRANCH_MANAGER', 'BACK_OFFICE') or @accessControl.hasMenu('STAFF_DASHBOARD')")
+  public ResponseEntity<ApiResponse<PortfolioSnapshotDTO>> getPortfolioSnapshot() {
+    return ResponseUtil.ok(
+        portfolioCubeService.getSnapshot(), "Portfolio snapshot status retrieved successfully");
+  }
+
+  private static LocalDate rangeStart(LocalDate from) {
+    return from != null ? from : LocalDate.now().withDayOfYear(1);
+  }
+
+  // Exclusive end of the rollup range
+  private static LocalDate rangeEnd(LocalDate to) {
+    return to != null ? to.plusDays(1) : LocalDate.now().withDayOfYear(1).plusYears(1);
   }
 
   /**
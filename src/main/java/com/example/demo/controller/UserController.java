@@ -2,6 +2,7 @@ package com.example.demo.controller;
 
 import com.example.demo.base.ApiResponse;
 import com.example.demo.base.BaseController;
+import com.example.demo.base.CursorPage;
 import com.example.demo.base.ResponseUtil;
 import com.example.demo.constants.ApiMessage;
 import com.example.demo.dto.AdminCreateUserRequest;
@@ -69,6 +70,16 @@ public class UserController extends BaseController {
     return ResponseUtil.ok(users, ApiMessage.USERS_FETCHED);
   }
 
+  @GetMapping("/admin/list/cursor")
+  @PreAuthorize("hasRole('ADMIN')")
+  public ResponseEntity<ApiResponse<CursorPage<UserListDTO>>> scrollUsersForAdmin(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "10") int size,
+      @RequestParam(defaultValue = "false") boolean includeTotal) {
+    CursorPage<UserListDTO> users = userService.scrollUsersForAdmin(cursor, size, includeTotal);
+    return ResponseUtil.ok(users, ApiMessage.USERS_FETCHED);
+  }
+
   @PostMapping("/admin/create")
   @PreAuthorize("hasRole('ADMIN')")
   public ResponseEntity<ApiResponse<UserListDTO>> createUserByAdmin(
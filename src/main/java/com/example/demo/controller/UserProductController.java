@@ -1,6 +1,7 @@
 package com.example.demo.controller;
 
 import com.example.demo.base.ApiResponse;
+import com.example.demo.base.CursorPage;
 import com.example.demo.base.ResponseUtil;
 import com.example.demo.dto.UserProductDTO;
 import com.example.demo.dto.UserTierLimitDTO;
@@ -50,12 +51,25 @@ public class UserProductController {
     return ResponseUtil.ok(userProducts, "Active user products retrieved successfully");
   }
 
+  /**
+   * Newest user products, at most {@link CursorPage#LEGACY_LIST_LIMIT}.
+   *
+   * @deprecated kept for existing clients, page through {@code /cursor} instead
+   */
+  @Deprecated
   @GetMapping
   public ResponseEntity<ApiResponse<List<UserProductDTO>>> getAllUserProducts() {
     List<UserProductDTO> userProducts = userProductService.getAllUserProducts();
     return ResponseUtil.ok(userProducts, "User products retrieved successfully");
   }
 
+  @GetMapping("/cursor")
+  public ResponseEntity<ApiResponse<CursorPage<UserProductDTO>>> scrollUserProducts(
+      @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int size) {
+    CursorPage<UserProductDTO> userProducts = userProductService.getAllUserProducts(cursor, size);
+    return ResponseUtil.ok(userProducts, "User products retrieved successfully");
+  }
+
   @PutMapping("/{userProductId}")
   public ResponseEntity<ApiResponse<UserProductDTO>> updateUserProduct(
       @PathVariable Long userProductId, @RequestBody UserProductDTO dto) {
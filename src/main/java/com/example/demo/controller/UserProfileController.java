@@ -2,6 +2,7 @@ package com.example.demo.controller;
 
 import com.example.demo.base.ApiResponse;
 import com.example.demo.base.BaseController;
+import com.example.demo.base.CursorPage;
 import com.example.demo.base.ResponseUtil;
 import com.example.demo.constants.ApiMessage;
 import com.example.demo.dto.UploadImageResponse;
@@ -67,13 +68,26 @@ public class UserProfileController extends BaseController {
     return ResponseUtil.ok(userProfile, ApiMessage.PROFILE_FETCHED);
   }
 
-  /** Get all user profiles - ADMIN ONLY endpoint */
+  /**
+   * Newest user profiles, at most {@link CursorPage#LEGACY_LIST_LIMIT} - ADMIN ONLY endpoint.
+   *
+   * @deprecated kept for existing clients, page through {@code /cursor} instead
+   */
+  @Deprecated
   @GetMapping
   public ResponseEntity<ApiResponse<List<UserProfileDTO>>> getAllUserProfiles() {
     List<UserProfileDTO> userProfiles = userProfileService.getAllUserProfiles();
     return ResponseUtil.ok(userProfiles, ApiMessage.PROFILE_FETCHED);
   }
 
+  /** Get user profiles one keyset page at a time - ADMIN ONLY endpoint */
+  @GetMapping("/cursor")
+  public ResponseEntity<ApiResponse<CursorPage<UserProfileDTO>>> scrollUserProfiles(
+      @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int size) {
+    CursorPage<UserProfileDTO> userProfiles = userProfileService.getAllUserProfiles(cursor, size);
+    return ResponseUtil.ok(userProfiles, ApiMessage.PROFILE_FETCHED);
+  }
+
   /** Get user profile by ID - For Staff/Admin use */
   @GetMapping("/{userId}")
   public ResponseEntity<ApiResponse<UserProfileDTO>> getUserProfile(@PathVariable Long userId) {
@@ -27,4 +27,9 @@ public class ActionHistoryRequestDTO {
   @Max(value = 100, message = "size must not exceed 100")
   @Builder.Default
   private Integer size = 20; // Optional: items per page (default: 20)
+
+  private String cursor; // Optional: keyset cursor from the previous page (scroll endpoints only)
+
+  @Builder.Default
+  private Boolean includeTotal = false; // Optional: attach an approximate total (scroll endpoints)
 }
@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Progress report for a long-running, resumable batch job. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchJobStatusDTO {
+  private String jobName;
+  private String status; // IDLE, RUNNING, COMPLETED, FAILED
+  private long processedCount; // Rows scanned so far
+  private long affectedCount; // Rows changed so far (e.g. users upgraded)
+  private int partitionsCompleted;
+  private int partitionsTotal;
+  private LocalDateTime startedAt;
+  private LocalDateTime finishedAt;
+  private String message;
+}
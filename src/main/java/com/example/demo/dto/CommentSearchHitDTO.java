@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** One ranked match of a loan comment search. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommentSearchHitDTO {
+  private Long loanHistoryId;
+  private Long loanApplicationId;
+  private Long branchId;
+  private String action;
+  private String actorUsername;
+  private String comment;
+  private LocalDateTime createdAt;
+  private int matchedTerms; // Distinct query terms found in the comment
+  private double score; // Sum of term frequency x inverse document frequency
+}
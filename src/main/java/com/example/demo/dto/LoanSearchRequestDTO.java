@@ -0,0 +1,61 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.PositiveOrZero;
+import java.time.LocalDate;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+/** Loan search filters; every field is optional and filters are combined with AND. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanSearchRequestDTO {
+  private String applicant; // Prefix of the applicant's username or email
+  private String nik; // Prefix of the applicant's NIK
+  private String phoneNumber; // Prefix of the applicant's phone number
+  private List<String> statuses; // e.g. SUBMITTED,IN_REVIEW
+  private Long branchId;
+
+  @PositiveOrZero(message = "minAmount must not be negative")
+  private Double minAmount;
+
+  @PositiveOrZero(message = "maxAmount must not be negative")
+  private Double maxAmount;
+
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+  private LocalDate createdFrom; // Inclusive
+
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+  private LocalDate createdTo; // Inclusive
+
+  private String cursor; // Keyset cursor from the previous page
+
+  @Min(value = 1, message = "size must be at least 1")
+  @Max(value = 100, message = "size must not exceed 100")
+  @Builder.Default
+  private Integer size = 20;
+
+  @Builder.Default private Boolean includeTotal = false;
+
+  /** Filter part of the request, used as the cache key for approximate totals. */
+  public String filterSignature() {
+    return String.join(
+        "|",
+        String.valueOf(applicant),
+        String.valueOf(nik),
+        String.valueOf(phoneNumber),
+        statuses != null ? String.join(",", statuses.stream().sorted().toList()) : "null",
+        String.valueOf(branchId),
+        String.valueOf(minAmount),
+        String.valueOf(maxAmount),
+        String.valueOf(createdFrom),
+        String.valueOf(createdTo));
+  }
+}
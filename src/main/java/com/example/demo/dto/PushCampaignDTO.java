@@ -0,0 +1,28 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A push campaign and its progress; {@code progress.processedCount} counts devices attempted and
+ * {@code progress.affectedCount} devices reached.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PushCampaignDTO {
+  private Long campaignId;
+  private String title;
+  private String body;
+  private String roleName;
+  private Integer tierOrder;
+  private Long branchId;
+  private Long productId;
+  private Long createdBy;
+  private LocalDateTime createdAt;
+  private BatchJobStatusDTO progress;
+}
@@ -0,0 +1,33 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Push campaign to a user segment; filters left empty do not restrict the segment. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PushCampaignRequest {
+
+  @NotBlank(message = "title is required")
+  @Size(max = 200, message = "title must be at most 200 characters")
+  private String title;
+
+  @NotBlank(message = "body is required")
+  @Size(max = 1000, message = "body must be at most 1000 characters")
+  private String body;
+
+  /** Optional data payload for the notification. */
+  private Map<String, String> data;
+
+  private String roleName; // e.g. USER, BACK_OFFICE
+  private Integer tierOrder; // Users with an active product of this tier, 3 = Gold
+  private Long branchId;
+  private Long productId; // Users with this product active
+}
@@ -0,0 +1,27 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One change to a staff work queue, pushed over the queue event stream. Clients apply it to the
+ * page they already hold instead of polling the queue endpoints.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueDeltaDTO {
+  private long eventId; // Monotonic across nodes; sent back as Last-Event-ID on reconnect
+  private String type; // ADDED, CLAIMED, MOVED, UPDATED
+  private Long loanApplicationId;
+  private Long branchId;
+  private String action;
+  private String fromStatus; // Queue the loan left, null for ADDED
+  private String toStatus; // Queue the loan is now in
+  private Long actorUserId;
+  private LocalDateTime occurredAt;
+}
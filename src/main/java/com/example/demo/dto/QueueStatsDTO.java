@@ -0,0 +1,26 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Depth and aging of one queue (status), for one branch or across all branches. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueStatsDTO {
+  private String status;
+  private Long branchId; // Null when aggregated over all branches
+  private long depth; // Loans currently waiting
+  private LocalDateTime oldestEnteredAt; // When the longest-waiting loan entered the queue
+  private Long oldestAgeSeconds;
+
+  // Aging histogram by time spent in the queue
+  private long agedUnder1h;
+  private long aged1hTo24h;
+  private long aged1dTo3d;
+  private long agedOver3d;
+}
@@ -0,0 +1,25 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One message on a user's notification stream. Either a stored notification, which the client adds
+ * to its inbox, or a transient message sent through the {@code IN_APP_REALTIME} channel.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RealtimeNotificationDTO {
+  private Long userId;
+  private NotificationDTO notification; // Null for transient messages
+  private String title;
+  private String body;
+  private Map<String, String> data;
+  private LocalDateTime sentAt;
+}
@@ -0,0 +1,25 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Summary of one bank statement repayment import. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepaymentImportResultDTO {
+  private String importId; // Key for downloading the reconciliation report
+  private String fileName;
+  private String format; // CSV, FIXED_WIDTH
+  private long linesRead;
+  private long matchedCount; // Loans marked as PAID
+  private long unmatchedCount; // Lines written to the reconciliation report
+  private double matchedAmount;
+  private long tierUpgrades;
+  private LocalDateTime startedAt;
+  private LocalDateTime finishedAt;
+}
@@ -1,11 +1,12 @@
 package com.example.demo.dto.dashboard;
 
+import java.time.LocalDateTime;
 import java.util.Map;
 import lombok.Builder;
 import lombok.Data;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class ExecutiveDashboardDTO {
 
   // Section 1: Funnel & Volume
@@ -21,4 +22,9 @@ public class ExecutiveDashboardDTO {
 
   // Section 3: Trends
   private ChartDataDTO disbursementTrend;
+
+  // Cache metadata, see ExecutiveDashboardCache
+  private LocalDateTime generatedAt;
+  private Long cacheAgeMillis;
+  private boolean stale; // Served while a refresh is running
 }
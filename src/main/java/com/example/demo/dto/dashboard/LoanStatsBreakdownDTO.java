@@ -0,0 +1,23 @@
+package com.example.demo.dto.dashboard;
+
+import java.util.Map;
+import lombok.Builder;
+import lombok.Data;
+
+/** Loan totals of one branch or product over a date range. */
+@Data
+@Builder
+public class LoanStatsBreakdownDTO {
+  private Long id; // Branch or product id, 0 for loans without a branch
+  private String name;
+
+  // Loans created in the range, by current status
+  private Map<String, Long> statusCounts;
+  private Long totalApplications;
+  private Double totalPrincipal;
+  private Double totalAmountToPay;
+
+  // Loans disbursed in the range
+  private Long disbursedCount;
+  private Double disbursedAmount;
+}
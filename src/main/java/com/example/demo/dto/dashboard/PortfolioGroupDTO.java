@@ -0,0 +1,16 @@
+package com.example.demo.dto.dashboard;
+
+import java.util.Map;
+import lombok.Builder;
+import lombok.Data;
+
+/** Totals of one group of a portfolio query. */
+@Data
+@Builder
+public class PortfolioGroupDTO {
+  private Map<String, Object> key; // Dimension name -> value, e.g. "BRANCH" -> 3
+  private Long loanCount;
+  private Double totalPrincipal;
+  private Double totalAmountToPay;
+  private Double approvalRate; // Percentage (0-100) of decided loans, null if none decided
+}
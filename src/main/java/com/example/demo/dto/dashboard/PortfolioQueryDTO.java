@@ -0,0 +1,38 @@
+package com.example.demo.dto.dashboard;
+
+import com.example.demo.enums.PortfolioDimension;
+import jakarta.validation.constraints.PositiveOrZero;
+import java.time.LocalDate;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+/** Group-by query over the portfolio snapshot; every filter is optional and combined with AND. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioQueryDTO {
+  private List<PortfolioDimension> groupBy; // e.g. BRANCH,STATUS; none for one grand total
+  private List<String> statuses;
+  private List<Long> branchIds; // 0 for loans without a branch
+  private List<Long> productIds;
+  private List<Integer> tiers; // Product tier orders
+
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+  private LocalDate createdFrom; // Inclusive
+
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+  private LocalDate createdTo; // Inclusive
+
+  @PositiveOrZero(message = "minAmount must not be negative")
+  private Double minAmount;
+
+  @PositiveOrZero(message = "maxAmount must not be negative")
+  private Double maxAmount;
+
+  private List<Double> amountBuckets; // Boundaries for AMOUNT_BUCKET, e.g. 1000000,5000000
+}
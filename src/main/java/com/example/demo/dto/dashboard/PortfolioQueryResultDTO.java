@@ -0,0 +1,15 @@
+package com.example.demo.dto.dashboard;
+
+import java.util.List;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class PortfolioQueryResultDTO {
+  private List<PortfolioGroupDTO> groups;
+  private Long scannedRows;
+  private Long matchedRows;
+  private Double elapsedMillis;
+  private PortfolioSnapshotDTO snapshot;
+}
@@ -0,0 +1,19 @@
+package com.example.demo.dto.dashboard;
+
+import java.time.LocalDateTime;
+import lombok.Builder;
+import lombok.Data;
+
+/** State and memory footprint of the in-memory portfolio snapshot. */
+@Data
+@Builder
+public class PortfolioSnapshotDTO {
+  private String status; // LOADING, READY, FAILED, DISABLED
+  private Long rows;
+  private Long capacity; // Rows allocated
+  private Long maxRows;
+  private Long droppedRows; // Loans left out because maxRows was reached
+  private Long footprintBytes;
+  private LocalDateTime loadedAt;
+  private Long loadMillis;
+}
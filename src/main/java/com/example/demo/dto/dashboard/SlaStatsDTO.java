@@ -0,0 +1,19 @@
+package com.example.demo.dto.dashboard;
+
+import java.util.Map;
+import lombok.Builder;
+import lombok.Data;
+
+/** Duration percentiles of one workflow stage over a range of months, in seconds. */
+@Data
+@Builder
+public class SlaStatsDTO {
+  private String stage; // e.g. SUBMITTED_TO_APPROVED
+  private Long branchId; // null for all branches
+  private String fromMonth; // yyyy-MM, inclusive
+  private String toMonth; // yyyy-MM, inclusive
+  private Long sampleCount;
+  private Double meanSeconds;
+  private Long maxSeconds;
+  private Map<String, Long> percentiles; // e.g. "p95" -> 86400
+}
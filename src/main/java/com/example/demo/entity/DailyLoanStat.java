@@ -0,0 +1,72 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Daily analytics rollup of {@link LoanApplication}, one row per (date, branch, product, status).
+ *
+ * <ul>
+ *   <li>{@code loanCount}, {@code principalAmount} and {@code totalToPayAmount} describe the loans
+ *       <em>created</em> on {@code statDate} that are currently in {@code status}; a transition
+ *       moves a loan from one row to another of the same date
+ *   <li>{@code disbursedCount} and {@code disbursedAmount} are the loans first disbursed on {@code
+ *       statDate}, kept on the DISBURSED row of that date
+ * </ul>
+ *
+ * Loans without a branch use {@code branchId} 0 so the key has no NULLs. Maintained as deltas by
+ * {@code DailyLoanStatsService}.
+ */
+@Entity
+@Table(
+    name = "daily_loan_stats",
+    uniqueConstraints =
+        @UniqueConstraint(
+            name = "uk_daily_loan_stats_key",
+            columnNames = {"stat_date", "branch_id", "product_id", "status"}),
+    indexes = {
+      @Index(name = "idx_daily_loan_stats_branch_date", columnList = "branch_id, stat_date"),
+      @Index(name = "idx_daily_loan_stats_product_date", columnList = "product_id, stat_date")
+    })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyLoanStat {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "daily_loan_stat_id")
+  private Long dailyLoanStatId;
+
+  @Column(name = "stat_date", nullable = false)
+  private LocalDate statDate;
+
+  @Column(name = "branch_id", nullable = false)
+  private Long branchId;
+
+  @Column(name = "product_id", nullable = false)
+  private Long productId;
+
+  @Column(nullable = false, length = 50)
+  private String status;
+
+  @Column(name = "loan_count", nullable = false)
+  private Long loanCount;
+
+  @Column(name = "principal_amount", nullable = false)
+  private Double principalAmount;
+
+  @Column(name = "total_to_pay_amount", nullable = false)
+  private Double totalToPayAmount;
+
+  @Column(name = "disbursed_count", nullable = false)
+  private Long disbursedCount;
+
+  @Column(name = "disbursed_amount", nullable = false)
+  private Double disbursedAmount;
+}
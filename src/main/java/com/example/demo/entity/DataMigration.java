@@ -0,0 +1,37 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Marker of a one-time data backfill that has been applied, so later starts skip it. Unlike {@link
+ * JobCheckpoint}, which tracks the progress of resumable batch jobs, a row here only records that a
+ * migration completed.
+ */
+@Entity
+@Table(name = "data_migrations")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DataMigration {
+
+  @Id
+  @Column(name = "migration_name", length = 100)
+  private String migrationName;
+
+  @Column(name = "affected_rows", nullable = false)
+  private Long affectedRows;
+
+  @Column(name = "applied_at", nullable = false, updatable = false)
+  private LocalDateTime appliedAt;
+
+  @PrePersist
+  protected void onCreate() {
+    appliedAt = LocalDateTime.now();
+  }
+}
@@ -0,0 +1,65 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Persisted progress of one partition of a resumable batch job. A partition covers the id range
+ * (rangeStart, rangeEnd] and records the last id it committed, so a crashed run can continue from
+ * exactly where it stopped.
+ */
+@Entity
+@Table(
+    name = "job_checkpoints",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"job_name", "partition_key"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobCheckpoint {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "checkpoint_id")
+  private Long checkpointId;
+
+  @Column(name = "job_name", nullable = false, length = 100)
+  private String jobName;
+
+  @Column(name = "partition_key", nullable = false, length = 100)
+  private String partitionKey;
+
+  @Column(name = "range_start", nullable = false)
+  private Long rangeStart; // Exclusive lower bound
+
+  @Column(name = "range_end", nullable = false)
+  private Long rangeEnd; // Inclusive upper bound
+
+  @Column(name = "last_processed_id", nullable = false)
+  private Long lastProcessedId;
+
+  @Column(name = "processed_count", nullable = false)
+  @Builder.Default
+  private Long processedCount = 0L;
+
+  @Column(name = "affected_count", nullable = false)
+  @Builder.Default
+  private Long affectedCount = 0L;
+
+  @Column(nullable = false, length = 20)
+  @Builder.Default
+  private String status = "PENDING"; // PENDING / RUNNING / COMPLETED / FAILED
+
+  @Column(name = "updated_at", nullable = false)
+  private LocalDateTime updatedAt;
+
+  @PrePersist
+  @PreUpdate
+  protected void onUpdate() {
+    updatedAt = LocalDateTime.now();
+  }
+}
@@ -8,7 +8,20 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "loan_applications")
+@Table(
+    name = "loan_applications",
+    indexes = {
+      @Index(
+          name = "idx_loan_app_status_branch_created",
+          columnList = "current_status, branch_id, created_at"),
+      // Keyset order of unfiltered lists and date-range searches
+      @Index(name = "idx_loan_app_created_id", columnList = "created_at, loan_application_id"),
+      // Searches narrowed to an applicant or a branch
+      @Index(name = "idx_loan_app_user_created", columnList = "user_id, created_at"),
+      @Index(name = "idx_loan_app_branch_created", columnList = "branch_id, created_at"),
+      // Rollup backfill of disbursements per day range
+      @Index(name = "idx_loan_app_disbursed_at", columnList = "disbursed_at")
+    })
 @Data
 @Builder
 @NoArgsConstructor
@@ -54,6 +67,19 @@ public class LoanApplication {
   @Column(name = "paid_at")
   private LocalDateTime paidAt;
 
+  // First time the loan reached each workflow status, denormalised for the tracking screen
+  @Column(name = "in_review_at")
+  private LocalDateTime inReviewAt;
+
+  @Column(name = "waiting_approval_at")
+  private LocalDateTime waitingApprovalAt;
+
+  @Column(name = "approved_at")
+  private LocalDateTime approvedAt;
+
+  @Column(name = "disbursed_at")
+  private LocalDateTime disbursedAt;
+
   @Column(name = "created_at", nullable = false, updatable = false)
   private LocalDateTime createdAt;
 
@@ -66,6 +92,13 @@ public class LoanApplication {
   @Column(name = "updated_at", nullable = false)
   private LocalDateTime updatedAt;
 
+  // Latest review comments, denormalised from loan_history for the staff queues
+  @Column(name = "marketing_comment", columnDefinition = "TEXT")
+  private String marketingComment;
+
+  @Column(name = "branch_manager_comment", columnDefinition = "TEXT")
+  private String branchManagerComment;
+
   @PrePersist
   protected void onCreate() {
     createdAt = LocalDateTime.now();
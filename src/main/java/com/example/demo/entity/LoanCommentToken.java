@@ -0,0 +1,53 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Posting of the inverted index over {@link LoanHistory#getComment()}: one row per distinct token
+ * of a comment. Branch and date are copied from the loan and history entry so a search can seek
+ * {@code (token, branch_id, created_at)} without joining back. Maintained by {@code
+ * LoanCommentSearchService}.
+ */
+@Entity
+@Table(
+    name = "loan_comment_tokens",
+    indexes = {
+      @Index(
+          name = "idx_loan_comment_tokens_token_branch_created",
+          columnList = "token, branch_id, created_at"),
+      @Index(name = "idx_loan_comment_tokens_history", columnList = "loan_history_id")
+    })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanCommentToken {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "loan_comment_token_id")
+  private Long loanCommentTokenId;
+
+  @Column(nullable = false, length = 50)
+  private String token;
+
+  @Column(name = "loan_history_id", nullable = false)
+  private Long loanHistoryId;
+
+  @Column(name = "loan_application_id", nullable = false)
+  private Long loanApplicationId;
+
+  @Column(name = "branch_id")
+  private Long branchId;
+
+  @Column(name = "created_at", nullable = false)
+  private LocalDateTime createdAt;
+
+  @Column(name = "term_frequency", nullable = false)
+  private Integer termFrequency;
+}
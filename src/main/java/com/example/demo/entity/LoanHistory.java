@@ -10,10 +10,15 @@ import lombok.NoArgsConstructor;
 @Entity
 @Table(
     name = "loan_history",
-    indexes =
-        @Index(
-            name = "idx_loan_history_loan_created",
-            columnList = "loan_application_id, created_at"))
+    indexes = {
+      @Index(
+          name = "idx_loan_history_loan_created",
+          columnList = "loan_application_id, created_at"),
+      // Staff action history: equality on actor and action, then a createdAt range in DESC order
+      @Index(
+          name = "idx_loan_history_actor_action_created",
+          columnList = "actor_user_id, action, created_at DESC")
+    })
 @Data
 @Builder
 @NoArgsConstructor
@@ -0,0 +1,77 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Cold copy of a {@link LoanHistory} row whose loan has been closed (PAID or REJECTED) for longer
+ * than the archive period. Rows keep their original id and are written once by {@code
+ * LoanHistoryArchiveService}, then only read; readers merge them back in with the live rows.
+ */
+@Entity
+@Immutable
+@Table(
+    name = "loan_history_archive",
+    indexes = {
+      @Index(
+          name = "idx_loan_history_archive_loan_created",
+          columnList = "loan_application_id, created_at"),
+      @Index(
+          name = "idx_loan_history_archive_actor_action_created",
+          columnList = "actor_user_id, action, created_at DESC")
+    })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanHistoryArchive {
+
+  @Id
+  @Column(name = "loan_history_id")
+  private Long loanHistoryId;
+
+  @ManyToOne
+  @JoinColumn(name = "loan_application_id", nullable = false)
+  private LoanApplication loanApplication;
+
+  @ManyToOne
+  @JoinColumn(name = "actor_user_id", nullable = false)
+  private User actorUser;
+
+  @Column(nullable = false, length = 50)
+  private String action;
+
+  @Column(columnDefinition = "TEXT")
+  private String comment;
+
+  @Column(name = "from_status", length = 50)
+  private String fromStatus;
+
+  @Column(name = "to_status", length = 50)
+  private String toStatus;
+
+  @Column(name = "created_at", nullable = false)
+  private LocalDateTime createdAt;
+
+  @Column(name = "archived_at", nullable = false)
+  private LocalDateTime archivedAt;
+
+  /** Detached {@link LoanHistory} view of this row, so callers handle both tiers alike. */
+  public LoanHistory toLoanHistory() {
+    return LoanHistory.builder()
+        .loanHistoryId(loanHistoryId)
+        .loanApplication(loanApplication)
+        .actorUser(actorUser)
+        .action(action)
+        .comment(comment)
+        .fromStatus(fromStatus)
+        .toStatus(toStatus)
+        .createdAt(createdAt)
+        .build();
+  }
+}
@@ -8,7 +8,18 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "notifications")
+@Table(
+    name = "notifications",
+    indexes = {
+      // Unread lists and set-based mark-as-read of one user
+      @Index(
+          name = "idx_notifications_user_read",
+          columnList = "user_id, is_read, notification_id"),
+      // Keyset-paged inbox of one user, newest first
+      @Index(
+          name = "idx_notifications_user_created",
+          columnList = "user_id, created_at, notification_id")
+    })
 @Data
 @Builder
 @NoArgsConstructor
@@ -34,9 +45,14 @@ public class Notification {
   @Column(nullable = false, length = 20)
   private String channel; // IN_APP, EMAIL, WA
 
+  // Still written for fanned-out rows: ddl-auto=update cannot relax NOT NULL on existing databases
   @Column(nullable = false, columnDefinition = "TEXT")
   private String message;
 
+  @ManyToOne
+  @JoinColumn(name = "template_id")
+  private NotificationTemplate template;
+
   @Column(name = "is_read", nullable = false)
   @Builder.Default
   private Boolean isRead = false;
@@ -0,0 +1,30 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Unread {@link Notification} count of one user, behind the notification badge.
+ *
+ * <p>Kept in step with {@code notifications} by {@code NotificationService} in the same transaction
+ * as each create, read and delete. A user's row is created from a count of their notifications the
+ * first time it is needed.
+ */
+@Entity
+@Table(name = "notification_counters")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationCounter {
+
+  @Id
+  @Column(name = "user_id")
+  private Long userId;
+
+  @Column(name = "unread_count", nullable = false)
+  private Long unreadCount;
+}
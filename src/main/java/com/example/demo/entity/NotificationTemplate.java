@@ -0,0 +1,44 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Message text shared by many {@link Notification}s, e.g. one staff alert fanned out to every
+ * branch manager. Such notifications reference the template; they also keep the text in their own
+ * {@code message} column, which existing databases still declare NOT NULL. {@code message_hash}
+ * identifies a text, since TEXT columns cannot carry a unique index.
+ */
+@Entity
+@Table(
+    name = "notification_templates",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"message_hash"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationTemplate {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "template_id")
+  private Long templateId;
+
+  @Column(name = "message_hash", nullable = false, length = 64)
+  private String messageHash; // SHA-256 of the message, hex
+
+  @Column(nullable = false, columnDefinition = "TEXT")
+  private String message;
+
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private LocalDateTime createdAt;
+
+  @PrePersist
+  protected void onCreate() {
+    createdAt = LocalDateTime.now();
+  }
+}
@@ -0,0 +1,80 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A push notification sent to every active device of a user segment. Segment filters that are null
+ * do not restrict it. Send progress is kept in {@link JobCheckpoint}s named after the campaign, so
+ * an interrupted campaign continues with the devices it has not reached yet.
+ */
+@Entity
+@Table(name = "push_campaigns")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PushCampaign {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "campaign_id")
+  private Long campaignId;
+
+  @Column(nullable = false, length = 200)
+  private String title;
+
+  @Column(nullable = false, length = 1000)
+  private String body;
+
+  @Column(name = "data_json", columnDefinition = "TEXT")
+  private String dataJson;
+
+  @Column(name = "role_name", length = 50)
+  private String roleName;
+
+  @Column(name = "tier_order")
+  private Integer tierOrder;
+
+  @Column(name = "branch_id")
+  private Long branchId;
+
+  @Column(name = "product_id")
+  private Long productId;
+
+  @Column(nullable = false, length = 20)
+  @Builder.Default
+  private String status = "PENDING"; // PENDING / RUNNING / COMPLETED / FAILED / CANCELLED
+
+  @Column(name = "created_by")
+  private Long createdBy;
+
+  @Column(length = 500)
+  private String message;
+
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private LocalDateTime createdAt;
+
+  @Column(name = "started_at")
+  private LocalDateTime startedAt;
+
+  @Column(name = "finished_at")
+  private LocalDateTime finishedAt;
+
+  // Refreshed after every chunk; a RUNNING campaign whose heartbeat stops is taken over
+  @Column(name = "heartbeat_at")
+  private LocalDateTime heartbeatAt;
+
+  // Token of the current claim; only its sender may advance checkpoints or finish the campaign
+  @Column(name = "claimed_by", length = 36)
+  private String claimedBy;
+
+  @PrePersist
+  protected void onCreate() {
+    createdAt = LocalDateTime.now();
+  }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Persisted duration histogram of one {@link com.example.demo.enums.SlaStage} for one branch and
+ * month, in the sparse form of {@code LatencyHistogram#encode}. Loans without a branch use {@code
+ * branchId} 0. Written by {@code SlaHistogramService}, which merges in-memory samples into the row
+ * with an optimistic {@code version} check.
+ */
+@Entity
+@Table(
+    name = "sla_histograms",
+    uniqueConstraints =
+        @UniqueConstraint(
+            name = "uk_sla_histograms_key",
+            columnNames = {"stage", "month_start", "branch_id"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlaHistogram {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "sla_histogram_id")
+  private Long slaHistogramId;
+
+  @Column(nullable = false, length = 50)
+  private String stage;
+
+  @Column(name = "month_start", nullable = false)
+  private LocalDate monthStart;
+
+  @Column(name = "branch_id", nullable = false)
+  private Long branchId;
+
+  @Column(name = "sample_count", nullable = false)
+  private Long sampleCount;
+
+  @Column(nullable = false, columnDefinition = "TEXT")
+  private String buckets;
+
+  @Column(nullable = false)
+  private Long version;
+
+  @Column(name = "updated_at", nullable = false)
+  private LocalDateTime updatedAt;
+}
@@ -8,7 +8,10 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "user_profile")
+@Table(
+    name = "user_profile",
+    // Phone prefix search; nik already has a unique index
+    indexes = @Index(name = "idx_user_profile_phone", columnList = "phone_number"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -0,0 +1,25 @@
+package com.example.demo.enums;
+
+/** Output formats of the streaming admin exports. */
+public enum ExportFormat {
+  /** One JSON object per line. */
+  NDJSON("application/x-ndjson", "ndjson"),
+  /** Comma-separated values with a header row, RFC 4180 quoting. */
+  CSV("text/csv", "csv");
+
+  private final String contentType;
+  private final String fileExtension;
+
+  ExportFormat(String contentType, String fileExtension) {
+    this.contentType = contentType;
+    this.fileExtension = fileExtension;
+  }
+
+  public String getContentType() {
+    return contentType;
+  }
+
+  public String getFileExtension() {
+    return fileExtension;
+  }
+}
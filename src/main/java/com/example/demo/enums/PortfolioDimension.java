@@ -0,0 +1,12 @@
+package com.example.demo.enums;
+
+/** Attributes the in-memory portfolio snapshot can group loans by. */
+public enum PortfolioDimension {
+  STATUS,
+  BRANCH,
+  PRODUCT,
+  TIER, // Tier order of the loan's product
+  TENURE, // Tenure in months
+  CREATED_MONTH, // yyyy-MM of submission
+  AMOUNT_BUCKET // Principal range between the requested boundaries
+}
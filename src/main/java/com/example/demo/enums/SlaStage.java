@@ -0,0 +1,40 @@
+package com.example.demo.enums;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measured spans of the loan workflow. A stage completes the first time the loan reaches {@code
+ * to}; its duration runs from the first time the loan reached {@code from}.
+ */
+public enum SlaStage {
+  SUBMITTED_TO_IN_REVIEW(LoanStatus.SUBMITTED, LoanStatus.IN_REVIEW),
+  IN_REVIEW_TO_WAITING_APPROVAL(LoanStatus.IN_REVIEW, LoanStatus.WAITING_APPROVAL),
+  WAITING_APPROVAL_TO_APPROVED(
+      LoanStatus.WAITING_APPROVAL, LoanStatus.APPROVED_WAITING_DISBURSEMENT),
+  APPROVED_TO_DISBURSED(LoanStatus.APPROVED_WAITING_DISBURSEMENT, LoanStatus.DISBURSED),
+  SUBMITTED_TO_APPROVED(LoanStatus.SUBMITTED, LoanStatus.APPROVED_WAITING_DISBURSEMENT),
+  SUBMITTED_TO_DISBURSED(LoanStatus.SUBMITTED, LoanStatus.DISBURSED),
+  SUBMITTED_TO_REJECTED(LoanStatus.SUBMITTED, LoanStatus.REJECTED);
+
+  private final LoanStatus from;
+  private final LoanStatus to;
+
+  SlaStage(LoanStatus from, LoanStatus to) {
+    this.from = from;
+    this.to = to;
+  }
+
+  public LoanStatus getFrom() {
+    return from;
+  }
+
+  public LoanStatus getTo() {
+    return to;
+  }
+
+  /** Stages completed by reaching {@code status}. */
+  public static List<SlaStage> endingAt(String status) {
+    return Arrays.stream(values()).filter(stage -> stage.to.name().equals(status)).toList();
+  }
+}
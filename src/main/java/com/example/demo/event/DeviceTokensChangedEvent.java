@@ -0,0 +1,11 @@
+package com.example.demo.event;
+
+import java.util.Collection;
+
+/**
+ * Published when FCM device tokens are registered, moved between users or unregistered. Used to
+ * evict the cached token lists of those users once the writing transaction has committed.
+ *
+ * @param userIds users whose active tokens changed
+ */
+public record DeviceTokensChangedEvent(Collection<Long> userIds) {}
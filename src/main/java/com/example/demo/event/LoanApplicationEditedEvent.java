@@ -0,0 +1,10 @@
+package com.example.demo.event;
+
+/**
+ * Published when an administrator creates, edits or deletes a loan application directly, outside
+ * the staff workflow. Used to mark figures derived from loans stale once the writing transaction
+ * has committed.
+ *
+ * @param loanApplicationId the loan that was created, edited or deleted
+ */
+public record LoanApplicationEditedEvent(Long loanApplicationId) {}
@@ -0,0 +1,16 @@
+package com.example.demo.event;
+
+import com.example.demo.enums.SlaStage;
+import java.time.LocalDateTime;
+
+/**
+ * Published by the loan workflow when a loan completes an {@link SlaStage}; SLA histograms record
+ * it after the writing transaction has committed.
+ *
+ * @param branchId branch the loan belongs to, or {@code null} when it has none
+ * @param stage the completed stage
+ * @param completedAt when the stage ended; decides the month it is counted in
+ * @param durationSeconds time spent in the stage
+ */
+public record LoanStageCompletedEvent(
+    Long branchId, SlaStage stage, LocalDateTime completedAt, long durationSeconds) {}
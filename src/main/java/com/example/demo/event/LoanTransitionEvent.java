@@ -0,0 +1,25 @@
+package com.example.demo.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by the loan workflow for every submission and workflow action, including actions that
+ * leave the status unchanged. Listeners that push queue changes to staff clients or maintain
+ * derived figures subscribe to it after the writing transaction has committed.
+ *
+ * @param loanApplicationId the loan that was acted on
+ * @param branchId branch the loan belongs to, or {@code null} when it has none
+ * @param action the workflow action, e.g. {@code SUBMIT}, {@code APPROVE}
+ * @param fromStatus status before the action, {@code null} for a new submission
+ * @param toStatus status after the action
+ * @param actorUserId user who performed the action
+ * @param occurredAt when the action was performed
+ */
+public record LoanTransitionEvent(
+    Long loanApplicationId,
+    Long branchId,
+    String action,
+    String fromStatus,
+    String toStatus,
+    Long actorUserId,
+    LocalDateTime occurredAt) {}
@@ -0,0 +1,11 @@
+package com.example.demo.event;
+
+import java.util.List;
+
+/**
+ * Published when loans are settled and move from {@code DISBURSED} to {@code PAID}, outside the
+ * staff workflow; one event per payment or per repayment import batch.
+ *
+ * @param loanApplicationIds the loans that were settled
+ */
+public record LoansPaidEvent(List<Long> loanApplicationIds) {}
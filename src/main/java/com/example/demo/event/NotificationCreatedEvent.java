@@ -0,0 +1,11 @@
+package com.example.demo.event;
+
+import com.example.demo.dto.NotificationDTO;
+
+/**
+ * Published when an in-app notification is stored. Pushed to the recipient's open notification
+ * streams once the writing transaction has committed.
+ *
+ * @param notification the stored notification
+ */
+public record NotificationCreatedEvent(NotificationDTO notification) {}
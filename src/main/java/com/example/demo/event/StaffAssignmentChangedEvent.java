@@ -0,0 +1,9 @@
+package com.example.demo.event;
+
+/**
+ * Published when a user's roles, branch, active or deleted flag change, or a user is created. Used
+ * to drop the cached staff routing table once the writing transaction has committed.
+ *
+ * @param userId the user whose assignment changed
+ */
+public record StaffAssignmentChangedEvent(Long userId) {}
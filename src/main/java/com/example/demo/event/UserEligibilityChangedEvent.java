@@ -0,0 +1,9 @@
+package com.example.demo.event;
+
+/**
+ * Published whenever a user's eligibility figures (tier, used amount, paid amount) change. Used to
+ * invalidate the cached tier-and-limit read model once the writing transaction has committed.
+ *
+ * @param userId the user whose eligibility changed
+ */
+public record UserEligibilityChangedEvent(Long userId) {}
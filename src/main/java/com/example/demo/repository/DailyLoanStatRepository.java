@@ -0,0 +1,82 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.DailyLoanStat;
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Read side of the daily loan rollup. Every query scans {@code [from, to)} days of the rollup, so
+ * its cost depends on days × branches × products, not on the size of the loan book. Rows are
+ * written by {@code DailyLoanStatsService}.
+ */
+@Repository
+public interface DailyLoanStatRepository extends JpaRepository<DailyLoanStat, Long> {
+
+  // Count and amounts per status for loans created in [from, to)
+  @Query(
+      "SELECT s.status AS status, SUM(s.loanCount) AS loanCount,"
+          + " SUM(s.principalAmount) AS amount, SUM(s.totalToPayAmount) AS totalAmountToPay"
+          + " FROM DailyLoanStat s WHERE s.statDate >= :from AND s.statDate < :to"
+          + " GROUP BY s.status")
+  List<StatusTotalsRow> summarizeByStatusBetween(
+      @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+  // Disbursed amount per month, all years
+  @Query(
+      "SELECT YEAR(s.statDate) AS year, MONTH(s.statDate) AS month,"
+          + " SUM(s.disbursedAmount) AS amount"
+          + " FROM DailyLoanStat s WHERE s.disbursedCount > 0"
+          + " GROUP BY YEAR(s.statDate), MONTH(s.statDate)")
+  List<DisbursementTrendRow> findMonthlyDisbursementTrend();
+
+  @Query(
+      "SELECT s.branchId AS dimensionId, s.status AS status, SUM(s.loanCount) AS loanCount,"
+          + " SUM(s.principalAmount) AS amount, SUM(s.totalToPayAmount) AS totalAmountToPay,"
+          + " SUM(s.disbursedCount) AS disbursedCount, SUM(s.disbursedAmount) AS disbursedAmount"
+          + " FROM DailyLoanStat s WHERE s.statDate >= :from AND s.statDate < :to"
+          + " GROUP BY s.branchId, s.status")
+  List<DimensionTotalsRow> summarizeByBranchBetween(
+      @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+  @Query(
+      "SELECT s.productId AS dimensionId, s.status AS status, SUM(s.loanCount) AS loanCount,"
+          + " SUM(s.principalAmount) AS amount, SUM(s.totalToPayAmount) AS totalAmountToPay,"
+          + " SUM(s.disbursedCount) AS disbursedCount, SUM(s.disbursedAmount) AS disbursedAmount"
+          + " FROM DailyLoanStat s WHERE s.statDate >= :from AND s.statDate < :to"
+          + " GROUP BY s.productId, s.status")
+  List<DimensionTotalsRow> summarizeByProductBetween(
+      @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+  /** Totals of one status, read by {@link #summarizeByStatusBetween}. */
+  interface StatusTotalsRow {
+    String getStatus();
+
+    Long getLoanCount();
+
+    Double getAmount();
+
+    Double getTotalAmountToPay();
+  }
+
+  /** Disbursed amount of one month, read by {@link #findMonthlyDisbursementTrend}. */
+  interface DisbursementTrendRow {
+    Integer getYear();
+
+    Integer getMonth();
+
+    Double getAmount();
+  }
+
+  /** Totals of one status within one branch or product. */
+  interface DimensionTotalsRow extends StatusTotalsRow {
+    Long getDimensionId();
+
+    Long getDisbursedCount();
+
+    Double getDisbursedAmount();
+  }
+}
@@ -0,0 +1,8 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.DataMigration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DataMigrationRepository extends JpaRepository<DataMigration, String> {}
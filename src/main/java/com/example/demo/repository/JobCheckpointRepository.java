@@ -0,0 +1,21 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.JobCheckpoint;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, Long> {
+
+  List<JobCheckpoint> findByJobNameOrderByRangeStartAsc(String jobName);
+
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM JobCheckpoint jc WHERE jc.jobName = :jobName")
+  void deleteByJobName(@Param("jobName") String jobName);
+}
@@ -1,16 +1,27 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.LoanApplication;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface LoanApplicationRepository extends JpaRepository<LoanApplication, Long> {
+public interface LoanApplicationRepository
+    extends JpaRepository<LoanApplication, Long>, JpaSpecificationExecutor<LoanApplication> {
 
   List<LoanApplication> findByUser_Id(Long userId);
 
@@ -34,6 +45,178 @@ public interface LoanApplicationRepository extends JpaRepository<LoanApplication
   Page<LoanApplication> findByCurrentStatusInAndBranch_IdOrderByCreatedAtDesc(
       List<String> statuses, Long branchId, Pageable pageable);
 
+  // Staff queue: one projection row per loan, joined with user, profile, product and branch
+  String QUEUE_SELECT =
+      "SELECT la.loanApplicationId AS loanApplicationId, u.id AS userId, u.username AS username,"
+          + " u.email AS userEmail, pr.id AS productId, pr.name AS productName,"
+          + " la.amount AS amount, la.tenureMonths AS tenureMonths,"
+          + " la.interestRateApplied AS interestRateApplied, la.currentStatus AS currentStatus,"
+          + " la.createdAt AS createdAt, la.updatedAt AS updatedAt, la.latitude AS latitude,"
+          + " la.longitude AS longitude, p.nik AS userNik, p.ktpPath AS userKtpPath,"
+          + " p.phoneNumber AS userPhoneNumber, p.address AS userAddress,"
+          + " p.accountNumber AS userAccountNumber, p.bankName AS userBankName,"
+          + " la.marketingComment AS marketingComment,"
+          + " la.branchManagerComment AS branchManagerComment, b.id AS branchId,"
+          + " b.name AS branchName"
+          + " FROM LoanApplication la JOIN la.user u LEFT JOIN u.userProfile p"
+          + " JOIN la.product pr LEFT JOIN la.branch b";
+
+  @Query(
+      value = QUEUE_SELECT + " WHERE la.currentStatus IN :statuses ORDER BY la.createdAt DESC",
+      countQuery = "SELECT COUNT(la) FROM LoanApplication la WHERE la.currentStatus IN :statuses")
+  Page<LoanQueueRow> findQueue(@Param("statuses") List<String> statuses, Pageable pageable);
+
+  @Query(
+      value =
+          QUEUE_SELECT
+              + " WHERE la.currentStatus IN :statuses AND b.id = :branchId"
+              + " ORDER BY la.createdAt DESC",
+      countQuery =
+          "SELECT COUNT(la) FROM LoanApplication la"
+              + " WHERE la.currentStatus IN :statuses AND la.branch.id = :branchId")
+  Page<LoanQueueRow> findQueueByBranch(
+      @Param("statuses") List<String> statuses,
+      @Param("branchId") Long branchId,
+      Pageable pageable);
+
+  /** Flat queue row read by {@link #findQueue} and {@link #findQueueByBranch}. */
+  interface LoanQueueRow {
+    Long getLoanApplicationId();
+
+    Long getUserId();
+
+    String getUsername();
+
+    String getUserEmail();
+
+    Long getProductId();
+
+    String getProductName();
+
+    Double getAmount();
+
+    Integer getTenureMonths();
+
+    Double getInterestRateApplied();
+
+    String getCurrentStatus();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+
+    Double getLatitude();
+
+    Double getLongitude();
+
+    String getUserNik();
+
+    String getUserKtpPath();
+
+    String getUserPhoneNumber();
+
+    String getUserAddress();
+
+    String getUserAccountNumber();
+
+    String getUserBankName();
+
+    String getMarketingComment();
+
+    String getBranchManagerComment();
+
+    Long getBranchId();
+
+    String getBranchName();
+  }
+
+  // One-off backfill of the denormalised queue comments from loan_history
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE LoanApplication la SET la.marketingComment = (SELECT h.comment FROM LoanHistory h"
+          + " WHERE h.loanHistoryId = (SELECT MAX(h2.loanHistoryId) FROM LoanHistory h2"
+          + " WHERE h2.loanApplication = la AND h2.fromStatus IN ('SUBMITTED', 'IN_REVIEW')"
+          + " AND h2.comment LIKE '_%'))"
+          + " WHERE la.marketingComment IS NULL AND EXISTS (SELECT 1 FROM LoanHistory h3"
+          + " WHERE h3.loanApplication = la AND h3.fromStatus IN ('SUBMITTED', 'IN_REVIEW')"
+          + " AND h3.comment LIKE '_%')")
+  int backfillMarketingComments();
+
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE LoanApplication la SET la.branchManagerComment = (SELECT h.comment FROM LoanHistory h"
+          + " WHERE h.loanHistoryId = (SELECT MAX(h2.loanHistoryId) FROM LoanHistory h2"
+          + " WHERE h2.loanApplication = la AND h2.fromStatus = 'WAITING_APPROVAL'"
+          + " AND h2.comment LIKE '_%'))"
+          + " WHERE la.branchManagerComment IS NULL AND EXISTS (SELECT 1 FROM LoanHistory h3"
+          + " WHERE h3.loanApplication = la AND h3.fromStatus = 'WAITING_APPROVAL'"
+          + " AND h3.comment LIKE '_%')")
+  int backfillBranchManagerComments();
+
+  // One-off backfill of the milestone timestamps: first history entry into each status
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE LoanApplication la SET la.inReviewAt = (SELECT MIN(h.createdAt) FROM LoanHistory h"
+          + " WHERE h.loanApplication = la AND h.toStatus = 'IN_REVIEW')"
+          + " WHERE la.inReviewAt IS NULL AND EXISTS (SELECT 1 FROM LoanHistory h2"
+          + " WHERE h2.loanApplication = la AND h2.toStatus = 'IN_REVIEW')")
+  int backfillInReviewAt();
+
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE LoanApplication la SET la.waitingApprovalAt = (SELECT MIN(h.createdAt)"
+          + " FROM LoanHistory h WHERE h.loanApplication = la AND h.toStatus = 'WAITING_APPROVAL')"
+          + " WHERE la.waitingApprovalAt IS NULL AND EXISTS (SELECT 1 FROM LoanHistory h2"
+          + " WHERE h2.loanApplication = la AND h2.toStatus = 'WAITING_APPROVAL')")
+  int backfillWaitingApprovalAt();
+
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE LoanApplication la SET la.approvedAt = (SELECT MIN(h.createdAt) FROM LoanHistory h"
+          + " WHERE h.loanApplication = la AND h.toStatus = 'APPROVED_WAITING_DISBURSEMENT')"
+          + " WHERE la.approvedAt IS NULL AND EXISTS (SELECT 1 FROM LoanHistory h2"
+          + " WHERE h2.loanApplication = la AND h2.toStatus = 'APPROVED_WAITING_DISBURSEMENT')")
+  int backfillApprovedAt();
+
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE LoanApplication la SET la.disbursedAt = (SELECT MIN(h.createdAt) FROM LoanHistory h"
+          + " WHERE h.loanApplication = la AND h.toStatus = 'DISBURSED')"
+          + " WHERE la.disbursedAt IS NULL AND EXISTS (SELECT 1 FROM LoanHistory h2"
+          + " WHERE h2.loanApplication = la AND h2.toStatus = 'DISBURSED')")
+  int backfillDisbursedAt();
+
+  @Query(
+      "SELECT la.currentStatus AS currentStatus, la.createdAt AS createdAt,"
+          + " la.inReviewAt AS inReviewAt, la.waitingApprovalAt AS waitingApprovalAt,"
+          + " la.approvedAt AS approvedAt, la.disbursedAt AS disbursedAt,"
+          + " la.updatedAt AS updatedAt"
+          + " FROM LoanApplication la WHERE la.loanApplicationId = :id")
+  Optional<LoanMilestoneRow> findMilestones(@Param("id") Long loanApplicationId);
+
+  /** Milestone columns of one loan, read by {@link #findMilestones}. */
+  interface LoanMilestoneRow {
+    String getCurrentStatus();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getInReviewAt();
+
+    LocalDateTime getWaitingApprovalAt();
+
+    LocalDateTime getApprovedAt();
+
+    LocalDateTime getDisbursedAt();
+
+    LocalDateTime getUpdatedAt();
+  }
+
   // Tier system queries
   List<LoanApplication> findByUser_IdAndIsPaidFalse(Long userId);
 
@@ -56,6 +239,16 @@ public interface LoanApplicationRepository extends JpaRepository<LoanApplication
           + " AND la.currentStatus NOT IN ('REJECTED', 'PAID', 'CANCELLED')")
   Double findTotalActiveLoanAmount(@Param("userId") Long userId);
 
+  /**
+   * Minimal payment-matching view of a set of loans. Each row is {loanApplicationId, userId,
+   * currentStatus, isPaid, amount, totalAmountToPay, createdAt, branchId, productId, disbursedAt}.
+   */
+  @Query(
+      "SELECT la.loanApplicationId, la.user.id, la.currentStatus, la.isPaid, la.amount,"
+          + " la.totalAmountToPay, la.createdAt, b.id, la.product.id, la.disbursedAt"
+          + " FROM LoanApplication la LEFT JOIN la.branch b WHERE la.loanApplicationId IN :ids")
+  List<Object[]> findPaymentCandidates(@Param("ids") Collection<Long> ids);
+
   // Dashboard Stats
   Long countByCurrentStatus(String currentStatus);
 
@@ -71,28 +264,124 @@ public interface LoanApplicationRepository extends JpaRepository<LoanApplication
   @Query("SELECT COUNT(la) FROM LoanApplication la")
   Long countTotalApplications();
 
-  // Dashboard Stats (Filtered by Year)
+  // Check if user has any active loans (not in final status)
   @Query(
-      "SELECT COUNT(la) FROM LoanApplication la WHERE la.currentStatus = :status AND YEAR(la.createdAt) = :year")
-  Long countByCurrentStatusAndYear(@Param("status") String currentStatus, @Param("year") int year);
+      "SELECT COUNT(la) > 0 FROM LoanApplication la"
+          + " WHERE la.user.id = :userId"
+          + " AND la.currentStatus NOT IN ('DISBURSED', 'PAID', 'REJECTED')")
+  boolean hasActiveLoan(@Param("userId") Long userId);
+
+  // Keyset pagination over (createdAt DESC, loanApplicationId DESC), see base.CursorPage
+  String KEYSET_AFTER =
+      " (la.createdAt < :createdAt"
+          + " OR (la.createdAt = :createdAt AND la.loanApplicationId < :id))"
+          + " ORDER BY la.createdAt DESC, la.loanApplicationId DESC";
+
+  @Query(QUEUE_SELECT + " WHERE la.currentStatus IN :statuses AND" + KEYSET_AFTER)
+  List<LoanQueueRow> findQueueAfter(
+      @Param("statuses") List<String> statuses,
+      @Param("createdAt") LocalDateTime createdAt,
+      @Param("id") Long id,
+      Pageable pageable);
 
   @Query(
-      "SELECT COALESCE(SUM(la.amount), 0) FROM LoanApplication la WHERE la.currentStatus = :status AND YEAR(la.createdAt) = :year")
-  Double sumAmountByCurrentStatusAndYear(@Param("status") String status, @Param("year") int year);
+      QUEUE_SELECT + " WHERE la.currentStatus IN :statuses AND b.id = :branchId AND" + KEYSET_AFTER)
+  List<LoanQueueRow> findQueueByBranchAfter(
+      @Param("statuses") List<String> statuses,
+      @Param("branchId") Long branchId,
+      @Param("createdAt") LocalDateTime createdAt,
+      @Param("id") Long id,
+      Pageable pageable);
+
+  long countByCurrentStatusIn(List<String> statuses);
+
+  long countByCurrentStatusInAndBranch_Id(List<String> statuses, Long branchId);
 
   @Query(
-      "SELECT COALESCE(SUM(la.totalAmountToPay), 0) FROM LoanApplication la WHERE"
-          + " la.currentStatus = :status AND YEAR(la.createdAt) = :year")
-  Double sumTotalAmountToPayByCurrentStatusAndYear(
-      @Param("status") String status, @Param("year") int year);
+      "SELECT la FROM LoanApplication la JOIN FETCH la.user u LEFT JOIN FETCH u.userProfile"
+          + " JOIN FETCH la.product LEFT JOIN FETCH la.branch WHERE"
+          + KEYSET_AFTER)
+  List<LoanApplication> findPageAfter(
+      @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
 
-  @Query("SELECT COUNT(la) FROM LoanApplication la WHERE YEAR(la.createdAt) = :year")
-  Long countTotalApplicationsByYear(@Param("year") int year);
+  /**
+   * Loans currently in one of {@code statuses} with the time they entered that status: the latest
+   * history entry into it, or the creation time for loans without one.
+   *
+   * @return rows of {loanApplicationId, branchId, currentStatus, createdAt, enteredAt}
+   */
+  @Query(
+      "SELECT la.loanApplicationId, b.id, la.currentStatus, la.createdAt, MAX(h.createdAt)"
+          + " FROM LoanApplication la LEFT JOIN la.branch b"
+          + " LEFT JOIN LoanHistory h ON h.loanApplication = la AND h.toStatus = la.currentStatus"
+          + " WHERE la.currentStatus IN :statuses"
+          + " GROUP BY la.loanApplicationId, b.id, la.currentStatus, la.createdAt")
+  List<Object[]> findQueueEntries(@Param("statuses") Collection<String> statuses);
 
-  // Check if user has any active loans (not in final status)
+  /**
+   * Forward-only read of every loan for the admin export, newest first. Rows are flat projections,
+   * so nothing accumulates in the persistence context; must be consumed inside a transaction and
+   * closed by the caller.
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
   @Query(
-      "SELECT COUNT(la) > 0 FROM LoanApplication la"
-          + " WHERE la.user.id = :userId"
-          + " AND la.currentStatus NOT IN ('DISBURSED', 'PAID', 'REJECTED')")
-  boolean hasActiveLoan(@Param("userId") Long userId);
+      "SELECT la.loanApplicationId AS loanApplicationId, la.amount AS amount,"
+          + " la.tenureMonths AS tenureMonths, la.interestRateApplied AS interestRateApplied,"
+          + " la.totalAmountToPay AS totalAmountToPay, pr.name AS productName,"
+          + " la.createdAt AS createdAt, la.updatedAt AS updatedAt,"
+          + " u.id AS userId, u.username AS userName, u.email AS userEmail,"
+          + " p.nik AS nik, p.phoneNumber AS phoneNumber, p.bankName AS bankName,"
+          + " p.accountNumber AS accountNumber, la.currentStatus AS currentStatus,"
+          + " b.id AS branchId, b.name AS branchName,"
+          + " la.latitude AS latitude, la.longitude AS longitude"
+          + " FROM LoanApplication la JOIN la.user u LEFT JOIN u.userProfile p"
+          + " JOIN la.product pr LEFT JOIN la.branch b"
+          + " ORDER BY la.createdAt DESC, la.loanApplicationId DESC")
+  Stream<AdminLoanExportRow> streamForAdminExport();
+
+  /** Flat export row read by {@link #streamForAdminExport()}. */
+  interface AdminLoanExportRow {
+    Long getLoanApplicationId();
+
+    Double getAmount();
+
+    Integer getTenureMonths();
+
+    Double getInterestRateApplied();
+
+    Double getTotalAmountToPay();
+
+    String getProductName();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+
+    Long getUserId();
+
+    String getUserName();
+
+    String getUserEmail();
+
+    String getNik();
+
+    String getPhoneNumber();
+
+    String getBankName();
+
+    String getAccountNumber();
+
+    String getCurrentStatus();
+
+    Long getBranchId();
+
+    String getBranchName();
+
+    Double getLatitude();
+
+    Double getLongitude();
+  }
 }
@@ -0,0 +1,133 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.LoanSearchRequestDTO;
+import com.example.demo.entity.LoanApplication;
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Composable filters for loan search, compiled by {@link LoanApplicationRepository} into a single
+ * parameterised query.
+ *
+ * <p>Text filters are prefix matches ({@code LIKE 'abc%'}) on indexed columns, so they can seek the
+ * index instead of scanning. Case-insensitivity comes from the database collation (SQL Server's
+ * default is case-insensitive); wrapping the column in {@code LOWER()} would defeat the index.
+ */
+public final class LoanApplicationSpecifications {
+
+  private static final char LIKE_ESCAPE = '\\';
+
+  private LoanApplicationSpecifications() {}
+
+  /** Filters of {@code criteria}; safe to use in count queries. */
+  public static Specification<LoanApplication> matching(LoanSearchRequestDTO criteria) {
+    return (root, query, cb) -> {
+      List<Predicate> predicates = new ArrayList<>();
+      if (hasText(criteria.getApplicant())) {
+        Join<Object, Object> user = join(root, "user", JoinType.INNER);
+        String prefix = prefix(criteria.getApplicant());
+        predicates.add(
+            cb.or(
+                cb.like(user.get("username"), prefix, LIKE_ESCAPE),
+                cb.like(user.get("email"), prefix, LIKE_ESCAPE)));
+      }
+      if (filtersOnProfile(criteria)) {
+        // Inner: the filter rejects users without a profile anyway, and only an inner join lets
+        // the planner start from the profile index instead of scanning every loan
+        Join<Object, Object> profile =
+            join(join(root, "user", JoinType.INNER), "userProfile", JoinType.INNER);
+        if (hasText(criteria.getNik())) {
+          predicates.add(cb.like(profile.get("nik"), prefix(criteria.getNik()), LIKE_ESCAPE));
+        }
+        if (hasText(criteria.getPhoneNumber())) {
+          predicates.add(
+              cb.like(profile.get("phoneNumber"), prefix(criteria.getPhoneNumber()), LIKE_ESCAPE));
+        }
+      }
+      if (criteria.getStatuses() != null && !criteria.getStatuses().isEmpty()) {
+        predicates.add(root.get("currentStatus").in(criteria.getStatuses()));
+      }
+      if (criteria.getBranchId() != null) {
+        predicates.add(cb.equal(root.get("branch").get("id"), criteria.getBranchId()));
+      }
+      if (criteria.getMinAmount() != null) {
+        predicates.add(cb.greaterThanOrEqualTo(root.get("amount"), criteria.getMinAmount()));
+      }
+      if (criteria.getMaxAmount() != null) {
+        predicates.add(cb.lessThanOrEqualTo(root.get("amount"), criteria.getMaxAmount()));
+      }
+      // Half-open [from, to + 1 day) ranges keep the created_at index usable
+      if (criteria.getCreatedFrom() != null) {
+        predicates.add(
+            cb.greaterThanOrEqualTo(
+                root.get("createdAt"), criteria.getCreatedFrom().atStartOfDay()));
+      }
+      if (criteria.getCreatedTo() != null) {
+        predicates.add(
+            cb.lessThan(root.get("createdAt"), criteria.getCreatedTo().plusDays(1).atStartOfDay()));
+      }
+      return cb.and(predicates.toArray(Predicate[]::new));
+    };
+  }
+
+  /** Rows after a keyset position in {@code (createdAt DESC, id DESC)} order. */
+  public static Specification<LoanApplication> after(LocalDateTime createdAt, Long id) {
+    return (root, query, cb) ->
+        cb.or(
+            cb.lessThan(root.get("createdAt"), createdAt),
+            cb.and(
+                cb.equal(root.get("createdAt"), createdAt),
+                cb.lessThan(root.get("loanApplicationId"), id)));
+  }
+
+  /**
+   * Fetch user, profile, product and branch with the loans, so building result DTOs needs no
+   * further queries. Must be combined first so the filters of the same {@code criteria} reuse its
+   * joins; not for count queries.
+   */
+  public static Specification<LoanApplication> withDetails(LoanSearchRequestDTO criteria) {
+    JoinType profileJoin = filtersOnProfile(criteria) ? JoinType.INNER : JoinType.LEFT;
+    return (root, query, cb) -> {
+      Fetch<LoanApplication, Object> user = root.fetch("user", JoinType.INNER);
+      user.fetch("userProfile", profileJoin);
+      root.fetch("product", JoinType.INNER);
+      root.fetch("branch", JoinType.LEFT);
+      return null;
+    };
+  }
+
+  /** Existing join or fetch of {@code attribute}, or a new join. */
+  @SuppressWarnings("unchecked")
+  private static Join<Object, Object> join(From<?, ?> from, String attribute, JoinType type) {
+    for (Fetch<?, ?> fetch : from.getFetches()) {
+      if (fetch.getAttribute().getName().equals(attribute)) {
+        return (Join<Object, Object>) fetch;
+      }
+    }
+    for (Join<?, ?> join : from.getJoins()) {
+      if (join.getAttribute().getName().equals(attribute)) {
+        return (Join<Object, Object>) join;
+      }
+    }
+    return (Join<Object, Object>) from.join(attribute, type);
+  }
+
+  private static boolean filtersOnProfile(LoanSearchRequestDTO criteria) {
+    return hasText(criteria.getNik()) || hasText(criteria.getPhoneNumber());
+  }
+
+  private static boolean hasText(String value) {
+    return value != null && !value.isBlank();
+  }
+
+  private static String prefix(String value) {
+    return value.trim().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+  }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.LoanHistoryArchive;
+import com.example.demo.repository.LoanHistoryRepository.ActionHistoryRow;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Read side of the loan history archive. Queries mirror those of {@link LoanHistoryRepository} so
+ * services can merge both tiers; rows are written in bulk by {@code LoanHistoryArchiveService}.
+ */
+@Repository
+public interface LoanHistoryArchiveRepository extends JpaRepository<LoanHistoryArchive, Long> {
+
+  List<LoanHistoryArchive> findByLoanApplication_LoanApplicationIdOrderByCreatedAtDesc(
+      Long loanApplicationId);
+
+  String ACTION_HISTORY_SELECT =
+      LoanHistoryRepository.ACTION_HISTORY_COLUMNS
+          + " FROM LoanHistoryArchive lh"
+          + LoanHistoryRepository.ACTION_HISTORY_JOINS;
+
+  // Top rows of an actor's history in [from, to), newest first
+  @Query(
+      ACTION_HISTORY_SELECT
+          + " WHERE lh.actorUser.id = :actorId AND lh.action IN :actions"
+          + " AND lh.createdAt >= :from AND lh.createdAt < :to"
+          + " ORDER BY lh.createdAt DESC, lh.loanHistoryId DESC")
+  List<ActionHistoryRow> findByActorAndActionsBetween(
+      @Param("actorId") Long actorId,
+      @Param("actions") List<String> actions,
+      @Param("from") LocalDateTime from,
+      @Param("to") LocalDateTime to,
+      Pageable pageable);
+
+  @Query(
+      ACTION_HISTORY_SELECT
+          + " WHERE lh.actorUser.id = :actorId AND lh.action IN :actions"
+          + " AND lh.createdAt >= :from AND lh.createdAt < :to AND"
+          + LoanHistoryRepository.KEYSET_AFTER)
+  List<ActionHistoryRow> findByActorAndActionsAfter(
+      @Param("actorId") Long actorId,
+      @Param("actions") List<String> actions,
+      @Param("from") LocalDateTime from,
+      @Param("to") LocalDateTime to,
+      @Param("createdAt") LocalDateTime createdAt,
+      @Param("id") Long id,
+      Pageable pageable);
+
+  @Query(
+      "SELECT COUNT(a) FROM LoanHistoryArchive a "
+          + "WHERE a.actorUser.id = :actorId AND a.action IN :actions "
+          + "AND a.createdAt >= :from AND a.createdAt < :to")
+  long countByActorAndActionsBetween(
+      @Param("actorId") Long actorId,
+      @Param("actions") List<String> actions,
+      @Param("from") LocalDateTime from,
+      @Param("to") LocalDateTime to);
+
+  @Query(
+      "SELECT a FROM LoanHistoryArchive a JOIN FETCH a.loanApplication JOIN FETCH a.actorUser WHERE"
+          + " (a.createdAt < :createdAt"
+          + " OR (a.createdAt = :createdAt AND a.loanHistoryId < :id))"
+          + " ORDER BY a.createdAt DESC, a.loanHistoryId DESC")
+  List<LoanHistoryArchive> findPageAfter(
+      @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+}
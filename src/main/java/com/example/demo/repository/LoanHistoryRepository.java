@@ -1,6 +1,7 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.LoanHistory;
+import java.time.LocalDateTime;
 import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -29,56 +30,140 @@ public interface LoanHistoryRepository extends JpaRepository<LoanHistory, Long>
   LoanHistory findTopByLoanApplication_LoanApplicationIdAndCommentIsNotNullOrderByCreatedAtDesc(
       Long loanApplicationId);
 
-  // Dashboard Trends
-  @Query(
-      "SELECT YEAR(lh.createdAt) as year, SUM(la.amount) as total "
-          + "FROM LoanHistory lh "
-          + "JOIN lh.loanApplication la "
-          + "WHERE lh.action = 'DISBURSE' "
-          + "GROUP BY YEAR(lh.createdAt) "
-          + "ORDER BY YEAR(lh.createdAt)")
-  List<Object[]> findYearlyDisbursementTrend();
+  // Action History - one flat projection row per entry, joined with loan, applicant, profile,
+  // product and actor, so a page is a single statement (plus its count)
+  String ACTION_HISTORY_COLUMNS =
+      "SELECT lh.loanHistoryId AS loanHistoryId, la.loanApplicationId AS loanApplicationId,"
+          + " lh.action AS action, lh.createdAt AS createdAt, pr.name AS productName,"
+          + " la.amount AS amount, la.tenureMonths AS tenureMonths, la.latitude AS latitude,"
+          + " la.longitude AS longitude, u.id AS userId, u.username AS username,"
+          + " u.email AS userEmail, p.nik AS userNik, p.phoneNumber AS userPhoneNumber,"
+          + " p.address AS userAddress, p.accountNumber AS userAccountNumber,"
+          + " p.bankName AS userBankName, p.ktpPath AS userKtpPath, a.id AS actorId,"
+          + " a.username AS actorUsername, lh.fromStatus AS fromStatus,"
+          + " lh.toStatus AS toStatus, lh.comment AS comment";
+
+  // Joins for ACTION_HISTORY_COLUMNS after "FROM <history entity> lh"
+  String ACTION_HISTORY_JOINS =
+      " JOIN lh.loanApplication la JOIN la.user u LEFT JOIN u.userProfile p"
+          + " LEFT JOIN la.product pr JOIN lh.actorUser a";
+
+  String ACTION_HISTORY_SELECT =
+      ACTION_HISTORY_COLUMNS + " FROM LoanHistory lh" + ACTION_HISTORY_JOINS;
 
-  @Query(
-      "SELECT MONTH(lh.createdAt) as month, SUM(la.amount) as total "
-          + "FROM LoanHistory lh "
-          + "JOIN lh.loanApplication la "
-          + "WHERE lh.action = 'DISBURSE' AND YEAR(lh.createdAt) = :year "
-          + "GROUP BY MONTH(lh.createdAt) "
-          + "ORDER BY MONTH(lh.createdAt)")
-  List<Object[]> findMonthlyDisbursementStats(@Param("year") Integer year);
-
-  // Action History - Paginated queries for role-based history
   // Query by actor and actions (no date filter)
   @Query(
-      "SELECT lh FROM LoanHistory lh "
-          + "WHERE lh.actorUser.id = :actorId AND lh.action IN :actions "
-          + "ORDER BY lh.createdAt DESC")
-  Page<LoanHistory> findByActorAndActions(
+      value =
+          ACTION_HISTORY_SELECT
+              + " WHERE lh.actorUser.id = :actorId AND lh.action IN :actions"
+              + " ORDER BY lh.createdAt DESC, lh.loanHistoryId DESC",
+      countQuery =
+          "SELECT COUNT(lh) FROM LoanHistory lh "
+              + "WHERE lh.actorUser.id = :actorId AND lh.action IN :actions")
+  Page<ActionHistoryRow> findByActorAndActions(
       @Param("actorId") Long actorId, @Param("actions") List<String> actions, Pageable pageable);
 
-  // Query by actor, actions, and year
+  // Query by actor, actions, and a [from, to) createdAt range (see ActionHistoryService).
+  // A plain range keeps idx_loan_history_actor_action_created usable; YEAR()/MONTH() would not.
   @Query(
-      "SELECT lh FROM LoanHistory lh "
-          + "WHERE lh.actorUser.id = :actorId AND lh.action IN :actions "
-          + "AND YEAR(lh.createdAt) = :year "
-          + "ORDER BY lh.createdAt DESC")
-  Page<LoanHistory> findByActorAndActionsAndYear(
+      value =
+          ACTION_HISTORY_SELECT
+              + " WHERE lh.actorUser.id = :actorId AND lh.action IN :actions"
+              + " AND lh.createdAt >= :from AND lh.createdAt < :to"
+              + " ORDER BY lh.createdAt DESC, lh.loanHistoryId DESC",
+      countQuery =
+          "SELECT COUNT(lh) FROM LoanHistory lh "
+              + "WHERE lh.actorUser.id = :actorId AND lh.action IN :actions "
+              + "AND lh.createdAt >= :from AND lh.createdAt < :to")
+  Page<ActionHistoryRow> findByActorAndActionsBetween(
       @Param("actorId") Long actorId,
       @Param("actions") List<String> actions,
-      @Param("year") Integer year,
+      @Param("from") LocalDateTime from,
+      @Param("to") LocalDateTime to,
       Pageable pageable);
 
-  // Query by actor, actions, month, and year
+  // Keyset pagination over (createdAt DESC, loanHistoryId DESC), see base.CursorPage
+  String KEYSET_AFTER =
+      " (lh.createdAt < :createdAt"
+          + " OR (lh.createdAt = :createdAt AND lh.loanHistoryId < :id))"
+          + " ORDER BY lh.createdAt DESC, lh.loanHistoryId DESC";
+
   @Query(
-      "SELECT lh FROM LoanHistory lh "
-          + "WHERE lh.actorUser.id = :actorId AND lh.action IN :actions "
-          + "AND YEAR(lh.createdAt) = :year AND MONTH(lh.createdAt) = :month "
-          + "ORDER BY lh.createdAt DESC")
-  Page<LoanHistory> findByActorAndActionsAndMonthAndYear(
+      ACTION_HISTORY_SELECT
+          + " WHERE lh.actorUser.id = :actorId AND lh.action IN :actions"
+          + " AND lh.createdAt >= :from AND lh.createdAt < :to AND"
+          + KEYSET_AFTER)
+  List<ActionHistoryRow> findByActorAndActionsAfter(
       @Param("actorId") Long actorId,
       @Param("actions") List<String> actions,
-      @Param("month") Integer month,
-      @Param("year") Integer year,
+      @Param("from") LocalDateTime from,
+      @Param("to") LocalDateTime to,
+      @Param("createdAt") LocalDateTime createdAt,
+      @Param("id") Long id,
       Pageable pageable);
+
+  @Query(
+      "SELECT COUNT(lh) FROM LoanHistory lh "
+          + "WHERE lh.actorUser.id = :actorId AND lh.action IN :actions "
+          + "AND lh.createdAt >= :from AND lh.createdAt < :to")
+  long countByActorAndActionsBetween(
+      @Param("actorId") Long actorId,
+      @Param("actions") List<String> actions,
+      @Param("from") LocalDateTime from,
+      @Param("to") LocalDateTime to);
+
+  @Query(
+      "SELECT lh FROM LoanHistory lh JOIN FETCH lh.loanApplication JOIN FETCH lh.actorUser WHERE"
+          + KEYSET_AFTER)
+  List<LoanHistory> findPageAfter(
+      @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+  /** Flat action history row read by the {@link #ACTION_HISTORY_SELECT} queries. */
+  interface ActionHistoryRow {
+    Long getLoanHistoryId();
+
+    Long getLoanApplicationId();
+
+    String getAction();
+
+    LocalDateTime getCreatedAt();
+
+    String getProductName();
+
+    Double getAmount();
+
+    Integer getTenureMonths();
+
+    Double getLatitude();
+
+    Double getLongitude();
+
+    Long getUserId();
+
+    String getUsername();
+
+    String getUserEmail();
+
+    String getUserNik();
+
+    String getUserPhoneNumber();
+
+    String getUserAddress();
+
+    String getUserAccountNumber();
+
+    String getUserBankName();
+
+    String getUserKtpPath();
+
+    Long getActorId();
+
+    String getActorUsername();
+
+    String getFromStatus();
+
+    String getToStatus();
+
+    String getComment();
+  }
 }
@@ -1,8 +1,12 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.Notification;
+import java.time.LocalDateTime;
 import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -10,11 +14,47 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
 
   List<Notification> findByUser_IdOrderByCreatedAtDesc(Long userId);
 
-  List<Notification> findByUser_IdAndIsReadOrderByCreatedAtDesc(Long userId, Boolean isRead);
-
   List<Notification> findByRelatedLoanApplication_LoanApplicationId(Long loanApplicationId);
 
   List<Notification> findByChannel(String channel);
 
   Long countByUser_IdAndIsRead(Long userId, Boolean isRead);
+
+  // Keyset pagination over (createdAt DESC, notificationId DESC), see base.CursorPage
+  @Query(
+      "SELECT n FROM Notification n JOIN FETCH n.user LEFT JOIN FETCH n.relatedLoanApplication"
+          + " LEFT JOIN FETCH n.template"
+          + " WHERE n.createdAt < :createdAt"
+          + " OR (n.createdAt = :createdAt AND n.notificationId < :id)"
+          + " ORDER BY n.createdAt DESC, n.notificationId DESC")
+  List<Notification> findPageAfter(
+      @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+  // Inbox of one user; the same keyset, seeking in idx_notifications_user_created
+  @Query(
+      "SELECT n FROM Notification n JOIN FETCH n.user LEFT JOIN FETCH n.relatedLoanApplication"
+          + " LEFT JOIN FETCH n.template"
+          + " WHERE n.user.id = :userId"
+          + " AND (n.createdAt < :createdAt"
+          + " OR (n.createdAt = :createdAt AND n.notificationId < :id))"
+          + " ORDER BY n.createdAt DESC, n.notificationId DESC")
+  List<Notification> findUserPageAfter(
+      @Param("userId") Long userId,
+      @Param("createdAt") LocalDateTime createdAt,
+      @Param("id") Long id,
+      Pageable pageable);
+
+  @Query(
+      "SELECT n FROM Notification n JOIN FETCH n.user LEFT JOIN FETCH n.relatedLoanApplication"
+          + " LEFT JOIN FETCH n.template"
+          + " WHERE n.user.id = :userId AND n.isRead = :isRead"
+          + " AND (n.createdAt < :createdAt"
+          + " OR (n.createdAt = :createdAt AND n.notificationId < :id))"
+          + " ORDER BY n.createdAt DESC, n.notificationId DESC")
+  List<Notification> findUserPageAfterByIsRead(
+      @Param("userId") Long userId,
+      @Param("isRead") Boolean isRead,
+      @Param("createdAt") LocalDateTime createdAt,
+      @Param("id") Long id,
+      Pageable pageable);
 }
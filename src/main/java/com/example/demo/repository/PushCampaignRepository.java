@@ -0,0 +1,18 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.PushCampaign;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PushCampaignRepository extends JpaRepository<PushCampaign, Long> {
+
+  @Query(
+      "SELECT c.campaignId FROM PushCampaign c"
+          + " WHERE c.status = 'RUNNING' AND c.heartbeatAt < :staleBefore")
+  List<Long> findStalledIds(@Param("staleBefore") LocalDateTime staleBefore);
+}
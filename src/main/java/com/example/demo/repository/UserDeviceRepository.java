@@ -2,12 +2,14 @@ package com.example.demo.repository;
 
 import com.example.demo.entity.User;
 import com.example.demo.entity.UserDevice;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /** Repository for managing FCM device tokens. */
 @Repository
@@ -44,4 +46,16 @@ public interface UserDeviceRepository extends JpaRepository<UserDevice, Long> {
   /** Get all FCM tokens for a single user. */
   @Query("SELECT ud.fcmToken FROM UserDevice ud WHERE ud.user.id = :userId AND ud.isActive = true")
   List<String> findFcmTokensByUserId(Long userId);
+
+  /** (userId, fcmToken) of the active devices of several users. */
+  @Query(
+      "SELECT ud.user.id, ud.fcmToken FROM UserDevice ud"
+          + " WHERE ud.user.id IN :userIds AND ud.isActive = true")
+  List<Object[]> findActiveTokensByUserIds(Collection<Long> userIds);
+
+  /** Deactivate many devices with one statement. */
+  @Transactional
+  @Modifying
+  @Query("UPDATE UserDevice ud SET ud.isActive = false WHERE ud.fcmToken IN :fcmTokens")
+  int deactivateByFcmTokens(Collection<String> fcmTokens);
 }
@@ -1,8 +1,11 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.UserProduct;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -27,4 +30,66 @@ public interface UserProductRepository extends JpaRepository<UserProduct, Long>
           + "WHERE up.user.id = :userId AND up.status = 'ACTIVE' "
           + "ORDER BY up.product.tierOrder DESC")
   List<UserProduct> findActiveUserProductsByUserIdOrderByTier(@Param("userId") Long userId);
+
+  /**
+   * Keyset-paged scan of active user products alongside the outstanding amount recomputed from loan
+   * applications. Each row is {userProductId, userId, currentUsedAmount, actualActiveAmount}.
+   */
+  @Query(
+      "SELECT up.userProductId, up.user.id, up.currentUsedAmount, "
+          + "(SELECT COALESCE(SUM(la.amount), 0) FROM LoanApplication la "
+          + " WHERE la.user = up.user "
+          + " AND la.currentStatus NOT IN ('REJECTED', 'PAID', 'CANCELLED')) "
+          + "FROM UserProduct up "
+          + "WHERE up.status = 'ACTIVE' AND up.userProductId > :afterId "
+          + "ORDER BY up.userProductId")
+  List<Object[]> findActiveUsageSnapshotAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+  // Bulk tier evaluation queries
+  @Query(
+      "SELECT MIN(up.userProductId), MAX(up.userProductId) FROM UserProduct up "
+          + "WHERE up.status = 'ACTIVE'")
+  List<Object[]> findActiveIdRange();
+
+  /**
+   * Keyset-paged chunk of each user's highest active tier within an id range. Each row is
+   * {userProductId, userId, productId, tierOrder, totalPaidAmount, currentUsedAmount}.
+   */
+  @Query(
+      "SELECT up.userProductId, up.user.id, up.product.id, up.product.tierOrder, "
+          + "up.totalPaidAmount, up.currentUsedAmount "
+          + "FROM UserProduct up "
+          + "WHERE up.status = 'ACTIVE' "
+          + "AND up.userProductId > :afterId AND up.userProductId <= :upToId "
+          + "AND NOT EXISTS (SELECT 1 FROM UserProduct h WHERE h.user = up.user "
+          + " AND h.status = 'ACTIVE' AND h.product.tierOrder > up.product.tierOrder) "
+          + "ORDER BY up.userProductId")
+  List<Object[]> findTopActiveTierChunk(
+      @Param("afterId") Long afterId, @Param("upToId") Long upToId, Pageable pageable);
+
+  /**
+   * Highest active tier of each of the given users, same row shape as {@link
+   * #findTopActiveTierChunk}.
+   */
+  @Query(
+      "SELECT up.userProductId, up.user.id, up.product.id, up.product.tierOrder, "
+          + "up.totalPaidAmount, up.currentUsedAmount "
+          + "FROM UserProduct up "
+          + "WHERE up.status = 'ACTIVE' AND up.user.id IN :userIds "
+          + "AND NOT EXISTS (SELECT 1 FROM UserProduct h WHERE h.user = up.user "
+          + " AND h.status = 'ACTIVE' AND h.product.tierOrder > up.product.tierOrder)")
+  List<Object[]> findTopActiveTierByUserIds(@Param("userIds") Collection<Long> userIds);
+
+  /** Existing (userId, productId) pairs for a set of users, used to avoid unique violations. */
+  @Query("SELECT up.user.id, up.product.id FROM UserProduct up WHERE up.user.id IN :userIds")
+  List<Object[]> findUserProductPairs(@Param("userIds") Collection<Long> userIds);
+
+  // Keyset pagination over (createdAt DESC, userProductId DESC), see base.CursorPage
+  @Query(
+      "SELECT up FROM UserProduct up JOIN FETCH up.user JOIN FETCH up.product"
+          + " WHERE up.createdAt < :createdAt"
+          + " OR (up.createdAt = :createdAt AND up.userProductId < :id)"
+          + " ORDER BY up.createdAt DESC, up.userProductId DESC")
+  List<UserProduct> findPageAfter(
+      @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
 }
@@ -1,8 +1,12 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.UserProfile;
+import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -11,4 +15,8 @@ public interface UserProfileRepository extends JpaRepository<UserProfile, Long>
   Optional<UserProfile> findByNik(String nik);
 
   Optional<UserProfile> findByPhoneNumber(String phoneNumber);
+
+  // Keyset pagination over userId DESC, see base.CursorPage
+  @Query("SELECT p FROM UserProfile p WHERE p.userId < :id ORDER BY p.userId DESC")
+  List<UserProfile> findPageAfter(@Param("id") Long id, Pageable pageable);
 }
@@ -37,4 +37,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
   @Query(
       "SELECT u FROM User u JOIN u.roles r WHERE r.name = :roleName AND (u.deleted = false OR u.deleted IS NULL)")
   List<User> findByRoles_Name(@Param("roleName") String roleName);
+
+  // Keyset pagination over id DESC, see base.CursorPage
+  @Query("SELECT u FROM User u WHERE u.deleted = false AND u.id < :id ORDER BY u.id DESC")
+  List<User> findActivePageAfter(@Param("id") Long id, Pageable pageable);
+
+  long countByDeletedFalse();
 }
@@ -1,21 +1,28 @@
 package com.example.demo.service;
 
+import com.example.demo.base.ApproximateCountCache;
+import com.example.demo.base.Cursor;
+import com.example.demo.base.CursorPage;
 import com.example.demo.dto.ActionHistoryDTO;
 import com.example.demo.dto.ActionHistoryRequestDTO;
-import com.example.demo.entity.LoanApplication;
-import com.example.demo.entity.LoanHistory;
-import com.example.demo.entity.User;
-import com.example.demo.entity.UserProfile;
+import com.example.demo.exception.BusinessException;
+import com.example.demo.repository.LoanHistoryArchiveRepository;
 import com.example.demo.repository.LoanHistoryRepository;
+import com.example.demo.repository.LoanHistoryRepository.ActionHistoryRow;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,6 +31,19 @@ import org.springframework.transaction.annotation.Transactional;
 public class ActionHistoryService {
 
   private final LoanHistoryRepository loanHistoryRepository;
+  private final LoanHistoryArchiveRepository loanHistoryArchiveRepository;
+  private final ApproximateCountCache countCache;
+
+  private static final LocalDateTime MIN_CREATED_AT = LocalDateTime.of(1900, 1, 1, 0, 0);
+
+  // Deepest row an offset page may reach once history spans both tiers: each page reads every row
+  // before it from both, so deeper pages are served by the cursor endpoints only
+  static final int MAX_MERGED_OFFSET = 1000;
+
+  private static final Comparator<ActionHistoryRow> NEWEST_FIRST =
+      Comparator.comparing(ActionHistoryRow::getCreatedAt)
+          .thenComparing(ActionHistoryRow::getLoanHistoryId)
+          .reversed();
 
   // Define actions per role
   private static final List<String> MARKETING_ACTIONS =
@@ -73,15 +93,45 @@ public class ActionHistoryService {
     Integer year = request.getYear();
 
     Pageable pageable = PageRequest.of(page, size);
-    Page<LoanHistory> historyPage;
+    Page<ActionHistoryRow> historyPage;
 
-    if (month != null && year != null) {
+    LocalDateTime from = MIN_CREATED_AT;
+    LocalDateTime to = Cursor.MAX_CREATED_AT;
+    if (year != null) {
+      from = rangeStart(year, month);
+      to = rangeEnd(from, month);
+    }
+
+    long archived =
+        loanHistoryArchiveRepository.countByActorAndActionsBetween(actorId, actions, from, to);
+    if (archived > 0) {
+      // Offset pages over two tiers: merge the first (page + 1) * size rows of each
+      if ((long) (page + 1) * size > MAX_MERGED_OFFSET) {
+        throw new BusinessException(
+            "History pages beyond the first "
+                + MAX_MERGED_OFFSET
+                + " entries are only available through the cursor endpoint",
+            "PAGE_TOO_DEEP",
+            HttpStatus.BAD_REQUEST);
+      }
+      int window = (page + 1) * size;
+      Page<ActionHistoryRow> live =
+          loanHistoryRepository.findByActorAndActionsBetween(
+              actorId, actions, from, to, PageRequest.of(0, window));
+      List<ActionHistoryRow> merged =
+          LoanHistoryArchiveService.merge(
+              live.getContent(),
+              loanHistoryArchiveRepository.findByActorAndActionsBetween(
+                  actorId, actions, from, to, PageRequest.of(0, window)),
+              window,
+              NEWEST_FIRST);
+      int offset = Math.min(merged.size(), page * size);
       historyPage =
-          loanHistoryRepository.findByActorAndActionsAndMonthAndYear(
-              actorId, actions, month, year, pageable);
+          new PageImpl<>(
+              merged.subList(offset, merged.size()), pageable, live.getTotalElements() + archived);
     } else if (year != null) {
       historyPage =
-          loanHistoryRepository.findByActorAndActionsAndYear(actorId, actions, year, pageable);
+          loanHistoryRepository.findByActorAndActionsBetween(actorId, actions, from, to, pageable);
     } else {
       historyPage = loanHistoryRepository.findByActorAndActions(actorId, actions, pageable);
     }
@@ -89,42 +139,110 @@ public class ActionHistoryService {
     return historyPage.map(this::convertToDTO);
   }
 
-  private ActionHistoryDTO convertToDTO(LoanHistory loanHistory) {
-    LoanApplication loan = loanHistory.getLoanApplication();
-    User applicant = loan.getUser();
-    UserProfile profile = applicant.getUserProfile();
-    User actor = loanHistory.getActorUser();
+  @Transactional(readOnly = true)
+  public CursorPage<ActionHistoryDTO> scrollMarketingHistory(
+      Long actorId, ActionHistoryRequestDTO request) {
+    return scrollActionHistory(actorId, MARKETING_ACTIONS, request);
+  }
+
+  @Transactional(readOnly = true)
+  public CursorPage<ActionHistoryDTO> scrollBranchManagerHistory(
+      Long actorId, ActionHistoryRequestDTO request) {
+    return scrollActionHistory(actorId, BRANCH_MANAGER_ACTIONS, request);
+  }
+
+  @Transactional(readOnly = true)
+  public CursorPage<ActionHistoryDTO> scrollBackOfficeHistory(
+      Long actorId, ActionHistoryRequestDTO request) {
+    return scrollActionHistory(actorId, BACK_OFFICE_ACTIONS, request);
+  }
+
+  /**
+   * Keyset-paginated variant of {@link #getActionHistory}. The month/year filter becomes a {@code
+   * [from, to)} range on {@code createdAt}, so deep pages cost the same as the first one.
+   */
+  private CursorPage<ActionHistoryDTO> scrollActionHistory(
+      Long actorId, List<String> actions, ActionHistoryRequestDTO request) {
+    int size = request.getSize() != null ? request.getSize() : CursorPage.DEFAULT_SIZE;
+    LocalDateTime from = MIN_CREATED_AT;
+    LocalDateTime to = Cursor.MAX_CREATED_AT;
+    if (request.getYear() != null) {
+      from = rangeStart(request.getYear(), request.getMonth());
+      to = rangeEnd(from, request.getMonth());
+    }
+
+    Cursor after = Cursor.decode(request.getCursor());
+    Pageable limit = CursorPage.limit(size);
+    List<ActionHistoryRow> rows =
+        LoanHistoryArchiveService.merge(
+            loanHistoryRepository.findByActorAndActionsAfter(
+                actorId, actions, from, to, after.createdAt(), after.id(), limit),
+            loanHistoryArchiveRepository.findByActorAndActionsAfter(
+                actorId, actions, from, to, after.createdAt(), after.id(), limit),
+            limit.getPageSize(),
+            NEWEST_FIRST);
+    CursorPage<ActionHistoryDTO> page =
+        CursorPage.of(
+            rows,
+            size,
+            h -> new Cursor(h.getCreatedAt(), h.getLoanHistoryId()),
+            this::convertToDTO);
+
+    if (Boolean.TRUE.equals(request.getIncludeTotal())) {
+      LocalDateTime rangeFrom = from;
+      LocalDateTime rangeTo = to;
+      page.withTotal(
+          countCache.get(
+              "action-history:" + actorId + ":" + actions + ":" + from + ":" + to,
+              () ->
+                  loanHistoryRepository.countByActorAndActionsBetween(
+                          actorId, actions, rangeFrom, rangeTo)
+                      + loanHistoryArchiveRepository.countByActorAndActionsBetween(
+                          actorId, actions, rangeFrom, rangeTo)));
+    }
+    return page;
+  }
+
+  /** Start of the month, or of the year when {@code month} is null. */
+  private static LocalDateTime rangeStart(int year, Integer month) {
+    return LocalDate.of(year, month != null ? month : 1, 1).atStartOfDay();
+  }
+
+  /** Exclusive end of the period starting at {@code from}. */
+  private static LocalDateTime rangeEnd(LocalDateTime from, Integer month) {
+    return month != null ? from.plusMonths(1) : from.plusYears(1);
+  }
 
+  private ActionHistoryDTO convertToDTO(ActionHistoryRow row) {
     return ActionHistoryDTO.builder()
-        .loanApplicationId(loan.getLoanApplicationId())
-        .action(loanHistory.getAction())
-        .actionDisplayName(
-            ACTION_DISPLAY_NAMES.getOrDefault(loanHistory.getAction(), loanHistory.getAction()))
-        .actionDate(loanHistory.getCreatedAt())
+        .loanApplicationId(row.getLoanApplicationId())
+        .action(row.getAction())
+        .actionDisplayName(ACTION_DISPLAY_NAMES.getOrDefault(row.getAction(), row.getAction()))
+        .actionDate(row.getCreatedAt())
         // Loan Info
-        .productName(loan.getProduct() != null ? loan.getProduct().getName() : null)
-        .amount(loan.getAmount() != null ? BigDecimal.valueOf(loan.getAmount()) : null)
-        .tenureMonths(loan.getTenureMonths())
-        .latitude(loan.getLatitude())
-        .longitude(loan.getLongitude())
+        .productName(row.getProductName())
+        .amount(row.getAmount() != null ? BigDecimal.valueOf(row.getAmount()) : null)
+        .tenureMonths(row.getTenureMonths())
+        .latitude(row.getLatitude())
+        .longitude(row.getLongitude())
         // Applicant Info
-        .userId(applicant.getId())
-        .username(applicant.getUsername())
-        .userEmail(applicant.getEmail())
-        .userNik(profile != null ? profile.getNik() : null)
-        .userPhoneNumber(profile != null ? profile.getPhoneNumber() : null)
-        .userAddress(profile != null ? profile.getAddress() : null)
-        .userAccountNumber(profile != null ? profile.getAccountNumber() : null)
-        .userBankName(profile != null ? profile.getBankName() : null)
-        .userKtpPath(profile != null ? profile.getKtpPath() : null)
+        .userId(row.getUserId())
+        .username(row.getUsername())
+        .userEmail(row.getUserEmail())
+        .userNik(row.getUserNik())
+        .userPhoneNumber(row.getUserPhoneNumber())
+        .userAddress(row.getUserAddress())
+        .userAccountNumber(row.getUserAccountNumber())
+        .userBankName(row.getUserBankName())
+        .userKtpPath(row.getUserKtpPath())
         // Actor Info
-        .actorId(actor.getId())
-        .actorUsername(actor.getUsername())
+        .actorId(row.getActorId())
+        .actorUsername(row.getActorUsername())
         // Status
-        .previousStatus(loanHistory.getFromStatus())
-        .resultingStatus(loanHistory.getToStatus())
+        .previousStatus(row.getFromStatus())
+        .resultingStatus(row.getToStatus())
         // Comment
-        .comment(loanHistory.getComment())
+        .comment(row.getComment())
         .build();
   }
 }
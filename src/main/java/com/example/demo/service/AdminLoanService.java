@@ -1,18 +1,38 @@
 package com.example.demo.service;
 
+import com.example.demo.base.ApproximateCountCache;
+import com.example.demo.base.Cursor;
+import com.example.demo.base.CursorPage;
 import com.example.demo.dto.AdminLoanApplicationDTO;
+import com.example.demo.dto.LoanSearchRequestDTO;
 import com.example.demo.entity.LoanApplication;
 import com.example.demo.entity.UserProfile;
+import com.example.demo.enums.ExportFormat;
 import com.example.demo.enums.LoanStatus;
 import com.example.demo.repository.LoanApplicationRepository;
+import com.example.demo.repository.LoanApplicationRepository.AdminLoanExportRow;
+import com.example.demo.repository.LoanApplicationSpecifications;
 import com.example.demo.repository.UserProfileRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -27,6 +47,38 @@ public class AdminLoanService {
 
   private final LoanApplicationRepository loanApplicationRepository;
   private final UserProfileRepository userProfileRepository;
+  private final ApproximateCountCache countCache;
+  private final ObjectMapper objectMapper;
+
+  private static final Sort SEARCH_ORDER =
+      Sort.by(Sort.Direction.DESC, "createdAt", "loanApplicationId");
+
+  // Rows written between explicit flushes of the response stream
+  private static final int FLUSH_EVERY = 1000;
+  private static final String[] CSV_HEADER = {
+    "loanApplicationId",
+    "amount",
+    "tenureMonths",
+    "interestRateApplied",
+    "totalAmountToPay",
+    "productName",
+    "createdAt",
+    "updatedAt",
+    "userId",
+    "userName",
+    "userEmail",
+    "nik",
+    "phoneNumber",
+    "bankName",
+    "accountNumber",
+    "currentStatus",
+    "displayStatus",
+    "currentBucket",
+    "branchId",
+    "branchName",
+    "latitude",
+    "longitude"
+  };
 
   /**
    * Get all loan applications with full details for admin view.
@@ -45,17 +97,195 @@ public class AdminLoanService {
   }
 
   /**
-   * Get all loan applications without pagination (for smaller datasets).
+   * Keyset-paginated variant of {@link #getAllLoanApplications(Pageable)}: every page costs the
+   * same regardless of depth. User, profile, product and branch are fetched in the page query.
+   *
+   * @param cursor opaque cursor from the previous page, or null for the first page
+   * @param size page size
+   * @param includeTotal attach an approximate total count
+   * @return page of AdminLoanApplicationDTO
+   */
+  @Transactional(readOnly = true)
+  public CursorPage<AdminLoanApplicationDTO> scrollLoanApplications(
+      String cursor, int size, boolean includeTotal) {
+    Cursor after = Cursor.decode(cursor);
+    CursorPage<AdminLoanApplicationDTO> page =
+        CursorPage.of(
+            loanApplicationRepository.findPageAfter(
+                after.createdAt(), after.id(), CursorPage.limit(size)),
+            size,
+            la -> new Cursor(la.getCreatedAt(), la.getLoanApplicationId()),
+            this::convertFetchedToAdminDTO);
+    if (includeTotal) {
+      page.withTotal(countCache.get("admin-loans", loanApplicationRepository::count));
+    }
+    return page;
+  }
+
+  /**
+   * Search loan applications by any combination of applicant, NIK, phone, status, branch, amount
+   * range and creation date range. Runs as one query returning a keyset page; the optional total is
+   * counted once per filter combination and cached briefly.
    *
-   * @return List of AdminLoanApplicationDTO
+   * @param criteria search filters, cursor and page size
+   * @return page of AdminLoanApplicationDTO, newest first
    */
   @Transactional(readOnly = true)
-  public List<AdminLoanApplicationDTO> getAllLoanApplications() {
-    log.info("Admin fetching all loan applications");
+  public CursorPage<AdminLoanApplicationDTO> searchLoanApplications(LoanSearchRequestDTO criteria) {
+    Cursor after = Cursor.decode(criteria.getCursor());
+    int size = criteria.getSize() != null ? criteria.getSize() : CursorPage.DEFAULT_SIZE;
+    Specification<LoanApplication> filters = LoanApplicationSpecifications.matching(criteria);
+    List<LoanApplication> rows =
+        loanApplicationRepository.findBy(
+            Specification.where(LoanApplicationSpecifications.withDetails(criteria))
+                .and(filters)
+                .and(LoanApplicationSpecifications.after(after.createdAt(), after.id())),
+            query -> query.sortBy(SEARCH_ORDER).limit(CursorPage.limit(size).getPageSize()).all());
+    CursorPage<AdminLoanApplicationDTO> page =
+        CursorPage.of(
+            rows,
+            size,
+            la -> new Cursor(la.getCreatedAt(), la.getLoanApplicationId()),
+            this::convertFetchedToAdminDTO);
+    if (Boolean.TRUE.equals(criteria.getIncludeTotal())) {
+      page.withTotal(
+          countCache.get(
+              "loan-search:" + criteria.filterSignature(),
+              () -> loanApplicationRepository.count(filters)));
+    }
+    return page;
+  }
+
+  /**
+   * Write every loan application to {@code out}, one row at a time, straight from a forward-only
+   * database cursor. Memory use does not depend on the number of loans.
+   *
+   * @param format NDJSON or CSV
+   * @param out response stream; flushed periodically, not closed
+   * @return number of loans written
+   */
+  @Transactional(readOnly = true)
+  public long exportLoanApplications(ExportFormat format, OutputStream out) throws IOException {
+    long written;
+    try (Stream<AdminLoanExportRow> rows = loanApplicationRepository.streamForAdminExport()) {
+      written =
+          format == ExportFormat.CSV
+              ? writeCsv(rows.iterator(), out)
+              : writeNdjson(rows.iterator(), out);
+    }
+    log.info("Admin exported {} loan applications as {}", written, format);
+    return written;
+  }
 
-    List<LoanApplication> loanApplications = loanApplicationRepository.findAll();
+  private long writeNdjson(Iterator<AdminLoanExportRow> rows, OutputStream out) throws IOException {
+    // Flushing is done in chunks below, not after every row
+    ObjectWriter writer =
+        objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    long count = 0;
+    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      generator.setRootValueSeparator(null);
+      while (rows.hasNext()) {
+        writer.writeValue(generator, convertToAdminDTO(rows.next()));
+        generator.writeRaw('\n');
+        if (++count % FLUSH_EVERY == 0) {
+          generator.flush();
+        }
+      }
+    }
+    return count;
+  }
+
+  private long writeCsv(Iterator<AdminLoanExportRow> rows, OutputStream out) throws IOException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    writer.write(String.join(",", CSV_HEADER));
+    writer.write("\r\n");
+    long count = 0;
+    while (rows.hasNext()) {
+      AdminLoanApplicationDTO dto = convertToAdminDTO(rows.next());
+      Object[] values = {
+        dto.getLoanApplicationId(),
+        dto.getAmount(),
+        dto.getTenureMonths(),
+        dto.getInterestRateApplied(),
+        dto.getTotalAmountToPay(),
+        dto.getProductName(),
+        dto.getCreatedAt(),
+        dto.getUpdatedAt(),
+        dto.getUserId(),
+        dto.getUserName(),
+        dto.getUserEmail(),
+        dto.getNik(),
+        dto.getPhoneNumber(),
+        dto.getBankName(),
+        dto.getAccountNumber(),
+        dto.getCurrentStatus(),
+        dto.getDisplayStatus(),
+        dto.getCurrentBucket(),
+        dto.getBranchId(),
+        dto.getBranchName(),
+        dto.getLatitude(),
+        dto.getLongitude()
+      };
+      for (int i = 0; i < values.length; i++) {
+        if (i > 0) {
+          writer.write(',');
+        }
+        writeCsvValue(writer, values[i]);
+      }
+      writer.write("\r\n");
+      if (++count % FLUSH_EVERY == 0) {
+        writer.flush();
+      }
+    }
+    writer.flush();
+    return count;
+  }
+
+  private void writeCsvValue(Writer writer, Object value) throws IOException {
+    if (value == null) {
+      return;
+    }
+    String text = value.toString();
+    if (text.indexOf(',') < 0
+        && text.indexOf('"') < 0
+        && text.indexOf('\n') < 0
+        && text.indexOf('\r') < 0) {
+      writer.write(text);
+      return;
+    }
+    writer.write('"');
+    writer.write(text.replace("\"", "\"\""));
+    writer.write('"');
+  }
 
-    return loanApplications.stream().map(this::convertToAdminDTO).collect(Collectors.toList());
+  /** Export row to DTO; same shape as {@link #convertToAdminDTO(LoanApplication)}. */
+  private AdminLoanApplicationDTO convertToAdminDTO(AdminLoanExportRow row) {
+    return AdminLoanApplicationDTO.builder()
+        .loanApplicationId(row.getLoanApplicationId())
+        .amount(row.getAmount())
+        .tenureMonths(row.getTenureMonths())
+        .interestRateApplied(row.getInterestRateApplied())
+        .totalAmountToPay(row.getTotalAmountToPay())
+        .productName(row.getProductName())
+        .createdAt(row.getCreatedAt())
+        .updatedAt(row.getUpdatedAt())
+        .userId(row.getUserId())
+        .userName(row.getUserName())
+        .userEmail(row.getUserEmail())
+        .profileId(row.getUserId())
+        .nik(row.getNik())
+        .phoneNumber(row.getPhoneNumber())
+        .bankName(row.getBankName())
+        .accountNumber(row.getAccountNumber())
+        .currentStatus(row.getCurrentStatus())
+        .displayStatus(mapToDisplayStatus(row.getCurrentStatus()))
+        .currentBucket(determineBucket(row.getCurrentStatus()))
+        .branchId(row.getBranchId())
+        .branchName(row.getBranchName())
+        .latitude(row.getLatitude())
+        .longitude(row.getLongitude())
+        .build();
   }
 
   /**
@@ -65,10 +295,20 @@ public class AdminLoanService {
    * @return AdminLoanApplicationDTO with all admin-relevant information
    */
   private AdminLoanApplicationDTO convertToAdminDTO(LoanApplication loanApplication) {
-    Long userId = loanApplication.getUser().getId();
-
     // Fetch user profile (may be null if not created yet)
-    Optional<UserProfile> userProfile = userProfileRepository.findById(userId);
+    return convertToAdminDTO(
+        loanApplication, userProfileRepository.findById(loanApplication.getUser().getId()));
+  }
+
+  /** Conversion for queries that already fetched the profile with the user. */
+  private AdminLoanApplicationDTO convertFetchedToAdminDTO(LoanApplication loanApplication) {
+    return convertToAdminDTO(
+        loanApplication, Optional.ofNullable(loanApplication.getUser().getUserProfile()));
+  }
+
+  private AdminLoanApplicationDTO convertToAdminDTO(
+      LoanApplication loanApplication, Optional<UserProfile> userProfile) {
+    Long userId = loanApplication.getUser().getId();
 
     return AdminLoanApplicationDTO.builder()
         // Loan Application Info
@@ -7,12 +7,14 @@ import com.example.demo.dto.UserBranchDTO;
 import com.example.demo.entity.Branch;
 import com.example.demo.entity.User;
 import com.example.demo.enums.RoleName;
+import com.example.demo.event.StaffAssignmentChangedEvent;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.repository.BranchRepository;
 import com.example.demo.repository.UserRepository;
 import java.util.List;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -24,6 +26,7 @@ public class BranchService {
 
   private final BranchRepository branchRepository;
   private final UserRepository userRepository;
+  private final ApplicationEventPublisher eventPublisher;
 
   /** Get all branches (including inactive) */
   public Page<BranchDTO> getAllBranches(Pageable pageable) {
@@ -141,6 +144,7 @@ public class BranchService {
 
     user.setBranch(branch);
     User savedUser = userRepository.save(user);
+    eventPublisher.publishEvent(new StaffAssignmentChangedEvent(savedUser.getId()));
     return UserBranchDTO.fromUser(savedUser);
   }
 
@@ -154,6 +158,7 @@ public class BranchService {
 
     user.setBranch(null);
     User savedUser = userRepository.save(user);
+    eventPublisher.publishEvent(new StaffAssignmentChangedEvent(savedUser.getId()));
     return UserBranchDTO.fromUser(savedUser);
   }
 
@@ -0,0 +1,348 @@
+package com.example.demo.service;
+
+import com.example.demo.base.BackgroundJob;
+import com.example.demo.dto.BatchJobStatusDTO;
+import com.example.demo.entity.LoanApplication;
+import com.example.demo.enums.LoanStatus;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maintains {@code daily_loan_stats}, the rollup behind the analytics dashboards.
+ *
+ * <ul>
+ *   <li>Every submit, transition and payment calls {@link #recordChange} or {@link #recordChanges}
+ *       with the loan before and after; the difference is applied as deltas in the caller's
+ *       transaction, so the rollup commits or rolls back with the loan
+ *   <li>Deltas of one call are applied in key order, so concurrent writers lock rollup rows in the
+ *       same order and cannot deadlock each other
+ *   <li>{@link #startBackfill} rebuilds the rollup from {@code loan_applications}, one month per
+ *       partition, partitions in parallel; each partition replaces its own days in one serializable
+ *       transaction that deletes before it reads, so a delta recorded meanwhile either waits for
+ *       the rebuilt rows or is already counted in them. Writers touching that month wait for the
+ *       partition, and a partition that loses a deadlock to one is retried
+ * </ul>
+ */
+@Service
+@Slf4j
+public class DailyLoanStatsService {
+
+  public static final String JOB_NAME = "DAILY_LOAN_STATS_BACKFILL";
+
+  /** {@code branch_id} of loans without a branch. */
+  public static final long NO_BRANCH = 0L;
+
+  private static final String UPDATE_SQL =
+      "UPDATE daily_loan_stats SET loan_count = loan_count + ?,"
+          + " principal_amount = principal_amount + ?,"
+          + " total_to_pay_amount = total_to_pay_amount + ?,"
+          + " disbursed_count = disbursed_count + ?, disbursed_amount = disbursed_amount + ?"
+          + " WHERE stat_date = ? AND branch_id = ? AND product_id = ? AND status = ?";
+
+  private static final String INSERT_SQL =
+      "INSERT INTO daily_loan_stats (loan_count, principal_amount, total_to_pay_amount,"
+          + " disbursed_count, disbursed_amount, stat_date, branch_id, product_id, status)"
+          + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private static final String FIRST_LOAN_SQL = "SELECT MIN(created_at) FROM loan_applications";
+
+  private static final String DELETE_RANGE_SQL =
+      "DELETE FROM daily_loan_stats WHERE stat_date >= ? AND stat_date < ?";
+
+  private static final String CREATED_TOTALS_SQL =
+      "SELECT CAST(created_at AS DATE), COALESCE(branch_id, 0), product_id, current_status,"
+          + " COUNT(*), COALESCE(SUM(amount), 0), COALESCE(SUM(total_amount_to_pay), 0)"
+          + " FROM loan_applications WHERE created_at >= ? AND created_at < ?"
+          + " GROUP BY CAST(created_at AS DATE), COALESCE(branch_id, 0), product_id,"
+          + " current_status";
+
+  private static final String DISBURSED_TOTALS_SQL =
+      "SELECT CAST(disbursed_at AS DATE), COALESCE(branch_id, 0), product_id,"
+          + " COUNT(*), COALESCE(SUM(amount), 0)"
+          + " FROM loan_applications WHERE disbursed_at >= ? AND disbursed_at < ?"
+          + " GROUP BY CAST(disbursed_at AS DATE), COALESCE(branch_id, 0), product_id";
+
+  private static final Comparator<Key> KEY_ORDER =
+      Comparator.comparing(Key::date)
+          .thenComparingLong(Key::branchId)
+          .thenComparingLong(Key::productId)
+          .thenComparing(Key::status);
+
+  private static final int REBUILD_ATTEMPTS = 3;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate rebuildTransaction;
+  private final int parallelism;
+
+  private final BackgroundJob job =
+      new BackgroundJob(JOB_NAME, "Loan statistics backfill", "daily-loan-stats-backfill");
+
+  public DailyLoanStatsService(
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      @Value("${app.loan-stats.parallelism:4}") int parallelism) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.rebuildTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+    this.rebuildTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+    this.parallelism = Math.max(1, parallelism);
+  }
+
+  /**
+   * What the rollup knows about a loan at one point in time.
+   *
+   * @param disbursedOn day of the first disbursement, {@code null} if never disbursed
+   */
+  public record LoanFacts(
+      LocalDate createdOn,
+      long branchId,
+      long productId,
+      String status,
+      double amount,
+      double totalToPay,
+      LocalDate disbursedOn) {
+
+    /** Snapshot of {@code loan}; take it before mutating the entity to get the "before" side. */
+    public static LoanFacts of(LoanApplication loan) {
+      return new LoanFacts(
+          loan.getCreatedAt() != null ? loan.getCreatedAt().toLocalDate() : LocalDate.now(),
+          loan.getBranch() != null ? loan.getBranch().getId() : NO_BRANCH,
+          loan.getProduct().getId(),
+          loan.getCurrentStatus(),
+          loan.getAmount() != null ? loan.getAmount() : 0.0,
+          loan.getTotalAmountToPay() != null ? loan.getTotalAmountToPay() : 0.0,
+          loan.getDisbursedAt() != null ? loan.getDisbursedAt().toLocalDate() : null);
+    }
+  }
+
+  /**
+   * A loan going from {@code before} to {@code after}.
+   *
+   * @param before {@code null} for a new loan
+   * @param after {@code null} for a deleted loan
+   */
+  public record Change(LoanFacts before, LoanFacts after) {}
+
+  /** Apply one loan change; joins the caller's transaction. */
+  public void recordChange(LoanFacts before, LoanFacts after) {
+    recordChanges(List.of(new Change(before, after)));
+  }
+
+  /** Apply many loan changes with one statement batch; joins the caller's transaction. */
+  public void recordChanges(Collection<Change> changes) {
+    Map<Key, Delta> deltas = new TreeMap<>(KEY_ORDER);
+    for (Change change : changes) {
+      if (change.before() != null) {
+        addLoan(deltas, change.before(), -1);
+      }
+      if (change.after() != null) {
+        addLoan(deltas, change.after(), 1);
+      }
+    }
+    deltas.values().removeIf(Delta::isZero);
+    apply(deltas);
+  }
+
+  /** Start a full rebuild in the background and return immediately. */
+  public BatchJobStatusDTO startBackfill() {
+    return job.start(this::backfill);
+  }
+
+  /** Rebuild the whole rollup on the calling thread. */
+  public BatchJobStatusDTO rebuild() {
+    return job.run(this::backfill);
+  }
+
+  public BatchJobStatusDTO getStatus() {
+    return job.getStatus();
+  }
+
+  private static void addLoan(Map<Key, Delta> deltas, LoanFacts loan, int sign) {
+    Delta created =
+        deltas.computeIfAbsent(
+            new Key(loan.createdOn(), loan.branchId(), loan.productId(), loan.status()),
+            key -> new Delta());
+    created.loans += sign;
+    created.principal += sign * loan.amount();
+    created.totalToPay += sign * loan.totalToPay();
+    if (loan.disbursedOn() != null) {
+      Delta disbursed =
+          deltas.computeIfAbsent(
+              new Key(
+                  loan.disbursedOn(),
+                  loan.branchId(),
+                  loan.productId(),
+                  LoanStatus.DISBURSED.name()),
+              key -> new Delta());
+      disbursed.disbursed += sign;
+      disbursed.disbursedAmount += sign * loan.amount();
+    }
+  }
+
+  /** Update existing rows in one batch, then insert the missing ones. */
+  private int apply(Map<Key, Delta> deltas) {
+    if (deltas.isEmpty()) {
+      return 0;
+    }
+    List<Map.Entry<Key, Delta>> rows = new ArrayList<>(deltas.entrySet());
+    int[][] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, rows, rows.size(), this::bind);
+    int index = 0;
+    for (int[] chunk : counts) {
+      for (int count : chunk) {
+        Map.Entry<Key, Delta> row = rows.get(index++);
+        if (count == 0) {
+          try {
+            jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, row));
+          } catch (DuplicateKeyException e) {
+            // Another transaction inserted the row first; add to it instead
+            jdbcTemplate.update(UPDATE_SQL, ps -> bind(ps, row));
+          }
+        }
+      }
+    }
+    return rows.size();
+  }
+
+  private void bind(PreparedStatement ps, Map.Entry<Key, Delta> row) throws SQLException {
+    Delta delta = row.getValue();
+    Key key = row.getKey();
+    ps.setLong(1, delta.loans);
+    ps.setDouble(2, delta.principal);
+    ps.setDouble(3, delta.totalToPay);
+    ps.setLong(4, delta.disbursed);
+    ps.setDouble(5, delta.disbursedAmount);
+    ps.setDate(6, Date.valueOf(key.date()));
+    ps.setLong(7, key.branchId());
+    ps.setLong(8, key.productId());
+    ps.setString(9, key.status());
+  }
+
+  private void backfill() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+    try {
+      Timestamp firstLoan = jdbcTemplate.queryForObject(FIRST_LOAN_SQL, Timestamp.class);
+      List<Future<?>> futures = new ArrayList<>();
+      if (firstLoan != null) {
+        LocalDate end = LocalDate.now().plusDays(1);
+        for (LocalDate month = firstLoan.toLocalDateTime().toLocalDate().withDayOfMonth(1);
+            month.isBefore(end);
+            month = month.plusMonths(1)) {
+          LocalDate from = month;
+          LocalDate to = month.plusMonths(1);
+          futures.add(pool.submit(() -> rebuildPartition(from, to)));
+        }
+      }
+      job.setPartitionsTotal(futures.size());
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      log.info(
+          "Daily loan stats rebuilt: {} loans, {} rollup rows",
+          job.processedCount(),
+          job.affectedCount());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /** Replace the rollup rows of days in [from, to) with totals recomputed from the loans. */
+  private void rebuildPartition(LocalDate from, LocalDate to) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        long[] counts = rebuildTransaction.execute(tx -> replacePartition(from, to));
+        job.addProcessed(counts[0]);
+        job.addAffected(counts[1]);
+        job.partitionCompleted();
+        return;
+      } catch (PessimisticLockingFailureException e) {
+        if (attempt == REBUILD_ATTEMPTS) {
+          throw e;
+        }
+        log.debug("Daily loan stats partition {} lost a lock, retrying", from);
+      }
+    }
+  }
+
+  /**
+   * Delete first: the range lock it takes makes concurrent deltas to these days wait until the
+   * rebuilt rows are committed, and the totals read afterwards include every loan change that
+   * committed before.
+   *
+   * @return loans read and rollup rows written
+   */
+  private long[] replacePartition(LocalDate from, LocalDate to) {
+    Timestamp start = Timestamp.valueOf(from.atStartOfDay());
+    Timestamp end = Timestamp.valueOf(to.atStartOfDay());
+    jdbcTemplate.update(DELETE_RANGE_SQL, Date.valueOf(from), Date.valueOf(to));
+    Map<Key, Delta> totals = new TreeMap<>(KEY_ORDER);
+    long[] loans = new long[1];
+    jdbcTemplate.query(
+        CREATED_TOTALS_SQL,
+        rs -> {
+          Delta delta = new Delta();
+          delta.loans = rs.getLong(5);
+          delta.principal = rs.getDouble(6);
+          delta.totalToPay = rs.getDouble(7);
+          totals.put(
+              new Key(rs.getDate(1).toLocalDate(), rs.getLong(2), rs.getLong(3), rs.getString(4)),
+              delta);
+          loans[0] += delta.loans;
+        },
+        start,
+        end);
+    jdbcTemplate.query(
+        DISBURSED_TOTALS_SQL,
+        rs -> {
+          Delta delta =
+              totals.computeIfAbsent(
+                  new Key(
+                      rs.getDate(1).toLocalDate(),
+                      rs.getLong(2),
+                      rs.getLong(3),
+                      LoanStatus.DISBURSED.name()),
+                  key -> new Delta());
+          delta.disbursed = rs.getLong(4);
+          delta.disbursedAmount = rs.getDouble(5);
+        },
+        start,
+        end);
+    return new long[] {loans[0], apply(totals)};
+  }
+
+  private record Key(LocalDate date, long branchId, long productId, String status) {}
+
+  private static final class Delta {
+    private long loans;
+    private double principal;
+    private double totalToPay;
+    private long disbursed;
+    private double disbursedAmount;
+
+    private boolean isZero() {
+      return loans == 0
+          && disbursed == 0
+          && principal == 0.0
+          && totalToPay == 0.0
+          && disbursedAmount == 0.0;
+    }
+  }
+}
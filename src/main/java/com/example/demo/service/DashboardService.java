@@ -2,49 +2,107 @@ package com.example.demo.service;
 
 import com.example.demo.dto.dashboard.ChartDataDTO;
 import com.example.demo.dto.dashboard.ExecutiveDashboardDTO;
+import com.example.demo.dto.dashboard.LoanStatsBreakdownDTO;
+import com.example.demo.entity.Branch;
+import com.example.demo.entity.Product;
 import com.example.demo.enums.LoanStatus;
-import com.example.demo.repository.LoanApplicationRepository;
-import com.example.demo.repository.LoanHistoryRepository;
+import com.example.demo.repository.BranchRepository;
+import com.example.demo.repository.DailyLoanStatRepository;
+import com.example.demo.repository.DailyLoanStatRepository.DimensionTotalsRow;
+import com.example.demo.repository.DailyLoanStatRepository.DisbursementTrendRow;
+import com.example.demo.repository.DailyLoanStatRepository.StatusTotalsRow;
+import com.example.demo.repository.ProductRepository;
+import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+/**
+ * Executive and per-dimension analytics, read from the {@code daily_loan_stats} rollup maintained
+ * by {@link DailyLoanStatsService}. The executive page comes from two grouped queries, run
+ * concurrently: totals per status for the loans created in the year and disbursed amounts per
+ * month. Cost depends on days × branches × products, not on the number of loans.
+ */
 @Service
 @RequiredArgsConstructor
 public class DashboardService {
 
-  private final LoanApplicationRepository loanApplicationRepository;
-  private final LoanHistoryRepository loanHistoryRepository;
+  private static final StatusTotals NO_LOANS = new StatusTotals(0, 0.0, 0.0);
+
+  private static final String[] MONTHS = {
+    "JANUARY",
+    "FEBRUARY",
+    "MARCH",
+    "APRIL",
+    "MAY",
+    "JUNE",
+    "JULY",
+    "AUGUST",
+    "SEPTEMBER",
+    "OCTOBER",
+    "NOVEMBER",
+    "DECEMBER"
+  };
+
+  private final DailyLoanStatRepository dailyLoanStatRepository;
+  private final BranchRepository branchRepository;
+  private final ProductRepository productRepository;
 
   public ExecutiveDashboardDTO getExecutiveDashboard(Integer year) {
     if (year == null) {
       year = java.time.Year.now().getValue();
     }
+    LocalDate from = LocalDate.of(year, 1, 1);
+    LocalDate to = from.plusYears(1);
+
+    // The two queries are independent; each runs on its own connection
+    Map<String, StatusTotals> totals;
+    List<DisbursementTrendRow> trend;
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      CompletableFuture<List<StatusTotalsRow>> totalsQuery =
+          CompletableFuture.supplyAsync(
+              () -> dailyLoanStatRepository.summarizeByStatusBetween(from, to), executor);
+      CompletableFuture<List<DisbursementTrendRow>> trendQuery =
+          CompletableFuture.supplyAsync(
+              dailyLoanStatRepository::findMonthlyDisbursementTrend, executor);
+      totals =
+          totalsQuery.join().stream()
+              .collect(
+                  Collectors.toMap(
+                      StatusTotalsRow::getStatus,
+                      row ->
+                          new StatusTotals(
+                              row.getLoanCount(), row.getAmount(), row.getTotalAmountToPay())));
+      trend = trendQuery.join();
+    } catch (CompletionException e) {
+      throw e.getCause() instanceof RuntimeException cause ? cause : e;
+    }
+    Function<LoanStatus, StatusTotals> of = status -> totals.getOrDefault(status.name(), NO_LOANS);
 
     // 1. Funnel & Volume (Cohort Analysis: Loans CREATED in this year)
     Map<String, Long> statusCounts = new HashMap<>();
-    statusCounts.put(
-        "SUBMITTED",
-        loanApplicationRepository.countByCurrentStatusAndYear(LoanStatus.SUBMITTED.name(), year));
-    statusCounts.put(
-        "WAITING_APPROVAL",
-        loanApplicationRepository.countByCurrentStatusAndYear(
-            LoanStatus.WAITING_APPROVAL.name(), year));
-    statusCounts.put(
-        "APPROVED_WAITING_DISBURSEMENT",
-        loanApplicationRepository.countByCurrentStatusAndYear(
-            LoanStatus.APPROVED_WAITING_DISBURSEMENT.name(), year));
-    statusCounts.put(
-        "REJECTED",
-        loanApplicationRepository.countByCurrentStatusAndYear(LoanStatus.REJECTED.name(), year));
-    statusCounts.put(
-        "DISBURSED",
-        loanApplicationRepository.countByCurrentStatusAndYear(LoanStatus.DISBURSED.name(), year));
-
-    Long totalApplications = loanApplicationRepository.countTotalApplicationsByYear(year);
+    for (LoanStatus status :
+        List.of(
+            LoanStatus.SUBMITTED,
+            LoanStatus.WAITING_APPROVAL,
+            LoanStatus.APPROVED_WAITING_DISBURSEMENT,
+            LoanStatus.REJECTED,
+            LoanStatus.DISBURSED)) {
+      statusCounts.put(status.name(), of.apply(status).count());
+    }
+
+    Long totalApplications = totals.values().stream().mapToLong(StatusTotals::count).sum();
 
     // Calculate Approval Rate: Approved / (Approved + Rejected)
     long approvedCount =
@@ -60,7 +118,7 @@ public class DashboardService {
     }
 
     // 3. Trends (Get Chart Data FIRST to calculate Disbursed Amount from it)
-    ChartDataDTO chartData = getChartData(year);
+    ChartDataDTO chartData = getChartData(year, trend);
 
     // 2. Financial Overview
     // Total Disbursed: Sum of monthly stats for consistency with the chart
@@ -70,29 +128,16 @@ public class DashboardService {
     // Financials for this Vintage (Loans originated in this year)
     // Using PAID status for "realized" revenue is tricky if partial payments exist,
     // but here we assume full PAID status
-    Double totalPaidAmount =
-        loanApplicationRepository.sumAmountByCurrentStatusAndYear(LoanStatus.PAID.name(), year);
-    Double totalPaidTotalAmount =
-        loanApplicationRepository.sumTotalAmountToPayByCurrentStatusAndYear(
-            LoanStatus.PAID.name(), year);
-    Double totalInterestEarned =
-        (totalPaidTotalAmount != null ? totalPaidTotalAmount : 0)
-            - (totalPaidAmount != null ? totalPaidAmount : 0);
-
-    Double outstandingDisbursed =
-        loanApplicationRepository.sumAmountByCurrentStatusAndYear(
-            LoanStatus.DISBURSED.name(), year);
+    StatusTotals paid = of.apply(LoanStatus.PAID);
+    Double totalInterestEarned = paid.totalAmountToPay() - paid.amount();
+
     // "Outstanding Principal" usually means principal not yet paid back.
     // If status is DISBURSED, it's all outstanding.
-    Double outstandingPrincipal = outstandingDisbursed;
+    StatusTotals disbursed = of.apply(LoanStatus.DISBURSED);
+    Double outstandingPrincipal = disbursed.amount();
 
     // Potential Revenue: Interest from active loans (DISBURSED)
-    Double disbursedTotalToPay =
-        loanApplicationRepository.sumTotalAmountToPayByCurrentStatusAndYear(
-            LoanStatus.DISBURSED.name(), year);
-    Double potentialRevenue =
-        (disbursedTotalToPay != null ? disbursedTotalToPay : 0)
-            - (outstandingDisbursed != null ? outstandingDisbursed : 0);
+    Double potentialRevenue = disbursed.totalAmountToPay() - disbursed.amount();
 
     return ExecutiveDashboardDTO.builder()
         .statusCounts(statusCounts)
@@ -106,44 +151,75 @@ public class DashboardService {
         .build();
   }
 
-  private ChartDataDTO getChartData(Integer year) {
-    // Yearly Trend
-    List<Object[]> yearlyData = loanHistoryRepository.findYearlyDisbursementTrend();
-    Map<Integer, Double> yearlyTrend = new TreeMap<>(); // TreeMap for sorted keys
-    for (Object[] row : yearlyData) {
-      Integer y = (Integer) row[0];
-      Double amount = (Double) row[1];
-      yearlyTrend.put(y, amount);
+  /** Totals per branch for days in {@code [from, to)}. */
+  public List<LoanStatsBreakdownDTO> getBranchBreakdown(LocalDate from, LocalDate to) {
+    List<DimensionTotalsRow> rows = dailyLoanStatRepository.summarizeByBranchBetween(from, to);
+    Map<Long, String> names = new HashMap<>();
+    for (Branch branch : branchRepository.findAllById(dimensionIds(rows))) {
+      names.put(branch.getId(), branch.getName());
     }
+    names.put(DailyLoanStatsService.NO_BRANCH, "No branch");
+    return breakdown(rows, names);
+  }
+
+  /** Totals per product for days in {@code [from, to)}. */
+  public List<LoanStatsBreakdownDTO> getProductBreakdown(LocalDate from, LocalDate to) {
+    List<DimensionTotalsRow> rows = dailyLoanStatRepository.summarizeByProductBetween(from, to);
+    Map<Long, String> names = new HashMap<>();
+    for (Product product : productRepository.findAllById(dimensionIds(rows))) {
+      names.put(product.getId(), product.getName());
+    }
+    return breakdown(rows, names);
+  }
 
-    // Monthly Trend for specific year
-    List<Object[]> monthlyData = loanHistoryRepository.findMonthlyDisbursementStats(year);
-    Map<String, Double> monthlyStats =
-        new HashMap<>(); // Could use generic map or keep order if needed
+  private static Set<Long> dimensionIds(List<DimensionTotalsRow> rows) {
+    return rows.stream().map(DimensionTotalsRow::getDimensionId).collect(Collectors.toSet());
+  }
+
+  private static List<LoanStatsBreakdownDTO> breakdown(
+      List<DimensionTotalsRow> rows, Map<Long, String> names) {
+    Map<Long, LoanStatsBreakdownDTO> byId = new TreeMap<>();
+    for (DimensionTotalsRow row : rows) {
+      LoanStatsBreakdownDTO dimension =
+          byId.computeIfAbsent(
+              row.getDimensionId(),
+              id ->
+                  LoanStatsBreakdownDTO.builder()
+                      .id(id)
+                      .name(names.get(id))
+                      .statusCounts(new LinkedHashMap<>())
+                      .totalApplications(0L)
+                      .totalPrincipal(0.0)
+                      .totalAmountToPay(0.0)
+                      .disbursedCount(0L)
+                      .disbursedAmount(0.0)
+                      .build());
+      if (row.getLoanCount() != 0) {
+        dimension.getStatusCounts().put(row.getStatus(), row.getLoanCount());
+      }
+      dimension.setTotalApplications(dimension.getTotalApplications() + row.getLoanCount());
+      dimension.setTotalPrincipal(dimension.getTotalPrincipal() + row.getAmount());
+      dimension.setTotalAmountToPay(dimension.getTotalAmountToPay() + row.getTotalAmountToPay());
+      dimension.setDisbursedCount(dimension.getDisbursedCount() + row.getDisbursedCount());
+      dimension.setDisbursedAmount(dimension.getDisbursedAmount() + row.getDisbursedAmount());
+    }
+    return List.copyOf(byId.values());
+  }
+
+  private ChartDataDTO getChartData(Integer year, List<DisbursementTrendRow> trend) {
+    Map<Integer, Double> yearlyTrend = new TreeMap<>(); // TreeMap for sorted keys
+    Map<String, Double> monthlyStats = new HashMap<>();
     // Initialize months to 0
-    String[] months = {
-      "JANUARY",
-      "FEBRUARY",
-      "MARCH",
-      "APRIL",
-      "MAY",
-      "JUNE",
-      "JULY",
-      "AUGUST",
-      "SEPTEMBER",
-      "OCTOBER",
-      "NOVEMBER",
-      "DECEMBER"
-    };
-    for (String month : months) {
+    for (String month : MONTHS) {
       monthlyStats.put(month, 0.0);
     }
 
-    for (Object[] row : monthlyData) {
-      Integer m = (Integer) row[0]; // 1-12
-      Double amount = (Double) row[1];
-      if (m >= 1 && m <= 12) {
-        monthlyStats.put(months[m - 1], amount);
+    // Yearly Trend is the sum of the months; Monthly Trend only for the specific year
+    for (DisbursementTrendRow row : trend) {
+      double amount = row.getAmount() != null ? row.getAmount() : 0.0;
+      yearlyTrend.merge(row.getYear(), amount, Double::sum);
+      if (year.equals(row.getYear()) && row.getMonth() >= 1 && row.getMonth() <= 12) {
+        monthlyStats.put(MONTHS[row.getMonth() - 1], amount);
       }
     }
 
@@ -153,4 +229,6 @@ public class DashboardService {
         .monthlyStats(monthlyStats)
         .build();
   }
+
+  private record StatusTotals(long count, double amount, double totalAmountToPay) {}
 }
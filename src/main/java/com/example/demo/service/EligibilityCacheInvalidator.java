@@ -0,0 +1,42 @@
+package com.example.demo.service;
+
+import com.example.demo.event.UserEligibilityChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Evicts the cached tier-and-limit read model for a user after the transaction that changed it has
+ * committed, so a concurrent reader can never re-populate the cache with pre-commit values.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EligibilityCacheInvalidator {
+
+  static final String USER_TIER_LIMITS_CACHE = "userTierLimits";
+
+  private final ObjectProvider<CacheManager> cacheManagerProvider;
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onEligibilityChanged(UserEligibilityChangedEvent event) {
+    CacheManager cacheManager = cacheManagerProvider.getIfAvailable();
+    if (cacheManager == null || event.userId() == null) {
+      return;
+    }
+    try {
+      Cache cache = cacheManager.getCache(USER_TIER_LIMITS_CACHE);
+      if (cache != null) {
+        cache.evict(event.userId());
+      }
+    } catch (Exception e) {
+      // Cache unavailability must never break the write path; the entry expires via TTL.
+      log.warn("Failed to evict tier cache for user {}: {}", event.userId(), e.getMessage());
+    }
+  }
+}
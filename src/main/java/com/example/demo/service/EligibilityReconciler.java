@@ -0,0 +1,64 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.UserProductRepository;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Background job that replaces the old "self-healing" recalculation on every tier read. Walks
+ * active user products in keyset-ordered chunks and only rewrites rows whose stored used amount has
+ * drifted from the sum of the user's active loans.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EligibilityReconciler {
+
+  private static final int CHUNK_SIZE = 500;
+  private static final double TOLERANCE = 0.005;
+
+  private final UserProductRepository userProductRepository;
+  private final LoanEligibilityService loanEligibilityService;
+
+  @Scheduled(
+      fixedDelayString = "${app.eligibility.reconcile-interval-ms:900000}",
+      initialDelayString = "${app.eligibility.reconcile-initial-delay-ms:60000}")
+  public void reconcileScheduled() {
+    reconcile();
+  }
+
+  /**
+   * Run a full reconciliation pass.
+   *
+   * @return number of users whose used amount was corrected
+   */
+  public int reconcile() {
+    long afterId = 0L;
+    int corrected = 0;
+    List<Object[]> chunk;
+    do {
+      chunk =
+          userProductRepository.findActiveUsageSnapshotAfter(
+              afterId, PageRequest.of(0, CHUNK_SIZE));
+      for (Object[] row : chunk) {
+        afterId = (Long) row[0];
+        Long userId = (Long) row[1];
+        double stored = row[2] != null ? ((Number) row[2]).doubleValue() : 0.0;
+        double actual = row[3] != null ? ((Number) row[3]).doubleValue() : 0.0;
+        if (Math.abs(stored - actual) > TOLERANCE) {
+          loanEligibilityService.recalculateUsedAmount(userId);
+          corrected++;
+        }
+      }
+    } while (chunk.size() == CHUNK_SIZE);
+
+    if (corrected > 0) {
+      log.info("Eligibility reconciliation corrected used amount for {} users", corrected);
+    }
+    return corrected;
+  }
+}
@@ -0,0 +1,200 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.dashboard.ExecutiveDashboardDTO;
+import com.example.demo.event.LoanApplicationEditedEvent;
+import com.example.demo.event.LoanTransitionEvent;
+import com.example.demo.event.LoansPaidEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Stale-while-revalidate cache of {@link DashboardService#getExecutiveDashboard}, one entry per
+ * year.
+ *
+ * <ul>
+ *   <li>The current year is fresh for {@code app.dashboard-cache.freshness-ms}, closed years for
+ *       {@code app.dashboard-cache.closed-year-ttl-ms}, which bounds staleness even if an
+ *       invalidation is missed
+ *   <li>Committed workflow transitions, payments and admin edits of loans mark every entry stale,
+ *       on every node: invalidations are published on the Redis channel {@value #CHANNEL}
+ *   <li>A stale entry is served immediately while one background refresh per year recomputes it;
+ *       only a year never computed makes the caller wait, and concurrent callers share that
+ *       computation
+ * </ul>
+ *
+ * The response carries {@code generatedAt}, {@code cacheAgeMillis} and {@code stale}.
+ */
+@Service
+@Slf4j
+public class ExecutiveDashboardCache implements MessageListener {
+
+  static final String CHANNEL = "dashboard-cache:invalidate";
+
+  private static final int MAX_ENTRIES = 50;
+
+  private final DashboardService dashboardService;
+  private final StringRedisTemplate redisTemplate;
+  private final RedisMessageListenerContainer listenerContainer;
+  private final long freshnessMillis;
+  private final long closedYearTtlMillis;
+
+  private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+  private final Map<Integer, CompletableFuture<Entry>> refreshes = new ConcurrentHashMap<>();
+  private final ExecutorService refresher = Executors.newVirtualThreadPerTaskExecutor();
+
+  // Bumped by every invalidation; an entry computed under an older version is stale
+  private final AtomicLong version = new AtomicLong();
+
+  public ExecutiveDashboardCache(
+      DashboardService dashboardService,
+      ObjectProvider<StringRedisTemplate> redisTemplate,
+      ObjectProvider<RedisMessageListenerContainer> listenerContainer,
+      @Value("${app.dashboard-cache.freshness-ms:30000}") long freshnessMillis,
+      @Value("${app.dashboard-cache.closed-year-ttl-ms:3600000}") long closedYearTtlMillis) {
+    this.dashboardService = dashboardService;
+    this.listenerContainer = listenerContainer.getIfAvailable();
+    // The listener container only exists when Redis is enabled (see RedisConfig)
+    this.redisTemplate = this.listenerContainer != null ? redisTemplate.getIfAvailable() : null;
+    this.freshnessMillis = freshnessMillis;
+    this.closedYearTtlMillis = closedYearTtlMillis;
+  }
+
+  @PostConstruct
+  void subscribe() {
+    if (listenerContainer != null) {
+      listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    refresher.shutdownNow();
+  }
+
+  public ExecutiveDashboardDTO get(Integer year) {
+    int key = year != null ? year : Year.now().getValue();
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      try {
+        entry = refresh(key).join();
+      } catch (CompletionException e) {
+        throw e.getCause() instanceof RuntimeException cause ? cause : e;
+      }
+      return withAge(entry, false);
+    }
+    boolean stale = isStale(key, entry);
+    if (stale) {
+      refresh(key);
+    }
+    return withAge(entry, stale);
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onLoanTransition(LoanTransitionEvent event) {
+    invalidate();
+  }
+
+  // Payments move loans to PAID outside the workflow
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onLoansPaid(LoansPaidEvent event) {
+    invalidate();
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onLoanApplicationEdited(LoanApplicationEditedEvent event) {
+    invalidate();
+  }
+
+  /** Mark every entry stale on every node; they keep being served until their refresh completes. */
+  public void invalidate() {
+    version.incrementAndGet();
+    if (redisTemplate != null) {
+      try {
+        redisTemplate.convertAndSend(CHANNEL, "");
+      } catch (Exception e) {
+        // Other nodes catch up when their entries expire
+        log.warn("Failed to publish dashboard cache invalidation: {}", e.getMessage());
+      }
+    }
+  }
+
+  /** Invalidation from any node, including this one. */
+  @Override
+  public void onMessage(Message message, byte[] pattern) {
+    version.incrementAndGet();
+  }
+
+  private boolean isStale(int year, Entry entry) {
+    if (entry.version() != version.get()) {
+      return true;
+    }
+    long ttl = year >= Year.now().getValue() ? freshnessMillis : closedYearTtlMillis;
+    return System.currentTimeMillis() - entry.computedAtMillis() > ttl;
+  }
+
+  /** Start a refresh of {@code year} unless one is already running; returns the running one. */
+  private CompletableFuture<Entry> refresh(int year) {
+    CompletableFuture<Entry> refresh = new CompletableFuture<>();
+    CompletableFuture<Entry> running = refreshes.putIfAbsent(year, refresh);
+    if (running != null) {
+      return running;
+    }
+    refresher.execute(
+        () -> {
+          try {
+            Entry entry = compute(year);
+            refreshes.remove(year, refresh);
+            refresh.complete(entry);
+          } catch (RuntimeException e) {
+            log.warn("Dashboard refresh for {} failed: {}", year, e.getMessage());
+            refreshes.remove(year, refresh);
+            refresh.completeExceptionally(e);
+          }
+        });
+    return refresh;
+  }
+
+  private Entry compute(int year) {
+    long computedUnder = version.get();
+    ExecutiveDashboardDTO dashboard = dashboardService.getExecutiveDashboard(year);
+    Entry entry =
+        new Entry(
+            dashboard.toBuilder().generatedAt(LocalDateTime.now()).build(),
+            System.currentTimeMillis(),
+            computedUnder);
+    if (entries.size() >= MAX_ENTRIES && !entries.containsKey(year)) {
+      entries.clear();
+    }
+    entries.put(year, entry);
+    return entry;
+  }
+
+  private static ExecutiveDashboardDTO withAge(Entry entry, boolean stale) {
+    return entry.dashboard().toBuilder()
+        .cacheAgeMillis(System.currentTimeMillis() - entry.computedAtMillis())
+        .stale(stale)
+        .build();
+  }
+
+  private record Entry(ExecutiveDashboardDTO dashboard, long computedAtMillis, long version) {}
+}
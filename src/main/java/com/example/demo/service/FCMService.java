@@ -2,43 +2,51 @@ package com.example.demo.service;
 
 import com.example.demo.entity.User;
 import com.example.demo.entity.UserDevice;
+import com.example.demo.event.DeviceTokensChangedEvent;
 import com.example.demo.repository.UserDeviceRepository;
 import com.example.demo.repository.UserRepository;
-import com.google.firebase.messaging.BatchResponse;
-import com.google.firebase.messaging.FirebaseMessaging;
-import com.google.firebase.messaging.FirebaseMessagingException;
-import com.google.firebase.messaging.Message;
-import com.google.firebase.messaging.MulticastMessage;
-import com.google.firebase.messaging.Notification;
+import com.example.demo.service.push.PushDispatcher;
+import com.example.demo.service.push.PushTransportException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
- * Service for Firebase Cloud Messaging (FCM) operations. Handles device token management and push
- * notification delivery.
+ * Service for Firebase Cloud Messaging (FCM) operations. Handles device token management; push
+ * notifications are delivered through {@link PushDispatcher}, outside any transaction.
  */
 @Service
 @Slf4j
 public class FCMService {
 
-  private final FirebaseMessaging firebaseMessaging;
   private final UserDeviceRepository userDeviceRepository;
   private final UserRepository userRepository;
+  private final PushDispatcher pushDispatcher;
+  private final ApplicationEventPublisher eventPublisher;
+  private final long sendTimeoutMillis;
 
-  @Autowired
   public FCMService(
-      @Autowired(required = false) FirebaseMessaging firebaseMessaging,
       UserDeviceRepository userDeviceRepository,
-      UserRepository userRepository) {
-    this.firebaseMessaging = firebaseMessaging;
+      UserRepository userRepository,
+      PushDispatcher pushDispatcher,
+      ApplicationEventPublisher eventPublisher,
+      @Value("${app.push.send-timeout-ms:10000}") long sendTimeoutMillis) {
     this.userDeviceRepository = userDeviceRepository;
     this.userRepository = userRepository;
+    this.pushDispatcher = pushDispatcher;
+    this.eventPublisher = eventPublisher;
+    this.sendTimeoutMillis = sendTimeoutMillis;
   }
 
   /**
@@ -62,6 +70,7 @@ public class FCMService {
 
     if (existingDevice.isPresent()) {
       UserDevice device = existingDevice.get();
+      Long previousUserId = device.getUser().getId();
       // Update existing device
       device.setUser(user);
       device.setDeviceName(deviceName);
@@ -69,6 +78,8 @@ public class FCMService {
       device.setLastUsedAt(LocalDateTime.now());
       device.setIsActive(true);
       userDeviceRepository.save(device);
+      eventPublisher.publishEvent(
+          new DeviceTokensChangedEvent(Set.of(previousUserId, user.getId())));
       log.info("Updated FCM token for user: {}", user.getUsername());
     } else {
       // Create new device entry
@@ -81,6 +92,7 @@ public class FCMService {
               .isActive(true)
               .build();
       userDeviceRepository.save(newDevice);
+      eventPublisher.publishEvent(new DeviceTokensChangedEvent(List.of(user.getId())));
       log.info("Registered new FCM token for user: {}", user.getUsername());
     }
   }
@@ -95,13 +107,19 @@ public class FCMService {
     if (fcmToken == null || fcmToken.isBlank()) {
       return;
     }
+    userDeviceRepository
+        .findByFcmToken(fcmToken)
+        .ifPresent(
+            device ->
+                eventPublisher.publishEvent(
+                    new DeviceTokensChangedEvent(List.of(device.getUser().getId()))));
     userDeviceRepository.deactivateByFcmToken(fcmToken);
     log.info(
         "Deactivated FCM token: {}...", fcmToken.substring(0, Math.min(20, fcmToken.length())));
   }
 
   /**
-   * Send push notification to a specific user (all their devices).
+   * Send push notification to a specific user (all their devices) and wait for the outcome.
    *
    * @param userId Target user ID
    * @param title Notification title
@@ -109,17 +127,33 @@ public class FCMService {
    * @param data Optional data payload
    * @return Number of successfully sent notifications
    */
-  @Transactional
   public int sendPushNotification(
       Long userId, String title, String body, Map<String, String> data) {
-    List<String> tokens = userDeviceRepository.findFcmTokensByUserId(userId);
+    return await(queuePushNotification(userId, title, body, data));
+  }
 
-    if (tokens.isEmpty()) {
-      log.debug("No FCM tokens found for user: {}", userId);
-      return 0;
-    }
+  /**
+   * Queue a push notification to a specific user (all their devices) without waiting; it is sent
+   * together with other notifications queued within the batch window.
+   *
+   * @return future of the number of devices reached
+   */
+  public CompletableFuture<Integer> queuePushNotification(
+      Long userId, String title, String body, Map<String, String> data) {
+    return pushDispatcher.sendToUsers(List.of(userId), title, body, data);
+  }
 
-    return sendToMultipleTokens(tokens, title, body, data);
+  /**
+   * Queue one push notification to all devices of several users without waiting.
+   *
+   * @return future of the number of devices reached
+   */
+  public CompletableFuture<Integer> queuePushNotificationToUsers(
+      List<Long> userIds, String title, String body, Map<String, String> data) {
+    if (userIds.isEmpty()) {
+      return CompletableFuture.completedFuture(0);
+    }
+    return pushDispatcher.sendToUsers(userIds, title, body, data);
   }
 
   /**
@@ -131,27 +165,9 @@ public class FCMService {
    * @param data Optional data payload
    * @return true if successful
    */
-  @Transactional
   public boolean sendPushNotificationToToken(
       String token, String title, String body, Map<String, String> data) {
-    try {
-      Message.Builder messageBuilder =
-          Message.builder()
-              .setToken(token)
-              .setNotification(Notification.builder().setTitle(title).setBody(body).build());
-
-      if (data != null && !data.isEmpty()) {
-        messageBuilder.putAllData(data);
-      }
-
-      String response = firebaseMessaging.send(messageBuilder.build());
-      log.info("Push notification sent successfully. Response: {}", response);
-      return true;
-    } catch (FirebaseMessagingException e) {
-      log.error("Failed to send push notification to token: {}", e.getMessage());
-      handleInvalidToken(token, e);
-      return false;
-    }
+    return await(pushDispatcher.sendToTokens(List.of(token), title, body, data)) > 0;
   }
 
   /**
@@ -163,89 +179,26 @@ public class FCMService {
    * @param data Optional data payload
    * @return Number of successfully sent notifications
    */
-  @Transactional
   public int sendPushNotificationToUsers(
       List<Long> userIds, String title, String body, Map<String, String> data) {
-    List<String> tokens = userDeviceRepository.findFcmTokensByUserIds(userIds);
-
-    if (tokens.isEmpty()) {
-      log.debug("No FCM tokens found for users: {}", userIds);
+    if (userIds.isEmpty()) {
       return 0;
     }
-
-    return sendToMultipleTokens(tokens, title, body, data);
+    return await(pushDispatcher.sendToUsers(userIds, title, body, data));
   }
 
-  /**
-   * Send push notification to multiple FCM tokens.
-   *
-   * @param tokens List of FCM tokens
-   * @param title Notification title
-   * @param body Notification body
-   * @param data Optional data payload
-   * @return Number of successfully sent notifications
-   */
-  private int sendToMultipleTokens(
-      List<String> tokens, String title, String body, Map<String, String> data) {
-    if (tokens.isEmpty()) {
-      return 0;
-    }
-
+  private int await(CompletableFuture<Integer> sent) {
     try {
-      MulticastMessage.Builder messageBuilder =
-          MulticastMessage.builder()
-              .addAllTokens(tokens)
-              .setNotification(Notification.builder().setTitle(title).setBody(body).build());
-
-      if (data != null && !data.isEmpty()) {
-        messageBuilder.putAllData(data);
-      }
-
-      BatchResponse response = firebaseMessaging.sendEachForMulticast(messageBuilder.build());
-      int successCount = response.getSuccessCount();
-      int failureCount = response.getFailureCount();
-
-      log.info("Push notifications sent. Success: {}, Failure: {}", successCount, failureCount);
-
-      // Handle failed tokens
-      if (failureCount > 0) {
-        handleFailedTokens(tokens, response);
-      }
-
-      return successCount;
-    } catch (FirebaseMessagingException e) {
-      log.error("Failed to send multicast push notification: {}", e.getMessage());
+      return sent.get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      log.warn("Push notification still queued after {} ms", sendTimeoutMillis);
       return 0;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return 0;
+    } catch (ExecutionException e) {
+      log.error("Failed to send push notification: {}", e.getCause().getMessage());
+      return e.getCause() instanceof PushTransportException failed ? failed.getDelivered() : 0;
     }
   }
-
-  /** Handle failed tokens by deactivating invalid ones. */
-  private void handleFailedTokens(List<String> tokens, BatchResponse response) {
-    for (int i = 0; i < response.getResponses().size(); i++) {
-      if (!response.getResponses().get(i).isSuccessful()) {
-        FirebaseMessagingException exception = response.getResponses().get(i).getException();
-        if (exception != null && isInvalidTokenError(exception)) {
-          String token = tokens.get(i);
-          log.warn(
-              "Deactivating invalid FCM token: {}...",
-              token.substring(0, Math.min(20, token.length())));
-          userDeviceRepository.deactivateByFcmToken(token);
-        }
-      }
-    }
-  }
-
-  /** Handle invalid token by deactivating it. */
-  private void handleInvalidToken(String token, FirebaseMessagingException e) {
-    if (isInvalidTokenError(e)) {
-      log.warn("Deactivating invalid FCM token");
-      userDeviceRepository.deactivateByFcmToken(token);
-    }
-  }
-
-  /** Check if the error indicates an invalid token. */
-  private boolean isInvalidTokenError(FirebaseMessagingException e) {
-    String errorCode = e.getMessagingErrorCode() != null ? e.getMessagingErrorCode().name() : "";
-    return errorCode.equals("UNREGISTERED") || errorCode.equals("INVALID_ARGUMENT");
-  }
 }
@@ -1,5 +1,6 @@
 package com.example.demo.service;
 
+import com.example.demo.base.CursorPage;
 import com.example.demo.dto.UploadImageResponse;
 import com.example.demo.dto.UserProfileDTO;
 import java.util.List;
@@ -39,12 +40,24 @@ public interface IUserProfileService {
   UserProfileDTO getUserProfile(Long userId);
 
   /**
-   * Retrieves all user profiles.
+   * Retrieves the newest user profiles, at most {@link CursorPage#LEGACY_LIST_LIMIT}.
    *
    * @return list of UserProfileDTO
+   * @deprecated unpaged list kept for existing clients, use {@link #getAllUserProfiles(String,
+   *     int)}
    */
+  @Deprecated
   List<UserProfileDTO> getAllUserProfiles();
 
+  /**
+   * Retrieves user profiles one keyset page at a time.
+   *
+   * @param cursor opaque cursor from the previous page, or null for the first page
+   * @param size page size
+   * @return page of UserProfileDTO
+   */
+  CursorPage<UserProfileDTO> getAllUserProfiles(String cursor, int size);
+
   /**
    * Updates an existing user profile.
    *
@@ -1,5 +1,6 @@
 package com.example.demo.service;
 
+import com.example.demo.base.CursorPage;
 import com.example.demo.dto.AdminCreateUserRequest;
 import com.example.demo.dto.UserListDTO;
 import com.example.demo.entity.User;
@@ -72,6 +73,16 @@ public interface IUserService {
    */
   Page<UserListDTO> getAllUsersForAdmin(Pageable pageable);
 
+  /**
+   * Retrieves non-deleted users one keyset page at a time (for admin).
+   *
+   * @param cursor opaque cursor from the previous page, or null for the first page
+   * @param size page size
+   * @param includeTotal attach an approximate total count
+   * @return page of UserListDTO
+   */
+  CursorPage<UserListDTO> scrollUsersForAdmin(String cursor, int size, boolean includeTotal);
+
   /**
    * Sets a user's active/inactive status.
    *
@@ -1,16 +1,21 @@
 package com.example.demo.service;
 
+import com.example.demo.base.Cursor;
+import com.example.demo.base.CursorPage;
 import com.example.demo.dto.LoanApplicationDTO;
 import com.example.demo.entity.LoanApplication;
 import com.example.demo.entity.Product;
 import com.example.demo.entity.User;
+import com.example.demo.event.LoanApplicationEditedEvent;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.repository.LoanApplicationRepository;
 import com.example.demo.repository.ProductRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.service.DailyLoanStatsService.LoanFacts;
 import java.util.List;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -39,6 +44,8 @@ public class LoanApplicationService {
   private final LoanApplicationRepository loanApplicationRepository;
   private final UserRepository userRepository;
   private final ProductRepository productRepository;
+  private final DailyLoanStatsService dailyLoanStatsService;
+  private final ApplicationEventPublisher eventPublisher;
 
   @Transactional
   public LoanApplicationDTO createLoanApplication(LoanApplicationDTO dto) {
@@ -63,6 +70,8 @@ public class LoanApplicationService {
             .build();
 
     LoanApplication saved = loanApplicationRepository.save(loanApplication);
+    dailyLoanStatsService.recordChange(null, LoanFacts.of(saved));
+    eventPublisher.publishEvent(new LoanApplicationEditedEvent(saved.getLoanApplicationId()));
     return convertToDTO(saved);
   }
 
@@ -90,11 +99,32 @@ public class LoanApplicationService {
         .collect(Collectors.toList());
   }
 
+  /**
+   * Newest loan applications, at most {@link CursorPage#LEGACY_LIST_LIMIT}.
+   *
+   * @deprecated unpaged list kept for existing clients, use {@link #getAllLoanApplications(String,
+   *     int)}
+   */
+  @Deprecated
   @Transactional(readOnly = true)
   public List<LoanApplicationDTO> getAllLoanApplications() {
-    return loanApplicationRepository.findAll().stream()
+    Cursor first = Cursor.first();
+    return loanApplicationRepository
+        .findPageAfter(first.createdAt(), first.id(), CursorPage.legacyLimit())
+        .stream()
         .map(this::convertToDTO)
-        .collect(Collectors.toList());
+        .toList();
+  }
+
+  @Transactional(readOnly = true)
+  public CursorPage<LoanApplicationDTO> getAllLoanApplications(String cursor, int size) {
+    Cursor after = Cursor.decode(cursor);
+    return CursorPage.of(
+        loanApplicationRepository.findPageAfter(
+            after.createdAt(), after.id(), CursorPage.limit(size)),
+        size,
+        la -> new Cursor(la.getCreatedAt(), la.getLoanApplicationId()),
+        this::convertToDTO);
   }
 
   @Transactional
@@ -105,18 +135,29 @@ public class LoanApplicationService {
             .orElseThrow(
                 () -> new ResourceNotFoundException("LoanApplication", "id", loanApplicationId));
 
+    LoanFacts before = LoanFacts.of(loanApplication);
     loanApplication.setAmount(dto.getAmount());
     loanApplication.setTenureMonths(dto.getTenureMonths());
     loanApplication.setInterestRateApplied(dto.getInterestRateApplied());
     loanApplication.setCurrentStatus(dto.getCurrentStatus());
 
     LoanApplication updated = loanApplicationRepository.save(loanApplication);
+    dailyLoanStatsService.recordChange(before, LoanFacts.of(updated));
+    eventPublisher.publishEvent(new LoanApplicationEditedEvent(loanApplicationId));
     return convertToDTO(updated);
   }
 
   @Transactional
   public void deleteLoanApplication(Long loanApplicationId) {
-    loanApplicationRepository.deleteById(loanApplicationId);
+    loanApplicationRepository
+        .findById(loanApplicationId)
+        .ifPresent(
+            loanApplication -> {
+              LoanFacts before = LoanFacts.of(loanApplication);
+              loanApplicationRepository.delete(loanApplication);
+              dailyLoanStatsService.recordChange(before, null);
+              eventPublisher.publishEvent(new LoanApplicationEditedEvent(loanApplicationId));
+            });
   }
 
   private LoanApplicationDTO convertToDTO(LoanApplication loanApplication) {
@@ -0,0 +1,374 @@
+package com.example.demo.service;
+
+import com.example.demo.base.ApproximateCountCache;
+import com.example.demo.base.BackgroundJob;
+import com.example.demo.dto.BatchJobStatusDTO;
+import com.example.demo.dto.CommentSearchHitDTO;
+import com.example.demo.entity.LoanHistory;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Full-text search over reviewer comments ({@code LoanHistory.comment}).
+ *
+ * <p>Comments are split into lower-cased word tokens and stored as postings in {@code
+ * loan_comment_tokens}, an inverted index kept in the database next to the data it indexes:
+ *
+ * <ul>
+ *   <li>{@link #index} adds a comment's postings in the transaction that writes the comment
+ *   <li>{@link #startRebuild} rebuilds the postings from both history tiers, id-range partitions in
+ *       parallel; each chunk replaces its own range, so it is safe while comments keep arriving
+ *   <li>{@link #search} seeks {@code (token, branch_id, created_at)} for each query term and ranks
+ *       comments by matched terms, then by tf-idf. Terms found in a large share of all comments are
+ *       dropped when the query has rarer ones, which keeps the postings read per query small
+ * </ul>
+ */
+@Service
+@Slf4j
+public class LoanCommentSearchService {
+
+  public static final String JOB_NAME = "LOAN_COMMENT_INDEX";
+
+  static final int MAX_TOKEN_LENGTH = 50;
+  static final int MAX_QUERY_TERMS = 8;
+  private static final double COMMON_TERM_RATIO = 0.1;
+
+  private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+  // Indonesian and English function words that carry no meaning in a review comment
+  private static final Set<String> STOP_WORDS =
+      Set.of(
+          "dan", "di", "ke", "dari", "yang", "untuk", "ini", "itu", "dengan", "atau", "pada",
+          "sudah", "akan", "the", "and", "of", "to", "is", "in", "for", "on", "with", "be", "an");
+
+  private static final String INSERT_SQL =
+      "INSERT INTO loan_comment_tokens"
+          + " (token, loan_history_id, loan_application_id, branch_id, created_at, term_frequency)"
+          + " VALUES (?, ?, ?, ?, ?, ?)";
+  private static final String DELETE_HISTORY_SQL =
+      "DELETE FROM loan_comment_tokens WHERE loan_history_id = ?";
+  private static final String DELETE_RANGE_SQL =
+      "DELETE FROM loan_comment_tokens WHERE loan_history_id > ? AND loan_history_id <= ?";
+  private static final String MAX_HISTORY_ID_SQL =
+      "SELECT MAX(max_id) FROM (SELECT MAX(loan_history_id) AS max_id FROM loan_history"
+          + " UNION ALL SELECT MAX(loan_history_id) FROM loan_history_archive) ids";
+  private static final String COMMENTS_SQL =
+      "SELECT h.loan_history_id, h.loan_application_id, la.branch_id, h.created_at, h.comment"
+          + " FROM loan_history h"
+          + " JOIN loan_applications la ON la.loan_application_id = h.loan_application_id"
+          + " WHERE h.loan_history_id > ? AND h.loan_history_id <= ? AND h.comment LIKE '_%'"
+          + " UNION ALL"
+          + " SELECT h.loan_history_id, h.loan_application_id, la.branch_id, h.created_at, h.comment"
+          + " FROM loan_history_archive h"
+          + " JOIN loan_applications la ON la.loan_application_id = h.loan_application_id"
+          + " WHERE h.loan_history_id > ? AND h.loan_history_id <= ? AND h.comment LIKE '_%'";
+  private static final String DOCUMENT_FREQUENCY_SQL =
+      "SELECT COUNT(*) FROM loan_comment_tokens WHERE token = ?";
+  private static final String DOCUMENT_COUNT_SQL =
+      "SELECT COUNT(DISTINCT loan_history_id) FROM loan_comment_tokens";
+  private static final String HIT_COLUMNS =
+      "SELECT h.loan_history_id, h.loan_application_id, la.branch_id, h.action, u.username,"
+          + " h.comment, h.created_at";
+  private static final String HIT_JOINS =
+      " h JOIN loan_applications la ON la.loan_application_id = h.loan_application_id"
+          + " JOIN users u ON u.id = h.actor_user_id WHERE h.loan_history_id IN (:ids)";
+  private static final String HITS_SQL =
+      HIT_COLUMNS
+          + " FROM loan_history"
+          + HIT_JOINS
+          + " UNION ALL "
+          + HIT_COLUMNS
+          + " FROM loan_history_archive"
+          + HIT_JOINS;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final NamedParameterJdbcTemplate namedJdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ApproximateCountCache countCache;
+  private final int chunkSize;
+  private final int parallelism;
+
+  private final BackgroundJob job =
+      new BackgroundJob(JOB_NAME, "Comment index rebuild", "comment-index-rebuild");
+
+  public LoanCommentSearchService(
+      JdbcTemplate jdbcTemplate,
+      NamedParameterJdbcTemplate namedJdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      ApproximateCountCache countCache,
+      @Value("${app.comment-search.chunk-size:5000}") int chunkSize,
+      @Value("${app.comment-search.parallelism:4}") int parallelism) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.namedJdbcTemplate = namedJdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.countCache = countCache;
+    this.chunkSize = Math.max(1, chunkSize);
+    this.parallelism = Math.max(1, parallelism);
+  }
+
+  /** Add the postings of a newly written history entry; joins the caller's transaction. */
+  public void index(LoanHistory history) {
+    if (history.getComment() == null || history.getComment().isBlank()) {
+      return;
+    }
+    LoanHistoryTokens entry =
+        new LoanHistoryTokens(
+            history.getLoanHistoryId(),
+            history.getLoanApplication().getLoanApplicationId(),
+            history.getLoanApplication().getBranch() != null
+                ? history.getLoanApplication().getBranch().getId()
+                : null,
+            history.getCreatedAt(),
+            tokenize(history.getComment()));
+    insertPostings(List.of(entry));
+  }
+
+  /** Drop the postings of a deleted history entry. */
+  public void remove(Long loanHistoryId) {
+    jdbcTemplate.update(DELETE_HISTORY_SQL, loanHistoryId);
+  }
+
+  /**
+   * Comments matching {@code query}, best first.
+   *
+   * @param branchId only comments on loans of this branch, or {@code null} for all
+   * @param from first day included, or {@code null}
+   * @param to last day included, or {@code null}
+   * @param limit maximum number of hits
+   */
+  public List<CommentSearchHitDTO> search(
+      String query, Long branchId, LocalDate from, LocalDate to, int limit) {
+    Map<String, Double> weights = termWeights(tokenize(query).keySet());
+    if (weights.isEmpty()) {
+      return List.of();
+    }
+
+    MapSqlParameterSource params =
+        new MapSqlParameterSource("tokens", weights.keySet()).addValue("limit", limit);
+    StringBuilder score = new StringBuilder("CASE t.token");
+    int i = 0;
+    for (Map.Entry<String, Double> term : weights.entrySet()) {
+      // Weights are computed here, never taken from the request, so they are inlined as literals
+      score.append(" WHEN :t").append(i).append(" THEN ");
+      score.append(String.format(Locale.ROOT, "%.6f", term.getValue()));
+      params.addValue("t" + i++, term.getKey());
+    }
+    score.append(" END");
+
+    StringBuilder sql =
+        new StringBuilder("SELECT t.loan_history_id, COUNT(*) AS matched, SUM(t.term_frequency * ")
+            .append(score)
+            .append(") AS score FROM loan_comment_tokens t WHERE t.token IN (:tokens)");
+    if (branchId != null) {
+      sql.append(" AND t.branch_id = :branchId");
+      params.addValue("branchId", branchId);
+    }
+    // Half-open [from, to + 1 day) range on the indexed column
+    if (from != null) {
+      sql.append(" AND t.created_at >= :from");
+      params.addValue("from", Timestamp.valueOf(from.atStartOfDay()));
+    }
+    if (to != null) {
+      sql.append(" AND t.created_at < :to");
+      params.addValue("to", Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+    }
+    sql.append(" GROUP BY t.loan_history_id")
+        .append(" ORDER BY matched DESC, score DESC, t.loan_history_id DESC")
+        .append(" OFFSET 0 ROWS FETCH NEXT :limit ROWS ONLY");
+
+    Map<Long, CommentSearchHitDTO> ranked = new LinkedHashMap<>();
+    namedJdbcTemplate.query(
+        sql.toString(),
+        params,
+        rs -> {
+          long id = rs.getLong(1);
+          ranked.put(
+              id,
+              CommentSearchHitDTO.builder()
+                  .loanHistoryId(id)
+                  .matchedTerms(rs.getInt(2))
+                  .score(rs.getDouble(3))
+                  .build());
+        });
+    if (ranked.isEmpty()) {
+      return List.of();
+    }
+
+    namedJdbcTemplate.query(
+        HITS_SQL,
+        new MapSqlParameterSource("ids", ranked.keySet()),
+        rs -> {
+          CommentSearchHitDTO hit = ranked.get(rs.getLong(1));
+          hit.setLoanApplicationId(rs.getLong(2));
+          hit.setBranchId((Long) rs.getObject(3, Long.class));
+          hit.setAction(rs.getString(4));
+          hit.setActorUsername(rs.getString(5));
+          hit.setComment(rs.getString(6));
+          hit.setCreatedAt(rs.getTimestamp(7).toLocalDateTime());
+        });
+    // Postings of a history entry deleted since the last rebuild have no row to show
+    return ranked.values().stream().filter(hit -> hit.getCreatedAt() != null).toList();
+  }
+
+  /** Start a full rebuild in the background and return immediately. */
+  public BatchJobStatusDTO startRebuild() {
+    return job.start(this::rebuild);
+  }
+
+  public BatchJobStatusDTO getStatus() {
+    return job.getStatus();
+  }
+
+  /**
+   * Lower-cased word tokens of {@code text} with their number of occurrences, without stop words
+   * and single characters.
+   */
+  static Map<String, Integer> tokenize(String text) {
+    Map<String, Integer> frequencies = new LinkedHashMap<>();
+    if (text == null) {
+      return frequencies;
+    }
+    for (String token : SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+      if (token.length() < 2 || token.length() > MAX_TOKEN_LENGTH || STOP_WORDS.contains(token)) {
+        continue;
+      }
+      frequencies.merge(token, 1, Integer::sum);
+    }
+    return frequencies;
+  }
+
+  /** Inverse document frequency of each useful query term; unknown terms are left out. */
+  private Map<String, Double> termWeights(Set<String> terms) {
+    long documents =
+        countCache.get(
+            "comment-search:documents",
+            () -> jdbcTemplate.queryForObject(DOCUMENT_COUNT_SQL, Long.class));
+    Map<String, Long> frequencies = new HashMap<>();
+    for (String term : new ArrayList<>(terms).subList(0, Math.min(terms.size(), MAX_QUERY_TERMS))) {
+      long frequency =
+          countCache.get(
+              "comment-search:df:" + term,
+              () -> jdbcTemplate.queryForObject(DOCUMENT_FREQUENCY_SQL, Long.class, term));
+      if (frequency > 0) {
+        frequencies.put(term, frequency);
+      }
+    }
+    long commonThreshold = Math.max(1, (long) (documents * COMMON_TERM_RATIO));
+    boolean hasRareTerm = frequencies.values().stream().anyMatch(df -> df <= commonThreshold);
+
+    Map<String, Double> weights = new LinkedHashMap<>();
+    frequencies.forEach(
+        (term, df) -> {
+          if (!hasRareTerm || df <= commonThreshold) {
+            weights.put(term, Math.log(1.0 + (double) Math.max(documents, df) / df));
+          }
+        });
+    return weights;
+  }
+
+  private void rebuild() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+    try {
+      Long maxId = jdbcTemplate.queryForObject(MAX_HISTORY_ID_SQL, Long.class);
+      List<Future<?>> futures = new ArrayList<>();
+      if (maxId != null) {
+        int count = parallelism * 4;
+        long width = Math.max(1, (maxId + count - 1) / count);
+        for (long start = 0; start < maxId; start += width) {
+          long partitionStart = start;
+          long partitionEnd = Math.min(maxId, start + width);
+          futures.add(pool.submit(() -> rebuildPartition(partitionStart, partitionEnd)));
+        }
+      }
+      job.setPartitionsTotal(futures.size());
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      log.info(
+          "Comment index rebuilt: {} comments, {} postings",
+          job.processedCount(),
+          job.affectedCount());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /** Re-index history ids in (startId, endId], one transaction per chunk. */
+  private void rebuildPartition(long startId, long endId) {
+    for (long from = startId; from < endId; from += chunkSize) {
+      long chunkStart = from;
+      long chunkEnd = Math.min(endId, from + chunkSize);
+      transactionTemplate.executeWithoutResult(
+          tx -> {
+            List<LoanHistoryTokens> entries =
+                jdbcTemplate.query(
+                    COMMENTS_SQL,
+                    (rs, rowNum) ->
+                        new LoanHistoryTokens(
+                            rs.getLong(1),
+                            rs.getLong(2),
+                            rs.getObject(3, Long.class),
+                            rs.getTimestamp(4).toLocalDateTime(),
+                            tokenize(rs.getString(5))),
+                    chunkStart,
+                    chunkEnd,
+                    chunkStart,
+                    chunkEnd);
+            jdbcTemplate.update(DELETE_RANGE_SQL, chunkStart, chunkEnd);
+            job.addAffected(insertPostings(entries));
+            job.addProcessed(entries.size());
+          });
+    }
+    job.partitionCompleted();
+  }
+
+  private int insertPostings(List<LoanHistoryTokens> entries) {
+    List<Object[]> rows = new ArrayList<>();
+    for (LoanHistoryTokens entry : entries) {
+      Timestamp createdAt = Timestamp.valueOf(entry.createdAt());
+      entry
+          .tokens()
+          .forEach(
+              (token, frequency) ->
+                  rows.add(
+                      new Object[] {
+                        token,
+                        entry.loanHistoryId(),
+                        entry.loanApplicationId(),
+                        entry.branchId(),
+                        createdAt,
+                        frequency
+                      }));
+    }
+    if (!rows.isEmpty()) {
+      jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+    return rows.size();
+  }
+
+  private record LoanHistoryTokens(
+      long loanHistoryId,
+      long loanApplicationId,
+      Long branchId,
+      LocalDateTime createdAt,
+      Map<String, Integer> tokens) {}
+}
@@ -5,16 +5,20 @@ import com.example.demo.entity.Product;
 import com.example.demo.entity.User;
 import com.example.demo.entity.UserProduct;
 import com.example.demo.enums.LoanStatus;
+import com.example.demo.event.LoansPaidEvent;
+import com.example.demo.event.UserEligibilityChangedEvent;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.repository.LoanApplicationRepository;
 import com.example.demo.repository.ProductRepository;
 import com.example.demo.repository.UserProductRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.service.DailyLoanStatsService.LoanFacts;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -51,6 +55,8 @@ public class LoanEligibilityService {
   private final ProductRepository productRepository;
   private final UserProductRepository userProductRepository;
   private final LoanApplicationRepository loanApplicationRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final DailyLoanStatsService dailyLoanStatsService;
 
   /**
    * Check if user can apply for a loan with the specified amount.
@@ -144,6 +150,7 @@ public class LoanEligibilityService {
             .build();
 
     UserProduct saved = userProductRepository.save(userProduct);
+    eventPublisher.publishEvent(new UserEligibilityChangedEvent(userId));
     log.info("Assigned Bronze product to user {}", userId);
     return saved;
   }
@@ -170,10 +177,13 @@ public class LoanEligibilityService {
     }
 
     // Mark loan as paid
+    LoanFacts before = LoanFacts.of(loan);
     loan.setIsPaid(true);
     loan.setPaidAt(LocalDateTime.now());
     loan.setCurrentStatus(LoanStatus.PAID.name());
     loanApplicationRepository.save(loan);
+    dailyLoanStatsService.recordChange(before, LoanFacts.of(loan));
+    eventPublisher.publishEvent(new LoansPaidEvent(List.of(loanApplicationId)));
 
     // Update user's totalPaidAmount
     Long userId = loan.getUser().getId();
@@ -191,6 +201,7 @@ public class LoanEligibilityService {
 
       userProductRepository.save(userProduct);
     }
+    eventPublisher.publishEvent(new UserEligibilityChangedEvent(userId));
 
     log.info("Loan {} marked as paid for user {}", loanApplicationId, userId);
 
@@ -249,6 +260,7 @@ public class LoanEligibilityService {
         // Deactivate old tier
         currentUserProduct.setStatus("UPGRADED");
         userProductRepository.save(currentUserProduct);
+        eventPublisher.publishEvent(new UserEligibilityChangedEvent(userId));
 
         log.info(
             "User {} upgraded from {} to {}",
@@ -275,6 +287,7 @@ public class LoanEligibilityService {
       UserProduct userProduct = userProducts.get(0);
       userProduct.setCurrentUsedAmount(totalActive);
       userProductRepository.save(userProduct);
+      eventPublisher.publishEvent(new UserEligibilityChangedEvent(userId));
       log.info("Recalculated used amount for user {}: {}", userId, totalActive);
     }
   }
@@ -295,6 +308,7 @@ public class LoanEligibilityService {
       if (currentUsed == null) currentUsed = 0.0;
       userProduct.setCurrentUsedAmount(currentUsed + amount);
       userProductRepository.save(userProduct);
+      eventPublisher.publishEvent(new UserEligibilityChangedEvent(userId));
     }
   }
 
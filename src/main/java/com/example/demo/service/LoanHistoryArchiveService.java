@@ -0,0 +1,165 @@
+package com.example.demo.service;
+
+import com.example.demo.base.BackgroundJob;
+import com.example.demo.dto.BatchJobStatusDTO;
+import com.example.demo.entity.LoanHistory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Hot/cold tiering of loan history.
+ *
+ * <p>History of loans that have been PAID or REJECTED for longer than {@code
+ * app.history-archive.retention-days} is copied to {@code loan_history_archive} and removed from
+ * {@code loan_history}, so the live table and its indexes only carry loans that are still moving.
+ * Readers ({@link LoanHistoryService}, {@link ActionHistoryService}) merge both tiers.
+ *
+ * <ul>
+ *   <li>Loans are processed in id-range chunks, each chunk in its own transaction
+ *   <li>Copy and delete are set-based statements; the delete only removes rows already present in
+ *       the archive, so a chunk can be retried and concurrent writes are never lost
+ * </ul>
+ */
+@Service
+@Slf4j
+public class LoanHistoryArchiveService {
+
+  public static final String JOB_NAME = "LOAN_HISTORY_ARCHIVE";
+
+  /** Newest first, ties broken by id; the order of every history listing. */
+  public static final Comparator<LoanHistory> NEWEST_FIRST =
+      Comparator.comparing(LoanHistory::getCreatedAt)
+          .thenComparing(LoanHistory::getLoanHistoryId)
+          .reversed();
+
+  private static final String CLOSED_LOANS =
+      " la.current_status IN ('PAID', 'REJECTED') AND la.updated_at < ?";
+
+  private static final String CANDIDATE_RANGE_SQL =
+      "SELECT MIN(la.loan_application_id) AS min_id, MAX(la.loan_application_id) AS max_id"
+          + " FROM loan_applications la WHERE"
+          + CLOSED_LOANS;
+
+  private static final String COPY_SQL =
+      "INSERT INTO loan_history_archive (loan_history_id, loan_application_id, actor_user_id,"
+          + " action, comment, from_status, to_status, created_at, archived_at)"
+          + " SELECT h.loan_history_id, h.loan_application_id, h.actor_user_id, h.action,"
+          + " h.comment, h.from_status, h.to_status, h.created_at, ?"
+          + " FROM loan_history h"
+          + " JOIN loan_applications la ON la.loan_application_id = h.loan_application_id"
+          + " WHERE la.loan_application_id > ? AND la.loan_application_id <= ? AND"
+          + CLOSED_LOANS
+          + " AND NOT EXISTS (SELECT 1 FROM loan_history_archive a"
+          + " WHERE a.loan_history_id = h.loan_history_id)";
+
+  private static final String PURGE_SQL =
+      "DELETE FROM loan_history WHERE loan_application_id > ? AND loan_application_id <= ?"
+          + " AND EXISTS (SELECT 1 FROM loan_history_archive a"
+          + " WHERE a.loan_history_id = loan_history.loan_history_id)";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final int retentionDays;
+  private final int chunkSize;
+
+  private final BackgroundJob job =
+      new BackgroundJob(JOB_NAME, "Loan history archiving", "loan-history-archive");
+
+  public LoanHistoryArchiveService(
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      @Value("${app.history-archive.retention-days:180}") int retentionDays,
+      @Value("${app.history-archive.chunk-size:500}") int chunkSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.retentionDays = retentionDays;
+    this.chunkSize = Math.max(1, chunkSize);
+  }
+
+  @Scheduled(cron = "${app.history-archive.cron:0 30 2 * * *}")
+  public void archiveScheduled() {
+    job.tryStart(this::execute);
+  }
+
+  /** Start a run in the background and return immediately. */
+  public BatchJobStatusDTO startAsync() {
+    return job.start(this::execute);
+  }
+
+  /**
+   * Archive history of loans closed before the retention period, on the calling thread.
+   *
+   * @return the final status; {@code processedCount} is loan ids scanned, {@code affectedCount}
+   *     history rows moved
+   */
+  public BatchJobStatusDTO archive() {
+    return job.run(this::execute);
+  }
+
+  public BatchJobStatusDTO getStatus() {
+    return job.getStatus();
+  }
+
+  /** Merge two newest-first lists of {@link LoanHistory} into the first {@code limit} rows. */
+  public static List<LoanHistory> mergeNewestFirst(
+      List<LoanHistory> live, List<LoanHistory> archived, int limit) {
+    return merge(live, archived, limit, NEWEST_FIRST);
+  }
+
+  /**
+   * Merge two lists sorted by {@code order} into the first {@code limit} rows of their union.
+   *
+   * @param live rows from {@code loan_history}
+   * @param archived rows from {@code loan_history_archive}
+   */
+  public static <T> List<T> merge(
+      List<T> live, List<T> archived, int limit, Comparator<? super T> order) {
+    if (archived.isEmpty()) {
+      return live.size() > limit ? live.subList(0, limit) : live;
+    }
+    List<T> merged = new ArrayList<>(live.size() + archived.size());
+    merged.addAll(live);
+    merged.addAll(archived);
+    merged.sort(order);
+    return merged.size() > limit ? merged.subList(0, limit) : merged;
+  }
+
+  /** One run; a failed run is safe to repeat, the next one continues where it stopped. */
+  private void execute() {
+    Timestamp closedBefore = Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays));
+    Map<String, Object> range = jdbcTemplate.queryForMap(CANDIDATE_RANGE_SQL, closedBefore);
+    Number minId = (Number) range.get("min_id");
+    Number maxId = (Number) range.get("max_id");
+    if (minId != null) {
+      long last = maxId.longValue();
+      job.setPartitionsTotal((int) ((last - minId.longValue()) / chunkSize + 1));
+      for (long start = minId.longValue() - 1; start < last; start += chunkSize) {
+        long end = Math.min(last, start + chunkSize);
+        job.addAffected(archiveChunk(start, end, closedBefore));
+        job.addProcessed(end - start);
+        job.partitionCompleted();
+      }
+    }
+    log.info("Loan history archiving completed: {} rows archived", job.affectedCount());
+  }
+
+  /** Move one (startId, endId] range of loans; returns the number of rows moved. */
+  private int archiveChunk(long startId, long endId, Timestamp closedBefore) {
+    return transactionTemplate.execute(
+        tx -> {
+          Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+          jdbcTemplate.update(COPY_SQL, now, startId, endId, closedBefore);
+          return jdbcTemplate.update(PURGE_SQL, startId, endId);
+        });
+  }
+}
@@ -1,20 +1,27 @@
 package com.example.demo.service;
 
+import com.example.demo.base.Cursor;
+import com.example.demo.base.CursorPage;
 import com.example.demo.dto.LoanHistoryDTO;
 import com.example.demo.dto.LoanMilestoneDTO;
 import com.example.demo.entity.LoanApplication;
 import com.example.demo.entity.LoanHistory;
+import com.example.demo.entity.LoanHistoryArchive;
 import com.example.demo.entity.User;
 import com.example.demo.enums.LoanStatus;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.repository.LoanApplicationRepository;
+import com.example.demo.repository.LoanApplicationRepository.LoanMilestoneRow;
+import com.example.demo.repository.LoanHistoryArchiveRepository;
 import com.example.demo.repository.LoanHistoryRepository;
 import com.example.demo.repository.UserRepository;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,8 +30,10 @@ import org.springframework.transaction.annotation.Transactional;
 public class LoanHistoryService {
 
   private final LoanHistoryRepository loanHistoryRepository;
+  private final LoanHistoryArchiveRepository loanHistoryArchiveRepository;
   private final LoanApplicationRepository loanApplicationRepository;
   private final UserRepository userRepository;
+  private final LoanCommentSearchService loanCommentSearchService;
 
   @Transactional
   public LoanHistoryDTO createLoanHistory(LoanHistoryDTO dto) {
@@ -52,6 +61,7 @@ public class LoanHistoryService {
             .build();
 
     LoanHistory saved = loanHistoryRepository.save(loanHistory);
+    loanCommentSearchService.index(saved);
     return convertToDTO(saved);
   }
 
@@ -60,44 +70,98 @@ public class LoanHistoryService {
     LoanHistory loanHistory =
         loanHistoryRepository
             .findById(loanHistoryId)
+            .or(
+                () ->
+                    loanHistoryArchiveRepository
+                        .findById(loanHistoryId)
+                        .map(LoanHistoryArchive::toLoanHistory))
             .orElseThrow(() -> new ResourceNotFoundException("LoanHistory", "id", loanHistoryId));
     return convertToDTO(loanHistory);
   }
 
   @Transactional(readOnly = true)
   public List<LoanHistoryDTO> getLoanHistoryByLoanApplicationId(Long loanApplicationId) {
-    return loanHistoryRepository
-        .findByLoanApplication_LoanApplicationIdOrderByCreatedAtDesc(loanApplicationId)
+    // Closed loans may have part or all of their history in the archive
+    return LoanHistoryArchiveService.mergeNewestFirst(
+            loanHistoryRepository.findByLoanApplication_LoanApplicationIdOrderByCreatedAtDesc(
+                loanApplicationId),
+            loanHistoryArchiveRepository
+                .findByLoanApplication_LoanApplicationIdOrderByCreatedAtDesc(loanApplicationId)
+                .stream()
+                .map(LoanHistoryArchive::toLoanHistory)
+                .toList(),
+            Integer.MAX_VALUE)
         .stream()
         .map(this::convertToDTO)
         .collect(Collectors.toList());
   }
 
+  /**
+   * Newest loan history entries from both tiers, at most {@link CursorPage#LEGACY_LIST_LIMIT}.
+   *
+   * @deprecated unpaged list kept for existing clients, use {@link #getAllLoanHistories(String,
+   *     int)}
+   */
+  @Deprecated
   @Transactional(readOnly = true)
   public List<LoanHistoryDTO> getAllLoanHistories() {
-    return loanHistoryRepository.findAll().stream()
+    Cursor first = Cursor.first();
+    Pageable limit = CursorPage.legacyLimit();
+    return LoanHistoryArchiveService.mergeNewestFirst(
+            loanHistoryRepository.findPageAfter(first.createdAt(), first.id(), limit),
+            loanHistoryArchiveRepository
+                .findPageAfter(first.createdAt(), first.id(), limit)
+                .stream()
+                .map(LoanHistoryArchive::toLoanHistory)
+                .toList(),
+            limit.getPageSize())
+        .stream()
         .map(this::convertToDTO)
-        .collect(Collectors.toList());
+        .toList();
+  }
+
+  @Transactional(readOnly = true)
+  public CursorPage<LoanHistoryDTO> getAllLoanHistories(String cursor, int size) {
+    Cursor after = Cursor.decode(cursor);
+    Pageable limit = CursorPage.limit(size);
+    return CursorPage.of(
+        LoanHistoryArchiveService.mergeNewestFirst(
+            loanHistoryRepository.findPageAfter(after.createdAt(), after.id(), limit),
+            loanHistoryArchiveRepository
+                .findPageAfter(after.createdAt(), after.id(), limit)
+                .stream()
+                .map(LoanHistoryArchive::toLoanHistory)
+                .toList(),
+            limit.getPageSize()),
+        size,
+        h -> new Cursor(h.getCreatedAt(), h.getLoanHistoryId()),
+        this::convertToDTO);
   }
 
   @Transactional
   public void deleteLoanHistory(Long loanHistoryId) {
     loanHistoryRepository.deleteById(loanHistoryId);
+    loanCommentSearchService.remove(loanHistoryId);
   }
 
   @Transactional(readOnly = true)
   public List<LoanMilestoneDTO> getLoanMilestones(Long loanApplicationId) {
-    LoanApplication loanApplication =
+    return getLoanMilestoneSnapshot(loanApplicationId).milestones();
+  }
+
+  /**
+   * Milestones of a loan from its denormalised timestamps (one single-row read), together with a
+   * version that changes whenever the loan row changes, usable as an HTTP entity tag.
+   */
+  @Transactional(readOnly = true)
+  public MilestoneSnapshot getLoanMilestoneSnapshot(Long loanApplicationId) {
+    LoanMilestoneRow loan =
         loanApplicationRepository
-            .findById(loanApplicationId)
+            .findMilestones(loanApplicationId)
             .orElseThrow(
                 () -> new ResourceNotFoundException("LoanApplication", "id", loanApplicationId));
 
-    List<LoanHistory> historyList =
-        loanHistoryRepository.findByLoanApplication_LoanApplicationIdOrderByCreatedAtAsc(
-            loanApplicationId);
-
-    String currentStatus = loanApplication.getCurrentStatus();
+    String currentStatus = loan.getCurrentStatus();
 
     List<LoanMilestoneDTO> milestones = new ArrayList<>();
 
@@ -106,75 +170,60 @@ public class LoanHistoryService {
         LoanMilestoneDTO.builder()
             .name("Submitted")
             .status("COMPLETED")
-            .timestamp(loanApplication.getCreatedAt())
+            .timestamp(loan.getCreatedAt())
             .order(1)
             .build());
 
     // 2. Marketing - first transition to IN_REVIEW
-    LocalDateTime marketingTimestamp =
-        historyList.stream()
-            .filter(h -> LoanStatus.IN_REVIEW.name().equals(h.getToStatus()))
-            .findFirst()
-            .map(LoanHistory::getCreatedAt)
-            .orElse(null);
     milestones.add(
-        LoanMilestoneDTO.builder()
-            .name("Marketing")
-            .status(getMilestoneStatus(marketingTimestamp, currentStatus, LoanStatus.IN_REVIEW))
-            .timestamp(marketingTimestamp)
-            .order(2)
-            .build());
+        milestone("Marketing", 2, loan.getInReviewAt(), currentStatus, LoanStatus.IN_REVIEW));
 
     // 3. Branch Manager - first transition to WAITING_APPROVAL
-    LocalDateTime branchManagerTimestamp =
-        historyList.stream()
-            .filter(h -> LoanStatus.WAITING_APPROVAL.name().equals(h.getToStatus()))
-            .findFirst()
-            .map(LoanHistory::getCreatedAt)
-            .orElse(null);
     milestones.add(
-        LoanMilestoneDTO.builder()
-            .name("Branch Manager")
-            .status(
-                getMilestoneStatus(
-                    branchManagerTimestamp, currentStatus, LoanStatus.WAITING_APPROVAL))
-            .timestamp(branchManagerTimestamp)
-            .order(3)
-            .build());
+        milestone(
+            "Branch Manager",
+            3,
+            loan.getWaitingApprovalAt(),
+            currentStatus,
+            LoanStatus.WAITING_APPROVAL));
 
     // 4. Back Office - first transition to APPROVED_WAITING_DISBURSEMENT
-    LocalDateTime backOfficeTimestamp =
-        historyList.stream()
-            .filter(h -> LoanStatus.APPROVED_WAITING_DISBURSEMENT.name().equals(h.getToStatus()))
-            .findFirst()
-            .map(LoanHistory::getCreatedAt)
-            .orElse(null);
     milestones.add(
-        LoanMilestoneDTO.builder()
-            .name("Back Office")
-            .status(
-                getMilestoneStatus(
-                    backOfficeTimestamp, currentStatus, LoanStatus.APPROVED_WAITING_DISBURSEMENT))
-            .timestamp(backOfficeTimestamp)
-            .order(4)
-            .build());
+        milestone(
+            "Back Office",
+            4,
+            loan.getApprovedAt(),
+            currentStatus,
+            LoanStatus.APPROVED_WAITING_DISBURSEMENT));
 
     // 5. Disbursed - first transition to DISBURSED
-    LocalDateTime disbursedTimestamp =
-        historyList.stream()
-            .filter(h -> LoanStatus.DISBURSED.name().equals(h.getToStatus()))
-            .findFirst()
-            .map(LoanHistory::getCreatedAt)
-            .orElse(null);
     milestones.add(
-        LoanMilestoneDTO.builder()
-            .name("Disbursed")
-            .status(getMilestoneStatus(disbursedTimestamp, currentStatus, LoanStatus.DISBURSED))
-            .timestamp(disbursedTimestamp)
-            .order(5)
-            .build());
+        milestone("Disbursed", 5, loan.getDisbursedAt(), currentStatus, LoanStatus.DISBURSED));
+
+    String version =
+        loanApplicationId
+            + "-"
+            + (loan.getUpdatedAt() != null
+                ? loan.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : 0);
+    return new MilestoneSnapshot(milestones, version);
+  }
 
-    return milestones;
+  /** Milestones of a loan plus the version of the loan row they were read from. */
+  public record MilestoneSnapshot(List<LoanMilestoneDTO> milestones, String version) {}
+
+  private LoanMilestoneDTO milestone(
+      String name,
+      int order,
+      LocalDateTime timestamp,
+      String currentStatus,
+      LoanStatus milestoneStatus) {
+    return LoanMilestoneDTO.builder()
+        .name(name)
+        .status(getMilestoneStatus(timestamp, currentStatus, milestoneStatus))
+        .timestamp(timestamp)
+        .order(order)
+        .build();
   }
 
   private String getMilestoneStatus(
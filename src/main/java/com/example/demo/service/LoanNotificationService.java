@@ -4,14 +4,17 @@ import com.example.demo.dto.NotificationDTO;
 import com.example.demo.entity.LoanApplication;
 import com.example.demo.entity.User;
 import com.example.demo.enums.RoleName;
-import com.example.demo.repository.UserRepository;
+import com.example.demo.event.LoanTransitionEvent;
 import com.example.demo.service.notification.NotificationChannel;
+import com.example.demo.service.notification.StaffRoutingTable;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 /**
  * Service dedicated to loan-related notifications. Follows SOLID Single Responsibility Principle -
@@ -23,7 +26,7 @@ import org.springframework.stereotype.Service;
 public class LoanNotificationService {
 
   private final NotificationService notificationService;
-  private final UserRepository userRepository;
+  private final StaffRoutingTable staffRoutingTable;
   private final List<NotificationChannel> notificationChannels;
   private final EmailService emailService;
 
@@ -88,9 +91,6 @@ public class LoanNotificationService {
       // Send PUSH notification via all PUSH channels
       sendPushNotification(userId, message.title(), message.body(), data);
 
-      // Handle special cases (staff notifications)
-      notifyStaffIfNeeded(loanApplication, fromStatus, toStatus);
-
       // Send email for disbursement
       if ("APPROVED_WAITING_DISBURSEMENT".equals(fromStatus) && "DISBURSED".equals(toStatus)) {
         sendDisbursementEmail(loanApplication);
@@ -125,59 +125,66 @@ public class LoanNotificationService {
     }
   }
 
-  private void notifyStaffIfNeeded(
-      LoanApplication loanApplication, String fromStatus, String toStatus) {
-    Long loanId = loanApplication.getLoanApplicationId();
+  /**
+   * Notify staff of a transition once it has committed. The fan-out runs in its own transaction, so
+   * a failure here is logged and never rolls back the workflow action.
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onLoanTransition(LoanTransitionEvent event) {
+    try {
+      notifyStaffIfNeeded(
+          event.loanApplicationId(), event.branchId(), event.fromStatus(), event.toStatus());
+    } catch (Exception e) {
+      log.error(
+          "Error sending staff notifications for loan {}: {}",
+          event.loanApplicationId(),
+          e.getMessage());
+    }
+  }
 
-    // IN_REVIEW -> WAITING_APPROVAL: Notify branch managers
+  private void notifyStaffIfNeeded(Long loanId, Long branchId, String fromStatus, String toStatus) {
+    // IN_REVIEW -> WAITING_APPROVAL: Notify the branch managers of the loan's branch
     if ("IN_REVIEW".equals(fromStatus) && "WAITING_APPROVAL".equals(toStatus)) {
-      List<User> branchManagers =
-          userRepository.findByRoles_Name(RoleName.BRANCH_MANAGER.getRoleName());
-      for (User manager : branchManagers) {
-        notificationService.createNotification(
-            NotificationDTO.builder()
-                .userId(manager.getId())
-                .relatedLoanApplicationId(loanId)
-                .notifType("APPROVAL_REQUIRED")
-                .channel("IN_APP")
-                .message("Ada pengajuan pinjaman baru menunggu persetujuan Anda")
-                .build());
-
-        // Send push to staff
-        Map<String, String> data = new HashMap<>();
-        data.put("loanApplicationId", String.valueOf(loanId));
-        data.put("type", "STAFF_NOTIFICATION");
-        sendPushNotification(
-            manager.getId(),
-            "Persetujuan Diperlukan",
-            "Ada pengajuan pinjaman baru menunggu persetujuan Anda",
-            data);
+      List<Long> branchManagers =
+          branchId != null
+              ? staffRoutingTable.usersOf(RoleName.BRANCH_MANAGER, branchId)
+              : List.of();
+      if (branchManagers.isEmpty()) {
+        // No manager assigned to the branch; anyone who can approve should hear about it
+        branchManagers = staffRoutingTable.usersOf(RoleName.BRANCH_MANAGER);
       }
+      notifyStaff(
+          branchManagers,
+          loanId,
+          "APPROVAL_REQUIRED",
+          new StatusMessage(
+              "Persetujuan Diperlukan", "Ada pengajuan pinjaman baru menunggu persetujuan Anda"));
     }
 
     // WAITING_APPROVAL -> APPROVED_WAITING_DISBURSEMENT: Notify back office
     if ("WAITING_APPROVAL".equals(fromStatus) && "APPROVED_WAITING_DISBURSEMENT".equals(toStatus)) {
-      List<User> backOfficeUsers =
-          userRepository.findByRoles_Name(RoleName.BACK_OFFICE.getRoleName());
-      for (User backOffice : backOfficeUsers) {
-        notificationService.createNotification(
-            NotificationDTO.builder()
-                .userId(backOffice.getId())
-                .relatedLoanApplicationId(loanId)
-                .notifType("DISBURSEMENT_REQUIRED")
-                .channel("IN_APP")
-                .message("Pinjaman yang disetujui menunggu pencairan")
-                .build());
-
-        // Send push to staff
-        Map<String, String> data = new HashMap<>();
-        data.put("loanApplicationId", String.valueOf(loanId));
-        data.put("type", "STAFF_NOTIFICATION");
-        sendPushNotification(
-            backOffice.getId(),
-            "Pencairan Diperlukan",
-            "Pinjaman yang disetujui menunggu pencairan",
-            data);
+      notifyStaff(
+          staffRoutingTable.usersOf(RoleName.BACK_OFFICE),
+          loanId,
+          "DISBURSEMENT_REQUIRED",
+          new StatusMessage("Pencairan Diperlukan", "Pinjaman yang disetujui menunggu pencairan"));
+    }
+  }
+
+  /** One batch of IN_APP rows and one multicast push for all recipients. */
+  private void notifyStaff(
+      List<Long> staffIds, Long loanId, String notifType, StatusMessage message) {
+    if (staffIds.isEmpty()) {
+      return;
+    }
+    notificationService.createForUsers(staffIds, loanId, notifType, "IN_APP", message.body());
+
+    Map<String, String> data = new HashMap<>();
+    data.put("loanApplicationId", String.valueOf(loanId));
+    data.put("type", "STAFF_NOTIFICATION");
+    for (NotificationChannel channel : notificationChannels) {
+      if (channel.supports("PUSH")) {
+        channel.send(staffIds, message.title(), message.body(), data);
       }
     }
   }
@@ -10,6 +10,9 @@ import com.example.demo.entity.Product;
 import com.example.demo.entity.User;
 import com.example.demo.enums.LoanAction;
 import com.example.demo.enums.LoanStatus;
+import com.example.demo.enums.SlaStage;
+import com.example.demo.event.LoanStageCompletedEvent;
+import com.example.demo.event.LoanTransitionEvent;
 import com.example.demo.exception.BusinessException;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.repository.BranchRepository;
@@ -17,10 +20,14 @@ import com.example.demo.repository.LoanApplicationRepository;
 import com.example.demo.repository.LoanHistoryRepository;
 import com.example.demo.repository.ProductRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.service.DailyLoanStatsService.LoanFacts;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -67,6 +74,9 @@ public class LoanWorkflowService implements ILoanWorkflowService {
   private final IUserProfileService userProfileService;
   private final EmailService emailService;
   private final LoanNotificationService loanNotificationService;
+  private final ApplicationEventPublisher eventPublisher;
+  private final LoanCommentSearchService loanCommentSearchService;
+  private final DailyLoanStatsService dailyLoanStatsService;
 
   @Override
   @Transactional
@@ -161,6 +171,7 @@ public class LoanWorkflowService implements ILoanWorkflowService {
             .build();
 
     LoanApplication saved = loanApplicationRepository.save(loanApplication);
+    dailyLoanStatsService.recordChange(null, LoanFacts.of(saved));
 
     // Update user's used amount
     loanEligibilityService.updateUsedAmount(userId, request.getAmount());
@@ -168,6 +179,7 @@ public class LoanWorkflowService implements ILoanWorkflowService {
     // Create history entry for SUBMIT action
     createHistoryEntry(
         saved, user, LoanAction.SUBMIT.name(), null, null, LoanStatus.SUBMITTED.name());
+    publishTransition(saved, userId, LoanAction.SUBMIT.name(), null, LoanStatus.SUBMITTED.name());
 
     log.info(
         "Loan application {} submitted by user {} for amount {} (Tier: {})",
@@ -211,15 +223,29 @@ public class LoanWorkflowService implements ILoanWorkflowService {
     String fromStatus = currentStatus;
     String toStatus = nextStatus;
 
+    // Keep the latest review comment on the loan so the queues need no history lookup
+    boolean commentChanged =
+        updateQueueComment(loanApplication, currentStatus, request.getComment());
+
     // Update loan application status if it changes
     if (!currentStatus.equals(nextStatus)) {
+      LoanFacts before = LoanFacts.of(loanApplication);
       loanApplication.setCurrentStatus(nextStatus);
+      boolean firstVisit =
+          recordMilestone(loanApplication, nextStatus)
+              || LoanStatus.REJECTED.name().equals(nextStatus);
       loanApplicationRepository.save(loanApplication);
+      dailyLoanStatsService.recordChange(before, LoanFacts.of(loanApplication));
+      if (firstVisit) {
+        publishCompletedStages(loanApplication, nextStatus);
+      }
 
       // If loan is rejected, recalculate the user's used amount to release the limit
       if (LoanStatus.REJECTED.name().equals(nextStatus)) {
         loanEligibilityService.recalculateUsedAmount(loanApplication.getUser().getId());
       }
+    } else if (commentChanged) {
+      loanApplicationRepository.save(loanApplication);
     }
 
     // Create history entry
@@ -228,6 +254,7 @@ public class LoanWorkflowService implements ILoanWorkflowService {
 
     // Send notifications based on status change
     sendNotifications(loanApplication, fromStatus, toStatus);
+    publishTransition(loanApplication, actorUserId, action, fromStatus, toStatus);
 
     log.info(
         "Loan application {} action {} performed by user {}: {} -> {}",
@@ -396,6 +423,85 @@ public class LoanWorkflowService implements ILoanWorkflowService {
     return currentStatus; // Default: no status change
   }
 
+  /**
+   * Copy a non-empty comment onto the loan's marketing or branch manager comment, depending on
+   * which bucket the loan was in when the comment was made.
+   *
+   * @return true if the loan was modified
+   */
+  private boolean updateQueueComment(
+      LoanApplication loanApplication, String fromStatus, String comment) {
+    if (comment == null || comment.isEmpty()) {
+      return false;
+    }
+    if (LoanStatus.SUBMITTED.name().equals(fromStatus)
+        || LoanStatus.IN_REVIEW.name().equals(fromStatus)) {
+      loanApplication.setMarketingComment(comment);
+      return true;
+    }
+    if (LoanStatus.WAITING_APPROVAL.name().equals(fromStatus)) {
+      loanApplication.setBranchManagerComment(comment);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Stamp the first time the loan reaches a milestone status; later visits keep the original.
+   *
+   * @return whether this is the first time
+   */
+  private boolean recordMilestone(LoanApplication loanApplication, String status) {
+    LocalDateTime now = LocalDateTime.now();
+    if (LoanStatus.IN_REVIEW.name().equals(status) && loanApplication.getInReviewAt() == null) {
+      loanApplication.setInReviewAt(now);
+    } else if (LoanStatus.WAITING_APPROVAL.name().equals(status)
+        && loanApplication.getWaitingApprovalAt() == null) {
+      loanApplication.setWaitingApprovalAt(now);
+    } else if (LoanStatus.APPROVED_WAITING_DISBURSEMENT.name().equals(status)
+        && loanApplication.getApprovedAt() == null) {
+      loanApplication.setApprovedAt(now);
+    } else if (LoanStatus.DISBURSED.name().equals(status)
+        && loanApplication.getDisbursedAt() == null) {
+      loanApplication.setDisbursedAt(now);
+    } else {
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Publish the duration of every SLA stage that ends with the loan first reaching {@code status}.
+   */
+  private void publishCompletedStages(LoanApplication loanApplication, String status) {
+    LocalDateTime end = milestoneAt(loanApplication, LoanStatus.valueOf(status));
+    if (end == null) {
+      end = LocalDateTime.now();
+    }
+    Long branchId =
+        loanApplication.getBranch() != null ? loanApplication.getBranch().getId() : null;
+    for (SlaStage stage : SlaStage.endingAt(status)) {
+      LocalDateTime start = milestoneAt(loanApplication, stage.getFrom());
+      if (start != null) {
+        eventPublisher.publishEvent(
+            new LoanStageCompletedEvent(
+                branchId, stage, end, Math.max(0, Duration.between(start, end).toSeconds())));
+      }
+    }
+  }
+
+  /** First time the loan reached {@code status}, {@code null} if unknown. */
+  private static LocalDateTime milestoneAt(LoanApplication loanApplication, LoanStatus status) {
+    return switch (status) {
+      case SUBMITTED -> loanApplication.getCreatedAt();
+      case IN_REVIEW -> loanApplication.getInReviewAt();
+      case WAITING_APPROVAL -> loanApplication.getWaitingApprovalAt();
+      case APPROVED_WAITING_DISBURSEMENT -> loanApplication.getApprovedAt();
+      case DISBURSED -> loanApplication.getDisbursedAt();
+      default -> null;
+    };
+  }
+
   private void createHistoryEntry(
       LoanApplication loanApplication,
       User actorUser,
@@ -413,7 +519,25 @@ public class LoanWorkflowService implements ILoanWorkflowService {
             .toStatus(toStatus)
             .build();
 
-    loanHistoryRepository.save(history);
+    loanCommentSearchService.index(loanHistoryRepository.save(history));
+  }
+
+  /** Announce the transition; listeners act on it once the transaction has committed. */
+  private void publishTransition(
+      LoanApplication loanApplication,
+      Long actorUserId,
+      String action,
+      String fromStatus,
+      String toStatus) {
+    eventPublisher.publishEvent(
+        new LoanTransitionEvent(
+            loanApplication.getLoanApplicationId(),
+            loanApplication.getBranch() != null ? loanApplication.getBranch().getId() : null,
+            action,
+            fromStatus,
+            toStatus,
+            actorUserId,
+            LocalDateTime.now()));
   }
 
   /**
@@ -0,0 +1,113 @@
+package com.example.demo.service;
+
+import com.example.demo.base.BackgroundJob;
+import com.example.demo.dto.BatchJobStatusDTO;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Removes read notifications older than {@code app.notification-retention.retention-days}, so
+ * inboxes and their indexes only carry what users may still page through.
+ *
+ * <ul>
+ *   <li>Candidates are found by keyset on {@code notification_id}, {@code chunk-size} at a time,
+ *       and each chunk is deleted in its own short transaction
+ *   <li>Unread notifications are never removed, so the unread counters need no adjustment
+ * </ul>
+ */
+@Service
+@Slf4j
+public class NotificationRetentionService {
+
+  public static final String JOB_NAME = "NOTIFICATION_RETENTION";
+
+  private static final String NEXT_CHUNK_SQL =
+      "SELECT notification_id FROM notifications"
+          + " WHERE notification_id > ? AND is_read = ? AND created_at < ?"
+          + " ORDER BY notification_id OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY";
+
+  // Re-checks is_read so a row marked unread again after the scan is kept
+  private static final String DELETE_SQL =
+      "DELETE FROM notifications WHERE notification_id IN (%s) AND is_read = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final int retentionDays;
+  private final int chunkSize;
+
+  private final BackgroundJob job =
+      new BackgroundJob(JOB_NAME, "Notification retention", "notification-retention");
+
+  public NotificationRetentionService(
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      @Value("${app.notification-retention.retention-days:90}") int retentionDays,
+      @Value("${app.notification-retention.chunk-size:500}") int chunkSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.retentionDays = retentionDays;
+    // Keeps the IN list below the SQL Server parameter limit
+    this.chunkSize = Math.max(1, Math.min(chunkSize, 1000));
+  }
+
+  @Scheduled(cron = "${app.notification-retention.cron:0 0 3 * * *}")
+  public void purgeScheduled() {
+    job.tryStart(this::execute);
+  }
+
+  /** Start a run in the background and return immediately. */
+  public BatchJobStatusDTO startAsync() {
+    return job.start(this::execute);
+  }
+
+  /**
+   * Delete expired read notifications on the calling thread.
+   *
+   * @return the final status; {@code processedCount} is candidates found, {@code affectedCount}
+   *     rows deleted
+   */
+  public BatchJobStatusDTO purge() {
+    return job.run(this::execute);
+  }
+
+  public BatchJobStatusDTO getStatus() {
+    return job.getStatus();
+  }
+
+  /** One run; a failed run is safe to repeat, the next one continues where it stopped. */
+  private void execute() {
+    Timestamp readBefore = Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays));
+    long lastId = 0;
+    List<Long> ids;
+    do {
+      ids =
+          jdbcTemplate.queryForList(
+              NEXT_CHUNK_SQL, Long.class, lastId, true, readBefore, chunkSize);
+      if (!ids.isEmpty()) {
+        lastId = ids.get(ids.size() - 1);
+        job.addAffected(deleteChunk(ids));
+        job.addProcessed(ids.size());
+        job.partitionCompleted();
+      }
+    } while (ids.size() == chunkSize);
+    log.info("Notification retention completed: {} rows deleted", job.affectedCount());
+  }
+
+  private int deleteChunk(List<Long> ids) {
+    String sql = String.format(DELETE_SQL, String.join(",", Collections.nCopies(ids.size(), "?")));
+    Object[] args = new Object[ids.size() + 1];
+    for (int i = 0; i < ids.size(); i++) {
+      args[i] = ids.get(i);
+    }
+    args[ids.size()] = true;
+    return transactionTemplate.execute(tx -> jdbcTemplate.update(sql, args));
+  }
+}
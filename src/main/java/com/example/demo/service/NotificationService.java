@@ -1,26 +1,87 @@
 package com.example.demo.service;
 
+import com.example.demo.base.Cursor;
+import com.example.demo.base.CursorPage;
 import com.example.demo.dto.NotificationDTO;
 import com.example.demo.entity.LoanApplication;
 import com.example.demo.entity.Notification;
+import com.example.demo.entity.NotificationTemplate;
 import com.example.demo.entity.User;
+import com.example.demo.event.NotificationCreatedEvent;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.repository.LoanApplicationRepository;
 import com.example.demo.repository.NotificationRepository;
 import com.example.demo.repository.UserRepository;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * In-app notifications.
+ *
+ * <p>Each user's unread count is kept in {@code notification_counters}, adjusted in the same
+ * transaction as every create, read and delete, so the badge is one primary-key read. Marking many
+ * notifications read is one {@code UPDATE} followed by one counter adjustment. New notifications
+ * are also pushed to the user's open streams by {@link NotificationStreamService}.
+ */
 @Service
 @RequiredArgsConstructor
 public class NotificationService {
 
+  private static final String ADJUST_COUNTER_SQL =
+      "UPDATE notification_counters SET unread_count = unread_count + ? WHERE user_id = ?";
+
+  // Seeds a missing counter from the notifications, including ones written in this transaction
+  private static final String SEED_COUNTER_SQL =
+      "INSERT INTO notification_counters (user_id, unread_count)"
+          + " SELECT ?, COUNT(*) FROM notifications WHERE user_id = ? AND is_read = ?";
+
+  private static final String SELECT_COUNTER_SQL =
+      "SELECT unread_count FROM notification_counters WHERE user_id = ?";
+
+  private static final String INSERT_SHARED_SQL =
+      "INSERT INTO notifications (user_id, related_loan_application_id, notif_type, channel,"
+          + " message, template_id, is_read, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+  // Ids of one fan-out: each recipient's newest unread row for the template is the one just written
+  private static final String SELECT_SHARED_IDS_SQL =
+      "SELECT user_id, MAX(notification_id) AS notification_id FROM notifications"
+          + " WHERE template_id = ? AND is_read = ? AND user_id IN (%s) GROUP BY user_id";
+
+  // Keeps the IN list well under the driver's parameter limit
+  private static final int ID_LOOKUP_CHUNK = 500;
+
+  private static final String SELECT_TEMPLATE_SQL =
+      "SELECT template_id FROM notification_templates WHERE message_hash = ?";
+
+  private static final String INSERT_TEMPLATE_SQL =
+      "INSERT INTO notification_templates (message_hash, message, created_at) VALUES (?, ?, ?)";
+
+  private static final String MARK_READ_SQL =
+      "UPDATE notifications SET is_read = ? WHERE user_id = ? AND is_read = ?";
+
   private final NotificationRepository notificationRepository;
   private final UserRepository userRepository;
   private final LoanApplicationRepository loanApplicationRepository;
+  private final JdbcTemplate jdbcTemplate;
+  private final ApplicationEventPublisher eventPublisher;
 
   @Transactional
   public NotificationDTO createNotification(NotificationDTO dto) {
@@ -50,7 +111,105 @@ public class NotificationService {
 
     Notification notification = builder.build();
     Notification saved = notificationRepository.save(notification);
-    return convertToDTO(saved);
+    if (!saved.getIsRead()) {
+      adjustUnreadCount(user.getId(), 1);
+    }
+    NotificationDTO created = convertToDTO(saved);
+    // Pushed to the user's open notification streams after commit
+    eventPublisher.publishEvent(new NotificationCreatedEvent(created));
+    return created;
+  }
+
+  /**
+   * Create the same notification for many users with one batch insert. The rows reference a shared
+   * {@link NotificationTemplate}, and the unread counters are adjusted in one batch too.
+   *
+   * <p>Runs in its own transaction: callers fan out after their own work has committed, and a
+   * failure here must not roll that work back.
+   *
+   * @return number of notifications created
+   */
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public int createForUsers(
+      Collection<Long> userIds,
+      Long relatedLoanApplicationId,
+      String notifType,
+      String channel,
+      String message) {
+    List<Long> recipients = List.copyOf(new LinkedHashSet<>(userIds));
+    if (recipients.isEmpty()) {
+      return 0;
+    }
+    long templateId = resolveTemplateId(message);
+    LocalDateTime now = LocalDateTime.now();
+    Timestamp createdAt = Timestamp.valueOf(now);
+    jdbcTemplate.batchUpdate(
+        INSERT_SHARED_SQL,
+        recipients,
+        recipients.size(),
+        (ps, userId) -> {
+          ps.setLong(1, userId);
+          ps.setObject(2, relatedLoanApplicationId);
+          ps.setString(3, notifType);
+          ps.setString(4, channel);
+          ps.setString(5, message);
+          ps.setLong(6, templateId);
+          ps.setBoolean(7, false);
+          ps.setTimestamp(8, createdAt);
+        });
+
+    int[][] adjusted =
+        jdbcTemplate.batchUpdate(
+            ADJUST_COUNTER_SQL,
+            recipients,
+            recipients.size(),
+            (ps, userId) -> {
+              ps.setInt(1, 1);
+              ps.setLong(2, userId);
+            });
+    for (int i = 0; i < recipients.size(); i++) {
+      if (adjusted[0][i] == 0 && !seedCounter(recipients.get(i))) {
+        jdbcTemplate.update(ADJUST_COUNTER_SQL, 1, recipients.get(i));
+      }
+    }
+
+    Map<Long, Long> notificationIds = findSharedIds(recipients, templateId);
+    for (Long userId : recipients) {
+      eventPublisher.publishEvent(
+          new NotificationCreatedEvent(
+              NotificationDTO.builder()
+                  .notificationId(notificationIds.get(userId))
+                  .userId(userId)
+                  .relatedLoanApplicationId(relatedLoanApplicationId)
+                  .notifType(notifType)
+                  .channel(channel)
+                  .message(message)
+                  .isRead(false)
+                  .createdAt(now)
+                  .build()));
+    }
+    return recipients.size();
+  }
+
+  /** Ids of the rows one {@link #createForUsers} call inserted, by recipient. */
+  private Map<Long, Long> findSharedIds(List<Long> recipients, long templateId) {
+    Map<Long, Long> ids = new HashMap<>();
+    for (int from = 0; from < recipients.size(); from += ID_LOOKUP_CHUNK) {
+      List<Long> chunk =
+          recipients.subList(from, Math.min(from + ID_LOOKUP_CHUNK, recipients.size()));
+      List<Object> args = new ArrayList<>(chunk.size() + 2);
+      args.add(templateId);
+      args.add(false);
+      args.addAll(chunk);
+      jdbcTemplate.query(
+          String.format(
+              SELECT_SHARED_IDS_SQL, String.join(", ", Collections.nCopies(chunk.size(), "?"))),
+          rs -> {
+            ids.put(rs.getLong("user_id"), rs.getLong("notification_id"));
+          },
+          args.toArray());
+    }
+    return ids;
   }
 
   @Transactional(readOnly = true)
@@ -62,30 +221,61 @@ public class NotificationService {
     return convertToDTO(notification);
   }
 
+  /**
+   * One page of the user's inbox, newest first.
+   *
+   * @param unreadOnly only notifications not yet read
+   * @param cursor {@code nextCursor} of the previous page, or {@code null} for the first
+   */
   @Transactional(readOnly = true)
-  public List<NotificationDTO> getNotificationsByUserId(Long userId) {
-    return notificationRepository.findByUser_IdOrderByCreatedAtDesc(userId).stream()
-        .map(this::convertToDTO)
-        .collect(Collectors.toList());
-  }
-
-  @Transactional(readOnly = true)
-  public List<NotificationDTO> getUnreadNotificationsByUserId(Long userId) {
-    return notificationRepository.findByUser_IdAndIsReadOrderByCreatedAtDesc(userId, false).stream()
-        .map(this::convertToDTO)
-        .collect(Collectors.toList());
+  public CursorPage<NotificationDTO> getInbox(
+      Long userId, boolean unreadOnly, String cursor, int size) {
+    Cursor after = Cursor.decode(cursor);
+    List<Notification> rows =
+        unreadOnly
+            ? notificationRepository.findUserPageAfterByIsRead(
+                userId, false, after.createdAt(), after.id(), CursorPage.limit(size))
+            : notificationRepository.findUserPageAfter(
+                userId, after.createdAt(), after.id(), CursorPage.limit(size));
+    return CursorPage.of(
+        rows, size, n -> new Cursor(n.getCreatedAt(), n.getNotificationId()), this::convertToDTO);
   }
 
-  @Transactional(readOnly = true)
+  @Transactional
   public Long getUnreadNotificationCount(Long userId) {
-    return notificationRepository.countByUser_IdAndIsRead(userId, false);
+    List<Long> counts = jdbcTemplate.queryForList(SELECT_COUNTER_SQL, Long.class, userId);
+    if (counts.isEmpty()) {
+      seedCounter(userId);
+      counts = jdbcTemplate.queryForList(SELECT_COUNTER_SQL, Long.class, userId);
+    }
+    return Math.max(0L, counts.get(0));
   }
 
+  /**
+   * Newest notifications, at most {@link CursorPage#LEGACY_LIST_LIMIT}.
+   *
+   * @deprecated unpaged list kept for existing clients, use {@link #getAllNotifications(String,
+   *     int)}
+   */
+  @Deprecated
   @Transactional(readOnly = true)
   public List<NotificationDTO> getAllNotifications() {
-    return notificationRepository.findAll().stream()
+    Cursor first = Cursor.first();
+    return notificationRepository
+        .findPageAfter(first.createdAt(), first.id(), CursorPage.legacyLimit())
+        .stream()
         .map(this::convertToDTO)
-        .collect(Collectors.toList());
+        .toList();
+  }
+
+  @Transactional(readOnly = true)
+  public CursorPage<NotificationDTO> getAllNotifications(String cursor, int size) {
+    Cursor after = Cursor.decode(cursor);
+    return CursorPage.of(
+        notificationRepository.findPageAfter(after.createdAt(), after.id(), CursorPage.limit(size)),
+        size,
+        n -> new Cursor(n.getCreatedAt(), n.getNotificationId()),
+        this::convertToDTO);
   }
 
   @Transactional
@@ -95,14 +285,100 @@ public class NotificationService {
             .findById(notificationId)
             .orElseThrow(() -> new ResourceNotFoundException("Notification", "id", notificationId));
 
+    if (notification.getIsRead()) {
+      return convertToDTO(notification);
+    }
     notification.setIsRead(true);
     Notification updated = notificationRepository.save(notification);
+    adjustUnreadCount(updated.getUser().getId(), -1);
     return convertToDTO(updated);
   }
 
+  /**
+   * Mark every unread notification of a user as read.
+   *
+   * @return number of notifications marked
+   */
+  @Transactional
+  public int markAllAsRead(Long userId) {
+    int marked = jdbcTemplate.update(MARK_READ_SQL, true, userId, false);
+    adjustUnreadCount(userId, -marked);
+    return marked;
+  }
+
+  /**
+   * Mark the unread notifications of a user up to and including {@code notificationId} as read, so
+   * a client clears what it has shown without touching newer ones.
+   *
+   * @return number of notifications marked
+   */
+  @Transactional
+  public int markAsReadUpTo(Long userId, Long notificationId) {
+    int marked =
+        jdbcTemplate.update(
+            MARK_READ_SQL + " AND notification_id <= ?", true, userId, false, notificationId);
+    adjustUnreadCount(userId, -marked);
+    return marked;
+  }
+
   @Transactional
   public void deleteNotification(Long notificationId) {
-    notificationRepository.deleteById(notificationId);
+    notificationRepository
+        .findById(notificationId)
+        .ifPresent(
+            notification -> {
+              notificationRepository.delete(notification);
+              if (!notification.getIsRead()) {
+                adjustUnreadCount(notification.getUser().getId(), -1);
+              }
+            });
+  }
+
+  /** Add {@code delta} to a user's unread counter; joins the caller's transaction. */
+  private void adjustUnreadCount(Long userId, int delta) {
+    if (delta == 0 || jdbcTemplate.update(ADJUST_COUNTER_SQL, delta, userId) > 0) {
+      return;
+    }
+    // The seed counts the notification rows, so it already includes this change
+    notificationRepository.flush();
+    if (!seedCounter(userId)) {
+      // Seeded concurrently by a transaction that could not see this change
+      jdbcTemplate.update(ADJUST_COUNTER_SQL, delta, userId);
+    }
+  }
+
+  /** Create a user's counter from their notifications; false if it already exists. */
+  private boolean seedCounter(Long userId) {
+    try {
+      jdbcTemplate.update(SEED_COUNTER_SQL, userId, userId, false);
+      return true;
+    } catch (DuplicateKeyException e) {
+      return false;
+    }
+  }
+
+  /** Id of the template holding {@code message}, created on first use. */
+  private long resolveTemplateId(String message) {
+    String hash = HexFormat.of().formatHex(sha256(message));
+    List<Long> ids = jdbcTemplate.queryForList(SELECT_TEMPLATE_SQL, Long.class, hash);
+    if (!ids.isEmpty()) {
+      return ids.get(0);
+    }
+    try {
+      jdbcTemplate.update(
+          INSERT_TEMPLATE_SQL, hash, message, Timestamp.valueOf(LocalDateTime.now()));
+    } catch (DuplicateKeyException e) {
+      // Created concurrently; read the winner's id below
+    }
+    return jdbcTemplate.queryForObject(SELECT_TEMPLATE_SQL, Long.class, hash);
+  }
+
+  private static byte[] sha256(String message) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(message.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
   }
 
   private NotificationDTO convertToDTO(Notification notification) {
@@ -115,7 +391,10 @@ public class NotificationService {
                 : null)
         .notifType(notification.getNotifType())
         .channel(notification.getChannel())
-        .message(notification.getMessage())
+        .message(
+            notification.getMessage() != null || notification.getTemplate() == null
+                ? notification.getMessage()
+                : notification.getTemplate().getMessage())
         .isRead(notification.getIsRead())
         .createdAt(notification.getCreatedAt())
         .build();
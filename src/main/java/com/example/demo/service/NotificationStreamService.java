@@ -0,0 +1,316 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.RealtimeNotificationDTO;
+import com.example.demo.event.NotificationCreatedEvent;
+import com.example.demo.exception.BusinessException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Server-sent event streams of in-app notifications for the users connected to this node.
+ *
+ * <p>Messages for a user are published on the Redis channel {@code notifications:user:<id>}. A node
+ * subscribes to a user's channel while it holds at least one stream of that user, so it only
+ * receives messages it can deliver. Without Redis (or while it is unreachable) messages are
+ * delivered locally, so single-node setups and tests work the same way.
+ *
+ * <ul>
+ *   <li>Each stream has a bounded buffer drained by its own virtual thread; an idle stream holds no
+ *       platform thread, and a slow client only ever blocks its own writer
+ *   <li>When a buffer overflows its messages are dropped and replaced by one {@code resync} event;
+ *       the client then reloads its inbox and unread count once
+ *   <li>At most {@code app.notification-stream.max-per-user} streams are kept per user (the oldest
+ *       is closed) and {@code app.notification-stream.max-connections} per node
+ * </ul>
+ */
+@Service
+@Slf4j
+public class NotificationStreamService implements MessageListener {
+
+  static final String CHANNEL_PREFIX = "notifications:user:";
+  static final String NOTIFICATION_EVENT = "notification";
+  static final String MESSAGE_EVENT = "message";
+  static final String RESYNC_EVENT = "resync";
+
+  private final ObjectMapper objectMapper;
+  private final StringRedisTemplate redisTemplate;
+  private final RedisMessageListenerContainer listenerContainer;
+  private final long timeoutMillis;
+  private final int bufferSize;
+  private final int maxPerUser;
+  private final int maxConnections;
+
+  private final Map<Long, Set<Connection>> connectionsByUser = new ConcurrentHashMap<>();
+  private final AtomicInteger connectionCount = new AtomicInteger();
+  private final AtomicLong connectionSequence = new AtomicLong();
+
+  public NotificationStreamService(
+      ObjectMapper objectMapper,
+      ObjectProvider<StringRedisTemplate> redisTemplate,
+      ObjectProvider<RedisMessageListenerContainer> listenerContainer,
+      @Value("${app.notification-stream.timeout-ms:1800000}") long timeoutMillis,
+      @Value("${app.notification-stream.buffer-size:64}") int bufferSize,
+      @Value("${app.notification-stream.max-per-user:5}") int maxPerUser,
+      @Value("${app.notification-stream.max-connections:20000}") int maxConnections) {
+    this.objectMapper = objectMapper;
+    this.listenerContainer = listenerContainer.getIfAvailable();
+    // The listener container only exists when Redis is enabled (see RedisConfig)
+    this.redisTemplate = this.listenerContainer != null ? redisTemplate.getIfAvailable() : null;
+    this.timeoutMillis = timeoutMillis;
+    this.bufferSize = Math.max(2, bufferSize);
+    this.maxPerUser = Math.max(1, maxPerUser);
+    this.maxConnections = maxConnections;
+  }
+
+  /** Open a notification stream for {@code userId}. */
+  public SseEmitter subscribe(Long userId) {
+    if (connectionCount.incrementAndGet() > maxConnections) {
+      connectionCount.decrementAndGet();
+      throw new BusinessException(
+          "Too many notification streams on this server, poll instead",
+          "TOO_MANY_STREAMS",
+          HttpStatus.SERVICE_UNAVAILABLE);
+    }
+    SseEmitter emitter = createEmitter();
+    Connection connection = new Connection(userId, emitter, connectionSequence.incrementAndGet());
+    emitter.onCompletion(() -> close(connection));
+    emitter.onTimeout(() -> close(connection));
+    emitter.onError(e -> close(connection));
+
+    Connection evicted =
+        register(connection) > maxPerUser ? oldestConnection(userId, connection) : null;
+    connection.offer(() -> SseEmitter.event().comment("connected"));
+    connection.start();
+    if (evicted != null) {
+      close(evicted);
+      evicted.emitter.complete();
+    }
+    return emitter;
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onNotificationCreated(NotificationCreatedEvent event) {
+    publish(
+        RealtimeNotificationDTO.builder()
+            .userId(event.notification().getUserId())
+            .notification(event.notification())
+            .sentAt(LocalDateTime.now())
+            .build());
+  }
+
+  /** Send to every stream of the message's user, on whichever node it is connected. */
+  public void publish(RealtimeNotificationDTO message) {
+    if (redisTemplate != null) {
+      try {
+        redisTemplate.convertAndSend(
+            CHANNEL_PREFIX + message.getUserId(), objectMapper.writeValueAsString(message));
+        return;
+      } catch (Exception e) {
+        // Streams must never break the write path; other nodes' clients catch up on reconnect
+        log.warn("Failed to publish notification to Redis, delivering locally: {}", e.getMessage());
+      }
+    }
+    deliver(message);
+  }
+
+  @Override
+  public void onMessage(Message message, byte[] pattern) {
+    try {
+      deliver(
+          objectMapper.readValue(
+              new String(message.getBody(), StandardCharsets.UTF_8),
+              RealtimeNotificationDTO.class));
+    } catch (Exception e) {
+      log.warn("Ignoring malformed notification message: {}", e.getMessage());
+    }
+  }
+
+  /** Comment frame that keeps idle connections open through proxies and detects dead clients. */
+  @Scheduled(fixedDelayString = "${app.notification-stream.heartbeat-ms:15000}")
+  public void sendHeartbeats() {
+    for (Set<Connection> connections : connectionsByUser.values()) {
+      for (Connection connection : connections) {
+        // Only into free space; a stream with a backlog is not idle
+        connection.buffer.offer(() -> SseEmitter.event().comment("heartbeat"));
+      }
+    }
+  }
+
+  public int getConnectionCount() {
+    return connectionCount.get();
+  }
+
+  @PreDestroy
+  void shutdown() {
+    connectionsByUser.values().stream()
+        .flatMap(Set::stream)
+        .toList()
+        .forEach(
+            connection -> {
+              close(connection);
+              connection.emitter.complete();
+            });
+  }
+
+  /** Hook for tests; the emitter of every new stream. */
+  SseEmitter createEmitter() {
+    return new SseEmitter(timeoutMillis);
+  }
+
+  private void deliver(RealtimeNotificationDTO message) {
+    Set<Connection> connections = connectionsByUser.get(message.getUserId());
+    if (connections == null) {
+      return;
+    }
+    for (Connection connection : connections) {
+      // A builder appends to its frame on every build, so each stream renders its own
+      connection.offer(() -> toEvent(message));
+    }
+  }
+
+  private static SseEmitter.SseEventBuilder toEvent(RealtimeNotificationDTO message) {
+    if (message.getNotification() == null) {
+      return SseEmitter.event().name(MESSAGE_EVENT).data(message);
+    }
+    return SseEmitter.event()
+        .name(NOTIFICATION_EVENT)
+        .id(String.valueOf(message.getNotification().getNotificationId()))
+        .data(message.getNotification());
+  }
+
+  /** Add a stream; subscribes the node to the user's channel for the first one. */
+  private int register(Connection connection) {
+    return connectionsByUser
+        .compute(
+            connection.userId,
+            (userId, connections) -> {
+              if (connections == null) {
+                connections = ConcurrentHashMap.newKeySet();
+                if (listenerContainer != null) {
+                  listenerContainer.addMessageListener(this, topic(userId));
+                }
+              }
+              connections.add(connection);
+              return connections;
+            })
+        .size();
+  }
+
+  private Connection oldestConnection(Long userId, Connection except) {
+    Set<Connection> connections = connectionsByUser.getOrDefault(userId, Set.of());
+    return connections.stream()
+        .filter(connection -> connection != except)
+        .min(Comparator.comparingLong(c -> c.sequence))
+        .orElse(null);
+  }
+
+  /** Remove a stream; unsubscribes the node from the user's channel after the last one. */
+  private void close(Connection connection) {
+    if (!connection.closed.compareAndSet(false, true)) {
+      return;
+    }
+    connectionCount.decrementAndGet();
+    connection.stop();
+    connectionsByUser.computeIfPresent(
+        connection.userId,
+        (userId, connections) -> {
+          connections.remove(connection);
+          if (!connections.isEmpty()) {
+            return connections;
+          }
+          if (listenerContainer != null) {
+            listenerContainer.removeMessageListener(this, topic(userId));
+          }
+          return null;
+        });
+  }
+
+  private static ChannelTopic topic(Long userId) {
+    return new ChannelTopic(CHANNEL_PREFIX + userId);
+  }
+
+  private final class Connection {
+
+    private final Long userId;
+    private final SseEmitter emitter;
+    private final long sequence;
+    private final BlockingQueue<Supplier<SseEmitter.SseEventBuilder>> buffer;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private Thread writer;
+
+    Connection(Long userId, SseEmitter emitter, long sequence) {
+      this.userId = userId;
+      this.emitter = emitter;
+      this.sequence = sequence;
+      this.buffer = new ArrayBlockingQueue<>(bufferSize);
+    }
+
+    /** Queue an event without waiting; on overflow the backlog collapses into one resync. */
+    synchronized void offer(Supplier<SseEmitter.SseEventBuilder> event) {
+      if (!buffer.offer(event)) {
+        buffer.clear();
+        buffer.offer(() -> SseEmitter.event().name(RESYNC_EVENT).data(""));
+        log.debug("Notification stream of user {} fell behind, asking it to resync", userId);
+      }
+    }
+
+    synchronized void start() {
+      writer =
+          Thread.ofVirtual()
+              .name("notification-stream-" + userId + "-" + sequence)
+              .start(this::drain);
+    }
+
+    synchronized void stop() {
+      if (writer != null) {
+        writer.interrupt();
+      }
+    }
+
+    private void drain() {
+      try {
+        while (!closed.get()) {
+          emitter.send(buffer.take().get());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (IOException | IllegalStateException e) {
+        // Client went away; the container completes the emitter
+        log.debug("Dropping notification stream of user {}: {}", userId, e.getMessage());
+        close(this);
+      } catch (RuntimeException e) {
+        // Never leave a registered stream without a writer
+        log.warn("Notification stream of user {} failed: {}", userId, e.getMessage());
+        close(this);
+        emitter.completeWithError(e);
+      }
+    }
+  }
+}
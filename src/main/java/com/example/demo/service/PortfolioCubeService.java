@@ -0,0 +1,319 @@
+package com.example.demo.service;
+
+import com.example.demo.base.BackgroundJob;
+import com.example.demo.dto.BatchJobStatusDTO;
+import com.example.demo.dto.dashboard.PortfolioGroupDTO;
+import com.example.demo.dto.dashboard.PortfolioQueryDTO;
+import com.example.demo.dto.dashboard.PortfolioQueryResultDTO;
+import com.example.demo.dto.dashboard.PortfolioSnapshotDTO;
+import com.example.demo.entity.Product;
+import com.example.demo.enums.LoanStatus;
+import com.example.demo.event.LoanApplicationEditedEvent;
+import com.example.demo.event.LoanTransitionEvent;
+import com.example.demo.event.LoansPaidEvent;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.service.cube.PortfolioCube;
+import com.example.demo.service.cube.PortfolioCube.Row;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Ad-hoc portfolio analytics served from {@link PortfolioCube}, an in-memory columnar copy of
+ * {@code loan_applications}.
+ *
+ * <ul>
+ *   <li>Loaded at startup and nightly by streaming the table in id order into a new cube, which
+ *       replaces the current one when complete; changes seen during the load are replayed onto it
+ *   <li>Kept current from committed workflow transitions and payments: a status change updates one
+ *       byte, a loan not in the cube yet is read by primary key and added
+ *   <li>Edits that bypass the workflow (admin corrections of amount or tenure) show up at the next
+ *       reload
+ *   <li>Memory is bounded by {@code app.portfolio-cube.max-rows}; loans beyond it are left out and
+ *       reported in {@link #getSnapshot()}
+ * </ul>
+ */
+@Service
+@Slf4j
+public class PortfolioCubeService {
+
+  public static final String JOB_NAME = "PORTFOLIO_CUBE_LOAD";
+
+  private static final String COLUMNS =
+      "SELECT loan_application_id, amount, total_amount_to_pay, tenure_months, created_at,"
+          + " current_status, COALESCE(branch_id, 0), product_id FROM loan_applications";
+
+  private static final String LOAD_SQL = COLUMNS + " ORDER BY loan_application_id";
+
+  private static final String ROW_SQL = COLUMNS + " WHERE loan_application_id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ProductRepository productRepository;
+  private final boolean enabled;
+  private final int maxRows;
+  private final int fetchSize;
+
+  private volatile PortfolioCube cube;
+
+  // Changes applied while a load runs, replayed onto the new cube before it is swapped in
+  private final Object swapLock = new Object();
+  private List<Predicate<PortfolioCube>> replay;
+
+  private final BackgroundJob job =
+      new BackgroundJob(JOB_NAME, "Portfolio snapshot load", "portfolio-cube-load");
+  private volatile LocalDateTime loadedAt;
+  private volatile long loadMillis;
+
+  public PortfolioCubeService(
+      JdbcTemplate jdbcTemplate,
+      ProductRepository productRepository,
+      @Value("${app.portfolio-cube.enabled:true}") boolean enabled,
+      @Value("${app.portfolio-cube.max-rows:8000000}") int maxRows,
+      @Value("${app.portfolio-cube.fetch-size:10000}") int fetchSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.productRepository = productRepository;
+    this.enabled = enabled;
+    this.maxRows = maxRows;
+    this.fetchSize = fetchSize;
+    this.cube = new PortfolioCube(0, maxRows);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadOnStartup() {
+    if (enabled) {
+      job.tryStart(this::load);
+    }
+  }
+
+  @Scheduled(cron = "${app.portfolio-cube.reload-cron:0 30 2 * * *}")
+  public void reloadScheduled() {
+    if (enabled) {
+      job.tryStart(this::load);
+    }
+  }
+
+  /** Start a full reload in the background and return immediately. */
+  public BatchJobStatusDTO startReload() {
+    job.start(this::load);
+    return getStatus();
+  }
+
+  /** Reload on the calling thread. */
+  public BatchJobStatusDTO reload() {
+    job.run(this::load);
+    return getStatus();
+  }
+
+  public BatchJobStatusDTO getStatus() {
+    BatchJobStatusDTO status = job.getStatus();
+    status.setAffectedCount(cube.size());
+    if (!enabled) {
+      status.setStatus("DISABLED");
+    }
+    return status;
+  }
+
+  public PortfolioSnapshotDTO getSnapshot() {
+    PortfolioCube current = cube;
+    return PortfolioSnapshotDTO.builder()
+        .status(snapshotStatus())
+        .rows((long) current.size())
+        .capacity((long) current.capacity())
+        .maxRows((long) current.maxRows())
+        .droppedRows(current.droppedRows())
+        .footprintBytes(current.footprintBytes())
+        .loadedAt(loadedAt)
+        .loadMillis(loadMillis)
+        .build();
+  }
+
+  public PortfolioQueryResultDTO query(PortfolioQueryDTO request) {
+    Map<Long, Integer> tierByProduct = new HashMap<>();
+    for (Product product : productRepository.findAll()) {
+      if (product.getTierOrder() != null) {
+        tierByProduct.put(product.getId(), product.getTierOrder());
+      }
+    }
+    long started = System.nanoTime();
+    PortfolioCube.Result result =
+        cube.query(
+            new PortfolioCube.Query(
+                request.getGroupBy(),
+                request.getStatuses(),
+                request.getBranchIds(),
+                request.getProductIds(),
+                request.getTiers(),
+                request.getCreatedFrom(),
+                request.getCreatedTo(),
+                request.getMinAmount(),
+                request.getMaxAmount(),
+                request.getAmountBuckets(),
+                tierByProduct));
+    double elapsedMillis = (System.nanoTime() - started) / 1_000_000.0;
+
+    List<PortfolioGroupDTO> groups = new ArrayList<>();
+    for (PortfolioCube.Group group : result.groups()) {
+      Map<String, Object> key = new LinkedHashMap<>();
+      group.key().forEach((dimension, value) -> key.put(dimension.name(), value));
+      long decided = group.approvedCount() + group.rejectedCount();
+      groups.add(
+          PortfolioGroupDTO.builder()
+              .key(key)
+              .loanCount(group.loanCount())
+              .totalPrincipal(group.amount())
+              .totalAmountToPay(group.totalToPay())
+              .approvalRate(decided > 0 ? group.approvedCount() * 100.0 / decided : null)
+              .build());
+    }
+    return PortfolioQueryResultDTO.builder()
+        .groups(groups)
+        .scannedRows(result.scannedRows())
+        .matchedRows(result.matchedRows())
+        .elapsedMillis(elapsedMillis)
+        .snapshot(getSnapshot())
+        .build();
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onLoanTransition(LoanTransitionEvent event) {
+    if (!enabled || Objects.equals(event.fromStatus(), event.toStatus())) {
+      return;
+    }
+    updateStatus(event.loanApplicationId(), event.toStatus());
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onLoansPaid(LoansPaidEvent event) {
+    if (!enabled) {
+      return;
+    }
+    for (Long loanApplicationId : event.loanApplicationIds()) {
+      updateStatus(loanApplicationId, LoanStatus.PAID.name());
+    }
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onLoanApplicationEdited(LoanApplicationEditedEvent event) {
+    if (!enabled) {
+      return;
+    }
+    // Admin edits may change any column, so re-read the whole row
+    refreshRow(event.loanApplicationId());
+  }
+
+  private void updateStatus(Long loanApplicationId, String toStatus) {
+    if (apply(current -> current.setStatus(loanApplicationId, toStatus))) {
+      return;
+    }
+    // New loan, or one the cube has not loaded yet
+    refreshRow(loanApplicationId);
+  }
+
+  /** Replace the cube row of a loan with its committed state, or drop it if it was deleted. */
+  private void refreshRow(Long loanApplicationId) {
+    List<Row> rows = jdbcTemplate.query(ROW_SQL, (rs, rowNum) -> toRow(rs), loanApplicationId);
+    if (rows.isEmpty()) {
+      apply(current -> current.remove(loanApplicationId));
+    } else {
+      apply(current -> current.upsert(rows.get(0)));
+    }
+  }
+
+  /** Apply {@code change} to the current cube, and to the one being loaded if any. */
+  private boolean apply(Predicate<PortfolioCube> change) {
+    synchronized (swapLock) {
+      if (replay != null) {
+        replay.add(change);
+      }
+      return change.test(cube);
+    }
+  }
+
+  private void load() {
+    long started = System.currentTimeMillis();
+    synchronized (swapLock) {
+      replay = new ArrayList<>();
+    }
+    try {
+      PortfolioCube loading = new PortfolioCube(cube.size(), maxRows);
+      jdbcTemplate.query(
+          con -> {
+            PreparedStatement ps =
+                con.prepareStatement(
+                    LOAD_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            return ps;
+          },
+          rs -> {
+            loading.upsert(toRow(rs));
+            job.addProcessed(1);
+          });
+      synchronized (swapLock) {
+        replay.forEach(change -> change.test(loading));
+        replay = null;
+        cube = loading;
+      }
+      loadMillis = System.currentTimeMillis() - started;
+      loadedAt = LocalDateTime.now();
+      String message =
+          String.format(
+              "%d loans in %d ms, %d bytes, %d left out",
+              loading.size(), loadMillis, loading.footprintBytes(), loading.droppedRows());
+      job.setMessage(message);
+      if (loading.droppedRows() > 0) {
+        log.warn(
+            "Portfolio snapshot is full at {} rows; {} loans left out",
+            maxRows,
+            loading.droppedRows());
+      }
+      log.info("Portfolio snapshot loaded: {}", message);
+    } catch (RuntimeException e) {
+      synchronized (swapLock) {
+        replay = null;
+      }
+      throw e;
+    }
+  }
+
+  private static Row toRow(ResultSet rs) throws SQLException {
+    return new Row(
+        rs.getLong(1),
+        rs.getDouble(2),
+        rs.getDouble(3),
+        rs.getInt(4),
+        rs.getTimestamp(5) != null
+            ? rs.getTimestamp(5).toLocalDateTime().toLocalDate()
+            : LocalDate.now(),
+        rs.getString(6),
+        rs.getLong(7),
+        rs.getLong(8));
+  }
+
+  private String snapshotStatus() {
+    if (!enabled) {
+      return "DISABLED";
+    }
+    if (loadedAt != null) {
+      return "READY";
+    }
+    return "FAILED".equals(job.getStatus().getStatus()) ? "FAILED" : "LOADING";
+  }
+}
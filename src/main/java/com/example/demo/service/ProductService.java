@@ -21,7 +21,7 @@ public class ProductService {
 
   @Transactional
   @CacheEvict(
-      value = {"products", "activeProducts"},
+      value = {"products", "activeProducts", "userTierLimits"},
       allEntries = true)
   public ProductDTO createProduct(Product product) {
     // Validate unique code (check universally to prevent DB constraint violation)
@@ -60,7 +60,7 @@ public class ProductService {
 
   @Transactional
   @CacheEvict(
-      value = {"products", "activeProducts", "productByCode"},
+      value = {"products", "activeProducts", "productByCode", "userTierLimits"},
       allEntries = true)
   public ProductDTO updateProductStatus(Long id, Boolean isActive) {
     Product product =
@@ -83,7 +83,7 @@ public class ProductService {
 
   @Transactional
   @CacheEvict(
-      value = {"products", "activeProducts", "productByCode"},
+      value = {"products", "activeProducts", "productByCode", "userTierLimits"},
       allEntries = true)
   public void deleteProduct(Long id) {
     Product product =
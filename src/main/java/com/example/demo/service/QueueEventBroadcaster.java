@@ -0,0 +1,123 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.QueueDeltaDTO;
+import com.example.demo.enums.LoanStatus;
+import com.example.demo.event.LoanTransitionEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Turns committed loan transitions into queue deltas and fans them out to every node.
+ *
+ * <p>With Redis configured, deltas are numbered from a shared Redis sequence and published on
+ * {@value #CHANNEL}; each node, including the publisher, delivers what it receives to its own
+ * {@link QueueStreamService}. Without Redis (or while it is unreachable) deltas are numbered and
+ * delivered locally, so single-node setups and tests work the same way.
+ */
+@Component
+@Slf4j
+public class QueueEventBroadcaster implements MessageListener {
+
+  static final String CHANNEL = "queue-events";
+  static final String SEQUENCE_KEY = "queue-events:seq";
+
+  private final QueueStreamService queueStreamService;
+  private final ObjectMapper objectMapper;
+  private final StringRedisTemplate redisTemplate;
+  private final RedisMessageListenerContainer listenerContainer;
+  private final AtomicLong localSequence = new AtomicLong();
+
+  public QueueEventBroadcaster(
+      QueueStreamService queueStreamService,
+      ObjectMapper objectMapper,
+      ObjectProvider<StringRedisTemplate> redisTemplate,
+      ObjectProvider<RedisMessageListenerContainer> listenerContainer) {
+    this.queueStreamService = queueStreamService;
+    this.objectMapper = objectMapper;
+    this.listenerContainer = listenerContainer.getIfAvailable();
+    // The listener container only exists when Redis is enabled (see RedisConfig)
+    this.redisTemplate = this.listenerContainer != null ? redisTemplate.getIfAvailable() : null;
+  }
+
+  @PostConstruct
+  void subscribe() {
+    if (listenerContainer != null) {
+      listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onLoanTransition(LoanTransitionEvent event) {
+    QueueDeltaDTO delta = toDelta(event);
+    if (redisTemplate != null) {
+      try {
+        Long eventId = redisTemplate.opsForValue().increment(SEQUENCE_KEY);
+        delta.setEventId(eventId != null ? eventId : nextLocalId());
+        redisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(delta));
+        return;
+      } catch (Exception e) {
+        // Streams must never break the write path; other nodes' clients resync on reconnect
+        log.warn("Failed to publish queue delta to Redis, delivering locally: {}", e.getMessage());
+      }
+    }
+    delta.setEventId(nextLocalId());
+    queueStreamService.deliver(delta);
+  }
+
+  @Override
+  public void onMessage(Message message, byte[] pattern) {
+    try {
+      QueueDeltaDTO delta =
+          objectMapper.readValue(
+              new String(message.getBody(), StandardCharsets.UTF_8), QueueDeltaDTO.class);
+      localSequence.accumulateAndGet(delta.getEventId(), Math::max);
+      queueStreamService.deliver(delta);
+    } catch (Exception e) {
+      log.warn("Ignoring malformed queue delta: {}", e.getMessage());
+    }
+  }
+
+  /** Local ids continue after the highest shared id seen, so resumes stay ordered. */
+  private long nextLocalId() {
+    return localSequence.incrementAndGet();
+  }
+
+  static QueueDeltaDTO toDelta(LoanTransitionEvent event) {
+    return QueueDeltaDTO.builder()
+        .type(deltaType(event.fromStatus(), event.toStatus()))
+        .loanApplicationId(event.loanApplicationId())
+        .branchId(event.branchId())
+        .action(event.action())
+        .fromStatus(event.fromStatus())
+        .toStatus(event.toStatus())
+        .actorUserId(event.actorUserId())
+        .occurredAt(event.occurredAt())
+        .build();
+  }
+
+  private static String deltaType(String fromStatus, String toStatus) {
+    if (fromStatus == null) {
+      return "ADDED";
+    }
+    if (fromStatus.equals(toStatus)) {
+      return "UPDATED"; // Comment only, the loan stays in its queue
+    }
+    if (LoanStatus.SUBMITTED.name().equals(fromStatus)
+        && LoanStatus.IN_REVIEW.name().equals(toStatus)) {
+      return "CLAIMED"; // Picked up by marketing
+    }
+    return "MOVED";
+  }
+}
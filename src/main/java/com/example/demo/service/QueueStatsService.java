@@ -0,0 +1,380 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.QueueStatsDTO;
+import com.example.demo.enums.LoanStatus;
+import com.example.demo.event.LoanTransitionEvent;
+import com.example.demo.repository.LoanApplicationRepository;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Queue depth and aging per (status, branch), answered without touching {@code loan_applications}.
+ *
+ * <p>Each queue is a Redis sorted set of the loans waiting in it, scored by the time they entered
+ * the status. Depth is {@code ZCARD} and each aging bucket a {@code ZCOUNT} over a score range, so
+ * reads cost the same however long the queue is, and ages move between buckets without any writes.
+ * Every committed transition moves the loan between sets in one {@code MULTI}; a periodic
+ * reconciler repairs drift against the database. The sets are seeded from the database at startup
+ * and again whenever the {@value #SEEDED_KEY} marker is missing (e.g. after a Redis flush), so
+ * loans that were already waiting count from the first read. Without Redis the same figures are
+ * computed from the database.
+ */
+@Service
+@Slf4j
+public class QueueStatsService {
+
+  static final List<String> QUEUE_STATUSES =
+      List.of(
+          LoanStatus.SUBMITTED.name(),
+          LoanStatus.IN_REVIEW.name(),
+          LoanStatus.WAITING_APPROVAL.name(),
+          LoanStatus.APPROVED_WAITING_DISBURSEMENT.name());
+
+  static final String KEY_PREFIX = "queue:waiting:";
+  static final String KEY_REGISTRY = "queue:waiting:keys";
+  static final String SEEDED_KEY = "queue:waiting:seeded";
+  private static final String NO_BRANCH = "none";
+
+  private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+  private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+  private static final long THREE_DAYS_MILLIS = TimeUnit.DAYS.toMillis(3);
+
+  private final LoanApplicationRepository loanApplicationRepository;
+  private final StringRedisTemplate redisTemplate;
+  private final boolean redisEnabled;
+
+  // Drift seen by the previous reconciliation pass; only drift seen twice in a row is corrected,
+  // so a transition racing with the database snapshot is never "corrected" back
+  private Set<String> suspectedDrift = Set.of();
+
+  public QueueStatsService(
+      LoanApplicationRepository loanApplicationRepository,
+      StringRedisTemplate redisTemplate,
+      @Value("${spring.data.redis.enabled:true}") boolean redisEnabled) {
+    this.loanApplicationRepository = loanApplicationRepository;
+    this.redisTemplate = redisTemplate;
+    this.redisEnabled = redisEnabled;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void seedOnStartup() {
+    if (!redisEnabled) {
+      return;
+    }
+    try {
+      ensureSeeded();
+    } catch (DataAccessException e) {
+      log.warn("Queue counter seeding failed, retrying on first read: {}", e.getMessage());
+    }
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onLoanTransition(LoanTransitionEvent event) {
+    if (!redisEnabled
+        || (event.fromStatus() != null && event.fromStatus().equals(event.toStatus()))) {
+      return;
+    }
+    String fromKey =
+        QUEUE_STATUSES.contains(event.fromStatus())
+            ? key(event.fromStatus(), event.branchId())
+            : null;
+    String toKey =
+        QUEUE_STATUSES.contains(event.toStatus()) ? key(event.toStatus(), event.branchId()) : null;
+    if (fromKey == null && toKey == null) {
+      return;
+    }
+    try {
+      move(
+          String.valueOf(event.loanApplicationId()),
+          fromKey,
+          toKey,
+          toEpochMillis(event.occurredAt()));
+    } catch (DataAccessException e) {
+      // Counters must never break the write path; the reconciler repairs them
+      log.warn(
+          "Failed to update queue counters for loan {}: {}",
+          event.loanApplicationId(),
+          e.getMessage());
+    }
+  }
+
+  /**
+   * Depth and aging of each status.
+   *
+   * @param statuses queue statuses to report
+   * @param branchId a single branch, or {@code null} to aggregate over all branches
+   */
+  public List<QueueStatsDTO> getStats(List<String> statuses, Long branchId) {
+    long now = System.currentTimeMillis();
+    if (redisEnabled) {
+      try {
+        ensureSeeded();
+        return statuses.stream().map(status -> readStats(status, branchId, now)).toList();
+      } catch (DataAccessException e) {
+        log.warn("Queue counters unavailable, counting from the database: {}", e.getMessage());
+      }
+    }
+    return computeStats(statuses, branchId, now);
+  }
+
+  @Scheduled(
+      fixedDelayString = "${app.queue-stats.reconcile-interval-ms:300000}",
+      initialDelayString = "${app.queue-stats.reconcile-initial-delay-ms:30000}")
+  public void reconcileScheduled() {
+    if (!redisEnabled) {
+      return;
+    }
+    try {
+      reconcile();
+    } catch (DataAccessException e) {
+      log.warn("Queue counter reconciliation failed: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Compare the Redis sets with the loans actually waiting in each queue and fix entries that were
+   * also wrong in the previous pass.
+   *
+   * @return number of entries added or removed
+   */
+  public synchronized int reconcile() {
+    Map<String, Map<String, Double>> expected = expectedEntries();
+
+    Set<String> keys = new HashSet<>(expected.keySet());
+    Set<String> registered = redisTemplate.opsForSet().members(KEY_REGISTRY);
+    if (registered != null) {
+      keys.addAll(registered);
+    }
+
+    Set<String> drift = new HashSet<>();
+    int corrected = 0;
+    for (String key : keys) {
+      Map<String, Double> wanted = expected.getOrDefault(key, Map.of());
+      Set<String> actual = new HashSet<>();
+      Set<TypedTuple<String>> entries = redisTemplate.opsForZSet().rangeWithScores(key, 0, -1);
+      if (entries != null) {
+        entries.forEach(entry -> actual.add(entry.getValue()));
+      }
+
+      List<String> toRemove = new ArrayList<>();
+      for (String member : actual) {
+        if (!wanted.containsKey(member) && flag(drift, "-" + key + "|" + member)) {
+          toRemove.add(member);
+        }
+      }
+      Map<String, Double> toAdd = new HashMap<>();
+      wanted.forEach(
+          (member, score) -> {
+            if (!actual.contains(member) && flag(drift, "+" + key + "|" + member)) {
+              toAdd.put(member, score);
+            }
+          });
+      if (!toRemove.isEmpty() || !toAdd.isEmpty()) {
+        applyCorrection(key, toRemove, toAdd);
+        corrected += toRemove.size() + toAdd.size();
+      }
+      if (wanted.isEmpty() && actual.size() == toRemove.size()) {
+        redisTemplate.opsForSet().remove(KEY_REGISTRY, key);
+      }
+    }
+    suspectedDrift = drift;
+
+    if (corrected > 0) {
+      log.info("Queue counter reconciliation corrected {} entries", corrected);
+    }
+    return corrected;
+  }
+
+  /**
+   * Add every loan waiting in a queue to its set unless the sets are already seeded. Members are
+   * only added, so transitions recorded meanwhile are kept; a loan that moved between the database
+   * read and the write is left to the reconciler.
+   */
+  synchronized void ensureSeeded() {
+    if (Boolean.TRUE.equals(redisTemplate.hasKey(SEEDED_KEY))) {
+      return;
+    }
+    Map<String, Map<String, Double>> entries = expectedEntries();
+    entries.forEach((key, members) -> applyCorrection(key, List.of(), members));
+    redisTemplate.opsForValue().set(SEEDED_KEY, String.valueOf(System.currentTimeMillis()));
+    log.info(
+        "Seeded queue counters with {} waiting loans",
+        entries.values().stream().mapToInt(Map::size).sum());
+  }
+
+  /** Record drift; true if it was already seen by the previous pass. */
+  private boolean flag(Set<String> drift, String entry) {
+    drift.add(entry);
+    return suspectedDrift.contains(entry);
+  }
+
+  /** Members and scores every queue set should hold, from the database. */
+  private Map<String, Map<String, Double>> expectedEntries() {
+    Map<String, Map<String, Double>> expected = new HashMap<>();
+    for (Object[] row : loanApplicationRepository.findQueueEntries(QUEUE_STATUSES)) {
+      LocalDateTime enteredAt = row[4] != null ? (LocalDateTime) row[4] : (LocalDateTime) row[3];
+      expected
+          .computeIfAbsent(key((String) row[2], (Long) row[1]), k -> new HashMap<>())
+          .put(String.valueOf(row[0]), (double) toEpochMillis(enteredAt));
+    }
+    return expected;
+  }
+
+  private QueueStatsDTO readStats(String status, Long branchId, long now) {
+    Collection<String> keys;
+    if (branchId != null) {
+      keys = List.of(key(status, branchId));
+    } else {
+      Set<String> registered = redisTemplate.opsForSet().members(KEY_REGISTRY);
+      String prefix = KEY_PREFIX + status + ":";
+      keys =
+          registered == null
+              ? List.of()
+              : registered.stream().filter(k -> k.startsWith(prefix)).toList();
+    }
+
+    QueueStatsDTO stats = QueueStatsDTO.builder().status(status).branchId(branchId).build();
+    Long oldest = null;
+    for (String key : keys) {
+      stats.setDepth(stats.getDepth() + zero(redisTemplate.opsForZSet().zCard(key)));
+      stats.setAgedUnder1h(
+          stats.getAgedUnder1h() + countRange(key, now - HOUR_MILLIS, Double.POSITIVE_INFINITY));
+      stats.setAged1hTo24h(
+          stats.getAged1hTo24h() + countRange(key, now - DAY_MILLIS, now - HOUR_MILLIS - 1));
+      stats.setAged1dTo3d(
+          stats.getAged1dTo3d() + countRange(key, now - THREE_DAYS_MILLIS, now - DAY_MILLIS - 1));
+      stats.setAgedOver3d(
+          stats.getAgedOver3d()
+              + countRange(key, Double.NEGATIVE_INFINITY, now - THREE_DAYS_MILLIS - 1));
+      Set<TypedTuple<String>> first = redisTemplate.opsForZSet().rangeWithScores(key, 0, 0);
+      if (first != null && !first.isEmpty()) {
+        long enteredAt = first.iterator().next().getScore().longValue();
+        oldest = oldest == null ? enteredAt : Math.min(oldest, enteredAt);
+      }
+    }
+    return withOldest(stats, oldest, now);
+  }
+
+  /** Fallback without Redis: the same figures from a single database read. */
+  private List<QueueStatsDTO> computeStats(List<String> statuses, Long branchId, long now) {
+    Map<String, QueueStatsDTO> byStatus = new HashMap<>();
+    Map<String, Long> oldestByStatus = new HashMap<>();
+    for (Object[] row : loanApplicationRepository.findQueueEntries(statuses)) {
+      if (branchId != null && !branchId.equals(row[1])) {
+        continue;
+      }
+      String status = (String) row[2];
+      LocalDateTime enteredAt = row[4] != null ? (LocalDateTime) row[4] : (LocalDateTime) row[3];
+      long entered = toEpochMillis(enteredAt);
+      long age = now - entered;
+      QueueStatsDTO stats =
+          byStatus.computeIfAbsent(
+              status, s -> QueueStatsDTO.builder().status(s).branchId(branchId).build());
+      stats.setDepth(stats.getDepth() + 1);
+      if (age <= HOUR_MILLIS) {
+        stats.setAgedUnder1h(stats.getAgedUnder1h() + 1);
+      } else if (age <= DAY_MILLIS) {
+        stats.setAged1hTo24h(stats.getAged1hTo24h() + 1);
+      } else if (age <= THREE_DAYS_MILLIS) {
+        stats.setAged1dTo3d(stats.getAged1dTo3d() + 1);
+      } else {
+        stats.setAgedOver3d(stats.getAgedOver3d() + 1);
+      }
+      oldestByStatus.merge(status, entered, Math::min);
+    }
+    return statuses.stream()
+        .map(
+            status ->
+                withOldest(
+                    byStatus.getOrDefault(
+                        status, QueueStatsDTO.builder().status(status).branchId(branchId).build()),
+                    oldestByStatus.get(status),
+                    now))
+        .toList();
+  }
+
+  private QueueStatsDTO withOldest(QueueStatsDTO stats, Long oldestMillis, long now) {
+    if (oldestMillis != null) {
+      stats.setOldestEnteredAt(
+          LocalDateTime.ofInstant(Instant.ofEpochMilli(oldestMillis), ZoneId.systemDefault()));
+      stats.setOldestAgeSeconds(Math.max(0, (now - oldestMillis) / 1000));
+    }
+    return stats;
+  }
+
+  private long countRange(String key, double min, double max) {
+    return zero(redisTemplate.opsForZSet().count(key, min, max));
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private void move(String member, String fromKey, String toKey, long enteredAt) {
+    redisTemplate.execute(
+        new SessionCallback<List<Object>>() {
+          @Override
+          public List<Object> execute(RedisOperations operations) {
+            operations.multi();
+            if (fromKey != null) {
+              operations.opsForZSet().remove(fromKey, member);
+            }
+            if (toKey != null) {
+              operations.opsForZSet().add(toKey, member, enteredAt);
+              operations.opsForSet().add(KEY_REGISTRY, toKey);
+            }
+            return operations.exec();
+          }
+        });
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private void applyCorrection(String key, List<String> toRemove, Map<String, Double> toAdd) {
+    redisTemplate.execute(
+        new SessionCallback<List<Object>>() {
+          @Override
+          public List<Object> execute(RedisOperations operations) {
+            operations.multi();
+            if (!toRemove.isEmpty()) {
+              operations.opsForZSet().remove(key, toRemove.toArray());
+            }
+            toAdd.forEach((member, score) -> operations.opsForZSet().add(key, member, score));
+            if (!toAdd.isEmpty()) {
+              operations.opsForSet().add(KEY_REGISTRY, key);
+            }
+            return operations.exec();
+          }
+        });
+  }
+
+  static String key(String status, Long branchId) {
+    return KEY_PREFIX + status + ":" + (branchId != null ? branchId : NO_BRANCH);
+  }
+
+  private static long toEpochMillis(LocalDateTime time) {
+    return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+
+  private static long zero(Long value) {
+    return value != null ? value : 0L;
+  }
+}
@@ -0,0 +1,228 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.QueueDeltaDTO;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Server-sent event streams of queue changes for the staff clients connected to this node.
+ *
+ * <p>Every node receives every {@link QueueDeltaDTO} (see {@link QueueEventBroadcaster}) and keeps
+ * the most recent ones in a replay buffer, so a client reconnecting with {@code Last-Event-ID} can
+ * be resumed by any node. If the client has missed more than the buffer holds it gets a single
+ * {@code resync} event and reloads its queue page once.
+ *
+ * <p>Each stream has a bounded buffer drained by its own virtual thread, so a slow or half-dead
+ * client only ever blocks its own writer; when its buffer overflows the backlog collapses into one
+ * {@code resync} event.
+ */
+@Service
+@Slf4j
+public class QueueStreamService {
+
+  static final String DELTA_EVENT = "queue-delta";
+  static final String RESYNC_EVENT = "resync";
+
+  private final long timeoutMillis;
+  private final int replaySize;
+  private final int bufferSize;
+
+  private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+  // Guarded by itself; also serializes replay against live delivery
+  private final Deque<QueueDeltaDTO> replay = new ArrayDeque<>();
+  private final Set<Long> replayIds = new HashSet<>();
+  private long lastEventId;
+
+  public QueueStreamService(
+      @Value("${app.queue-stream.timeout-ms:1800000}") long timeoutMillis,
+      @Value("${app.queue-stream.replay-size:1000}") int replaySize,
+      @Value("${app.queue-stream.buffer-size:256}") int bufferSize) {
+    this.timeoutMillis = timeoutMillis;
+    this.replaySize = replaySize;
+    this.bufferSize = Math.max(2, bufferSize);
+  }
+
+  /**
+   * Open a stream of changes to the given queues.
+   *
+   * @param statuses loan statuses that make up the queue
+   * @param branchId only loans of this branch, or {@code null} for all branches
+   * @param lastEventId last event the client has seen, {@code null} on first connect
+   */
+  public SseEmitter subscribe(Collection<String> statuses, Long branchId, Long lastEventId) {
+    SseEmitter emitter = createEmitter();
+    Subscription subscription = new Subscription(emitter, Set.copyOf(statuses), branchId);
+    emitter.onCompletion(() -> close(subscription));
+    emitter.onTimeout(() -> close(subscription));
+    emitter.onError(e -> close(subscription));
+
+    synchronized (replay) {
+      if (lastEventId != null) {
+        resume(subscription, lastEventId);
+      }
+      subscriptions.add(subscription);
+    }
+    subscription.start();
+    return emitter;
+  }
+
+  /** Hand a delta to every matching local subscriber; returns immediately. */
+  public void deliver(QueueDeltaDTO delta) {
+    synchronized (replay) {
+      // Ids come from a shared sequence, but nodes may publish them slightly out of order, so
+      // duplicates are detected by id rather than by comparing with the highest id seen
+      if (!replayIds.add(delta.getEventId())) {
+        return;
+      }
+      lastEventId = Math.max(lastEventId, delta.getEventId());
+      replay.addLast(delta);
+      if (replay.size() > replaySize) {
+        replayIds.remove(replay.removeFirst().getEventId());
+      }
+      for (Subscription subscription : subscriptions) {
+        if (subscription.matches(delta)) {
+          // A builder appends to its frame on every build, so each subscriber renders its own
+          subscription.offer(() -> toEvent(delta), lastEventId);
+        }
+      }
+    }
+  }
+
+  /** Comment frame that keeps idle connections open through proxies and detects dead clients. */
+  @Scheduled(fixedDelayString = "${app.queue-stream.heartbeat-ms:15000}")
+  public void sendHeartbeats() {
+    for (Subscription subscription : subscriptions) {
+      // Only into free space; a stream with a backlog is not idle
+      subscription.buffer.offer(() -> SseEmitter.event().comment("heartbeat"));
+    }
+  }
+
+  public int getSubscriberCount() {
+    return subscriptions.size();
+  }
+
+  @PreDestroy
+  void shutdown() {
+    for (Subscription subscription : Set.copyOf(subscriptions)) {
+      close(subscription);
+      subscription.emitter.complete();
+    }
+  }
+
+  /** Hook for tests; the emitter of every new stream. */
+  SseEmitter createEmitter() {
+    return new SseEmitter(timeoutMillis);
+  }
+
+  private void resume(Subscription subscription, long afterEventId) {
+    boolean missedEvents =
+        replay.isEmpty()
+            ? afterEventId != lastEventId
+            : replay.peekFirst().getEventId() > afterEventId + 1;
+    if (missedEvents) {
+      long resumeAfter = lastEventId;
+      subscription.offer(() -> resyncEvent(resumeAfter), lastEventId);
+      return;
+    }
+    for (QueueDeltaDTO delta : replay) {
+      if (delta.getEventId() > afterEventId && subscription.matches(delta)) {
+        subscription.offer(() -> toEvent(delta), lastEventId);
+      }
+    }
+  }
+
+  private void close(Subscription subscription) {
+    if (subscription.closed.compareAndSet(false, true)) {
+      subscriptions.remove(subscription);
+      subscription.stop();
+    }
+  }
+
+  private static SseEmitter.SseEventBuilder toEvent(QueueDeltaDTO delta) {
+    return SseEmitter.event().name(DELTA_EVENT).id(String.valueOf(delta.getEventId())).data(delta);
+  }
+
+  private static SseEmitter.SseEventBuilder resyncEvent(long lastEventId) {
+    return SseEmitter.event().name(RESYNC_EVENT).id(String.valueOf(lastEventId)).data("");
+  }
+
+  private final class Subscription {
+
+    private final SseEmitter emitter;
+    private final Set<String> statuses;
+    private final Long branchId;
+    private final BlockingQueue<Supplier<SseEmitter.SseEventBuilder>> buffer;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private Thread writer;
+
+    Subscription(SseEmitter emitter, Set<String> statuses, Long branchId) {
+      this.emitter = emitter;
+      this.statuses = statuses;
+      this.branchId = branchId;
+      this.buffer = new ArrayBlockingQueue<>(bufferSize);
+    }
+
+    boolean matches(QueueDeltaDTO delta) {
+      boolean inQueue =
+          (delta.getFromStatus() != null && statuses.contains(delta.getFromStatus()))
+              || statuses.contains(delta.getToStatus());
+      return inQueue && (branchId == null || branchId.equals(delta.getBranchId()));
+    }
+
+    /**
+     * Queue an event without waiting; on overflow the backlog collapses into one resync that
+     * resumes the client after {@code latestEventId}.
+     */
+    synchronized void offer(Supplier<SseEmitter.SseEventBuilder> event, long latestEventId) {
+      if (!buffer.offer(event)) {
+        buffer.clear();
+        buffer.offer(() -> resyncEvent(latestEventId));
+        log.debug("Queue stream subscriber fell behind, asking it to resync");
+      }
+    }
+
+    synchronized void start() {
+      writer = Thread.ofVirtual().name("queue-stream").start(this::drain);
+    }
+
+    synchronized void stop() {
+      if (writer != null) {
+        writer.interrupt();
+      }
+    }
+
+    private void drain() {
+      try {
+        while (!closed.get()) {
+          emitter.send(buffer.take().get());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (IOException | IllegalStateException e) {
+        // Client went away; the container completes the emitter
+        log.debug("Dropping queue stream subscriber: {}", e.getMessage());
+        close(this);
+      } catch (RuntimeException e) {
+        // Never leave a registered subscriber without a writer
+        log.warn("Queue stream subscriber failed: {}", e.getMessage());
+        close(this);
+        emitter.completeWithError(e);
+      }
+    }
+  }
+}
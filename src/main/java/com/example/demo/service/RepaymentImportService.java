@@ -0,0 +1,500 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.RepaymentImportResultDTO;
+import com.example.demo.enums.LoanStatus;
+import com.example.demo.event.LoansPaidEvent;
+import com.example.demo.event.UserEligibilityChangedEvent;
+import com.example.demo.exception.BusinessException;
+import com.example.demo.repository.LoanApplicationRepository;
+import com.example.demo.repository.UserProductRepository;
+import com.example.demo.service.DailyLoanStatsService.Change;
+import com.example.demo.service.DailyLoanStatsService.LoanFacts;
+import com.example.demo.service.repayment.RepaymentLine;
+import com.example.demo.service.repayment.RepaymentStatementParser;
+import com.example.demo.service.repayment.StatementFormat;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Bulk Repayment Import Service.
+ *
+ * <p>Settles loans from a bank statement file instead of calling {@link
+ * LoanEligibilityService#processLoanPayment} once per repayment.
+ *
+ * <ul>
+ *   <li>The file is streamed through {@link RepaymentStatementParser}; lines are grouped into
+ *       fixed-size batches handed to worker threads through a bounded queue, so memory stays
+ *       constant regardless of file size
+ *   <li>Each batch resolves its loans with one query, marks them PAID and credits the users' active
+ *       tier with JDBC batches, all in one transaction
+ *   <li>Tier evaluation then runs once per affected user of the batch, not once per line
+ *   <li>Lines that cannot be settled are appended to a CSV reconciliation report on disk
+ *   <li>The first worker that dies stops the others and the reader, so the import fails instead of
+ *       waiting on a queue nobody drains
+ * </ul>
+ */
+@Service
+@Slf4j
+public class RepaymentImportService {
+
+  private static final String MARK_PAID_SQL =
+      "UPDATE loan_applications SET is_paid = ?, paid_at = ?, current_status = 'PAID',"
+          + " updated_at = ? WHERE loan_application_id = ? AND current_status = 'DISBURSED'"
+          + " AND (is_paid = ? OR is_paid IS NULL)";
+  // Used amount is recomputed from the unpaid loans, as LoanEligibilityService#processLoanPayment
+  // does, so both payment paths leave the same limit
+  private static final String CREDIT_PAYMENT_SQL =
+      "UPDATE user_products SET total_paid_amount = COALESCE(total_paid_amount, 0) + ?,"
+          + " current_used_amount = (SELECT COALESCE(SUM(la.amount), 0) FROM loan_applications la"
+          + " WHERE la.user_id = user_products.user_id AND la.is_paid = ?"
+          + " AND la.current_status = 'DISBURSED') WHERE user_product_id = ?";
+  private static final String REPORT_HEADER = "line,reference,amount,reason,detail";
+  private static final double AMOUNT_TOLERANCE = 0.005;
+  private static final List<RepaymentLine> END_OF_INPUT = new ArrayList<>();
+  private static final long QUEUE_POLL_MILLIS = 200;
+
+  private final LoanApplicationRepository loanApplicationRepository;
+  private final UserProductRepository userProductRepository;
+  private final TierEvaluationService tierEvaluationService;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+  private final DailyLoanStatsService dailyLoanStatsService;
+  private final Path reportDirectory;
+  private final int batchSize;
+  private final int parallelism;
+
+  public RepaymentImportService(
+      LoanApplicationRepository loanApplicationRepository,
+      UserProductRepository userProductRepository,
+      TierEvaluationService tierEvaluationService,
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      ApplicationEventPublisher eventPublisher,
+      DailyLoanStatsService dailyLoanStatsService,
+      @Value("${app.repayment-import.report-dir:${java.io.tmpdir}/repayment-reports}")
+          String reportDirectory,
+      @Value("${app.repayment-import.batch-size:500}") int batchSize,
+      @Value("${app.repayment-import.parallelism:4}") int parallelism) {
+    this.loanApplicationRepository = loanApplicationRepository;
+    this.userProductRepository = userProductRepository;
+    this.tierEvaluationService = tierEvaluationService;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.eventPublisher = eventPublisher;
+    this.dailyLoanStatsService = dailyLoanStatsService;
+    this.reportDirectory = Paths.get(reportDirectory).toAbsolutePath().normalize();
+    this.batchSize = Math.max(1, batchSize);
+    this.parallelism = Math.max(1, parallelism);
+  }
+
+  /**
+   * Import a statement file and settle every matching DISBURSED loan.
+   *
+   * @param file statement on local disk
+   * @param format layout of the statement
+   * @param fileName original file name, for the summary only
+   * @return import summary; unmatched lines are available via {@link #getReport(String)}
+   */
+  public RepaymentImportResultDTO importStatement(
+      Path file, StatementFormat format, String fileName) {
+    String importId = UUID.randomUUID().toString();
+    LocalDateTime startedAt = LocalDateTime.now();
+    ImportCounters counters = new ImportCounters();
+    BlockingQueue<List<RepaymentLine>> queue = new ArrayBlockingQueue<>(parallelism * 2);
+    ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+    AtomicBoolean failed = new AtomicBoolean();
+
+    try (ReconciliationReport report = openReport(importId)) {
+      List<Future<?>> workers = new ArrayList<>();
+      for (int i = 0; i < parallelism; i++) {
+        workers.add(pool.submit(() -> drain(queue, report, counters, failed)));
+      }
+
+      List<List<RepaymentLine>> pending = new ArrayList<>(1);
+      pending.add(new ArrayList<>(batchSize));
+      long linesRead =
+          new RepaymentStatementParser(format)
+              .parse(
+                  file,
+                  line -> {
+                    List<RepaymentLine> batch = pending.get(0);
+                    batch.add(line);
+                    if (batch.size() == batchSize) {
+                      enqueue(queue, batch, workers);
+                      pending.set(0, new ArrayList<>(batchSize));
+                    }
+                  });
+      if (!pending.get(0).isEmpty()) {
+        enqueue(queue, pending.get(0), workers);
+      }
+      for (int i = 0; i < parallelism; i++) {
+        enqueue(queue, END_OF_INPUT, workers);
+      }
+      for (Future<?> worker : workers) {
+        worker.get();
+      }
+
+      log.info(
+          "Repayment import {} finished: {} lines, {} settled, {} unmatched",
+          importId,
+          linesRead,
+          counters.matched.get(),
+          counters.unmatched.get());
+      return RepaymentImportResultDTO.builder()
+          .importId(importId)
+          .fileName(fileName)
+          .format(format.name())
+          .linesRead(linesRead)
+          .matchedCount(counters.matched.get())
+          .unmatchedCount(counters.unmatched.get())
+          .matchedAmount(counters.matchedAmount.sum())
+          .tierUpgrades(counters.tierUpgrades.get())
+          .startedAt(startedAt)
+          .finishedAt(LocalDateTime.now())
+          .build();
+    } catch (IOException | UncheckedIOException e) {
+      log.error("Repayment import {} failed", importId, e);
+      throw new BusinessException(
+          "Failed to read statement file: " + e.getMessage(),
+          "REPAYMENT_IMPORT_FAILED",
+          HttpStatus.BAD_REQUEST);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BusinessException("Repayment import interrupted", "REPAYMENT_IMPORT_FAILED");
+    } catch (ExecutionException | CompletionException e) {
+      log.error("Repayment import {} failed", importId, e.getCause());
+      throw new BusinessException(
+          "Repayment import failed: " + e.getCause().getMessage(), "REPAYMENT_IMPORT_FAILED");
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Location of the reconciliation report of a finished import.
+   *
+   * @throws BusinessException if the id is not a known import
+   */
+  public Path getReport(String importId) {
+    Path report;
+    try {
+      report = reportDirectory.resolve(UUID.fromString(importId) + ".csv");
+    } catch (IllegalArgumentException e) {
+      report = null;
+    }
+    if (report == null || !Files.exists(report)) {
+      throw new BusinessException(
+          "Reconciliation report not found", "REPORT_NOT_FOUND", HttpStatus.NOT_FOUND);
+    }
+    return report;
+  }
+
+  /** Process batches until the end of input, or until any worker of the import has failed. */
+  private void drain(
+      BlockingQueue<List<RepaymentLine>> queue,
+      ReconciliationReport report,
+      ImportCounters counters,
+      AtomicBoolean failed) {
+    try {
+      while (!failed.get()) {
+        List<RepaymentLine> batch = queue.poll(QUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (batch == END_OF_INPUT) {
+          return;
+        }
+        if (batch != null) {
+          processBatch(batch, report, counters);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException | Error e) {
+      failed.set(true);
+      throw e;
+    }
+  }
+
+  private void processBatch(
+      List<RepaymentLine> batch, ReconciliationReport report, ImportCounters counters) {
+    List<RepaymentLine> wellFormed = new ArrayList<>(batch.size());
+    for (RepaymentLine line : batch) {
+      if (line.isMalformed()) {
+        report.write(line, "MALFORMED", line.error());
+        counters.unmatched.incrementAndGet();
+      } else {
+        wellFormed.add(line);
+      }
+    }
+    if (wellFormed.isEmpty()) {
+      return;
+    }
+
+    BatchOutcome outcome;
+    try {
+      outcome = transactionTemplate.execute(tx -> settle(wellFormed));
+    } catch (RuntimeException e) {
+      log.error("Repayment batch starting at line {} failed", wellFormed.get(0).lineNumber(), e);
+      for (RepaymentLine line : wellFormed) {
+        report.write(line, "ERROR", e.getMessage());
+      }
+      counters.unmatched.addAndGet(wellFormed.size());
+      return;
+    }
+
+    for (Rejection rejection : outcome.rejections()) {
+      report.write(rejection.line(), rejection.reason(), rejection.detail());
+    }
+    counters.unmatched.addAndGet(outcome.rejections().size());
+    counters.matched.addAndGet(outcome.settledCount());
+    counters.matchedAmount.add(outcome.settledAmount());
+    try {
+      counters.tierUpgrades.addAndGet(tierEvaluationService.evaluateUsers(outcome.userIds()));
+    } catch (RuntimeException e) {
+      // Payments are committed; the bulk tier evaluation job picks these users up later
+      log.error("Tier evaluation after repayment batch failed", e);
+    }
+  }
+
+  private BatchOutcome settle(List<RepaymentLine> lines) {
+    Set<Long> ids = new HashSet<>();
+    for (RepaymentLine line : lines) {
+      ids.add(line.loanApplicationId());
+    }
+    Map<Long, Object[]> loans = new HashMap<>();
+    for (Object[] row : loanApplicationRepository.findPaymentCandidates(ids)) {
+      loans.put((Long) row[0], row);
+    }
+
+    List<Rejection> rejections = new ArrayList<>();
+    List<Settlement> settlements = new ArrayList<>();
+    Set<Long> seen = new HashSet<>();
+    for (RepaymentLine line : lines) {
+      Object[] loan = loans.get(line.loanApplicationId());
+      if (loan == null) {
+        rejections.add(new Rejection(line, "NOT_FOUND", "No loan application with this reference"));
+        continue;
+      }
+      if (!seen.add(line.loanApplicationId())) {
+        rejections.add(new Rejection(line, "DUPLICATE", "Loan already settled in this batch"));
+        continue;
+      }
+      if (!LoanStatus.DISBURSED.name().equals(loan[2]) || Boolean.TRUE.equals(loan[3])) {
+        rejections.add(new Rejection(line, "NOT_PAYABLE", "Loan status is " + loan[2]));
+        continue;
+      }
+      double principal = ((Number) loan[4]).doubleValue();
+      double due = loan[5] != null ? ((Number) loan[5]).doubleValue() : principal;
+      if (line.amount() + AMOUNT_TOLERANCE < due) {
+        rejections.add(new Rejection(line, "AMOUNT_MISMATCH", "Amount due is " + due));
+        continue;
+      }
+      settlements.add(new Settlement(line, (Long) loan[1], principal, facts(loan)));
+    }
+    if (settlements.isEmpty()) {
+      return new BatchOutcome(rejections, Set.of(), 0, 0);
+    }
+
+    Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+    int[][] counts =
+        jdbcTemplate.batchUpdate(
+            MARK_PAID_SQL,
+            settlements,
+            settlements.size(),
+            (ps, settlement) -> {
+              ps.setBoolean(1, true);
+              ps.setTimestamp(2, Timestamp.valueOf(settlement.line().paidDate().atStartOfDay()));
+              ps.setTimestamp(3, now);
+              ps.setLong(4, settlement.line().loanApplicationId());
+              ps.setBoolean(5, false);
+            });
+
+    // Credit each user's highest active tier once with the sum of the principals settled
+    Map<Long, Double> creditByUser = new HashMap<>();
+    List<Change> changes = new ArrayList<>();
+    List<Long> paidLoanIds = new ArrayList<>();
+    long settledCount = 0;
+    double settledAmount = 0;
+    int index = 0;
+    for (int[] chunk : counts) {
+      for (int count : chunk) {
+        Settlement settlement = settlements.get(index++);
+        if (count == 0) {
+          rejections.add(
+              new Rejection(settlement.line(), "NOT_PAYABLE", "Loan was settled concurrently"));
+          continue;
+        }
+        creditByUser.merge(settlement.userId(), settlement.principal(), Double::sum);
+        paidLoanIds.add(settlement.line().loanApplicationId());
+        LoanFacts before = settlement.loan();
+        changes.add(
+            new Change(
+                before,
+                new LoanFacts(
+                    before.createdOn(),
+                    before.branchId(),
+                    before.productId(),
+                    LoanStatus.PAID.name(),
+                    before.amount(),
+                    before.totalToPay(),
+                    before.disbursedOn())));
+        settledCount++;
+        settledAmount += settlement.line().amount();
+      }
+    }
+    if (creditByUser.isEmpty()) {
+      return new BatchOutcome(rejections, Set.of(), 0, 0);
+    }
+    dailyLoanStatsService.recordChanges(changes);
+    eventPublisher.publishEvent(new LoansPaidEvent(paidLoanIds));
+
+    List<Object[]> credits = new ArrayList<>();
+    for (Object[] row : userProductRepository.findTopActiveTierByUserIds(creditByUser.keySet())) {
+      credits.add(new Object[] {row[0], creditByUser.get((Long) row[1])});
+    }
+    jdbcTemplate.batchUpdate(
+        CREDIT_PAYMENT_SQL,
+        credits,
+        credits.size(),
+        (ps, credit) -> {
+          ps.setDouble(1, (Double) credit[1]);
+          ps.setBoolean(2, false);
+          ps.setLong(3, (Long) credit[0]);
+        });
+
+    for (Long userId : creditByUser.keySet()) {
+      eventPublisher.publishEvent(new UserEligibilityChangedEvent(userId));
+    }
+    return new BatchOutcome(rejections, creditByUser.keySet(), settledCount, settledAmount);
+  }
+
+  /**
+   * Queue a batch, waiting for space only while every worker is alive.
+   *
+   * @throws CompletionException if a worker has stopped before the end of input
+   */
+  private static void enqueue(
+      BlockingQueue<List<RepaymentLine>> queue,
+      List<RepaymentLine> batch,
+      List<Future<?>> workers) {
+    try {
+      while (!queue.offer(batch, QUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+        for (Future<?> worker : workers) {
+          if (worker.isDone()) {
+            worker.get();
+            throw new CompletionException(
+                new IllegalStateException("Repayment import worker stopped early"));
+          }
+        }
+      }
+    } catch (ExecutionException e) {
+      throw new CompletionException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while queueing repayment batch", e);
+    }
+  }
+
+  private ReconciliationReport openReport(String importId) throws IOException {
+    Files.createDirectories(reportDirectory);
+    return new ReconciliationReport(
+        Files.newBufferedWriter(reportDirectory.resolve(importId + ".csv")));
+  }
+
+  /** Append-only CSV of unsettled lines, shared by all workers of one import. */
+  private static final class ReconciliationReport implements AutoCloseable {
+    private final BufferedWriter writer;
+
+    ReconciliationReport(BufferedWriter writer) throws IOException {
+      this.writer = writer;
+      writer.write(REPORT_HEADER);
+      writer.newLine();
+    }
+
+    synchronized void write(RepaymentLine line, String reason, String detail) {
+      try {
+        writer.write(
+            line.lineNumber()
+                + ","
+                + escape(line.reference())
+                + ","
+                + line.amount()
+                + ","
+                + reason
+                + ","
+                + escape(detail));
+        writer.newLine();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private static String escape(String value) {
+      if (value == null) {
+        return "";
+      }
+      return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+      writer.close();
+    }
+  }
+
+  private static final class ImportCounters {
+    private final AtomicLong matched = new AtomicLong();
+    private final AtomicLong unmatched = new AtomicLong();
+    private final AtomicLong tierUpgrades = new AtomicLong();
+    private final DoubleAdder matchedAmount = new DoubleAdder();
+  }
+
+  /** Rollup view of a payment candidate row of {@code findPaymentCandidates}. */
+  private static LoanFacts facts(Object[] loan) {
+    return new LoanFacts(
+        ((LocalDateTime) loan[6]).toLocalDate(),
+        loan[7] != null ? (Long) loan[7] : DailyLoanStatsService.NO_BRANCH,
+        (Long) loan[8],
+        (String) loan[2],
+        ((Number) loan[4]).doubleValue(),
+        loan[5] != null ? ((Number) loan[5]).doubleValue() : 0.0,
+        loan[9] != null ? ((LocalDateTime) loan[9]).toLocalDate() : null);
+  }
+
+  private record Settlement(RepaymentLine line, Long userId, double principal, LoanFacts loan) {}
+
+  private record Rejection(RepaymentLine line, String reason, String detail) {}
+
+  private record BatchOutcome(
+      List<Rejection> rejections, Set<Long> userIds, long settledCount, double settledAmount) {}
+}
@@ -0,0 +1,258 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.dashboard.SlaStatsDTO;
+import com.example.demo.enums.SlaStage;
+import com.example.demo.event.LoanStageCompletedEvent;
+import com.example.demo.service.sla.LatencyHistogram;
+import jakarta.annotation.PreDestroy;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Workflow SLA percentiles from per-stage duration histograms.
+ *
+ * <ul>
+ *   <li>Each committed {@link LoanStageCompletedEvent} is recorded in O(1) into an in-memory {@link
+ *       LatencyHistogram} keyed by (stage, branch, month)
+ *   <li>Pending histograms are flushed periodically into {@code sla_histograms}, merged into the
+ *       stored row under an optimistic version check so several instances can flush the same key
+ *   <li>Reads merge the stored rows of the requested months and branches with what is still pending
+ *       on this instance; cost depends on months × branches, not on the number of loans
+ * </ul>
+ */
+@Service
+@Slf4j
+public class SlaHistogramService {
+
+  /** Percentiles reported when the caller asks for none. */
+  public static final List<Double> DEFAULT_PERCENTILES = List.of(50.0, 95.0, 99.0);
+
+  private static final long NO_BRANCH = 0L;
+  private static final int MAX_FLUSH_ATTEMPTS = 5;
+
+  private static final String SELECT_ROW_SQL =
+      "SELECT sla_histogram_id, buckets, version FROM sla_histograms"
+          + " WHERE stage = ? AND month_start = ? AND branch_id = ?";
+
+  private static final String INSERT_ROW_SQL =
+      "INSERT INTO sla_histograms (stage, month_start, branch_id, sample_count, buckets,"
+          + " version, updated_at) VALUES (?, ?, ?, ?, ?, 0, ?)";
+
+  private static final String UPDATE_ROW_SQL =
+      "UPDATE sla_histograms SET buckets = ?, sample_count = ?, version = version + 1,"
+          + " updated_at = ? WHERE sla_histogram_id = ? AND version = ?";
+
+  private static final String SELECT_RANGE_SQL =
+      "SELECT stage, buckets FROM sla_histograms WHERE month_start >= ? AND month_start <= ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  // Samples recorded on this instance and not yet flushed
+  private final Map<Key, LatencyHistogram> pending = new ConcurrentHashMap<>();
+
+  public SlaHistogramService(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onStageCompleted(LoanStageCompletedEvent event) {
+    record(event.stage(), event.branchId(), event.completedAt(), event.durationSeconds());
+  }
+
+  public void record(SlaStage stage, Long branchId, LocalDateTime completedAt, long seconds) {
+    Key key =
+        new Key(
+            stage, branchId != null ? branchId : NO_BRANCH, YearMonth.from(completedAt).atDay(1));
+    pending.compute(
+        key,
+        (k, histogram) -> {
+          LatencyHistogram target = histogram != null ? histogram : new LatencyHistogram();
+          target.record(seconds);
+          return target;
+        });
+  }
+
+  @Scheduled(fixedDelayString = "${app.sla.flush-interval-ms:60000}")
+  @PreDestroy
+  public void flushScheduled() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      log.warn("SLA histogram flush failed, samples kept for the next run: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Merge every pending histogram into its stored row.
+   *
+   * @return number of rows written
+   */
+  public int flush() {
+    int written = 0;
+    for (Key key : new ArrayList<>(pending.keySet())) {
+      LatencyHistogram delta = pending.remove(key);
+      if (delta == null) {
+        continue;
+      }
+      try {
+        if (!mergeIntoRow(key, delta)) {
+          throw new IllegalStateException("Too many concurrent updates of SLA histogram " + key);
+        }
+        written++;
+      } catch (RuntimeException e) {
+        // Put the samples back so they are not lost
+        pending.merge(
+            key,
+            delta,
+            (current, restored) -> {
+              current.merge(restored);
+              return current;
+            });
+        throw e;
+      }
+    }
+    return written;
+  }
+
+  /**
+   * Percentiles of each stage over the months {@code from} to {@code to}, both inclusive.
+   *
+   * @param stage one stage, or {@code null} for all
+   * @param branchId one branch, or {@code null} for all
+   */
+  public List<SlaStatsDTO> getStats(
+      SlaStage stage, Long branchId, YearMonth from, YearMonth to, List<Double> percentiles) {
+    Map<SlaStage, LatencyHistogram> merged = new LinkedHashMap<>();
+    for (SlaStage candidate : SlaStage.values()) {
+      if (stage == null || stage == candidate) {
+        merged.put(candidate, new LatencyHistogram());
+      }
+    }
+
+    String sql = SELECT_RANGE_SQL;
+    List<Object> args =
+        new ArrayList<>(List.of(Date.valueOf(from.atDay(1)), Date.valueOf(to.atDay(1))));
+    if (stage != null) {
+      sql += " AND stage = ?";
+      args.add(stage.name());
+    }
+    if (branchId != null) {
+      sql += " AND branch_id = ?";
+      args.add(branchId);
+    }
+    jdbcTemplate.query(
+        sql,
+        rs -> {
+          LatencyHistogram target = merged.get(SlaStage.valueOf(rs.getString(1)));
+          if (target != null) {
+            target.merge(LatencyHistogram.decode(rs.getString(2)));
+          }
+        },
+        args.toArray());
+
+    LocalDate firstMonth = from.atDay(1);
+    LocalDate lastMonth = to.atDay(1);
+    for (Key key : pending.keySet()) {
+      LatencyHistogram target = merged.get(key.stage());
+      if (target == null
+          || (branchId != null && key.branchId() != branchId)
+          || key.monthStart().isBefore(firstMonth)
+          || key.monthStart().isAfter(lastMonth)) {
+        continue;
+      }
+      pending.computeIfPresent(
+          key,
+          (k, histogram) -> {
+            target.merge(histogram);
+            return histogram;
+          });
+    }
+
+    List<Double> requested =
+        percentiles == null || percentiles.isEmpty() ? DEFAULT_PERCENTILES : percentiles;
+    List<SlaStatsDTO> stats = new ArrayList<>();
+    merged.forEach(
+        (candidate, histogram) -> {
+          Map<String, Long> values = new LinkedHashMap<>();
+          for (Double percentile : requested) {
+            values.put(label(percentile), histogram.valueAtPercentile(percentile));
+          }
+          stats.add(
+              SlaStatsDTO.builder()
+                  .stage(candidate.name())
+                  .branchId(branchId)
+                  .fromMonth(from.toString())
+                  .toMonth(to.toString())
+                  .sampleCount(histogram.getTotalCount())
+                  .meanSeconds(histogram.getMean())
+                  .maxSeconds(histogram.getMax())
+                  .percentiles(values)
+                  .build());
+        });
+    return stats;
+  }
+
+  /** Read-merge-write of one row; false if other writers kept winning the version check. */
+  private boolean mergeIntoRow(Key key, LatencyHistogram delta) {
+    Date month = Date.valueOf(key.monthStart());
+    for (int attempt = 0; attempt < MAX_FLUSH_ATTEMPTS; attempt++) {
+      Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+      List<StoredRow> rows =
+          jdbcTemplate.query(
+              SELECT_ROW_SQL,
+              (rs, rowNum) -> new StoredRow(rs.getLong(1), rs.getString(2), rs.getLong(3)),
+              key.stage().name(),
+              month,
+              key.branchId());
+      if (rows.isEmpty()) {
+        try {
+          jdbcTemplate.update(
+              INSERT_ROW_SQL,
+              key.stage().name(),
+              month,
+              key.branchId(),
+              delta.getTotalCount(),
+              delta.encode(),
+              now);
+          return true;
+        } catch (DuplicateKeyException e) {
+          continue;
+        }
+      }
+      StoredRow row = rows.get(0);
+      LatencyHistogram merged = LatencyHistogram.decode(row.buckets());
+      merged.merge(delta);
+      if (jdbcTemplate.update(
+              UPDATE_ROW_SQL, merged.encode(), merged.getTotalCount(), now, row.id(), row.version())
+          == 1) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String label(double percentile) {
+    return percentile == Math.rint(percentile)
+        ? "p" + (long) percentile
+        : "p" + String.valueOf(percentile).replace('.', '_');
+  }
+
+  private record Key(SlaStage stage, long branchId, LocalDate monthStart) {}
+
+  private record StoredRow(long id, String buckets, long version) {}
+}
@@ -0,0 +1,355 @@
+package com.example.demo.service;
+
+import com.example.demo.base.BackgroundJob;
+import com.example.demo.dto.BatchJobStatusDTO;
+import com.example.demo.entity.JobCheckpoint;
+import com.example.demo.entity.Product;
+import com.example.demo.event.UserEligibilityChangedEvent;
+import com.example.demo.repository.JobCheckpointRepository;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.UserProductRepository;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Bulk Tier Evaluation Service.
+ *
+ * <p>Re-evaluates every active {@code UserProduct} against the current tier table in one set-based
+ * pass, instead of relying on {@link LoanEligibilityService#checkAndUpgradeTier} being called per
+ * user after a payment. Needed whenever {@code Product.upgradeThreshold} changes or a new tier is
+ * added.
+ *
+ * <ul>
+ *   <li>The id space of active rows is split into partitions processed in parallel
+ *   <li>Each partition is read in keyset-paged chunks; upgrades are computed in memory
+ *   <li>Writes use JDBC batches (status change, reactivation, insert) per chunk
+ *   <li>Each chunk commits together with its {@link JobCheckpoint}, so a run is resumable
+ * </ul>
+ */
+@Service
+@Slf4j
+public class TierEvaluationService {
+
+  public static final String JOB_NAME = "TIER_EVALUATION";
+
+  private static final String MARK_UPGRADED_SQL =
+      "UPDATE user_products SET status = 'UPGRADED' WHERE user_product_id = ?";
+  private static final String REACTIVATE_SQL =
+      "UPDATE user_products SET status = 'ACTIVE', current_used_amount = ?, total_paid_amount = ?"
+          + " WHERE user_id = ? AND product_id = ?";
+  private static final String INSERT_SQL =
+      "INSERT INTO user_products"
+          + " (user_id, product_id, status, current_used_amount, total_paid_amount, created_at)"
+          + " VALUES (?, ?, 'ACTIVE', ?, ?, ?)";
+
+  private final UserProductRepository userProductRepository;
+  private final ProductRepository productRepository;
+  private final JobCheckpointRepository jobCheckpointRepository;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+  private final int chunkSize;
+  private final int parallelism;
+
+  private final BackgroundJob job =
+      new BackgroundJob(JOB_NAME, "Tier evaluation", "tier-evaluation");
+
+  public TierEvaluationService(
+      UserProductRepository userProductRepository,
+      ProductRepository productRepository,
+      JobCheckpointRepository jobCheckpointRepository,
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      ApplicationEventPublisher eventPublisher,
+      @Value("${app.tier-evaluation.chunk-size:1000}") int chunkSize,
+      @Value("${app.tier-evaluation.parallelism:4}") int parallelism) {
+    this.userProductRepository = userProductRepository;
+    this.productRepository = productRepository;
+    this.jobCheckpointRepository = jobCheckpointRepository;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.eventPublisher = eventPublisher;
+    this.chunkSize = chunkSize;
+    this.parallelism = Math.max(1, parallelism);
+  }
+
+  /**
+   * Start a run in the background and return immediately.
+   *
+   * @param resume continue from persisted checkpoints instead of starting over
+   * @return the status at start time
+   */
+  public BatchJobStatusDTO startAsync(boolean resume) {
+    return job.start(() -> execute(resume));
+  }
+
+  /**
+   * Run the evaluation on the calling thread.
+   *
+   * @param resume continue from persisted checkpoints instead of starting over
+   * @return the final status
+   */
+  public BatchJobStatusDTO run(boolean resume) {
+    return job.run(() -> execute(resume));
+  }
+
+  /**
+   * Evaluate only the given users, in one read and one set of batched writes. Used by bulk writers
+   * (e.g. repayment import) that touch many users at once. Serialised so that two callers never
+   * upgrade the same user from a stale read.
+   *
+   * @return number of users upgraded
+   */
+  public synchronized int evaluateUsers(Collection<Long> userIds) {
+    if (userIds.isEmpty()) {
+      return 0;
+    }
+    NavigableMap<Integer, Product> tiers = loadTierTable();
+    return transactionTemplate.execute(
+        tx -> {
+          List<TierUpgrade> upgrades =
+              collectUpgrades(userProductRepository.findTopActiveTierByUserIds(userIds), tiers);
+          if (!upgrades.isEmpty()) {
+            applyUpgrades(upgrades);
+          }
+          return upgrades.size();
+        });
+  }
+
+  public BatchJobStatusDTO getStatus() {
+    return job.getStatus();
+  }
+
+  private void execute(boolean resume) throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+    try {
+      NavigableMap<Integer, Product> tiers = loadTierTable();
+      List<JobCheckpoint> partitions = resume ? loadCheckpoints() : List.of();
+      if (partitions.isEmpty()) {
+        partitions = planPartitions();
+      }
+      job.setPartitionsTotal(partitions.size());
+
+      List<Future<?>> futures = new ArrayList<>();
+      for (JobCheckpoint partition : partitions) {
+        if ("COMPLETED".equals(partition.getStatus())) {
+          job.partitionCompleted();
+          continue;
+        }
+        futures.add(pool.submit(() -> processPartition(partition, tiers)));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      log.info(
+          "Tier evaluation completed: {} scanned, {} upgraded",
+          job.processedCount(),
+          job.affectedCount());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private NavigableMap<Integer, Product> loadTierTable() {
+    return productRepository.findAllTierProductsOrderByTierAsc().stream()
+        .collect(Collectors.toMap(Product::getTierOrder, p -> p, (a, b) -> a, TreeMap::new));
+  }
+
+  private List<JobCheckpoint> loadCheckpoints() {
+    return jobCheckpointRepository.findByJobNameOrderByRangeStartAsc(JOB_NAME);
+  }
+
+  private List<JobCheckpoint> planPartitions() {
+    return transactionTemplate.execute(
+        tx -> {
+          jobCheckpointRepository.deleteByJobName(JOB_NAME);
+          List<Object[]> range = userProductRepository.findActiveIdRange();
+          if (range.isEmpty() || range.get(0)[0] == null) {
+            return List.<JobCheckpoint>of();
+          }
+          long minId = (Long) range.get(0)[0];
+          long maxId = (Long) range.get(0)[1];
+          int count = parallelism * 4;
+          long width = Math.max(1, (maxId - minId + count) / count);
+
+          List<JobCheckpoint> planned = new ArrayList<>();
+          for (long start = minId - 1; start < maxId; start += width) {
+            long end = Math.min(maxId, start + width);
+            planned.add(
+                JobCheckpoint.builder()
+                    .jobName(JOB_NAME)
+                    .partitionKey(start + "-" + end)
+                    .rangeStart(start)
+                    .rangeEnd(end)
+                    .lastProcessedId(start)
+                    .build());
+          }
+          return jobCheckpointRepository.saveAll(planned);
+        });
+  }
+
+  private void processPartition(JobCheckpoint partition, NavigableMap<Integer, Product> tiers) {
+    long afterId = partition.getLastProcessedId();
+    while (true) {
+      long from = afterId;
+      ChunkResult result =
+          transactionTemplate.execute(tx -> processChunk(partition.getCheckpointId(), from, tiers));
+      job.addProcessed(result.scanned());
+      job.addAffected(result.upgraded());
+      if (result.scanned() < chunkSize) {
+        break;
+      }
+      afterId = result.lastId();
+    }
+    job.partitionCompleted();
+  }
+
+  private ChunkResult processChunk(
+      Long checkpointId, long afterId, NavigableMap<Integer, Product> tiers) {
+    JobCheckpoint checkpoint = jobCheckpointRepository.findById(checkpointId).orElseThrow();
+    List<Object[]> rows =
+        userProductRepository.findTopActiveTierChunk(
+            afterId, checkpoint.getRangeEnd(), PageRequest.of(0, chunkSize));
+
+    long lastId = rows.isEmpty() ? afterId : (Long) rows.get(rows.size() - 1)[0];
+    List<TierUpgrade> upgrades = collectUpgrades(rows, tiers);
+    if (!upgrades.isEmpty()) {
+      applyUpgrades(upgrades);
+    }
+
+    checkpoint.setLastProcessedId(lastId);
+    checkpoint.setProcessedCount(checkpoint.getProcessedCount() + rows.size());
+    checkpoint.setAffectedCount(checkpoint.getAffectedCount() + upgrades.size());
+    checkpoint.setStatus(rows.size() < chunkSize ? "COMPLETED" : "RUNNING");
+    jobCheckpointRepository.save(checkpoint);
+
+    return new ChunkResult(rows.size(), upgrades.size(), lastId);
+  }
+
+  private List<TierUpgrade> collectUpgrades(
+      List<Object[]> rows, NavigableMap<Integer, Product> tiers) {
+    List<TierUpgrade> upgrades = new ArrayList<>();
+    for (Object[] row : rows) {
+      Integer currentTier = (Integer) row[3];
+      if (currentTier == null) {
+        continue;
+      }
+      double totalPaid = row[4] != null ? ((Number) row[4]).doubleValue() : 0.0;
+      int targetTier = resolveTargetTier(tiers, currentTier, totalPaid);
+      if (targetTier != currentTier) {
+        double currentUsed = row[5] != null ? ((Number) row[5]).doubleValue() : 0.0;
+        upgrades.add(
+            new TierUpgrade(
+                (Long) row[0],
+                (Long) row[1],
+                tiers.get(targetTier).getId(),
+                totalPaid,
+                currentUsed));
+      }
+    }
+    return upgrades;
+  }
+
+  private void applyUpgrades(List<TierUpgrade> upgrades) {
+    Set<Long> userIds = upgrades.stream().map(TierUpgrade::userId).collect(Collectors.toSet());
+    Set<String> existingPairs = new HashSet<>();
+    for (Object[] pair : userProductRepository.findUserProductPairs(userIds)) {
+      existingPairs.add(pair[0] + ":" + pair[1]);
+    }
+
+    List<TierUpgrade> reactivations = new ArrayList<>();
+    List<TierUpgrade> inserts = new ArrayList<>();
+    for (TierUpgrade upgrade : upgrades) {
+      if (existingPairs.contains(upgrade.userId() + ":" + upgrade.targetProductId())) {
+        reactivations.add(upgrade);
+      } else {
+        inserts.add(upgrade);
+      }
+    }
+
+    jdbcTemplate.batchUpdate(
+        MARK_UPGRADED_SQL,
+        upgrades,
+        upgrades.size(),
+        (ps, upgrade) -> ps.setLong(1, upgrade.userProductId()));
+
+    if (!reactivations.isEmpty()) {
+      jdbcTemplate.batchUpdate(
+          REACTIVATE_SQL,
+          reactivations,
+          reactivations.size(),
+          (ps, upgrade) -> {
+            ps.setDouble(1, upgrade.currentUsedAmount());
+            ps.setDouble(2, upgrade.totalPaidAmount());
+            ps.setLong(3, upgrade.userId());
+            ps.setLong(4, upgrade.targetProductId());
+          });
+    }
+
+    if (!inserts.isEmpty()) {
+      Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+      jdbcTemplate.batchUpdate(
+          INSERT_SQL,
+          inserts,
+          inserts.size(),
+          (ps, upgrade) -> {
+            ps.setLong(1, upgrade.userId());
+            ps.setLong(2, upgrade.targetProductId());
+            ps.setDouble(3, upgrade.currentUsedAmount());
+            ps.setDouble(4, upgrade.totalPaidAmount());
+            ps.setTimestamp(5, now);
+          });
+    }
+
+    for (TierUpgrade upgrade : upgrades) {
+      eventPublisher.publishEvent(new UserEligibilityChangedEvent(upgrade.userId()));
+    }
+  }
+
+  /**
+   * Walk up the tier table while the paid amount meets the current tier's upgrade threshold.
+   * Mirrors {@link LoanEligibilityService#checkAndUpgradeTier} but may skip several tiers at once
+   * when thresholds have been lowered.
+   */
+  static int resolveTargetTier(
+      NavigableMap<Integer, Product> tiers, int currentTier, double totalPaid) {
+    int tier = currentTier;
+    while (true) {
+      Product product = tiers.get(tier);
+      if (product == null
+          || product.getUpgradeThreshold() == null
+          || totalPaid < product.getUpgradeThreshold()
+          || !tiers.containsKey(tier + 1)) {
+        return tier;
+      }
+      tier++;
+    }
+  }
+
+  private record TierUpgrade(
+      Long userProductId,
+      Long userId,
+      Long targetProductId,
+      double totalPaidAmount,
+      double currentUsedAmount) {}
+
+  private record ChunkResult(int scanned, int upgraded, long lastId) {}
+}
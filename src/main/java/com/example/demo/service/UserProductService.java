@@ -1,10 +1,13 @@
 package com.example.demo.service;
 
+import com.example.demo.base.Cursor;
+import com.example.demo.base.CursorPage;
 import com.example.demo.dto.UserProductDTO;
 import com.example.demo.dto.UserTierLimitDTO;
 import com.example.demo.entity.Product;
 import com.example.demo.entity.User;
 import com.example.demo.entity.UserProduct;
+import com.example.demo.event.UserEligibilityChangedEvent;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.repository.ProductRepository;
 import com.example.demo.repository.UserProductRepository;
@@ -12,6 +15,8 @@ import com.example.demo.repository.UserRepository;
 import java.util.List;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,7 +27,7 @@ public class UserProductService {
   private final UserProductRepository userProductRepository;
   private final UserRepository userRepository;
   private final ProductRepository productRepository;
-  private final LoanEligibilityService loanEligibilityService;
+  private final ApplicationEventPublisher eventPublisher;
 
   @Transactional
   public UserProductDTO createUserProduct(UserProductDTO dto) {
@@ -56,6 +61,7 @@ public class UserProductService {
             .build();
 
     UserProduct saved = userProductRepository.save(userProduct);
+    eventPublisher.publishEvent(new UserEligibilityChangedEvent(dto.getUserId()));
     return convertToDTO(saved);
   }
 
@@ -82,11 +88,31 @@ public class UserProductService {
         .collect(Collectors.toList());
   }
 
+  /**
+   * Newest user products, at most {@link CursorPage#LEGACY_LIST_LIMIT}.
+   *
+   * @deprecated unpaged list kept for existing clients, use {@link #getAllUserProducts(String,
+   *     int)}
+   */
+  @Deprecated
   @Transactional(readOnly = true)
   public List<UserProductDTO> getAllUserProducts() {
-    return userProductRepository.findAll().stream()
+    Cursor first = Cursor.first();
+    return userProductRepository
+        .findPageAfter(first.createdAt(), first.id(), CursorPage.legacyLimit())
+        .stream()
         .map(this::convertToDTO)
-        .collect(Collectors.toList());
+        .toList();
+  }
+
+  @Transactional(readOnly = true)
+  public CursorPage<UserProductDTO> getAllUserProducts(String cursor, int size) {
+    Cursor after = Cursor.decode(cursor);
+    return CursorPage.of(
+        userProductRepository.findPageAfter(after.createdAt(), after.id(), CursorPage.limit(size)),
+        size,
+        up -> new Cursor(up.getCreatedAt(), up.getUserProductId()),
+        this::convertToDTO);
   }
 
   @Transactional
@@ -99,12 +125,20 @@ public class UserProductService {
     userProduct.setStatus(dto.getStatus());
 
     UserProduct updated = userProductRepository.save(userProduct);
+    eventPublisher.publishEvent(new UserEligibilityChangedEvent(userProduct.getUser().getId()));
     return convertToDTO(updated);
   }
 
   @Transactional
   public void deleteUserProduct(Long userProductId) {
-    userProductRepository.deleteById(userProductId);
+    userProductRepository
+        .findById(userProductId)
+        .ifPresent(
+            userProduct -> {
+              userProductRepository.delete(userProduct);
+              eventPublisher.publishEvent(
+                  new UserEligibilityChangedEvent(userProduct.getUser().getId()));
+            });
   }
 
   private UserProductDTO convertToDTO(UserProduct userProduct) {
@@ -121,14 +155,17 @@ public class UserProductService {
    * Get the current user's highest active tier and credit limit information. Returns null if the
    * user has no active product subscription.
    *
+   * <p>This is a read-only cache hit in the common case. Every write that changes the figures
+   * (submit, reject, payment, upgrade, admin edits) publishes a {@link UserEligibilityChangedEvent}
+   * that evicts the entry after commit, and drift is repaired by {@link EligibilityReconciler}
+   * instead of on every read.
+   *
    * @param userId the user ID
    * @return UserTierLimitDTO with tier and limit info, or null if no active product
    */
-  @Transactional
+  @Transactional(readOnly = true)
+  @Cacheable(value = "userTierLimits", key = "#userId", unless = "#result == null")
   public UserTierLimitDTO getCurrentUserTierAndLimits(Long userId) {
-    // Self-healing: Recalculate used amount
-    loanEligibilityService.recalculateUsedAmount(userId);
-
     // Find user's active products ordered by tier (highest first)
     List<UserProduct> activeProducts =
         userProductRepository.findActiveUserProductsByUserIdOrderByTier(userId);
@@ -1,5 +1,7 @@
 package com.example.demo.service;
 
+import com.example.demo.base.Cursor;
+import com.example.demo.base.CursorPage;
 import com.example.demo.dto.UploadImageResponse;
 import com.example.demo.dto.UserProfileDTO;
 import com.example.demo.entity.User;
@@ -8,7 +10,6 @@ import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.repository.UserProfileRepository;
 import com.example.demo.repository.UserRepository;
 import java.util.List;
-import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -66,11 +67,24 @@ public class UserProfileService implements IUserProfileService {
   }
 
   @Override
+  @Deprecated
   @Transactional(readOnly = true)
   public List<UserProfileDTO> getAllUserProfiles() {
-    return userProfileRepository.findAll().stream()
+    return userProfileRepository
+        .findPageAfter(Cursor.first().id(), CursorPage.legacyLimit())
+        .stream()
         .map(this::convertToDTO)
-        .collect(Collectors.toList());
+        .toList();
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public CursorPage<UserProfileDTO> getAllUserProfiles(String cursor, int size) {
+    return CursorPage.of(
+        userProfileRepository.findPageAfter(Cursor.decode(cursor).id(), CursorPage.limit(size)),
+        size,
+        p -> new Cursor(null, p.getUserId()),
+        this::convertToDTO);
   }
 
   @Override
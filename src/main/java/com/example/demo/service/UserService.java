@@ -1,11 +1,15 @@
 package com.example.demo.service;
 
+import com.example.demo.base.ApproximateCountCache;
+import com.example.demo.base.Cursor;
+import com.example.demo.base.CursorPage;
 import com.example.demo.constants.ErrorMessage;
 import com.example.demo.dto.AdminCreateUserRequest;
 import com.example.demo.dto.UserListDTO;
 import com.example.demo.entity.Role;
 import com.example.demo.entity.User;
 import com.example.demo.enums.RoleName;
+import com.example.demo.event.StaffAssignmentChangedEvent;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.repository.RoleRepository;
 import com.example.demo.repository.UserRepository;
@@ -15,6 +19,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -30,11 +35,14 @@ public class UserService implements IUserService {
   private final PasswordEncoder passwordEncoder;
   private final EmailService emailService;
   private final PasswordResetService passwordResetService;
+  private final ApproximateCountCache countCache;
+  private final ApplicationEventPublisher eventPublisher;
 
   @Override
   @Transactional
   public UserListDTO createUser(User user) {
     User saved = userRepository.save(user);
+    eventPublisher.publishEvent(new StaffAssignmentChangedEvent(saved.getId()));
     return UserListDTO.fromUser(saved);
   }
 
@@ -74,6 +82,7 @@ public class UserService implements IUserService {
       user.setRoles(userDetails.getRoles());
     }
     User saved = userRepository.save(user);
+    eventPublisher.publishEvent(new StaffAssignmentChangedEvent(saved.getId()));
     return UserListDTO.fromUser(saved);
   }
 
@@ -84,6 +93,7 @@ public class UserService implements IUserService {
     user.setDeleted(true);
     user.setIsActive(false);
     userRepository.save(user);
+    eventPublisher.publishEvent(new StaffAssignmentChangedEvent(user.getId()));
   }
 
   @Override
@@ -91,6 +101,22 @@ public class UserService implements IUserService {
     return userRepository.findByDeletedFalse(pageable).map(UserListDTO::fromUser);
   }
 
+  @Override
+  @Transactional(readOnly = true)
+  public CursorPage<UserListDTO> scrollUsersForAdmin(
+      String cursor, int size, boolean includeTotal) {
+    CursorPage<UserListDTO> page =
+        CursorPage.of(
+            userRepository.findActivePageAfter(Cursor.decode(cursor).id(), CursorPage.limit(size)),
+            size,
+            user -> new Cursor(null, user.getId()),
+            UserListDTO::fromUser);
+    if (includeTotal) {
+      page.withTotal(countCache.get("admin-users", userRepository::countByDeletedFalse));
+    }
+    return page;
+  }
+
   // ============= ADMIN USER MANAGEMENT =============
 
   /** Admin: Set user active/inactive status */
@@ -115,6 +141,7 @@ public class UserService implements IUserService {
 
     user.setIsActive(isActive);
     User savedUser = userRepository.save(user);
+    eventPublisher.publishEvent(new StaffAssignmentChangedEvent(savedUser.getId()));
     return UserListDTO.fromUser(savedUser);
   }
 
@@ -154,6 +181,7 @@ public class UserService implements IUserService {
 
     user.setRoles(roles);
     User savedUser = userRepository.save(user);
+    eventPublisher.publishEvent(new StaffAssignmentChangedEvent(savedUser.getId()));
     return UserListDTO.fromUser(savedUser);
   }
 
@@ -219,6 +247,7 @@ public class UserService implements IUserService {
             .build();
 
     User savedUser = userRepository.save(user);
+    eventPublisher.publishEvent(new StaffAssignmentChangedEvent(savedUser.getId()));
 
     // Send password reset email so user can set their own password
     sendWelcomePasswordResetEmail(savedUser);
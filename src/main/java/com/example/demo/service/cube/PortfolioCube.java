@@ -0,0 +1,601 @@
+package com.example.demo.service.cube;
+
+import com.example.demo.enums.LoanStatus;
+import com.example.demo.enums.PortfolioDimension;
+import com.example.demo.exception.BusinessException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Columnar in-memory copy of {@code loan_applications} for ad-hoc group-by queries.
+ *
+ * <p>One primitive array per attribute, rows kept in loan id order so a loan is found by binary
+ * search. Status, branch and product are dictionary-encoded to one or two bytes. A query builds
+ * lookup tables for its filters and dimensions once, then scans partitions of the rows in parallel
+ * with a branch-light loop that accumulates into per-partition arrays indexed by a mixed-radix
+ * group key; the partitions are summed at the end.
+ *
+ * <p>The row count is capped at {@code maxRows}; rows beyond it are dropped and counted.
+ * Thread-safe: queries share a read lock, changes take the write lock.
+ */
+public final class PortfolioCube {
+
+  /** Bytes held per row by the column arrays. */
+  public static final int BYTES_PER_ROW = 8 + 8 + 8 + 2 + 4 + 1 + 2 + 2;
+
+  /** Largest number of groups one query may produce. */
+  public static final int MAX_GROUPS = 65_536;
+
+  private static final int MIN_PARTITION_ROWS = 32_768;
+  private static final byte APPROVED = 1;
+  private static final byte REJECTED = 2;
+
+  private final int maxRows;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Dictionary<String> statuses = new Dictionary<>(Byte.MAX_VALUE);
+  private final Dictionary<Long> branches = new Dictionary<>(Short.MAX_VALUE);
+  private final Dictionary<Long> products = new Dictionary<>(Short.MAX_VALUE);
+
+  private long[] ids;
+  private double[] amounts;
+  private double[] totalsToPay;
+  private short[] tenures;
+  private int[] createdDays;
+  private byte[] statusCodes;
+  private short[] branchCodes;
+  private short[] productCodes;
+  private int size;
+  private long droppedRows;
+  private int maxTenure;
+  private int minDay = Integer.MAX_VALUE;
+  private int maxDay = Integer.MIN_VALUE;
+
+  public PortfolioCube(int initialCapacity, int maxRows) {
+    this.maxRows = maxRows;
+    allocate(Math.min(Math.max(initialCapacity, 16), maxRows));
+  }
+
+  /** One loan as read from {@code loan_applications}; {@code branchId} 0 means no branch. */
+  public record Row(
+      long id,
+      double amount,
+      double totalToPay,
+      int tenureMonths,
+      LocalDate createdOn,
+      String status,
+      long branchId,
+      long productId) {}
+
+  /**
+   * Filters and grouping of one query; {@code null} or empty filters match everything.
+   *
+   * @param amountBuckets ascending boundaries of {@link PortfolioDimension#AMOUNT_BUCKET}
+   * @param tierByProduct tier order of each product, for {@link PortfolioDimension#TIER}
+   */
+  public record Query(
+      List<PortfolioDimension> groupBy,
+      Collection<String> statuses,
+      Collection<Long> branchIds,
+      Collection<Long> productIds,
+      Collection<Integer> tiers,
+      LocalDate createdFrom,
+      LocalDate createdTo,
+      Double minAmount,
+      Double maxAmount,
+      List<Double> amountBuckets,
+      Map<Long, Integer> tierByProduct) {}
+
+  /**
+   * Totals of one group.
+   *
+   * @param key value of each requested dimension, in request order
+   * @param approvedCount loans approved, disbursed or paid
+   */
+  public record Group(
+      Map<PortfolioDimension, Object> key,
+      long loanCount,
+      double amount,
+      double totalToPay,
+      long approvedCount,
+      long rejectedCount) {}
+
+  public record Result(List<Group> groups, long scannedRows, long matchedRows) {}
+
+  /** Add {@code row}, or replace the row with the same id; false if the cube is full. */
+  public boolean upsert(Row row) {
+    lock.writeLock().lock();
+    try {
+      int position;
+      if (size == 0 || row.id() > ids[size - 1]) {
+        position = size;
+      } else {
+        position = Arrays.binarySearch(ids, 0, size, row.id());
+      }
+      if (position >= size || position < 0) {
+        if (size == maxRows) {
+          droppedRows++;
+          return false;
+        }
+        if (size == ids.length) {
+          allocate(Math.min(maxRows, size + (size >> 1) + 1));
+        }
+        position = position < 0 ? -position - 1 : position;
+        if (position < size) {
+          shiftRight(position);
+        }
+        size++;
+      }
+      set(position, row);
+      return true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Change the status of loan {@code id}; false if it is not in the cube. */
+  public boolean setStatus(long id, String status) {
+    lock.writeLock().lock();
+    try {
+      int position = Arrays.binarySearch(ids, 0, size, id);
+      if (position < 0) {
+        return false;
+      }
+      statusCodes[position] = (byte) statuses.encode(status);
+      return true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Drop loan {@code id}, e.g. after it was deleted; false if it is not in the cube. */
+  public boolean remove(long id) {
+    lock.writeLock().lock();
+    try {
+      int position = Arrays.binarySearch(ids, 0, size, id);
+      if (position < 0) {
+        return false;
+      }
+      shiftLeft(position);
+      size--;
+      return true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return size;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int capacity() {
+    lock.readLock().lock();
+    try {
+      return ids.length;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int maxRows() {
+    return maxRows;
+  }
+
+  /** Rows not added because the cube was full. */
+  public long droppedRows() {
+    lock.readLock().lock();
+    try {
+      return droppedRows;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Approximate heap held by the columns and dictionaries. */
+  public long footprintBytes() {
+    lock.readLock().lock();
+    try {
+      return (long) ids.length * BYTES_PER_ROW
+          + 64L * (statuses.size() + branches.size() + products.size());
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public Result query(Query query) {
+    lock.readLock().lock();
+    try {
+      Plan plan = plan(query);
+      int partitions =
+          Math.max(
+              1,
+              Math.min(
+                  (size + MIN_PARTITION_ROWS - 1) / MIN_PARTITION_ROWS,
+                  Runtime.getRuntime().availableProcessors() * 2));
+      int rowsPerPartition = (size + partitions - 1) / Math.max(partitions, 1);
+      Partial total =
+          IntStream.range(0, partitions)
+              .parallel()
+              .mapToObj(
+                  partition ->
+                      scan(
+                          plan,
+                          partition * rowsPerPartition,
+                          Math.min(size, (partition + 1) * rowsPerPartition)))
+              .reduce(Partial::add)
+              .orElseGet(() -> new Partial(plan.groupCount()));
+      return new Result(groups(plan, total), size, total.matched);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  // Lookup tables of one query, built once so the scan loop only indexes arrays
+  private record Plan(
+      boolean[] statusAllowed,
+      boolean[] branchAllowed,
+      boolean[] productAllowed,
+      int fromDay,
+      int toDay,
+      double minAmount,
+      double maxAmount,
+      byte[] statusClass,
+      PortfolioDimension[] dimensions,
+      int[] cardinalities,
+      int[] tierCodeByProduct,
+      List<Integer> tierValues,
+      int firstDay,
+      int[] monthCodeByDay,
+      YearMonth firstMonth,
+      double[] bucketBounds,
+      int groupCount) {}
+
+  private Plan plan(Query query) {
+    Map<Long, Integer> tierByProduct =
+        query.tierByProduct() != null ? query.tierByProduct() : Map.of();
+    List<Integer> tierValues = new ArrayList<>(new TreeSet<>(tierByProduct.values()));
+    tierValues.add(0, null); // Products without a tier
+    int[] tierCodeByProduct = new int[products.size()];
+    for (int code = 0; code < products.size(); code++) {
+      Integer tier = tierByProduct.get(products.value(code));
+      tierCodeByProduct[code] = tier != null ? tierValues.indexOf(tier) : 0;
+    }
+
+    boolean[] statusAllowed = allowed(statuses, query.statuses());
+    boolean[] branchAllowed = allowed(branches, query.branchIds());
+    boolean[] productAllowed = allowed(products, query.productIds());
+    if (query.tiers() != null && !query.tiers().isEmpty()) {
+      for (int code = 0; code < productAllowed.length; code++) {
+        productAllowed[code] &= query.tiers().contains(tierValues.get(tierCodeByProduct[code]));
+      }
+    }
+
+    byte[] statusClass = new byte[statuses.size()];
+    for (int code = 0; code < statuses.size(); code++) {
+      String status = statuses.value(code);
+      if (LoanStatus.APPROVED_WAITING_DISBURSEMENT.name().equals(status)
+          || LoanStatus.DISBURSED.name().equals(status)
+          || LoanStatus.PAID.name().equals(status)) {
+        statusClass[code] = APPROVED;
+      } else if (LoanStatus.REJECTED.name().equals(status)) {
+        statusClass[code] = REJECTED;
+      }
+    }
+
+    int firstDay = size == 0 ? 0 : minDay;
+    int lastDay = size == 0 ? 0 : maxDay;
+    YearMonth firstMonth = YearMonth.from(LocalDate.ofEpochDay(firstDay));
+    int[] monthCodeByDay = new int[lastDay - firstDay + 1];
+    for (int day = firstDay; day <= lastDay; day++) {
+      YearMonth month = YearMonth.from(LocalDate.ofEpochDay(day));
+      monthCodeByDay[day - firstDay] =
+          (month.getYear() - firstMonth.getYear()) * 12
+              + month.getMonthValue()
+              - firstMonth.getMonthValue();
+    }
+
+    double[] bucketBounds =
+        query.amountBuckets() != null
+            ? query.amountBuckets().stream().mapToDouble(Double::doubleValue).sorted().toArray()
+            : new double[0];
+
+    List<PortfolioDimension> groupBy = query.groupBy() != null ? query.groupBy() : List.of();
+    PortfolioDimension[] dimensions = groupBy.toArray(PortfolioDimension[]::new);
+    int[] cardinalities = new int[dimensions.length];
+    long groupCount = 1;
+    for (int d = 0; d < dimensions.length; d++) {
+      cardinalities[d] =
+          Math.max(
+              1,
+              switch (dimensions[d]) {
+                case STATUS -> statuses.size();
+                case BRANCH -> branches.size();
+                case PRODUCT -> products.size();
+                case TIER -> tierValues.size();
+                case TENURE -> maxTenure + 1;
+                case CREATED_MONTH -> monthCodeByDay[monthCodeByDay.length - 1] + 1;
+                case AMOUNT_BUCKET -> bucketBounds.length + 1;
+              });
+      groupCount *= cardinalities[d];
+      if (groupCount > MAX_GROUPS) {
+        throw new BusinessException(
+            "Too many groups; narrow the dimensions or the amount buckets",
+            "TOO_MANY_GROUPS",
+            HttpStatus.BAD_REQUEST);
+      }
+    }
+
+    return new Plan(
+        statusAllowed,
+        branchAllowed,
+        productAllowed,
+        query.createdFrom() != null ? (int) query.createdFrom().toEpochDay() : Integer.MIN_VALUE,
+        query.createdTo() != null ? (int) query.createdTo().toEpochDay() : Integer.MAX_VALUE,
+        query.minAmount() != null ? query.minAmount() : Double.NEGATIVE_INFINITY,
+        query.maxAmount() != null ? query.maxAmount() : Double.POSITIVE_INFINITY,
+        statusClass,
+        dimensions,
+        cardinalities,
+        tierCodeByProduct,
+        tierValues,
+        firstDay,
+        monthCodeByDay,
+        firstMonth,
+        bucketBounds,
+        (int) groupCount);
+  }
+
+  private Partial scan(Plan plan, int from, int to) {
+    Partial partial = new Partial(plan.groupCount());
+    boolean[] statusAllowed = plan.statusAllowed();
+    boolean[] branchAllowed = plan.branchAllowed();
+    boolean[] productAllowed = plan.productAllowed();
+    int fromDay = plan.fromDay();
+    int toDay = plan.toDay();
+    double minAmount = plan.minAmount();
+    double maxAmount = plan.maxAmount();
+    byte[] statusClass = plan.statusClass();
+    PortfolioDimension[] dimensions = plan.dimensions();
+    int[] cardinalities = plan.cardinalities();
+    for (int row = from; row < to; row++) {
+      int status = statusCodes[row];
+      int product = productCodes[row];
+      int day = createdDays[row];
+      double amount = amounts[row];
+      if (!statusAllowed[status]
+          || !branchAllowed[branchCodes[row]]
+          || !productAllowed[product]
+          || day < fromDay
+          || day > toDay
+          || amount < minAmount
+          || amount > maxAmount) {
+        continue;
+      }
+      int key = 0;
+      for (int d = 0; d < dimensions.length; d++) {
+        int code =
+            switch (dimensions[d]) {
+              case STATUS -> status;
+              case BRANCH -> branchCodes[row];
+              case PRODUCT -> product;
+              case TIER -> plan.tierCodeByProduct()[product];
+              case TENURE -> tenures[row];
+              case CREATED_MONTH -> plan.monthCodeByDay()[day - plan.firstDay()];
+              case AMOUNT_BUCKET -> bucketOf(plan.bucketBounds(), amount);
+            };
+        key = key * cardinalities[d] + code;
+      }
+      partial.loanCount[key]++;
+      partial.amount[key] += amount;
+      partial.totalToPay[key] += totalsToPay[row];
+      byte outcome = statusClass[status];
+      if (outcome == APPROVED) {
+        partial.approved[key]++;
+      } else if (outcome == REJECTED) {
+        partial.rejected[key]++;
+      }
+      partial.matched++;
+    }
+    return partial;
+  }
+
+  // Number of boundaries at or below amount
+  private static int bucketOf(double[] bounds, double amount) {
+    int index = Arrays.binarySearch(bounds, amount);
+    return index >= 0 ? index + 1 : -index - 1;
+  }
+
+  private List<Group> groups(Plan plan, Partial total) {
+    List<Group> groups = new ArrayList<>();
+    PortfolioDimension[] dimensions = plan.dimensions();
+    int[] codes = new int[dimensions.length];
+    for (int key = 0; key < plan.groupCount(); key++) {
+      if (total.loanCount[key] == 0) {
+        continue;
+      }
+      int remainder = key;
+      for (int d = dimensions.length - 1; d >= 0; d--) {
+        codes[d] = remainder % plan.cardinalities()[d];
+        remainder /= plan.cardinalities()[d];
+      }
+      Map<PortfolioDimension, Object> values = new LinkedHashMap<>();
+      for (int d = 0; d < dimensions.length; d++) {
+        values.put(dimensions[d], decode(plan, dimensions[d], codes[d]));
+      }
+      groups.add(
+          new Group(
+              values,
+              total.loanCount[key],
+              total.amount[key],
+              total.totalToPay[key],
+              total.approved[key],
+              total.rejected[key]));
+    }
+    return groups;
+  }
+
+  private Object decode(Plan plan, PortfolioDimension dimension, int code) {
+    return switch (dimension) {
+      case STATUS -> statuses.value(code);
+      case BRANCH -> branches.value(code);
+      case PRODUCT -> products.value(code);
+      case TIER -> plan.tierValues().get(code);
+      case TENURE -> code;
+      case CREATED_MONTH -> plan.firstMonth().plusMonths(code).toString();
+      case AMOUNT_BUCKET -> bucketLabel(plan.bucketBounds(), code);
+    };
+  }
+
+  private static String bucketLabel(double[] bounds, int bucket) {
+    if (bounds.length == 0) {
+      return "ALL";
+    }
+    if (bucket == 0) {
+      return "<" + format(bounds[0]);
+    }
+    if (bucket == bounds.length) {
+      return ">=" + format(bounds[bounds.length - 1]);
+    }
+    return format(bounds[bucket - 1]) + "-" + format(bounds[bucket]);
+  }
+
+  private static String format(double bound) {
+    return bound == Math.rint(bound) ? String.valueOf((long) bound) : String.valueOf(bound);
+  }
+
+  private static <T> boolean[] allowed(Dictionary<T> dictionary, Collection<T> wanted) {
+    boolean[] allowed = new boolean[Math.max(dictionary.size(), 1)];
+    for (int code = 0; code < dictionary.size(); code++) {
+      allowed[code] = wanted == null || wanted.isEmpty() || wanted.contains(dictionary.value(code));
+    }
+    return allowed;
+  }
+
+  private void set(int position, Row row) {
+    int day = (int) row.createdOn().toEpochDay();
+    ids[position] = row.id();
+    amounts[position] = row.amount();
+    totalsToPay[position] = row.totalToPay();
+    tenures[position] = (short) row.tenureMonths();
+    createdDays[position] = day;
+    statusCodes[position] = (byte) statuses.encode(row.status());
+    branchCodes[position] = (short) branches.encode(row.branchId());
+    productCodes[position] = (short) products.encode(row.productId());
+    maxTenure = Math.max(maxTenure, row.tenureMonths());
+    minDay = Math.min(minDay, day);
+    maxDay = Math.max(maxDay, day);
+  }
+
+  private void shiftRight(int position) {
+    int length = size - position;
+    System.arraycopy(ids, position, ids, position + 1, length);
+    System.arraycopy(amounts, position, amounts, position + 1, length);
+    System.arraycopy(totalsToPay, position, totalsToPay, position + 1, length);
+    System.arraycopy(tenures, position, tenures, position + 1, length);
+    System.arraycopy(createdDays, position, createdDays, position + 1, length);
+    System.arraycopy(statusCodes, position, statusCodes, position + 1, length);
+    System.arraycopy(branchCodes, position, branchCodes, position + 1, length);
+    System.arraycopy(productCodes, position, productCodes, position + 1, length);
+  }
+
+  private void shiftLeft(int position) {
+    int length = size - position - 1;
+    System.arraycopy(ids, position + 1, ids, position, length);
+    System.arraycopy(amounts, position + 1, amounts, position, length);
+    System.arraycopy(totalsToPay, position + 1, totalsToPay, position, length);
+    System.arraycopy(tenures, position + 1, tenures, position, length);
+    System.arraycopy(createdDays, position + 1, createdDays, position, length);
+    System.arraycopy(statusCodes, position + 1, statusCodes, position, length);
+    System.arraycopy(branchCodes, position + 1, branchCodes, position, length);
+    System.arraycopy(productCodes, position + 1, productCodes, position, length);
+  }
+
+  private void allocate(int capacity) {
+    ids = ids == null ? new long[capacity] : Arrays.copyOf(ids, capacity);
+    amounts = amounts == null ? new double[capacity] : Arrays.copyOf(amounts, capacity);
+    totalsToPay = totalsToPay == null ? new double[capacity] : Arrays.copyOf(totalsToPay, capacity);
+    tenures = tenures == null ? new short[capacity] : Arrays.copyOf(tenures, capacity);
+    createdDays = createdDays == null ? new int[capacity] : Arrays.copyOf(createdDays, capacity);
+    statusCodes = statusCodes == null ? new byte[capacity] : Arrays.copyOf(statusCodes, capacity);
+    branchCodes = branchCodes == null ? new short[capacity] : Arrays.copyOf(branchCodes, capacity);
+    productCodes =
+        productCodes == null ? new short[capacity] : Arrays.copyOf(productCodes, capacity);
+  }
+
+  // Accumulators of one partition, indexed by group key
+  private static final class Partial {
+    final long[] loanCount;
+    final double[] amount;
+    final double[] totalToPay;
+    final long[] approved;
+    final long[] rejected;
+    long matched;
+
+    Partial(int groups) {
+      loanCount = new long[groups];
+      amount = new double[groups];
+      totalToPay = new double[groups];
+      approved = new long[groups];
+      rejected = new long[groups];
+    }
+
+    Partial add(Partial other) {
+      for (int key = 0; key < loanCount.length; key++) {
+        loanCount[key] += other.loanCount[key];
+        amount[key] += other.amount[key];
+        totalToPay[key] += other.totalToPay[key];
+        approved[key] += other.approved[key];
+        rejected[key] += other.rejected[key];
+      }
+      matched += other.matched;
+      return this;
+    }
+  }
+
+  // Value <-> dense code; codes are never reused, so encoded rows stay valid
+  private static final class Dictionary<T> {
+    private final int maxCodes;
+    private final List<T> values = new ArrayList<>();
+    private final Map<T, Integer> codes = new HashMap<>();
+
+    Dictionary(int maxCodes) {
+      this.maxCodes = maxCodes;
+    }
+
+    int encode(T value) {
+      Integer code = codes.get(value);
+      if (code != null) {
+        return code;
+      }
+      if (values.size() == maxCodes) {
+        throw new IllegalStateException("More than " + maxCodes + " distinct values: " + value);
+      }
+      values.add(value);
+      codes.put(value, values.size() - 1);
+      return values.size() - 1;
+    }
+
+    T value(int code) {
+      return values.get(code);
+    }
+
+    int size() {
+      return values.size();
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package com.example.demo.service.notification;
 
+import java.util.Collection;
 import java.util.Map;
 
 /**
@@ -19,6 +20,21 @@ public interface NotificationChannel {
    */
   void send(Long userId, String title, String body, Map<String, String> data);
 
+  /**
+   * Send the same notification to several users. Channels that can address many recipients in one
+   * request override this; the default sends to each user in turn.
+   *
+   * @param userIds Target user IDs
+   * @param title Notification title
+   * @param body Notification body/message
+   * @param data Optional additional data payload
+   */
+  default void send(Collection<Long> userIds, String title, String body, Map<String, String> data) {
+    for (Long userId : userIds) {
+      send(userId, title, body, data);
+    }
+  }
+
   /**
    * Check if this channel supports the given channel type.
    *
@@ -1,6 +1,8 @@
 package com.example.demo.service.notification;
 
 import com.example.demo.service.FCMService;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,14 +24,48 @@ public class PushNotificationChannel implements NotificationChannel {
   @Override
   public void send(Long userId, String title, String body, Map<String, String> data) {
     try {
-      int sentCount = fcmService.sendPushNotification(userId, title, body, data);
-      if (sentCount > 0) {
-        log.debug("Push notification sent to user {} ({} devices)", userId, sentCount);
-      } else {
-        log.debug("No devices registered for push notification to user {}", userId);
-      }
+      // Sent with other notifications of the batch window; this call does not wait for FCM
+      fcmService
+          .queuePushNotification(userId, title, body, data)
+          .whenComplete(
+              (sentCount, error) -> {
+                if (error != null) {
+                  log.error(
+                      "Failed to send push notification to user {}: {}",
+                      userId,
+                      error.getMessage());
+                } else if (sentCount > 0) {
+                  log.debug("Push notification sent to user {} ({} devices)", userId, sentCount);
+                } else {
+                  log.debug("No devices registered for push notification to user {}", userId);
+                }
+              });
     } catch (Exception e) {
-      log.error("Failed to send push notification to user {}: {}", userId, e.getMessage());
+      log.error("Failed to queue push notification to user {}: {}", userId, e.getMessage());
+    }
+  }
+
+  @Override
+  public void send(Collection<Long> userIds, String title, String body, Map<String, String> data) {
+    try {
+      // One dispatcher job for all recipients, split into FCM requests by device count
+      fcmService
+          .queuePushNotificationToUsers(List.copyOf(userIds), title, body, data)
+          .whenComplete(
+              (sentCount, error) -> {
+                if (error != null) {
+                  log.error(
+                      "Failed to send push notification to {} users: {}",
+                      userIds.size(),
+                      error.getMessage());
+                } else {
+                  log.debug(
+                      "Push notification sent to {} users ({} devices)", userIds.size(), sentCount);
+                }
+              });
+    } catch (Exception e) {
+      log.error(
+          "Failed to queue push notification to {} users: {}", userIds.size(), e.getMessage());
     }
   }
 
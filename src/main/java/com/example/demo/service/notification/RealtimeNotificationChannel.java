@@ -0,0 +1,49 @@
+package com.example.demo.service.notification;
+
+import com.example.demo.dto.RealtimeNotificationDTO;
+import com.example.demo.service.NotificationStreamService;
+import java.time.LocalDateTime;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-app realtime channel: delivers a transient message to the user's open notification streams, on
+ * any node, without storing it. Users without an open stream do not receive it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RealtimeNotificationChannel implements NotificationChannel {
+
+  private static final String CHANNEL_TYPE = "IN_APP_REALTIME";
+
+  private final NotificationStreamService notificationStreamService;
+
+  @Override
+  public void send(Long userId, String title, String body, Map<String, String> data) {
+    try {
+      notificationStreamService.publish(
+          RealtimeNotificationDTO.builder()
+              .userId(userId)
+              .title(title)
+              .body(body)
+              .data(data)
+              .sentAt(LocalDateTime.now())
+              .build());
+    } catch (Exception e) {
+      log.error("Failed to send realtime notification to user {}: {}", userId, e.getMessage());
+    }
+  }
+
+  @Override
+  public boolean supports(String channelType) {
+    return CHANNEL_TYPE.equalsIgnoreCase(channelType);
+  }
+
+  @Override
+  public String getChannelType() {
+    return CHANNEL_TYPE;
+  }
+}
@@ -0,0 +1,115 @@
+package com.example.demo.service.notification;
+
+import com.example.demo.enums.RoleName;
+import com.example.demo.event.StaffAssignmentChangedEvent;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Active staff by role and branch, so a workflow notification does not query the users of a role on
+ * every transition.
+ *
+ * <ul>
+ *   <li>Loaded with one query over {@code user_roles}; customers ({@code USER}) are not kept
+ *   <li>Dropped when a user's roles, branch or status change on this instance; the TTL bounds how
+ *       long changes made on other instances go unseen
+ *   <li>A load that raced with a change is used once but not cached
+ * </ul>
+ */
+@Component
+public class StaffRoutingTable {
+
+  private static final String LOAD_SQL =
+      "SELECT r.name, u.branch_id, u.id FROM user_roles ur"
+          + " JOIN roles r ON r.id = ur.role_id JOIN users u ON u.id = ur.user_id"
+          + " WHERE r.name <> ? AND u.is_active = ? AND (u.is_deleted IS NULL OR u.is_deleted = ?)"
+          + " ORDER BY u.id";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final long ttlMillis;
+
+  private final AtomicLong changes = new AtomicLong();
+  private volatile Routes routes;
+
+  public StaffRoutingTable(
+      JdbcTemplate jdbcTemplate, @Value("${app.staff-routing.ttl-ms:300000}") long ttlMillis) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.ttlMillis = ttlMillis;
+  }
+
+  /** Active users holding {@code role}, in any branch. */
+  public List<Long> usersOf(RoleName role) {
+    return current().byRole().getOrDefault(role.getRoleName(), List.of());
+  }
+
+  /** Active users holding {@code role} in {@code branchId}. */
+  public List<Long> usersOf(RoleName role, Long branchId) {
+    return current()
+        .byRoleAndBranch()
+        .getOrDefault(role.getRoleName(), Map.of())
+        .getOrDefault(branchId, List.of());
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onStaffAssignmentChanged(StaffAssignmentChangedEvent event) {
+    invalidate();
+  }
+
+  public void invalidate() {
+    changes.incrementAndGet();
+    routes = null;
+  }
+
+  private Routes current() {
+    Routes cached = routes;
+    if (cached != null && System.currentTimeMillis() - cached.loadedAtMillis() < ttlMillis) {
+      return cached;
+    }
+    long changesBefore = changes.get();
+    Routes loaded = load();
+    if (changes.get() == changesBefore) {
+      routes = loaded;
+    }
+    return loaded;
+  }
+
+  private Routes load() {
+    long now = System.currentTimeMillis();
+    Map<String, List<Long>> byRole = new HashMap<>();
+    Map<String, Map<Long, List<Long>>> byRoleAndBranch = new HashMap<>();
+    jdbcTemplate.query(
+        LOAD_SQL,
+        rs -> {
+          String role = rs.getString(1);
+          long branchId = rs.getLong(2);
+          boolean hasBranch = !rs.wasNull();
+          long userId = rs.getLong(3);
+          byRole.computeIfAbsent(role, r -> new ArrayList<>()).add(userId);
+          if (hasBranch) {
+            byRoleAndBranch
+                .computeIfAbsent(role, r -> new HashMap<>())
+                .computeIfAbsent(branchId, b -> new ArrayList<>())
+                .add(userId);
+          }
+        },
+        RoleName.USER.getRoleName(),
+        true,
+        false);
+    byRole.replaceAll((role, userIds) -> List.copyOf(userIds));
+    byRoleAndBranch.values().forEach(branches -> branches.replaceAll((b, ids) -> List.copyOf(ids)));
+    return new Routes(byRole, byRoleAndBranch, now);
+  }
+
+  private record Routes(
+      Map<String, List<Long>> byRole,
+      Map<String, Map<Long, List<Long>>> byRoleAndBranch,
+      long loadedAtMillis) {}
+}
@@ -0,0 +1,112 @@
+package com.example.demo.service.push;
+
+import com.example.demo.event.DeviceTokensChangedEvent;
+import com.example.demo.repository.UserDeviceRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Active FCM tokens per user, so a push does not read {@code user_devices} every time.
+ *
+ * <ul>
+ *   <li>Misses of one lookup are read with one query; users without devices are cached too
+ *   <li>Entries are evicted when this instance registers or unregisters a token, and when a send
+ *       reports a token invalid; the TTL bounds how long changes made on other instances go unseen
+ *   <li>A load that raced with an eviction is not cached
+ * </ul>
+ */
+@Component
+public class DeviceTokenCache {
+
+  // Keeps IN lists below the SQL Server parameter limit
+  private static final int MAX_IDS_PER_QUERY = 1000;
+
+  private final UserDeviceRepository userDeviceRepository;
+  private final long ttlMillis;
+  private final int maxUsers;
+
+  private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicLong evictions = new AtomicLong();
+
+  public DeviceTokenCache(
+      UserDeviceRepository userDeviceRepository,
+      @Value("${app.push.token-cache.ttl-ms:300000}") long ttlMillis,
+      @Value("${app.push.token-cache.max-users:100000}") int maxUsers) {
+    this.userDeviceRepository = userDeviceRepository;
+    this.ttlMillis = ttlMillis;
+    this.maxUsers = maxUsers;
+  }
+
+  /** Active tokens of each of {@code userIds}; users without devices map to an empty list. */
+  public Map<Long, List<String>> getTokens(Collection<Long> userIds) {
+    Map<Long, List<String>> tokens = new HashMap<>();
+    List<Long> misses = new ArrayList<>();
+    long now = System.currentTimeMillis();
+    for (Long userId : new LinkedHashSet<>(userIds)) {
+      Entry entry = entries.get(userId);
+      if (entry != null && now - entry.loadedAtMillis() < ttlMillis) {
+        tokens.put(userId, entry.tokens());
+      } else {
+        misses.add(userId);
+      }
+    }
+    if (misses.isEmpty()) {
+      return tokens;
+    }
+
+    long evictionsBefore = evictions.get();
+    Map<Long, List<String>> loaded = new HashMap<>();
+    for (int from = 0; from < misses.size(); from += MAX_IDS_PER_QUERY) {
+      List<Long> chunk = misses.subList(from, Math.min(misses.size(), from + MAX_IDS_PER_QUERY));
+      for (Long userId : chunk) {
+        loaded.put(userId, new ArrayList<>());
+      }
+      for (Object[] row : userDeviceRepository.findActiveTokensByUserIds(chunk)) {
+        loaded.get((Long) row[0]).add((String) row[1]);
+      }
+    }
+    if (entries.size() + loaded.size() > maxUsers) {
+      entries.clear();
+    }
+    loaded.forEach(
+        (userId, userTokens) -> {
+          List<String> immutable = List.copyOf(userTokens);
+          tokens.put(userId, immutable);
+          if (evictions.get() == evictionsBefore) {
+            entries.put(userId, new Entry(immutable, now));
+          }
+        });
+    return tokens;
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onDeviceTokensChanged(DeviceTokensChangedEvent event) {
+    evict(event.userIds());
+  }
+
+  public void evict(Collection<Long> userIds) {
+    evictions.incrementAndGet();
+    userIds.forEach(entries::remove);
+  }
+
+  /** Evict every user holding one of {@code tokens}. */
+  public void evictTokens(Collection<String> tokens) {
+    Set<String> invalid = new HashSet<>(tokens);
+    evictions.incrementAndGet();
+    entries.values().removeIf(entry -> entry.tokens().stream().anyMatch(invalid::contains));
+  }
+
+  private record Entry(List<String> tokens, long loadedAtMillis) {}
+}
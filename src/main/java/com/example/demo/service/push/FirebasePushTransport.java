@@ -0,0 +1,80 @@
+package com.example.demo.service.push;
+
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.MessagingErrorCode;
+import com.google.firebase.messaging.Notification;
+import com.google.firebase.messaging.SendResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/** {@link PushTransport} over Firebase Cloud Messaging {@code sendEach}. */
+@Component
+@ConditionalOnProperty(name = "app.push.transport", havingValue = "firebase", matchIfMissing = true)
+@Slf4j
+public class FirebasePushTransport implements PushTransport {
+
+  private final FirebaseMessaging firebaseMessaging;
+
+  public FirebasePushTransport(@Autowired(required = false) FirebaseMessaging firebaseMessaging) {
+    this.firebaseMessaging = firebaseMessaging;
+  }
+
+  @Override
+  public List<Outcome> sendEach(List<Push> pushes) {
+    if (firebaseMessaging == null) {
+      log.debug("Firebase is not configured, dropping {} push notifications", pushes.size());
+      return Collections.nCopies(pushes.size(), Outcome.failed("Firebase is not configured"));
+    }
+    List<Message> messages = new ArrayList<>(pushes.size());
+    for (Push push : pushes) {
+      Message.Builder builder =
+          Message.builder()
+              .setToken(push.token())
+              .setNotification(
+                  Notification.builder().setTitle(push.title()).setBody(push.body()).build());
+      if (push.data() != null && !push.data().isEmpty()) {
+        builder.putAllData(push.data());
+      }
+      messages.add(builder.build());
+    }
+
+    BatchResponse response;
+    try {
+      response = firebaseMessaging.sendEach(messages);
+    } catch (FirebaseMessagingException e) {
+      log.error("Failed to send {} push notifications: {}", pushes.size(), e.getMessage());
+      return Collections.nCopies(pushes.size(), Outcome.failed(e.getMessage()));
+    }
+    if (response == null) {
+      return Collections.nCopies(pushes.size(), Outcome.failed("No response from Firebase"));
+    }
+
+    List<Outcome> outcomes = new ArrayList<>(pushes.size());
+    for (SendResponse sendResponse : response.getResponses()) {
+      if (sendResponse.isSuccessful()) {
+        outcomes.add(Outcome.SENT);
+      } else {
+        FirebaseMessagingException exception = sendResponse.getException();
+        outcomes.add(
+            new Outcome(
+                false,
+                exception != null && isInvalidToken(exception.getMessagingErrorCode()),
+                exception != null ? exception.getMessage() : null));
+      }
+    }
+    return outcomes;
+  }
+
+  private static boolean isInvalidToken(MessagingErrorCode errorCode) {
+    return errorCode == MessagingErrorCode.UNREGISTERED
+        || errorCode == MessagingErrorCode.INVALID_ARGUMENT;
+  }
+}
@@ -0,0 +1,65 @@
+package com.example.demo.service.push;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local stand-in for Firebase, for throughput tests without a Firebase project. Enabled with {@code
+ * app.push.transport=loopback}.
+ *
+ * <p>Every request takes {@code app.push.loopback.latency-ms}, like a round trip to FCM would.
+ * Tokens starting with {@link #INVALID_PREFIX} are reported as unregistered; everything else is
+ * delivered. Counts requests and messages so a test can read the achieved batching.
+ */
+@Component
+@ConditionalOnProperty(name = "app.push.transport", havingValue = "loopback")
+@Slf4j
+public class LoopbackPushTransport implements PushTransport {
+
+  public static final String INVALID_PREFIX = "invalid-";
+
+  private final long latencyMillis;
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong messages = new AtomicLong();
+
+  public LoopbackPushTransport(@Value("${app.push.loopback.latency-ms:50}") long latencyMillis) {
+    this.latencyMillis = latencyMillis;
+  }
+
+  @Override
+  public List<Outcome> sendEach(List<Push> pushes) {
+    if (pushes.size() > MAX_BATCH) {
+      throw new IllegalArgumentException("At most " + MAX_BATCH + " messages per request");
+    }
+    requests.incrementAndGet();
+    messages.addAndGet(pushes.size());
+    if (latencyMillis > 0) {
+      try {
+        Thread.sleep(latencyMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    List<Outcome> outcomes = new ArrayList<>(pushes.size());
+    for (Push push : pushes) {
+      outcomes.add(
+          push.token().startsWith(INVALID_PREFIX)
+              ? new Outcome(false, true, "UNREGISTERED")
+              : Outcome.SENT);
+    }
+    return outcomes;
+  }
+
+  public long getRequestCount() {
+    return requests.get();
+  }
+
+  public long getMessageCount() {
+    return messages.get();
+  }
+}
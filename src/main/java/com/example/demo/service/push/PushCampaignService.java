@@ -0,0 +1,484 @@
+package com.example.demo.service.push;
+
+import com.example.demo.dto.BatchJobStatusDTO;
+import com.example.demo.dto.PushCampaignDTO;
+import com.example.demo.dto.PushCampaignRequest;
+import com.example.demo.entity.JobCheckpoint;
+import com.example.demo.entity.PushCampaign;
+import com.example.demo.exception.BusinessException;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.repository.JobCheckpointRepository;
+import com.example.demo.repository.PushCampaignRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Sends one push notification to every active device of a user segment (role, tier, branch,
+ * product), sized for millions of devices.
+ *
+ * <ul>
+ *   <li>The device id space is split into partitions sent in parallel; each partition reads its
+ *       devices by keyset, one chunk of {@link PushTransport#MAX_BATCH} tokens at a time, so memory
+ *       does not grow with the segment
+ *   <li>Chunks go through {@link PushDispatcher}, paced to {@code
+ *       app.push-campaign.messages-per-second} across all campaigns of this node
+ *   <li>Each sent chunk commits its {@link JobCheckpoint} and the campaign heartbeat. A campaign
+ *       whose heartbeat stops (the node died) is taken over by {@link #resumeStalled()} on any node
+ *       and continues after the last committed chunk; at most one chunk per partition is sent twice
+ *   <li>A chunk whose request FCM rejects as a whole fails its partition and the campaign without
+ *       moving the checkpoint, so resuming the campaign sends that chunk again
+ *   <li>Every claim writes a new token to {@code claimed_by}; a sender whose token was replaced
+ *       stops at its next chunk without touching the checkpoints, so a slow sender that was taken
+ *       over never runs alongside its successor
+ *   <li>The device id range is fixed when the campaign is created; devices registered later are not
+ *       included
+ * </ul>
+ */
+@Service
+@Slf4j
+public class PushCampaignService {
+
+  public static final String JOB_PREFIX = "PUSH_CAMPAIGN-";
+
+  private static final String CLAIM_SQL =
+      "UPDATE push_campaigns SET status = 'RUNNING', claimed_by = ?,"
+          + " started_at = COALESCE(started_at, ?), heartbeat_at = ?, finished_at = NULL,"
+          + " message = NULL"
+          + " WHERE campaign_id = ? AND (status IN ('PENDING', 'FAILED')"
+          + " OR (status = 'RUNNING' AND heartbeat_at < ?))";
+
+  // Also tells a sender whether it still owns the campaign (not cancelled or taken over)
+  private static final String HEARTBEAT_SQL =
+      "UPDATE push_campaigns SET heartbeat_at = ?"
+          + " WHERE campaign_id = ? AND status = 'RUNNING' AND claimed_by = ?";
+
+  private static final String FINISH_SQL =
+      "UPDATE push_campaigns SET status = ?, finished_at = ?, message = ?"
+          + " WHERE campaign_id = ? AND status = 'RUNNING' AND claimed_by = ?";
+
+  private static final String CANCEL_SQL =
+      "UPDATE push_campaigns SET status = 'CANCELLED', finished_at = ?"
+          + " WHERE campaign_id = ? AND status IN ('PENDING', 'RUNNING', 'FAILED')";
+
+  private static final String DEVICE_RANGE_SQL =
+      "SELECT MIN(device_id) AS min_id, MAX(device_id) AS max_id FROM user_devices"
+          + " WHERE is_active = ?";
+
+  private static final RowMapper<Object[]> DEVICE_ROW =
+      (rs, rowNum) -> new Object[] {rs.getLong(1), rs.getString(2)};
+
+  private final PushCampaignRepository pushCampaignRepository;
+  private final JobCheckpointRepository jobCheckpointRepository;
+  private final PushDispatcher pushDispatcher;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectMapper objectMapper;
+  private final int chunkSize;
+  private final int parallelism;
+  private final double messagesPerSecond;
+  private final long staleAfterMillis;
+  private final long sendTimeoutMillis;
+
+  private final Set<Long> active = ConcurrentHashMap.newKeySet();
+  private long nextSendNanos; // Guarded by this
+
+  public PushCampaignService(
+      PushCampaignRepository pushCampaignRepository,
+      JobCheckpointRepository jobCheckpointRepository,
+      PushDispatcher pushDispatcher,
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      ObjectMapper objectMapper,
+      @Value("${app.push-campaign.chunk-size:500}") int chunkSize,
+      @Value("${app.push-campaign.parallelism:4}") int parallelism,
+      @Value("${app.push-campaign.messages-per-second:2000}") double messagesPerSecond,
+      @Value("${app.push-campaign.stale-after-ms:120000}") long staleAfterMillis,
+      @Value("${app.push-campaign.send-timeout-ms:60000}") long sendTimeoutMillis) {
+    this.pushCampaignRepository = pushCampaignRepository;
+    this.jobCheckpointRepository = jobCheckpointRepository;
+    this.pushDispatcher = pushDispatcher;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.objectMapper = objectMapper;
+    this.chunkSize = Math.max(1, Math.min(chunkSize, PushTransport.MAX_BATCH));
+    this.parallelism = Math.max(1, parallelism);
+    this.messagesPerSecond = messagesPerSecond;
+    this.staleAfterMillis = staleAfterMillis;
+    this.sendTimeoutMillis = sendTimeoutMillis;
+  }
+
+  /** Store a campaign and plan its partitions; it is sent by {@link #startAsync(Long)}. */
+  public PushCampaignDTO create(PushCampaignRequest request, Long createdBy) {
+    PushCampaign campaign =
+        transactionTemplate.execute(
+            tx -> {
+              PushCampaign saved =
+                  pushCampaignRepository.save(
+                      PushCampaign.builder()
+                          .title(request.getTitle())
+                          .body(request.getBody())
+                          .dataJson(writeData(request.getData()))
+                          .roleName(request.getRoleName())
+                          .tierOrder(request.getTierOrder())
+                          .branchId(request.getBranchId())
+                          .productId(request.getProductId())
+                          .createdBy(createdBy)
+                          .build());
+              jobCheckpointRepository.saveAll(planPartitions(saved.getCampaignId()));
+              return saved;
+            });
+    return toDTO(campaign);
+  }
+
+  /**
+   * Send (or continue) a campaign in the background and return immediately.
+   *
+   * @throws BusinessException if it is completed, cancelled or being sent elsewhere
+   */
+  public PushCampaignDTO startAsync(Long campaignId) {
+    String claim = claim(campaignId);
+    Thread.ofVirtual().name("push-campaign-" + campaignId).start(() -> execute(campaignId, claim));
+    return getCampaign(campaignId);
+  }
+
+  /** Send (or continue) a campaign on the calling thread. */
+  public PushCampaignDTO run(Long campaignId) {
+    execute(campaignId, claim(campaignId));
+    return getCampaign(campaignId);
+  }
+
+  /** Stop a campaign after the chunks in flight; it cannot be resumed. */
+  public PushCampaignDTO cancel(Long campaignId) {
+    findCampaign(campaignId);
+    jdbcTemplate.update(CANCEL_SQL, Timestamp.valueOf(LocalDateTime.now()), campaignId);
+    return getCampaign(campaignId);
+  }
+
+  public PushCampaignDTO getCampaign(Long campaignId) {
+    return toDTO(findCampaign(campaignId));
+  }
+
+  /** Take over campaigns whose sender stopped sending heartbeats, e.g. because its node died. */
+  @Scheduled(fixedDelayString = "${app.push-campaign.resume-check-ms:60000}")
+  public void resumeStalled() {
+    LocalDateTime staleBefore = LocalDateTime.now().minusNanos(staleAfterMillis * 1_000_000);
+    for (Long campaignId : pushCampaignRepository.findStalledIds(staleBefore)) {
+      if (active.contains(campaignId)) {
+        continue;
+      }
+      try {
+        startAsync(campaignId);
+        log.warn("Resumed stalled push campaign {}", campaignId);
+      } catch (BusinessException e) {
+        log.debug("Push campaign {} was resumed elsewhere: {}", campaignId, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Mark a campaign as sent by this caller.
+   *
+   * @return the claim token; a later claim (after the heartbeat went stale) replaces it, and the
+   *     earlier sender stops at its next chunk
+   */
+  String claim(Long campaignId) {
+    PushCampaign campaign = findCampaign(campaignId);
+    if (!active.add(campaignId)) {
+      throw new BusinessException(
+          "Push campaign is already being sent", "JOB_ALREADY_RUNNING", HttpStatus.CONFLICT);
+    }
+    String claim = UUID.randomUUID().toString();
+    LocalDateTime now = LocalDateTime.now();
+    int claimed =
+        jdbcTemplate.update(
+            CLAIM_SQL,
+            claim,
+            Timestamp.valueOf(now),
+            Timestamp.valueOf(now),
+            campaignId,
+            Timestamp.valueOf(now.minusNanos(staleAfterMillis * 1_000_000)));
+    if (claimed == 0) {
+      active.remove(campaignId);
+      throw new BusinessException(
+          "Push campaign cannot be sent in status " + campaign.getStatus(),
+          "RUNNING".equals(campaign.getStatus()) ? "JOB_ALREADY_RUNNING" : "CAMPAIGN_FINISHED",
+          HttpStatus.CONFLICT);
+    }
+    return claim;
+  }
+
+  void execute(Long campaignId, String claim) {
+    ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+    try {
+      PushCampaign campaign = findCampaign(campaignId);
+      Map<String, String> data = readData(campaign.getDataJson());
+      List<Future<Boolean>> futures = new ArrayList<>();
+      for (JobCheckpoint partition : loadCheckpoints(campaignId)) {
+        if (!"COMPLETED".equals(partition.getStatus())) {
+          futures.add(pool.submit(() -> sendPartition(campaign, claim, data, partition)));
+        }
+      }
+      boolean owned = true;
+      for (Future<Boolean> future : futures) {
+        owned &= future.get();
+      }
+      if (owned) {
+        finish(campaignId, claim, "COMPLETED", null);
+        log.info("Push campaign {} completed", campaignId);
+      } else {
+        log.info("Push campaign {} was cancelled or taken over, stopped sending", campaignId);
+      }
+    } catch (Exception e) {
+      Throwable cause = e.getCause() != null ? e.getCause() : e;
+      finish(campaignId, claim, "FAILED", cause.getMessage());
+      log.error("Push campaign {} failed, resume to continue from checkpoints", campaignId, e);
+    } finally {
+      pool.shutdownNow();
+      active.remove(campaignId);
+    }
+  }
+
+  /**
+   * Send one partition from its checkpoint on.
+   *
+   * @return false if the campaign was cancelled or taken over meanwhile
+   */
+  private boolean sendPartition(
+      PushCampaign campaign, String claim, Map<String, String> data, JobCheckpoint partition)
+      throws Exception {
+    long afterId = partition.getLastProcessedId();
+    while (true) {
+      Segment segment = Segment.of(campaign, afterId, partition.getRangeEnd(), chunkSize);
+      List<Object[]> rows = jdbcTemplate.query(segment.sql(), segment.args(), DEVICE_ROW);
+      int delivered = 0;
+      if (!rows.isEmpty()) {
+        List<String> tokens = rows.stream().map(row -> (String) row[1]).toList();
+        pace(tokens.size());
+        try {
+          delivered =
+              pushDispatcher
+                  .sendToTokens(tokens, campaign.getTitle(), campaign.getBody(), data)
+                  .get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+          // FCM rejected the request; keep the checkpoint so a resume sends this chunk again
+          failPartition(campaign.getCampaignId(), claim, partition);
+          throw e;
+        }
+        afterId = (Long) rows.get(rows.size() - 1)[0];
+      }
+      boolean done = rows.size() < chunkSize;
+      if (!commitChunk(
+          campaign.getCampaignId(), claim, partition, afterId, rows.size(), delivered, done)) {
+        return false;
+      }
+      if (done) {
+        return true;
+      }
+    }
+  }
+
+  private boolean commitChunk(
+      Long campaignId,
+      String claim,
+      JobCheckpoint partition,
+      long lastId,
+      int attempted,
+      int delivered,
+      boolean done) {
+    return transactionTemplate.execute(
+        tx -> {
+          int owned =
+              jdbcTemplate.update(
+                  HEARTBEAT_SQL, Timestamp.valueOf(LocalDateTime.now()), campaignId, claim);
+          if (owned == 0) {
+            // The new owner continues from the committed checkpoint; never move it for them
+            return false;
+          }
+          JobCheckpoint checkpoint =
+              jobCheckpointRepository.findById(partition.getCheckpointId()).orElseThrow();
+          checkpoint.setLastProcessedId(lastId);
+          checkpoint.setProcessedCount(checkpoint.getProcessedCount() + attempted);
+          checkpoint.setAffectedCount(checkpoint.getAffectedCount() + delivered);
+          checkpoint.setStatus(done ? "COMPLETED" : "RUNNING");
+          jobCheckpointRepository.save(checkpoint);
+          return true;
+        });
+  }
+
+  /** Mark a partition failed without moving its checkpoint. */
+  private void failPartition(Long campaignId, String claim, JobCheckpoint partition) {
+    transactionTemplate.executeWithoutResult(
+        tx -> {
+          if (jdbcTemplate.update(
+                  HEARTBEAT_SQL, Timestamp.valueOf(LocalDateTime.now()), campaignId, claim)
+              == 0) {
+            return;
+          }
+          JobCheckpoint checkpoint =
+              jobCheckpointRepository.findById(partition.getCheckpointId()).orElseThrow();
+          checkpoint.setStatus("FAILED");
+          jobCheckpointRepository.save(checkpoint);
+        });
+  }
+
+  /** Wait for this node's share of the send rate; callers are spaced, not bursted. */
+  private void pace(int messages) throws InterruptedException {
+    if (messagesPerSecond <= 0) {
+      return;
+    }
+    long waitNanos;
+    synchronized (this) {
+      long now = System.nanoTime();
+      long start = Math.max(now, nextSendNanos);
+      nextSendNanos = start + (long) (messages * 1_000_000_000L / messagesPerSecond);
+      waitNanos = start - now;
+    }
+    if (waitNanos > 0) {
+      TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+  }
+
+  private void finish(Long campaignId, String claim, String status, String message) {
+    jdbcTemplate.update(
+        FINISH_SQL, status, Timestamp.valueOf(LocalDateTime.now()), message, campaignId, claim);
+  }
+
+  private List<JobCheckpoint> planPartitions(Long campaignId) {
+    Map<String, Object> range = jdbcTemplate.queryForMap(DEVICE_RANGE_SQL, true);
+    Number minId = (Number) range.get("min_id");
+    Number maxId = (Number) range.get("max_id");
+    // An empty range still gets one partition, so every campaign has a checkpoint to report
+    long first = minId != null ? minId.longValue() : 1;
+    long last = maxId != null ? maxId.longValue() : 0;
+    int count = parallelism * 4;
+    long width = Math.max(1, (last - first + count) / count);
+
+    List<JobCheckpoint> planned = new ArrayList<>();
+    long start = first - 1;
+    do {
+      long end = Math.max(start, Math.min(last, start + width));
+      planned.add(
+          JobCheckpoint.builder()
+              .jobName(JOB_PREFIX + campaignId)
+              .partitionKey(start + "-" + end)
+              .rangeStart(start)
+              .rangeEnd(end)
+              .lastProcessedId(start)
+              .build());
+      start = end;
+    } while (start < last);
+    return planned;
+  }
+
+  private List<JobCheckpoint> loadCheckpoints(Long campaignId) {
+    return jobCheckpointRepository.findByJobNameOrderByRangeStartAsc(JOB_PREFIX + campaignId);
+  }
+
+  private PushCampaign findCampaign(Long campaignId) {
+    return pushCampaignRepository
+        .findById(campaignId)
+        .orElseThrow(() -> new ResourceNotFoundException("PushCampaign", "id", campaignId));
+  }
+
+  private PushCampaignDTO toDTO(PushCampaign campaign) {
+    List<JobCheckpoint> partitions = loadCheckpoints(campaign.getCampaignId());
+    BatchJobStatusDTO progress =
+        BatchJobStatusDTO.builder()
+            .jobName(JOB_PREFIX + campaign.getCampaignId())
+            .status(campaign.getStatus())
+            .processedCount(partitions.stream().mapToLong(JobCheckpoint::getProcessedCount).sum())
+            .affectedCount(partitions.stream().mapToLong(JobCheckpoint::getAffectedCount).sum())
+            .partitionsCompleted(
+                (int) partitions.stream().filter(p -> "COMPLETED".equals(p.getStatus())).count())
+            .partitionsTotal(partitions.size())
+            .startedAt(campaign.getStartedAt())
+            .finishedAt(campaign.getFinishedAt())
+            .message(campaign.getMessage())
+            .build();
+    return PushCampaignDTO.builder()
+        .campaignId(campaign.getCampaignId())
+        .title(campaign.getTitle())
+        .body(campaign.getBody())
+        .roleName(campaign.getRoleName())
+        .tierOrder(campaign.getTierOrder())
+        .branchId(campaign.getBranchId())
+        .productId(campaign.getProductId())
+        .createdBy(campaign.getCreatedBy())
+        .createdAt(campaign.getCreatedAt())
+        .progress(progress)
+        .build();
+  }
+
+  private String writeData(Map<String, String> data) {
+    try {
+      return data == null || data.isEmpty() ? null : objectMapper.writeValueAsString(data);
+    } catch (JsonProcessingException e) {
+      throw new BusinessException("Invalid push data payload", "INVALID_PUSH_DATA");
+    }
+  }
+
+  private Map<String, String> readData(String dataJson) throws JsonProcessingException {
+    return dataJson == null ? Map.of() : objectMapper.readValue(dataJson, new TypeReference<>() {});
+  }
+
+  /** Keyset query for the next chunk of active devices of a campaign's segment. */
+  private record Segment(String sql, Object[] args) {
+
+    static Segment of(PushCampaign campaign, long afterId, long rangeEnd, int limit) {
+      StringBuilder sql =
+          new StringBuilder(
+              "SELECT ud.device_id, ud.fcm_token FROM user_devices ud"
+                  + " JOIN users u ON u.id = ud.user_id"
+                  + " WHERE ud.device_id > ? AND ud.device_id <= ? AND ud.is_active = ?"
+                  + " AND u.is_active = ? AND (u.is_deleted IS NULL OR u.is_deleted = ?)");
+      List<Object> args = new ArrayList<>(List.of(afterId, rangeEnd, true, true, false));
+      if (campaign.getBranchId() != null) {
+        sql.append(" AND u.branch_id = ?");
+        args.add(campaign.getBranchId());
+      }
+      if (campaign.getRoleName() != null) {
+        sql.append(
+            " AND EXISTS (SELECT 1 FROM user_roles ur JOIN roles r ON r.id = ur.role_id"
+                + " WHERE ur.user_id = u.id AND r.name = ?)");
+        args.add(campaign.getRoleName());
+      }
+      if (campaign.getTierOrder() != null) {
+        sql.append(
+            " AND EXISTS (SELECT 1 FROM user_products up JOIN products p ON p.id = up.product_id"
+                + " WHERE up.user_id = u.id AND up.status = 'ACTIVE' AND p.tier_order = ?)");
+        args.add(campaign.getTierOrder());
+      }
+      if (campaign.getProductId() != null) {
+        sql.append(
+            " AND EXISTS (SELECT 1 FROM user_products up WHERE up.user_id = u.id"
+                + " AND up.status = 'ACTIVE' AND up.product_id = ?)");
+        args.add(campaign.getProductId());
+      }
+      sql.append(" ORDER BY ud.device_id OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY");
+      args.add(limit);
+      return new Segment(sql.toString(), args.toArray());
+    }
+  }
+}
@@ -0,0 +1,259 @@
+package com.example.demo.service.push;
+
+import com.example.demo.repository.UserDeviceRepository;
+import com.example.demo.service.push.PushTransport.Outcome;
+import com.example.demo.service.push.PushTransport.Push;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Coalesces push notifications of many callers into full FCM requests.
+ *
+ * <ul>
+ *   <li>Callers enqueue a notification and get a future of the number of devices reached
+ *   <li>One dispatcher thread collects what arrives within {@code app.push.batch-window-ms}, looks
+ *       up the recipients' tokens in {@link DeviceTokenCache} in bulk, and splits the messages into
+ *       requests of up to {@link PushTransport#MAX_BATCH}
+ *   <li>Requests are sent on virtual threads, at most {@code app.push.max-in-flight} at a time, and
+ *       never inside a database transaction
+ *   <li>Tokens a request reports invalid are deactivated with one {@code UPDATE ... IN}
+ *   <li>When a whole request fails, the futures of its notifications complete with a {@link
+ *       PushTransportException}, so callers can tell an outage from devices that were not reached
+ * </ul>
+ */
+@Component
+@Slf4j
+public class PushDispatcher {
+
+  private final PushTransport transport;
+  private final DeviceTokenCache tokenCache;
+  private final UserDeviceRepository userDeviceRepository;
+  private final long windowNanos;
+
+  private final BlockingQueue<Job> queue;
+  private final Semaphore inFlight;
+  private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+  private volatile boolean running;
+  private Thread dispatcher;
+
+  public PushDispatcher(
+      PushTransport transport,
+      DeviceTokenCache tokenCache,
+      UserDeviceRepository userDeviceRepository,
+      @Value("${app.push.batch-window-ms:20}") long windowMillis,
+      @Value("${app.push.max-in-flight:8}") int maxInFlight,
+      @Value("${app.push.queue-capacity:100000}") int queueCapacity) {
+    this.transport = transport;
+    this.tokenCache = tokenCache;
+    this.userDeviceRepository = userDeviceRepository;
+    this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    this.inFlight = new Semaphore(Math.max(1, maxInFlight));
+    this.queue = new LinkedBlockingQueue<>(queueCapacity);
+  }
+
+  @PostConstruct
+  public void start() {
+    running = true;
+    dispatcher = Thread.ofVirtual().name("push-dispatcher").start(this::run);
+  }
+
+  @PreDestroy
+  public void stop() {
+    running = false;
+    if (dispatcher != null) {
+      dispatcher.interrupt();
+    }
+    List<Job> abandoned = new ArrayList<>();
+    queue.drainTo(abandoned);
+    abandoned.forEach(job -> job.result().complete(0));
+    senders.shutdown();
+  }
+
+  /** Queue one notification to every active device of each user. */
+  public CompletableFuture<Integer> sendToUsers(
+      List<Long> userIds, String title, String body, Map<String, String> data) {
+    return enqueue(new Job(userIds, List.of(), title, body, data));
+  }
+
+  /** Queue one notification to explicit device tokens. */
+  public CompletableFuture<Integer> sendToTokens(
+      List<String> tokens, String title, String body, Map<String, String> data) {
+    return enqueue(new Job(List.of(), tokens, title, body, data));
+  }
+
+  private CompletableFuture<Integer> enqueue(Job job) {
+    if (!queue.offer(job)) {
+      log.warn("Push queue is full, dropping notification \"{}\"", job.title());
+      job.result().complete(0);
+    }
+    return job.result();
+  }
+
+  private void run() {
+    while (running) {
+      try {
+        List<Job> jobs = new ArrayList<>();
+        jobs.add(queue.take());
+        long deadline = System.nanoTime() + windowNanos;
+        long remaining;
+        while (jobs.size() < PushTransport.MAX_BATCH
+            && (remaining = deadline - System.nanoTime()) > 0) {
+          Job next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          jobs.add(next);
+        }
+        queue.drainTo(jobs, PushTransport.MAX_BATCH - jobs.size());
+        dispatch(jobs);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        log.error("Push dispatch failed: {}", e.getMessage(), e);
+      }
+    }
+  }
+
+  private void dispatch(List<Job> jobs) throws InterruptedException {
+    List<Long> userIds = new ArrayList<>();
+    jobs.forEach(job -> userIds.addAll(job.userIds()));
+    Map<Long, List<String>> tokensByUser;
+    try {
+      tokensByUser = userIds.isEmpty() ? Map.of() : tokenCache.getTokens(userIds);
+    } catch (RuntimeException e) {
+      log.error("Failed to look up device tokens: {}", e.getMessage());
+      jobs.forEach(job -> job.result().complete(0));
+      return;
+    }
+
+    List<Addressed> messages = new ArrayList<>();
+    for (Job job : jobs) {
+      List<String> tokens = new ArrayList<>(job.tokens());
+      for (Long userId : job.userIds()) {
+        tokens.addAll(tokensByUser.getOrDefault(userId, List.of()));
+      }
+      job.outstanding().set(tokens.size());
+      if (tokens.isEmpty()) {
+        job.result().complete(0);
+      }
+      for (String token : tokens) {
+        messages.add(new Addressed(job, new Push(token, job.title(), job.body(), job.data())));
+      }
+    }
+
+    for (int from = 0; from < messages.size(); from += PushTransport.MAX_BATCH) {
+      List<Addressed> request =
+          messages.subList(from, Math.min(messages.size(), from + PushTransport.MAX_BATCH));
+      inFlight.acquire();
+      senders.execute(
+          () -> {
+            try {
+              send(request);
+            } finally {
+              inFlight.release();
+            }
+          });
+    }
+  }
+
+  private void send(List<Addressed> request) {
+    List<Outcome> outcomes;
+    try {
+      outcomes = transport.sendEach(request.stream().map(Addressed::push).toList());
+    } catch (RuntimeException e) {
+      log.error("Push request of {} messages failed: {}", request.size(), e.getMessage());
+      outcomes = Collections.nCopies(request.size(), Outcome.failed(e.getMessage()));
+      request.forEach(
+          addressed -> addressed.job().requestError().compareAndSet(null, e.getMessage()));
+    }
+
+    List<String> invalidTokens = new ArrayList<>();
+    int sent = 0;
+    for (int i = 0; i < request.size(); i++) {
+      Outcome outcome = i < outcomes.size() ? outcomes.get(i) : Outcome.failed("No outcome");
+      if (outcome.success()) {
+        request.get(i).job().delivered().incrementAndGet();
+        sent++;
+      } else if (outcome.invalidToken()) {
+        invalidTokens.add(request.get(i).push().token());
+      }
+    }
+    log.debug(
+        "Push request sent: {} of {} delivered, {} invalid tokens",
+        sent,
+        request.size(),
+        invalidTokens.size());
+
+    if (!invalidTokens.isEmpty()) {
+      try {
+        int deactivated = userDeviceRepository.deactivateByFcmTokens(invalidTokens);
+        log.warn("Deactivated {} invalid FCM tokens", deactivated);
+      } catch (RuntimeException e) {
+        log.error("Failed to deactivate invalid FCM tokens: {}", e.getMessage());
+      }
+      tokenCache.evictTokens(invalidTokens);
+    }
+
+    for (Addressed addressed : request) {
+      Job job = addressed.job();
+      if (job.outstanding().decrementAndGet() == 0) {
+        String error = job.requestError().get();
+        if (error == null) {
+          job.result().complete(job.delivered().get());
+        } else {
+          job.result()
+              .completeExceptionally(new PushTransportException(error, job.delivered().get()));
+        }
+      }
+    }
+  }
+
+  private record Job(
+      List<Long> userIds,
+      List<String> tokens,
+      String title,
+      String body,
+      Map<String, String> data,
+      AtomicInteger outstanding,
+      AtomicInteger delivered,
+      AtomicReference<String> requestError,
+      CompletableFuture<Integer> result) {
+
+    Job(
+        List<Long> userIds,
+        List<String> tokens,
+        String title,
+        String body,
+        Map<String, String> data) {
+      this(
+          userIds,
+          tokens,
+          title,
+          body,
+          data,
+          new AtomicInteger(),
+          new AtomicInteger(),
+          new AtomicReference<>(),
+          new CompletableFuture<>());
+    }
+  }
+
+  private record Addressed(Job job, Push push) {}
+}
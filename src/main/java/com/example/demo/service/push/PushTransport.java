@@ -0,0 +1,35 @@
+package com.example.demo.service.push;
+
+import java.util.List;
+import java.util.Map;
+
+/** Delivery of push messages to devices; one call sends up to {@link #MAX_BATCH} messages. */
+public interface PushTransport {
+
+  /** Largest batch one {@link #sendEach} call accepts, the FCM {@code sendEach} limit. */
+  int MAX_BATCH = 500;
+
+  /** One message addressed to one device token. */
+  record Push(String token, String title, String body, Map<String, String> data) {}
+
+  /**
+   * What happened to one message.
+   *
+   * @param invalidToken the token is unknown or unregistered and should be deactivated
+   */
+  record Outcome(boolean success, boolean invalidToken, String error) {
+
+    public static final Outcome SENT = new Outcome(true, false, null);
+
+    public static Outcome failed(String error) {
+      return new Outcome(false, false, error);
+    }
+  }
+
+  /**
+   * Send every message in one request.
+   *
+   * @return one outcome per message, in order; a failure of the whole request fails every message
+   */
+  List<Outcome> sendEach(List<Push> pushes);
+}
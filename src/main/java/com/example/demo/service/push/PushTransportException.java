@@ -0,0 +1,20 @@
+package com.example.demo.service.push;
+
+/**
+ * A push request failed as a whole (FCM unreachable, quota exceeded), so its messages were not
+ * attempted. Completes the future of every notification with a message in such a request.
+ */
+public class PushTransportException extends RuntimeException {
+
+  private final int delivered;
+
+  public PushTransportException(String message, int delivered) {
+    super(message);
+    this.delivered = delivered;
+  }
+
+  /** Devices reached by the notification's other, successful requests. */
+  public int getDelivered() {
+    return delivered;
+  }
+}
@@ -0,0 +1,26 @@
+package com.example.demo.service.repayment;
+
+import java.time.LocalDate;
+
+/**
+ * One decoded statement line.
+ *
+ * @param lineNumber 1-based line number in the source file
+ * @param reference raw reference text, kept for the reconciliation report
+ * @param loanApplicationId parsed loan id, {@code null} when the line is malformed
+ * @param amount paid amount in major units
+ * @param paidDate value date of the payment
+ * @param error parse error, {@code null} for well-formed lines
+ */
+public record RepaymentLine(
+    long lineNumber,
+    String reference,
+    Long loanApplicationId,
+    double amount,
+    LocalDate paidDate,
+    String error) {
+
+  public boolean isMalformed() {
+    return error != null;
+  }
+}
@@ -0,0 +1,255 @@
+package com.example.demo.service.repayment;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * Streaming parser for bank repayment statements.
+ *
+ * <p>The file is read through one reusable buffer in fixed-size windows and fields are decoded
+ * straight from its bytes, so memory stays at one window regardless of file size. A line that
+ * straddles two windows is re-read at the start of the next window. Nothing stays mapped or open
+ * once {@link #parse} returns, so callers can delete the file right away.
+ */
+public class RepaymentStatementParser {
+
+  static final int DEFAULT_WINDOW_SIZE = 1024 * 1024;
+
+  private static final byte[] LOAN_PREFIX = "LOAN-".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] CSV_HEADER = "reference".getBytes(StandardCharsets.US_ASCII);
+
+  private static final int FIXED_REFERENCE_END = 20;
+  private static final int FIXED_AMOUNT_END = 35;
+  private static final int FIXED_DATE_END = 43;
+
+  private final StatementFormat format;
+  private final int windowSize;
+
+  public RepaymentStatementParser(StatementFormat format) {
+    this(format, DEFAULT_WINDOW_SIZE);
+  }
+
+  RepaymentStatementParser(StatementFormat format, int windowSize) {
+    this.format = format;
+    this.windowSize = windowSize;
+  }
+
+  /**
+   * Decode every line of {@code file} and hand it to {@code sink} in file order. Blank lines and a
+   * CSV header are skipped; malformed lines are still emitted with {@link RepaymentLine#error()}
+   * set so they end up in the reconciliation report.
+   *
+   * @return number of physical lines read
+   */
+  public long parse(Path file, Consumer<RepaymentLine> sink) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      long position = 0;
+      long lineNumber = 0;
+      ByteBuffer window = ByteBuffer.allocate((int) Math.min(windowSize, Math.max(size, 1)));
+      while (position < size) {
+        int length = (int) Math.min(window.capacity(), size - position);
+        boolean lastWindow = position + length == size;
+        window.clear().limit(length);
+        while (window.hasRemaining()) {
+          if (channel.read(window, position + window.position()) < 0) {
+            throw new IOException("Statement file shrank while it was being read");
+          }
+        }
+
+        int lineStart = 0;
+        for (int i = 0; i < length; i++) {
+          if (window.get(i) == '\n') {
+            emit(window, lineStart, i, ++lineNumber, sink);
+            lineStart = i + 1;
+          }
+        }
+        if (lastWindow && lineStart < length) {
+          emit(window, lineStart, length, ++lineNumber, sink);
+          lineStart = length;
+        }
+        if (lineStart == 0) {
+          throw new IOException("Line " + (lineNumber + 1) + " is longer than the read window");
+        }
+        position += lineStart;
+      }
+      return lineNumber;
+    }
+  }
+
+  private void emit(
+      ByteBuffer buf, int start, int end, long lineNumber, Consumer<RepaymentLine> sink) {
+    if (end > start && buf.get(end - 1) == '\r') {
+      end--;
+    }
+    if (isBlank(buf, start, end)) {
+      return;
+    }
+    if (format == StatementFormat.CSV && lineNumber == 1 && startsWithIgnoreCase(buf, start, end)) {
+      return;
+    }
+    try {
+      sink.accept(
+          format == StatementFormat.CSV
+              ? decodeCsv(buf, start, end, lineNumber)
+              : decodeFixedWidth(buf, start, end, lineNumber));
+    } catch (IllegalArgumentException | DateTimeException e) {
+      sink.accept(
+          new RepaymentLine(lineNumber, ascii(buf, start, end), null, 0, null, e.getMessage()));
+    }
+  }
+
+  private RepaymentLine decodeCsv(ByteBuffer buf, int start, int end, long lineNumber) {
+    int firstComma = indexOf(buf, start, end, (byte) ',');
+    int secondComma = firstComma < 0 ? -1 : indexOf(buf, firstComma + 1, end, (byte) ',');
+    if (secondComma < 0) {
+      throw new IllegalArgumentException("Expected 3 comma-separated fields");
+    }
+    return new RepaymentLine(
+        lineNumber,
+        ascii(buf, start, firstComma).trim(),
+        parseReference(buf, start, firstComma),
+        parseDecimal(buf, firstComma + 1, secondComma),
+        parseDate(buf, secondComma + 1, end),
+        null);
+  }
+
+  private RepaymentLine decodeFixedWidth(ByteBuffer buf, int start, int end, long lineNumber) {
+    if (end - start < FIXED_DATE_END) {
+      throw new IllegalArgumentException("Record shorter than " + FIXED_DATE_END + " characters");
+    }
+    int amountStart = start + FIXED_REFERENCE_END;
+    int dateStart = start + FIXED_AMOUNT_END;
+    return new RepaymentLine(
+        lineNumber,
+        ascii(buf, start, amountStart).trim(),
+        parseReference(buf, start, amountStart),
+        parseDigits(buf, amountStart, dateStart) / 100.0,
+        parseDate(buf, dateStart, start + FIXED_DATE_END),
+        null);
+  }
+
+  private static long parseReference(ByteBuffer buf, int start, int end) {
+    int[] bounds = trim(buf, start, end);
+    int from = bounds[0];
+    if (startsWith(buf, from, bounds[1], LOAN_PREFIX)) {
+      from += LOAN_PREFIX.length;
+    }
+    return parseDigits(buf, from, bounds[1]);
+  }
+
+  private static long parseDigits(ByteBuffer buf, int start, int end) {
+    int[] bounds = trim(buf, start, end);
+    if (bounds[0] == bounds[1]) {
+      throw new IllegalArgumentException("Missing numeric field");
+    }
+    long value = 0;
+    for (int i = bounds[0]; i < bounds[1]; i++) {
+      int digit = buf.get(i) - '0';
+      if (digit < 0 || digit > 9) {
+        throw new IllegalArgumentException("Invalid number: " + ascii(buf, bounds[0], bounds[1]));
+      }
+      value = Math.addExact(Math.multiplyExact(value, 10), digit);
+    }
+    return value;
+  }
+
+  private static double parseDecimal(ByteBuffer buf, int start, int end) {
+    int[] bounds = trim(buf, start, end);
+    int dot = indexOf(buf, bounds[0], bounds[1], (byte) '.');
+    if (dot < 0) {
+      return parseDigits(buf, bounds[0], bounds[1]);
+    }
+    long whole = parseDigits(buf, bounds[0], dot);
+    if (dot + 1 == bounds[1]) {
+      return whole;
+    }
+    long fraction = parseDigits(buf, dot + 1, bounds[1]);
+    return whole + fraction / Math.pow(10, bounds[1] - dot - 1);
+  }
+
+  private static LocalDate parseDate(ByteBuffer buf, int start, int end) {
+    int[] bounds = trim(buf, start, end);
+    int from = bounds[0];
+    int length = bounds[1] - from;
+    if (length == 10 && buf.get(from + 4) == '-' && buf.get(from + 7) == '-') {
+      return LocalDate.of(
+          (int) parseDigits(buf, from, from + 4),
+          (int) parseDigits(buf, from + 5, from + 7),
+          (int) parseDigits(buf, from + 8, from + 10));
+    }
+    if (length == 8) {
+      return LocalDate.of(
+          (int) parseDigits(buf, from, from + 4),
+          (int) parseDigits(buf, from + 4, from + 6),
+          (int) parseDigits(buf, from + 6, from + 8));
+    }
+    throw new IllegalArgumentException("Invalid date: " + ascii(buf, from, bounds[1]));
+  }
+
+  private static int[] trim(ByteBuffer buf, int start, int end) {
+    while (start < end && buf.get(start) == ' ') {
+      start++;
+    }
+    while (end > start && buf.get(end - 1) == ' ') {
+      end--;
+    }
+    return new int[] {start, end};
+  }
+
+  private static int indexOf(ByteBuffer buf, int start, int end, byte target) {
+    for (int i = start; i < end; i++) {
+      if (buf.get(i) == target) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isBlank(ByteBuffer buf, int start, int end) {
+    for (int i = start; i < end; i++) {
+      byte b = buf.get(i);
+      if (b != ' ' && b != '\t') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean startsWith(ByteBuffer buf, int start, int end, byte[] prefix) {
+    if (end - start < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (buf.get(start + i) != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean startsWithIgnoreCase(ByteBuffer buf, int start, int end) {
+    if (end - start < CSV_HEADER.length) {
+      return false;
+    }
+    for (int i = 0; i < CSV_HEADER.length; i++) {
+      if (Character.toLowerCase(buf.get(start + i)) != CSV_HEADER[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String ascii(ByteBuffer buf, int start, int end) {
+    byte[] bytes = new byte[end - start];
+    buf.get(start, bytes);
+    return new String(bytes, StandardCharsets.US_ASCII);
+  }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.service.repayment;
+
+/**
+ * Supported bank statement layouts.
+ *
+ * <ul>
+ *   <li>{@link #CSV}: {@code reference,amount,paid_date} with an optional header line; amount is a
+ *       decimal ({@code 1500000.00}), date is {@code yyyy-MM-dd} or {@code yyyyMMdd}
+ *   <li>{@link #FIXED_WIDTH}: columns 1-20 reference (space padded), 21-35 amount in minor units
+ *       (zero padded, two implied decimals), 36-43 date as {@code yyyyMMdd}
+ * </ul>
+ *
+ * <p>The reference is the loan application id, optionally prefixed with {@code LOAN-}.
+ */
+public enum StatementFormat {
+  CSV,
+  FIXED_WIDTH
+}
@@ -0,0 +1,134 @@
+package com.example.demo.service.sla;
+
+/**
+ * Mergeable log-linear histogram of non-negative durations, in the spirit of HdrHistogram.
+ *
+ * <p>Values below 64 have a bucket each; above that every power of two is split into 32 linear
+ * buckets, so any reported value is within 1/32 (about 3%) of the recorded one. Recording is O(1)
+ * and two histograms merge by adding their buckets, which is what lets per-branch, per-month
+ * histograms be combined at read time. Values above {@link #MAX_VALUE} are clamped.
+ *
+ * <p>Not thread-safe; callers synchronize.
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+  private static final int MAX_EXPONENT = 34;
+
+  /** Largest distinct value, over a thousand years in seconds. */
+  public static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+  private static final int BUCKETS = LINEAR_LIMIT + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final long[] counts = new long[BUCKETS];
+  private long totalCount;
+  private long sum;
+  private long max;
+
+  public void record(long value) {
+    long clamped = Math.min(Math.max(value, 0), MAX_VALUE);
+    counts[indexOf(clamped)]++;
+    totalCount++;
+    sum += clamped;
+    max = Math.max(max, clamped);
+  }
+
+  public void merge(LatencyHistogram other) {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] += other.counts[i];
+    }
+    totalCount += other.totalCount;
+    sum += other.sum;
+    max = Math.max(max, other.max);
+  }
+
+  public long getTotalCount() {
+    return totalCount;
+  }
+
+  public long getMax() {
+    return max;
+  }
+
+  public double getMean() {
+    return totalCount == 0 ? 0.0 : (double) sum / totalCount;
+  }
+
+  /**
+   * Smallest bucket upper bound at or below which {@code percentile} percent of the values lie,
+   * capped at the largest recorded value; 0 when empty.
+   */
+  public long valueAtPercentile(double percentile) {
+    if (totalCount == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * totalCount));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(upperBound(i), max);
+      }
+    }
+    return max;
+  }
+
+  /** Sparse text form, {@code "sum;max;index:count,index:count"}; see {@link #decode}. */
+  public String encode() {
+    StringBuilder encoded = new StringBuilder().append(sum).append(';').append(max).append(';');
+    boolean first = true;
+    for (int i = 0; i < BUCKETS; i++) {
+      if (counts[i] != 0) {
+        if (!first) {
+          encoded.append(',');
+        }
+        encoded.append(i).append(':').append(counts[i]);
+        first = false;
+      }
+    }
+    return encoded.toString();
+  }
+
+  public static LatencyHistogram decode(String encoded) {
+    LatencyHistogram histogram = new LatencyHistogram();
+    if (encoded == null || encoded.isEmpty()) {
+      return histogram;
+    }
+    String[] parts = encoded.split(";", -1);
+    histogram.sum = Long.parseLong(parts[0]);
+    histogram.max = Long.parseLong(parts[1]);
+    if (!parts[2].isEmpty()) {
+      for (String bucket : parts[2].split(",")) {
+        int colon = bucket.indexOf(':');
+        long count = Long.parseLong(bucket.substring(colon + 1));
+        histogram.counts[Integer.parseInt(bucket.substring(0, colon))] += count;
+        histogram.totalCount += count;
+      }
+    }
+    return histogram;
+  }
+
+  static int indexOf(long value) {
+    if (value < LINEAR_LIMIT) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+  }
+
+  static long lowerBound(int index) {
+    if (index < LINEAR_LIMIT) {
+      return index;
+    }
+    int exponent = (index - LINEAR_LIMIT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+    long subBucket = (index - LINEAR_LIMIT) % SUB_BUCKETS;
+    return (1L << exponent) | (subBucket << (exponent - SUB_BUCKET_BITS));
+  }
+
+  static long upperBound(int index) {
+    return index + 1 < BUCKETS ? lowerBound(index + 1) - 1 : MAX_VALUE;
+  }
+}
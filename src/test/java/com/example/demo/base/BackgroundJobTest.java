@@ -0,0 +1,71 @@
+package com.example.demo.base;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.demo.dto.BatchJobStatusDTO;
+import com.example.demo.exception.BusinessException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class BackgroundJobTest {
+
+  private final BackgroundJob job = new BackgroundJob("TEST_JOB", "Test job", "test-job");
+
+  @Test
+  void activeRun_ShouldRejectStartAndRun_ButLetTryStartSkipQuietly() throws Exception {
+    // Arrange: a background run that blocks until released
+    CountDownLatch release = new CountDownLatch(1);
+    job.start(
+        () -> {
+          job.addProcessed(3);
+          release.await();
+        });
+
+    // Act & Assert
+    assertTrue(job.isRunning());
+    assertFalse(job.tryStart(() -> fail("Second run must not start")));
+    BusinessException conflict = assertThrows(BusinessException.class, () -> job.run(() -> {}));
+    assertEquals("JOB_ALREADY_RUNNING", conflict.getErrorCode());
+
+    release.countDown();
+    awaitIdle();
+    BatchJobStatusDTO status = job.getStatus();
+    assertEquals("COMPLETED", status.getStatus());
+    assertEquals(3, status.getProcessedCount());
+    assertNotNull(status.getFinishedAt());
+  }
+
+  @Test
+  void run_ShouldReportFailure_AndResetCountersOnTheNextRun() {
+    // Act
+    BatchJobStatusDTO failed =
+        job.run(
+            () -> {
+              job.addAffected(2);
+              job.partitionCompleted();
+              throw new IllegalStateException("disk full");
+            });
+    BatchJobStatusDTO next = job.run(() -> job.setPartitionsTotal(1));
+
+    // Assert
+    assertEquals("TEST_JOB", failed.getJobName());
+    assertEquals("FAILED", failed.getStatus());
+    assertEquals("disk full", failed.getMessage());
+    assertEquals(2, failed.getAffectedCount());
+    assertEquals("COMPLETED", next.getStatus());
+    assertNull(next.getMessage());
+    assertEquals(0, next.getAffectedCount());
+    assertEquals(0, next.getPartitionsCompleted());
+    assertEquals(1, next.getPartitionsTotal());
+    assertFalse(job.isRunning());
+  }
+
+  private void awaitIdle() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (job.isRunning() && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertFalse(job.isRunning());
+  }
+}
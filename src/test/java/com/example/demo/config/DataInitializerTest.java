@@ -0,0 +1,35 @@
+package com.example.demo.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.demo.entity.DataMigration;
+import com.example.demo.repository.DataMigrationRepository;
+import com.example.demo.repository.JobCheckpointRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DataInitializerTest {
+
+  @Autowired private DataInitializer dataInitializer;
+  @Autowired private DataMigrationRepository dataMigrationRepository;
+  @Autowired private JobCheckpointRepository jobCheckpointRepository;
+
+  @Test
+  void oneTimeBackfills_ShouldBeRecordedAsDataMigrationsAndRunOnce() throws Exception {
+    assertThat(dataMigrationRepository.findAll())
+        .extracting(DataMigration::getMigrationName)
+        .contains(
+            "BACKFILL_QUEUE_COMMENTS", "BACKFILL_LOAN_MILESTONES", "BACKFILL_DAILY_LOAN_STATS");
+    long migrations = dataMigrationRepository.count();
+
+    dataInitializer.run();
+
+    assertThat(dataMigrationRepository.count()).isEqualTo(migrations);
+    assertThat(jobCheckpointRepository.findByJobNameOrderByRangeStartAsc("BACKFILL_QUEUE_COMMENTS"))
+        .isEmpty();
+  }
+}
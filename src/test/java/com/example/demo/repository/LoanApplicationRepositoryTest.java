@@ -2,17 +2,32 @@ package com.example.demo.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.example.demo.base.Cursor;
+import com.example.demo.dto.LoanSearchRequestDTO;
 import com.example.demo.entity.LoanApplication;
+import com.example.demo.entity.LoanHistory;
 import com.example.demo.entity.Product;
 import com.example.demo.entity.User;
+import com.example.demo.repository.LoanApplicationRepository.LoanQueueRow;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 
 /**
@@ -20,7 +35,10 @@ import org.springframework.test.context.ActiveProfiles;
  *
  * <p>Tests repository methods including custom queries for loan application management.
  */
-@DataJpaTest
+@DataJpaTest(
+    properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+            + "com.example.demo.repository.RecordingStatementInspector")
 @ActiveProfiles("test")
 class LoanApplicationRepositoryTest {
 
@@ -178,4 +196,298 @@ class LoanApplicationRepositoryTest {
     // Then
     assertThat(found).isEmpty();
   }
+
+  @Test
+  @DisplayName("Should serve a queue page with one page query and one count query")
+  void findQueue_shouldReturnProjectedRows_withTwoStatements() {
+    // Given
+    for (int i = 0; i < 5; i++) {
+      LoanApplication loan =
+          LoanApplication.builder()
+              .user(testUser)
+              .product(testProduct)
+              .amount(1000000.0 + i)
+              .tenureMonths(12)
+              .interestRateApplied(12.0)
+              .currentStatus("IN_REVIEW")
+              .isPaid(false)
+              .build();
+      entityManager.persist(loan);
+      entityManager.persist(
+          LoanHistory.builder()
+              .loanApplication(loan)
+              .actorUser(testUser)
+              .action("COMMENT")
+              .comment("Reviewed " + i)
+              .fromStatus("SUBMITTED")
+              .toStatus("IN_REVIEW")
+              .build());
+    }
+    entityManager.flush();
+    assertThat(loanApplicationRepository.backfillMarketingComments()).isEqualTo(5);
+    entityManager.clear();
+
+    Statistics statistics =
+        entityManager
+            .getEntityManager()
+            .getEntityManagerFactory()
+            .unwrap(SessionFactory.class)
+            .getStatistics();
+    statistics.setStatisticsEnabled(true);
+    statistics.clear();
+
+    // When
+    Page<LoanQueueRow> page =
+        loanApplicationRepository.findQueue(List.of("IN_REVIEW"), PageRequest.of(0, 3));
+    page.getContent().forEach(row -> row.getUserNik());
+
+    // Then
+    assertThat(page.getTotalElements()).isEqualTo(5);
+    assertThat(page.getContent()).hasSize(3);
+    assertThat(page.getContent().get(0).getUsername()).isEqualTo("testuser");
+    assertThat(page.getContent().get(0).getMarketingComment()).startsWith("Reviewed");
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    statistics.setStatisticsEnabled(false);
+  }
+
+  @Test
+  @DisplayName("Should stream flat export rows with user and product joined")
+  void streamForAdminExport_shouldReturnFlatRows() {
+    // Given
+    entityManager.persist(
+        LoanApplication.builder()
+            .user(testUser)
+            .product(testProduct)
+            .amount(1500000.0)
+            .tenureMonths(6)
+            .interestRateApplied(12.0)
+            .currentStatus("SUBMITTED")
+            .isPaid(false)
+            .build());
+    entityManager.flush();
+
+    // When
+    List<LoanApplicationRepository.AdminLoanExportRow> rows;
+    try (Stream<LoanApplicationRepository.AdminLoanExportRow> stream =
+        loanApplicationRepository.streamForAdminExport()) {
+      rows = stream.toList();
+    }
+
+    // Then
+    assertThat(rows).hasSize(1);
+    assertThat(rows.get(0).getUserName()).isEqualTo("testuser");
+    assertThat(rows.get(0).getProductName()).isEqualTo("Bronze Tier");
+    assertThat(rows.get(0).getNik()).isNull();
+    assertThat(rows.get(0).getBranchId()).isNull();
+  }
+
+  @Test
+  @DisplayName("Should combine search filters and keyset position in one query")
+  void searchSpecifications_shouldFilterAndPage() {
+    // Given
+    User other =
+        User.builder()
+            .username("another")
+            .email("another@example.com")
+            .password("password123")
+            .isActive(true)
+            .build();
+    entityManager.persist(other);
+    for (double amount : new double[] {1000000.0, 2000000.0, 3000000.0}) {
+      entityManager.persist(
+          LoanApplication.builder()
+              .user(testUser)
+              .product(testProduct)
+              .amount(amount)
+              .tenureMonths(12)
+              .interestRateApplied(12.0)
+              .currentStatus("SUBMITTED")
+              .isPaid(false)
+              .build());
+    }
+    entityManager.persist(
+        LoanApplication.builder()
+            .user(other)
+            .product(testProduct)
+            .amount(2500000.0)
+            .tenureMonths(12)
+            .interestRateApplied(12.0)
+            .currentStatus("SUBMITTED")
+            .isPaid(false)
+            .build());
+    entityManager.flush();
+    entityManager.clear();
+
+    LoanSearchRequestDTO criteria =
+        LoanSearchRequestDTO.builder()
+            .applicant("test")
+            .statuses(List.of("SUBMITTED"))
+            .minAmount(1500000.0)
+            .createdFrom(LocalDate.now().minusDays(1))
+            .createdTo(LocalDate.now())
+            .build();
+    Specification<LoanApplication> filters = LoanApplicationSpecifications.matching(criteria);
+    Sort order = Sort.by(Sort.Direction.DESC, "createdAt", "loanApplicationId");
+
+    // When
+    List<LoanApplication> firstPage =
+        loanApplicationRepository.findBy(
+            Specification.where(LoanApplicationSpecifications.withDetails(criteria))
+                .and(filters)
+                .and(LoanApplicationSpecifications.after(Cursor.MAX_CREATED_AT, Long.MAX_VALUE)),
+            query -> query.sortBy(order).limit(1).all());
+    LoanApplication last = firstPage.get(0);
+    List<LoanApplication> secondPage =
+        loanApplicationRepository.findBy(
+            Specification.where(LoanApplicationSpecifications.withDetails(criteria))
+                .and(filters)
+                .and(
+                    LoanApplicationSpecifications.after(
+                        last.getCreatedAt(), last.getLoanApplicationId())),
+            query -> query.sortBy(order).limit(10).all());
+
+    // Then
+    assertThat(loanApplicationRepository.count(filters)).isEqualTo(2);
+    assertThat(firstPage).hasSize(1);
+    assertThat(secondPage).hasSize(1);
+    assertThat(List.of(firstPage.get(0).getAmount(), secondPage.get(0).getAmount()))
+        .containsExactlyInAnyOrder(2000000.0, 3000000.0);
+    assertThat(secondPage.get(0).getUser().getUsername()).isEqualTo("testuser");
+  }
+
+  @Test
+  @DisplayName("Prefix search on NIK should seek the index instead of scanning")
+  void nikPrefixSearch_shouldUseIndex() {
+    // Given: the statement the admin search specifications produce, captured as Hibernate sends it
+    LoanSearchRequestDTO criteria = LoanSearchRequestDTO.builder().nik("3174").build();
+    RecordingStatementInspector.clear();
+    loanApplicationRepository.findAll(
+        Specification.where(LoanApplicationSpecifications.withDetails(criteria))
+            .and(LoanApplicationSpecifications.matching(criteria)));
+    String sql = RecordingStatementInspector.last();
+
+    // When: EXPLAIN it with the prefix bound the way the search binds it
+    String plan =
+        entityManager
+            .getEntityManager()
+            .unwrap(Session.class)
+            .doReturningWork(
+                connection -> {
+                  try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+                    explain.setString(1, "3174%");
+                    try (ResultSet rs = explain.executeQuery()) {
+                      rs.next();
+                      return rs.getString(1);
+                    }
+                  }
+                });
+
+    // Then: H2 turns the bound prefix into an index range; a scan would show no bound on NIK
+    assertThat(sql).containsIgnoringCase("nik like ? escape");
+    assertThat(plan).containsIgnoringCase("NIK >= '3174'");
+    assertThat(plan).doesNotContainIgnoringCase("LOAN_APPLICATIONS.tableScan");
+  }
+
+  @Test
+  @DisplayName("Should report when each waiting loan entered its current status")
+  void findQueueEntries_shouldUseLatestHistoryIntoCurrentStatus() {
+    // Given
+    LoanApplication reviewed =
+        LoanApplication.builder()
+            .user(testUser)
+            .product(testProduct)
+            .amount(1000000.0)
+            .tenureMonths(12)
+            .interestRateApplied(12.0)
+            .currentStatus("IN_REVIEW")
+            .isPaid(false)
+            .build();
+    entityManager.persist(reviewed);
+    LoanApplication legacy =
+        LoanApplication.builder()
+            .user(testUser)
+            .product(testProduct)
+            .amount(2000000.0)
+            .tenureMonths(12)
+            .interestRateApplied(12.0)
+            .currentStatus("SUBMITTED")
+            .isPaid(false)
+            .build();
+    entityManager.persist(legacy);
+    entityManager.persist(
+        LoanHistory.builder()
+            .loanApplication(reviewed)
+            .actorUser(testUser)
+            .action("COMMENT")
+            .fromStatus("SUBMITTED")
+            .toStatus("IN_REVIEW")
+            .build());
+    entityManager.flush();
+
+    // When
+    List<Object[]> rows =
+        loanApplicationRepository.findQueueEntries(List.of("SUBMITTED", "IN_REVIEW"));
+
+    // Then
+    assertThat(rows).hasSize(2);
+    Object[] reviewedRow =
+        rows.stream().filter(r -> reviewed.getLoanApplicationId().equals(r[0])).findFirst().get();
+    Object[] legacyRow =
+        rows.stream().filter(r -> legacy.getLoanApplicationId().equals(r[0])).findFirst().get();
+    assertThat(reviewedRow[2]).isEqualTo("IN_REVIEW");
+    assertThat(reviewedRow[4]).isNotNull();
+    assertThat(legacyRow[4]).isNull();
+  }
+
+  @Test
+  @DisplayName("Should backfill milestone timestamps from the first history entry per status")
+  void backfillMilestones_shouldUseFirstTransition() {
+    // Given
+    LoanApplication loan =
+        LoanApplication.builder()
+            .user(testUser)
+            .product(testProduct)
+            .amount(1000000.0)
+            .tenureMonths(12)
+            .interestRateApplied(12.0)
+            .currentStatus("WAITING_APPROVAL")
+            .isPaid(false)
+            .build();
+    entityManager.persist(loan);
+    entityManager.persist(
+        LoanHistory.builder()
+            .loanApplication(loan)
+            .actorUser(testUser)
+            .action("COMMENT")
+            .fromStatus("SUBMITTED")
+            .toStatus("IN_REVIEW")
+            .build());
+    entityManager.persist(
+        LoanHistory.builder()
+            .loanApplication(loan)
+            .actorUser(testUser)
+            .action("FORWARD_TO_MANAGER")
+            .fromStatus("IN_REVIEW")
+            .toStatus("WAITING_APPROVAL")
+            .build());
+    entityManager.flush();
+
+    // When
+    int updated =
+        loanApplicationRepository.backfillInReviewAt()
+            + loanApplicationRepository.backfillWaitingApprovalAt()
+            + loanApplicationRepository.backfillApprovedAt()
+            + loanApplicationRepository.backfillDisbursedAt();
+    entityManager.clear();
+
+    // Then
+    assertThat(updated).isEqualTo(2);
+    LoanApplicationRepository.LoanMilestoneRow row =
+        loanApplicationRepository.findMilestones(loan.getLoanApplicationId()).orElseThrow();
+    assertThat(row.getCurrentStatus()).isEqualTo("WAITING_APPROVAL");
+    assertThat(row.getInReviewAt()).isNotNull();
+    assertThat(row.getWaitingApprovalAt()).isAfterOrEqualTo(row.getInReviewAt());
+    assertThat(row.getApprovedAt()).isNull();
+    assertThat(loanApplicationRepository.backfillInReviewAt()).isZero();
+  }
 }
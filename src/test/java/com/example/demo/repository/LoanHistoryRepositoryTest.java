@@ -2,18 +2,33 @@ package com.example.demo.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.example.demo.base.ApproximateCountCache;
+import com.example.demo.dto.BatchJobStatusDTO;
+import com.example.demo.dto.CommentSearchHitDTO;
+import com.example.demo.entity.Branch;
 import com.example.demo.entity.LoanApplication;
 import com.example.demo.entity.LoanHistory;
+import com.example.demo.entity.LoanHistoryArchive;
 import com.example.demo.entity.Product;
 import com.example.demo.entity.User;
+import com.example.demo.entity.UserProfile;
+import com.example.demo.repository.LoanHistoryRepository.ActionHistoryRow;
+import com.example.demo.service.LoanCommentSearchService;
+import com.example.demo.service.LoanHistoryArchiveService;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
 /**
@@ -22,6 +37,11 @@ import org.springframework.test.context.ActiveProfiles;
  * <p>Tests repository methods for loan history tracking and audit trail.
  */
 @DataJpaTest
+@Import({
+  LoanHistoryArchiveService.class,
+  LoanCommentSearchService.class,
+  ApproximateCountCache.class
+})
 @ActiveProfiles("test")
 class LoanHistoryRepositoryTest {
 
@@ -29,6 +49,12 @@ class LoanHistoryRepositoryTest {
 
   @Autowired private LoanHistoryRepository loanHistoryRepository;
 
+  @Autowired private LoanHistoryArchiveRepository loanHistoryArchiveRepository;
+
+  @Autowired private LoanHistoryArchiveService loanHistoryArchiveService;
+
+  @Autowired private LoanCommentSearchService loanCommentSearchService;
+
   private User testUser;
   private Product testProduct;
   private LoanApplication testLoan;
@@ -175,4 +201,271 @@ class LoanHistoryRepositoryTest {
     assertThat(histories).hasSize(1);
     assertThat(histories.get(0).getActorUser().getUsername()).isEqualTo("testuser");
   }
+
+  @Test
+  @DisplayName("Should seek the actor/action index for a monthly action history range")
+  void findByActorAndActionsBetween_shouldSeekActorActionIndex() {
+    // Given: a few years of mixed history for two actors, inserted set-wise
+    User otherActor =
+        User.builder()
+            .username("otheractor")
+            .email("other@example.com")
+            .password("password123")
+            .isActive(true)
+            .build();
+    entityManager.persist(otherActor);
+    entityManager.flush();
+    entityManager
+        .getEntityManager()
+        .createNativeQuery(
+            "INSERT INTO loan_history"
+                + " (loan_application_id, actor_user_id, action, to_status, created_at)"
+                + " SELECT ?1, CASE WHEN MOD(x, 4) = 0 THEN ?2 ELSE ?3 END,"
+                + " CASE MOD(x, 3) WHEN 0 THEN 'APPROVE' WHEN 1 THEN 'COMMENT' ELSE 'REJECT' END,"
+                + " 'IN_REVIEW', DATEADD('HOUR', -x, TIMESTAMP '2025-01-01 00:00:00')"
+                + " FROM SYSTEM_RANGE(1, 20000)")
+        .setParameter(1, testLoan.getLoanApplicationId())
+        .setParameter(2, testUser.getId())
+        .setParameter(3, otherActor.getId())
+        .executeUpdate();
+
+    // When
+    String plan =
+        String.valueOf(
+            entityManager
+                .getEntityManager()
+                .createNativeQuery(
+                    "EXPLAIN SELECT * FROM loan_history WHERE actor_user_id = "
+                        + testUser.getId()
+                        + " AND action IN ('APPROVE', 'REJECT')"
+                        + " AND created_at >= TIMESTAMP '2024-03-01 00:00:00'"
+                        + " AND created_at < TIMESTAMP '2024-04-01 00:00:00'"
+                        + " ORDER BY created_at DESC")
+                .getSingleResult());
+    Page<ActionHistoryRow> march =
+        loanHistoryRepository.findByActorAndActionsBetween(
+            testUser.getId(),
+            List.of("APPROVE", "REJECT"),
+            LocalDateTime.of(2024, 3, 1, 0, 0),
+            LocalDateTime.of(2024, 4, 1, 0, 0),
+            PageRequest.of(0, 10));
+
+    // Then: the range is bounded within the index rather than filtered after a scan
+    assertThat(plan).containsIgnoringCase("IDX_LOAN_HISTORY_ACTOR_ACTION_CREATED");
+    assertThat(plan).containsIgnoringCase("CREATED_AT >= TIMESTAMP '2024-03-01");
+    // 744 hours in March, every 4th by this actor, two of three actions
+    assertThat(march.getTotalElements()).isEqualTo(124);
+    assertThat(march.getContent())
+        .hasSize(10)
+        .allSatisfy(h -> assertThat(h.getCreatedAt()).hasMonthValue(3).hasYear(2024));
+    assertThat(march.getContent().get(0).getCreatedAt())
+        .isAfterOrEqualTo(march.getContent().get(9).getCreatedAt());
+  }
+
+  @Test
+  @DisplayName("Should move history of long-closed loans to the archive and keep open loans live")
+  void archive_shouldMoveClosedLoanHistoryOnly() {
+    // Given: the test loan was rejected a year ago, a second loan is still in review
+    LoanApplication openLoan =
+        LoanApplication.builder()
+            .user(testUser)
+            .product(testProduct)
+            .amount(1000000.0)
+            .tenureMonths(6)
+            .interestRateApplied(12.0)
+            .currentStatus("IN_REVIEW")
+            .isPaid(false)
+            .build();
+    entityManager.persist(openLoan);
+    for (String action : List.of("SUBMIT", "REJECT")) {
+      entityManager.persist(
+          LoanHistory.builder()
+              .loanApplication(testLoan)
+              .actorUser(testUser)
+              .action(action)
+              .toStatus(action.equals("SUBMIT") ? "SUBMITTED" : "REJECTED")
+              .build());
+    }
+    entityManager.persist(
+        LoanHistory.builder()
+            .loanApplication(openLoan)
+            .actorUser(testUser)
+            .action("SUBMIT")
+            .toStatus("SUBMITTED")
+            .build());
+    entityManager.flush();
+    entityManager
+        .getEntityManager()
+        .createNativeQuery(
+            "UPDATE loan_applications SET current_status = 'REJECTED',"
+                + " updated_at = DATEADD('YEAR', -1, CURRENT_TIMESTAMP)"
+                + " WHERE loan_application_id = ?1")
+        .setParameter(1, testLoan.getLoanApplicationId())
+        .executeUpdate();
+
+    // When: archived twice, the second run finding nothing left to move
+    BatchJobStatusDTO first = loanHistoryArchiveService.archive();
+    BatchJobStatusDTO second = loanHistoryArchiveService.archive();
+    entityManager.clear();
+
+    // Then
+    assertThat(first.getStatus()).isEqualTo("COMPLETED");
+    assertThat(first.getAffectedCount()).isEqualTo(2);
+    assertThat(second.getAffectedCount()).isZero();
+    assertThat(
+            loanHistoryRepository.findByLoanApplication_LoanApplicationIdOrderByCreatedAtDesc(
+                testLoan.getLoanApplicationId()))
+        .isEmpty();
+    assertThat(
+            loanHistoryArchiveRepository
+                .findByLoanApplication_LoanApplicationIdOrderByCreatedAtDesc(
+                    testLoan.getLoanApplicationId()))
+        .extracting(LoanHistoryArchive::getAction)
+        .containsExactlyInAnyOrder("SUBMIT", "REJECT");
+    assertThat(
+            loanHistoryRepository.findByLoanApplication_LoanApplicationIdOrderByCreatedAtDesc(
+                openLoan.getLoanApplicationId()))
+        .hasSize(1);
+    assertThat(
+            loanHistoryArchiveRepository.countByActorAndActionsBetween(
+                testUser.getId(),
+                List.of("REJECT"),
+                LocalDateTime.of(1900, 1, 1, 0, 0),
+                LocalDateTime.of(9999, 1, 1, 0, 0)))
+        .isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName(
+      "Should read a page of action history with its loan, applicant and actor in one query")
+  void findByActorAndActions_shouldProjectPageInSingleStatement() {
+    // Given: 25 comments by one actor on loans of different applicants
+    for (int i = 0; i < 25; i++) {
+      User applicant =
+          User.builder()
+              .username("applicant" + i)
+              .email("applicant" + i + "@example.com")
+              .password("password123")
+              .isActive(true)
+              .build();
+      entityManager.persist(applicant);
+      entityManager.persist(
+          UserProfile.builder().user(applicant).nik("3174" + i).phoneNumber("0812" + i).build());
+      LoanApplication loan =
+          LoanApplication.builder()
+              .user(applicant)
+              .product(testProduct)
+              .amount(1000000.0 + i)
+              .tenureMonths(6)
+              .interestRateApplied(12.0)
+              .currentStatus("IN_REVIEW")
+              .isPaid(false)
+              .build();
+      entityManager.persist(loan);
+      entityManager.persist(
+          LoanHistory.builder()
+              .loanApplication(loan)
+              .actorUser(testUser)
+              .action("COMMENT")
+              .comment("Reviewed " + i)
+              .fromStatus("SUBMITTED")
+              .toStatus("IN_REVIEW")
+              .build());
+    }
+    entityManager.flush();
+    entityManager.clear();
+
+    Statistics statistics =
+        entityManager
+            .getEntityManager()
+            .getEntityManagerFactory()
+            .unwrap(SessionFactory.class)
+            .getStatistics();
+    statistics.setStatisticsEnabled(true);
+    statistics.clear();
+
+    // When
+    Page<ActionHistoryRow> page =
+        loanHistoryRepository.findByActorAndActions(
+            testUser.getId(), List.of("COMMENT", "REJECT"), PageRequest.of(0, 20));
+    page.getContent()
+        .forEach(
+            row -> {
+              row.getUserNik();
+              row.getProductName();
+              row.getActorUsername();
+            });
+
+    // Then: the page and its count, nothing per row
+    assertThat(page.getTotalElements()).isEqualTo(25);
+    assertThat(page.getContent()).hasSize(20);
+    ActionHistoryRow first = page.getContent().get(0);
+    assertThat(first.getUsername()).startsWith("applicant");
+    assertThat(first.getUserNik()).startsWith("3174");
+    assertThat(first.getProductName()).isEqualTo("Bronze Tier");
+    assertThat(first.getActorUsername()).isEqualTo("testuser");
+    assertThat(first.getComment()).startsWith("Reviewed");
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    statistics.setStatisticsEnabled(false);
+  }
+
+  @Test
+  @DisplayName("Should rank indexed comments by matched terms and filter by branch")
+  void commentSearch_shouldRankByMatchedTermsWithinBranch() {
+    // Given
+    Branch jakarta = Branch.builder().code("JKT").name("Jakarta").isActive(true).build();
+    Branch bandung = Branch.builder().code("BDG").name("Bandung").isActive(true).build();
+    entityManager.persist(jakarta);
+    entityManager.persist(bandung);
+    testLoan.setBranch(jakarta);
+    LoanApplication otherBranchLoan =
+        LoanApplication.builder()
+            .user(testUser)
+            .product(testProduct)
+            .branch(bandung)
+            .amount(1000000.0)
+            .tenureMonths(6)
+            .interestRateApplied(12.0)
+            .currentStatus("IN_REVIEW")
+            .isPaid(false)
+            .build();
+    entityManager.persist(otherBranchLoan);
+    LoanHistory both = comment(testLoan, "Slip gaji tidak sesuai, gaji dicek ulang ke HRD");
+    LoanHistory one = comment(testLoan, "Dokumen slip lengkap");
+    comment(testLoan, "Rumah sesuai alamat KTP");
+    comment(otherBranchLoan, "Slip gaji palsu");
+
+    // When
+    List<CommentSearchHitDTO> hits =
+        loanCommentSearchService.search("SLIP gaji", jakarta.getId(), null, null, 10);
+    List<CommentSearchHitDTO> future =
+        loanCommentSearchService.search(
+            "slip", jakarta.getId(), LocalDate.now().plusDays(1), null, 10);
+
+    // Then: both terms (gaji twice) first, the single-term match next, other branch left out
+    assertThat(hits)
+        .extracting(CommentSearchHitDTO::getLoanHistoryId)
+        .containsExactly(both.getLoanHistoryId(), one.getLoanHistoryId());
+    assertThat(hits.get(0).getMatchedTerms()).isEqualTo(2);
+    assertThat(hits.get(0).getScore()).isGreaterThan(hits.get(1).getScore());
+    assertThat(hits.get(0).getActorUsername()).isEqualTo("testuser");
+    assertThat(hits.get(0).getComment()).startsWith("Slip gaji");
+    assertThat(future).isEmpty();
+  }
+
+  private LoanHistory comment(LoanApplication loan, String text) {
+    LoanHistory history =
+        LoanHistory.builder()
+            .loanApplication(loan)
+            .actorUser(testUser)
+            .action("COMMENT")
+            .comment(text)
+            .fromStatus("IN_REVIEW")
+            .toStatus("IN_REVIEW")
+            .build();
+    entityManager.persist(history);
+    entityManager.flush();
+    loanCommentSearchService.index(history);
+    return history;
+  }
 }
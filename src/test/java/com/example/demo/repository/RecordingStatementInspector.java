@@ -0,0 +1,26 @@
+package com.example.demo.repository;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/** Records the SQL Hibernate prepares, so tests can inspect or EXPLAIN the exact statement. */
+public class RecordingStatementInspector implements StatementInspector {
+
+  private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+  @Override
+  public String inspect(String sql) {
+    STATEMENTS.add(sql);
+    return sql;
+  }
+
+  public static void clear() {
+    STATEMENTS.clear();
+  }
+
+  /** The most recently prepared statement. */
+  public static String last() {
+    return STATEMENTS.get(STATEMENTS.size() - 1);
+  }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.example.demo.base.ApproximateCountCache;
+import com.example.demo.dto.ActionHistoryDTO;
+import com.example.demo.dto.ActionHistoryRequestDTO;
+import com.example.demo.exception.BusinessException;
+import com.example.demo.repository.LoanHistoryArchiveRepository;
+import com.example.demo.repository.LoanHistoryRepository;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+@ExtendWith(MockitoExtension.class)
+class ActionHistoryServiceTest {
+
+  private static final Long ACTOR_ID = 7L;
+
+  @Mock private LoanHistoryRepository loanHistoryRepository;
+  @Mock private LoanHistoryArchiveRepository loanHistoryArchiveRepository;
+  @Mock private ApproximateCountCache countCache;
+
+  @InjectMocks private ActionHistoryService actionHistoryService;
+
+  @Test
+  void getMarketingHistory_WithArchive_ShouldMergeUpToTheDepthCap() {
+    // Arrange: the last page whose rows all lie within the cap
+    int size = 20;
+    int page = ActionHistoryService.MAX_MERGED_OFFSET / size - 1;
+    when(loanHistoryArchiveRepository.countByActorAndActionsBetween(
+            eq(ACTOR_ID), anyList(), any(), any()))
+        .thenReturn(5L);
+    when(loanHistoryRepository.findByActorAndActionsBetween(
+            eq(ACTOR_ID), anyList(), any(), any(), any()))
+        .thenReturn(new PageImpl<>(List.of()));
+    when(loanHistoryArchiveRepository.findByActorAndActionsBetween(
+            eq(ACTOR_ID), anyList(), any(), any(), any()))
+        .thenReturn(List.of());
+
+    // Act
+    Page<ActionHistoryDTO> result =
+        actionHistoryService.getMarketingHistory(ACTOR_ID, request(page, size));
+
+    // Assert
+    assertEquals(5L, result.getTotalElements());
+    verify(loanHistoryRepository)
+        .findByActorAndActionsBetween(
+            eq(ACTOR_ID),
+            anyList(),
+            any(),
+            any(),
+            eq(PageRequest.of(0, ActionHistoryService.MAX_MERGED_OFFSET)));
+  }
+
+  @Test
+  void getMarketingHistory_WithArchive_ShouldRejectPagesBeyondTheCapWithoutReadingRows() {
+    // Arrange
+    int size = 20;
+    int page = ActionHistoryService.MAX_MERGED_OFFSET / size;
+    when(loanHistoryArchiveRepository.countByActorAndActionsBetween(
+            eq(ACTOR_ID), anyList(), any(), any()))
+        .thenReturn(5L);
+
+    // Act & Assert
+    BusinessException error =
+        assertThrows(
+            BusinessException.class,
+            () -> actionHistoryService.getMarketingHistory(ACTOR_ID, request(page, size)));
+    assertEquals("PAGE_TOO_DEEP", error.getErrorCode());
+    verify(loanHistoryRepository, never())
+        .findByActorAndActionsBetween(any(), anyList(), any(), any(), any());
+    verify(loanHistoryArchiveRepository, never())
+        .findByActorAndActionsBetween(any(), anyList(), any(), any(), any());
+  }
+
+  private static ActionHistoryRequestDTO request(int page, int size) {
+    return ActionHistoryRequestDTO.builder().page(page).size(size).build();
+  }
+}
@@ -10,17 +10,23 @@ import com.example.demo.entity.LoanApplication;
 import com.example.demo.entity.Product;
 import com.example.demo.entity.User;
 import com.example.demo.entity.UserProfile;
+import com.example.demo.enums.ExportFormat;
 import com.example.demo.enums.LoanStatus;
 import com.example.demo.repository.LoanApplicationRepository;
 import com.example.demo.repository.UserProfileRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -32,6 +38,7 @@ class AdminLoanServiceTest {
 
   @Mock private LoanApplicationRepository loanApplicationRepository;
   @Mock private UserProfileRepository userProfileRepository;
+  @Spy private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
 
   @InjectMocks private AdminLoanService adminLoanService;
 
@@ -161,4 +168,52 @@ class AdminLoanServiceTest {
   void determineBucket_ShouldReturnUnknown_ForUnknownStatus() {
     assertEquals("UNKNOWN", adminLoanService.determineBucket("SOME_UNKNOWN_STATUS"));
   }
+
+  @Test
+  void exportLoanApplications_Csv_ShouldQuoteValuesWithSeparators() throws Exception {
+    // Arrange
+    LoanApplicationRepository.AdminLoanExportRow row =
+        mock(LoanApplicationRepository.AdminLoanExportRow.class);
+    when(row.getLoanApplicationId()).thenReturn(7L);
+    when(row.getUserName()).thenReturn("Doe, \"JD\"");
+    when(row.getCurrentStatus()).thenReturn(LoanStatus.IN_REVIEW.name());
+    when(loanApplicationRepository.streamForAdminExport()).thenReturn(Stream.of(row));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // Act
+    long written = adminLoanService.exportLoanApplications(ExportFormat.CSV, out);
+
+    // Assert
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+    assertEquals(1, written);
+    assertEquals(2, lines.length);
+    assertTrue(lines[0].startsWith("loanApplicationId,amount,"));
+    assertTrue(lines[1].startsWith("7,"));
+    assertTrue(lines[1].contains(",\"Doe, \"\"JD\"\"\",,"));
+    assertTrue(lines[1].contains(",IN_REVIEW,In Review,MARKETING,"));
+    verifyNoInteractions(userProfileRepository);
+  }
+
+  @Test
+  void exportLoanApplications_Ndjson_ShouldWriteOneObjectPerLine() throws Exception {
+    // Arrange
+    LoanApplicationRepository.AdminLoanExportRow first =
+        mock(LoanApplicationRepository.AdminLoanExportRow.class);
+    when(first.getLoanApplicationId()).thenReturn(2L);
+    LoanApplicationRepository.AdminLoanExportRow second =
+        mock(LoanApplicationRepository.AdminLoanExportRow.class);
+    when(second.getLoanApplicationId()).thenReturn(1L);
+    when(loanApplicationRepository.streamForAdminExport()).thenReturn(Stream.of(first, second));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // Act
+    long written = adminLoanService.exportLoanApplications(ExportFormat.NDJSON, out);
+
+    // Assert
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+    assertEquals(2, written);
+    assertEquals(2, lines.length);
+    assertEquals(2L, objectMapper.readTree(lines[0]).get("loanApplicationId").asLong());
+    assertEquals(1L, objectMapper.readTree(lines[1]).get("loanApplicationId").asLong());
+  }
 }
@@ -0,0 +1,136 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.example.demo.entity.Branch;
+import com.example.demo.entity.LoanApplication;
+import com.example.demo.entity.Product;
+import com.example.demo.entity.User;
+import com.example.demo.repository.BranchRepository;
+import com.example.demo.repository.DailyLoanStatRepository;
+import com.example.demo.repository.LoanApplicationRepository;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.DailyLoanStatsService.LoanFacts;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/** Integration tests for {@link DailyLoanStatsService}. */
+@SpringBootTest
+@ActiveProfiles("test")
+class DailyLoanStatsServiceTest {
+
+  @Autowired private DailyLoanStatsService dailyLoanStatsService;
+  @Autowired private DailyLoanStatRepository dailyLoanStatRepository;
+  @Autowired private LoanApplicationRepository loanApplicationRepository;
+  @Autowired private UserRepository userRepository;
+  @Autowired private ProductRepository productRepository;
+  @Autowired private BranchRepository branchRepository;
+  @Autowired private TransactionTemplate transactionTemplate;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private User user;
+  private Branch branch;
+
+  @AfterEach
+  void tearDown() {
+    if (user != null) {
+      loanApplicationRepository.deleteAll(loanApplicationRepository.findByUser_Id(user.getId()));
+      userRepository.delete(user);
+    }
+    if (branch != null) {
+      jdbcTemplate.update("DELETE FROM daily_loan_stats WHERE branch_id = ?", branch.getId());
+      branchRepository.delete(branch);
+    }
+  }
+
+  @Test
+  void recordedDeltas_ShouldMatchBackfill() {
+    Product bronze = productRepository.findByTierOrderAndDeletedFalse(1).orElseThrow();
+    user =
+        userRepository.save(
+            User.builder().username("daily-loan-stats").email("daily-stats@example.com").build());
+    branch =
+        branchRepository.save(
+            Branch.builder().code("DLS").name("Daily Stats").isActive(true).build());
+    LoanApplication submitted = saveLoan(bronze, 100.0, "APPROVED_WAITING_DISBURSEMENT");
+    LoanApplication disbursed = saveLoan(bronze, 200.0, "DISBURSED");
+
+    assertThat(dailyLoanStatsService.rebuild().getStatus()).isEqualTo("COMPLETED");
+    assertThat(branchTotals())
+        .containsExactlyInAnyOrder(
+            tuple("APPROVED_WAITING_DISBURSEMENT", 1L, 100.0, 0L, 0.0),
+            tuple("DISBURSED", 1L, 200.0, 1L, 200.0));
+
+    // Disburse one loan, pay the other and submit a third, recording deltas as the services do
+    transactionTemplate.executeWithoutResult(
+        tx -> {
+          LoanFacts before = LoanFacts.of(submitted);
+          submitted.setCurrentStatus("DISBURSED");
+          submitted.setDisbursedAt(LocalDateTime.now());
+          dailyLoanStatsService.recordChange(
+              before, LoanFacts.of(loanApplicationRepository.save(submitted)));
+
+          before = LoanFacts.of(disbursed);
+          disbursed.setCurrentStatus("PAID");
+          dailyLoanStatsService.recordChange(
+              before, LoanFacts.of(loanApplicationRepository.save(disbursed)));
+
+          dailyLoanStatsService.recordChange(
+              null, LoanFacts.of(saveLoan(bronze, 50.0, "SUBMITTED")));
+        });
+    List<Tuple> disbursedPaidSubmitted =
+        List.of(
+            tuple("DISBURSED", 1L, 100.0, 2L, 300.0),
+            tuple("PAID", 1L, 200.0, 0L, 0.0),
+            tuple("SUBMITTED", 1L, 50.0, 0L, 0.0));
+    // The emptied row stays, at zero, until the next backfill
+    assertThat(branchTotals())
+        .containsAll(disbursedPaidSubmitted)
+        .contains(tuple("APPROVED_WAITING_DISBURSEMENT", 0L, 0.0, 0L, 0.0))
+        .hasSize(4);
+
+    dailyLoanStatsService.rebuild();
+    assertThat(branchTotals()).containsExactlyInAnyOrderElementsOf(disbursedPaidSubmitted);
+  }
+
+  private List<Tuple> branchTotals() {
+    LocalDate today = LocalDate.now();
+    return dailyLoanStatRepository.summarizeByBranchBetween(today, today.plusDays(1)).stream()
+        .filter(row -> row.getDimensionId().equals(branch.getId()))
+        .map(
+            row ->
+                tuple(
+                    row.getStatus(),
+                    row.getLoanCount(),
+                    row.getAmount(),
+                    row.getDisbursedCount(),
+                    row.getDisbursedAmount()))
+        .toList();
+  }
+
+  private LoanApplication saveLoan(Product product, double amount, String status) {
+    return loanApplicationRepository.save(
+        LoanApplication.builder()
+            .user(user)
+            .product(product)
+            .branch(branch)
+            .amount(amount)
+            .tenureMonths(6)
+            .interestRateApplied(0.0)
+            .totalAmountToPay(amount)
+            .currentStatus(status)
+            .disbursedAt("DISBURSED".equals(status) ? LocalDateTime.now() : null)
+            .build());
+  }
+}
@@ -0,0 +1,173 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.example.demo.dto.dashboard.ExecutiveDashboardDTO;
+import com.example.demo.dto.dashboard.LoanStatsBreakdownDTO;
+import com.example.demo.entity.Branch;
+import com.example.demo.repository.BranchRepository;
+import com.example.demo.repository.DailyLoanStatRepository;
+import com.example.demo.repository.DailyLoanStatRepository.DimensionTotalsRow;
+import com.example.demo.repository.DailyLoanStatRepository.DisbursementTrendRow;
+import com.example.demo.repository.DailyLoanStatRepository.StatusTotalsRow;
+import com.example.demo.repository.ProductRepository;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardServiceTest {
+
+  @Mock private DailyLoanStatRepository dailyLoanStatRepository;
+  @Mock private BranchRepository branchRepository;
+  @Mock private ProductRepository productRepository;
+
+  @InjectMocks private DashboardService dashboardService;
+
+  @Test
+  void getExecutiveDashboard_ShouldBuildEverythingFromTwoGroupedQueries() {
+    // Arrange
+    when(dailyLoanStatRepository.summarizeByStatusBetween(
+            LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1)))
+        .thenReturn(
+            List.of(
+                totals("DISBURSED", 3, 3000.0, 3300.0),
+                totals("APPROVED_WAITING_DISBURSEMENT", 1, 500.0, 550.0),
+                totals("REJECTED", 1, 800.0, 880.0),
+                totals("PAID", 2, 2000.0, 2400.0),
+                totals("IN_REVIEW", 4, 900.0, 990.0)));
+    when(dailyLoanStatRepository.findMonthlyDisbursementTrend())
+        .thenReturn(
+            List.of(trend(2024, 12, 700.0), trend(2025, 1, 1000.0), trend(2025, 2, 2000.0)));
+
+    // Act
+    ExecutiveDashboardDTO dashboard = dashboardService.getExecutiveDashboard(2025);
+
+    // Assert
+    assertEquals(11L, dashboard.getTotalApplications());
+    assertEquals(3L, dashboard.getStatusCounts().get("DISBURSED"));
+    assertEquals(0L, dashboard.getStatusCounts().get("SUBMITTED"));
+    assertEquals(80.0, dashboard.getApprovalRate(), 1e-9);
+    assertEquals(3000.0, dashboard.getTotalDisbursedAmount(), 1e-9);
+    assertEquals(400.0, dashboard.getTotalInterestEarned(), 1e-9);
+    assertEquals(3000.0, dashboard.getOutstandingPrincipal(), 1e-9);
+    assertEquals(300.0, dashboard.getPotentialRevenue(), 1e-9);
+    assertEquals(700.0, dashboard.getDisbursementTrend().getYearlyTrend().get(2024), 1e-9);
+    assertEquals(3000.0, dashboard.getDisbursementTrend().getYearlyTrend().get(2025), 1e-9);
+    assertEquals(2000.0, dashboard.getDisbursementTrend().getMonthlyStats().get("FEBRUARY"), 1e-9);
+    assertEquals(0.0, dashboard.getDisbursementTrend().getMonthlyStats().get("DECEMBER"), 1e-9);
+    verify(dailyLoanStatRepository).summarizeByStatusBetween(any(), any());
+    verify(dailyLoanStatRepository).findMonthlyDisbursementTrend();
+    verifyNoMoreInteractions(dailyLoanStatRepository);
+  }
+
+  @Test
+  void getBranchBreakdown_ShouldFoldStatusRowsPerBranch() {
+    // Arrange
+    LocalDate from = LocalDate.of(2025, 1, 1);
+    LocalDate to = LocalDate.of(2025, 2, 1);
+    when(dailyLoanStatRepository.summarizeByBranchBetween(from, to))
+        .thenReturn(
+            List.of(
+                dimension(7L, "DISBURSED", 2, 2000.0, 2, 2000.0),
+                dimension(7L, "SUBMITTED", 1, 500.0, 0, 0.0),
+                dimension(0L, "PAID", 1, 300.0, 0, 0.0)));
+    when(branchRepository.findAllById(any()))
+        .thenReturn(List.of(Branch.builder().id(7L).name("Jakarta").build()));
+
+    // Act
+    List<LoanStatsBreakdownDTO> branches = dashboardService.getBranchBreakdown(from, to);
+
+    // Assert
+    assertEquals(2, branches.size());
+    assertEquals("No branch", branches.get(0).getName());
+    LoanStatsBreakdownDTO jakarta = branches.get(1);
+    assertEquals("Jakarta", jakarta.getName());
+    assertEquals(3L, jakarta.getTotalApplications());
+    assertEquals(2500.0, jakarta.getTotalPrincipal(), 1e-9);
+    assertEquals(1L, jakarta.getStatusCounts().get("SUBMITTED"));
+    assertEquals(2L, jakarta.getDisbursedCount());
+    assertEquals(2000.0, jakarta.getDisbursedAmount(), 1e-9);
+  }
+
+  private static StatusTotalsRow totals(
+      String status, long count, double amount, double totalAmountToPay) {
+    return new StatusTotalsRow() {
+      public String getStatus() {
+        return status;
+      }
+
+      public Long getLoanCount() {
+        return count;
+      }
+
+      public Double getAmount() {
+        return amount;
+      }
+
+      public Double getTotalAmountToPay() {
+        return totalAmountToPay;
+      }
+    };
+  }
+
+  private static DimensionTotalsRow dimension(
+      long id,
+      String status,
+      long count,
+      double amount,
+      long disbursedCount,
+      double disbursedAmount) {
+    return new DimensionTotalsRow() {
+      public Long getDimensionId() {
+        return id;
+      }
+
+      public String getStatus() {
+        return status;
+      }
+
+      public Long getLoanCount() {
+        return count;
+      }
+
+      public Double getAmount() {
+        return amount;
+      }
+
+      public Double getTotalAmountToPay() {
+        return amount * 1.1;
+      }
+
+      public Long getDisbursedCount() {
+        return disbursedCount;
+      }
+
+      public Double getDisbursedAmount() {
+        return disbursedAmount;
+      }
+    };
+  }
+
+  private static DisbursementTrendRow trend(int year, int month, double amount) {
+    return new DisbursementTrendRow() {
+      public Integer getYear() {
+        return year;
+      }
+
+      public Integer getMonth() {
+        return month;
+      }
+
+      public Double getAmount() {
+        return amount;
+      }
+    };
+  }
+}
@@ -0,0 +1,116 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.example.demo.dto.dashboard.ExecutiveDashboardDTO;
+import com.example.demo.event.LoansPaidEvent;
+import java.time.Year;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@ExtendWith(MockitoExtension.class)
+class ExecutiveDashboardCacheTest {
+
+  private static final int CLOSED_YEAR = 2020;
+
+  @Mock private DashboardService dashboardService;
+
+  private ExecutiveDashboardCache cache;
+
+  @AfterEach
+  void tearDown() {
+    cache.shutdown();
+  }
+
+  @Test
+  void get_ShouldComputeOnce_ThenServeStaleWhileRefreshingAfterInvalidation() {
+    // Arrange: a closed year, so only invalidation makes it stale
+    cache = cache(30_000, 3_600_000);
+    when(dashboardService.getExecutiveDashboard(CLOSED_YEAR))
+        .thenReturn(dashboard(1L))
+        .thenReturn(dashboard(2L));
+
+    // Act & Assert: the first read computes, the next ones are cache hits
+    ExecutiveDashboardDTO first = cache.get(CLOSED_YEAR);
+    ExecutiveDashboardDTO second = cache.get(CLOSED_YEAR);
+    assertEquals(1L, first.getTotalApplications());
+    assertFalse(first.isStale());
+    assertNotNull(first.getGeneratedAt());
+    assertEquals(1L, second.getTotalApplications());
+    assertFalse(second.isStale());
+    assertTrue(second.getCacheAgeMillis() >= 0);
+    verify(dashboardService, times(1)).getExecutiveDashboard(CLOSED_YEAR);
+
+    // After a payment the old figures are served, flagged stale, while one refresh runs
+    cache.onLoansPaid(new LoansPaidEvent(List.of(1L)));
+    ExecutiveDashboardDTO stale = cache.get(CLOSED_YEAR);
+    assertEquals(1L, stale.getTotalApplications());
+    assertTrue(stale.isStale());
+    verify(dashboardService, timeout(2000).times(2)).getExecutiveDashboard(CLOSED_YEAR);
+  }
+
+  @Test
+  void get_ShouldExpireTheCurrentYearByFreshness_AndClosedYearsByTheirOwnTtl() throws Exception {
+    int currentYear = Year.now().getValue();
+    cache = cache(50, 3_600_000);
+    when(dashboardService.getExecutiveDashboard(anyInt())).thenReturn(dashboard(1L));
+    cache.get(currentYear);
+    cache.get(CLOSED_YEAR);
+
+    Thread.sleep(100);
+
+    assertTrue(cache.get(currentYear).isStale());
+    assertFalse(cache.get(CLOSED_YEAR).isStale());
+    verify(dashboardService, timeout(2000).times(2)).getExecutiveDashboard(currentYear);
+    verify(dashboardService, times(1)).getExecutiveDashboard(CLOSED_YEAR);
+  }
+
+  @Test
+  void get_ShouldExpireClosedYears_EvenWithoutAnInvalidation() throws Exception {
+    cache = cache(3_600_000, 50);
+    when(dashboardService.getExecutiveDashboard(CLOSED_YEAR)).thenReturn(dashboard(1L));
+    cache.get(CLOSED_YEAR);
+
+    Thread.sleep(100);
+
+    assertTrue(cache.get(CLOSED_YEAR).isStale());
+    verify(dashboardService, timeout(2000).times(2)).getExecutiveDashboard(CLOSED_YEAR);
+  }
+
+  @Test
+  void invalidationFromAnotherNode_ShouldMarkEveryYearStale() {
+    int currentYear = Year.now().getValue();
+    cache = cache(3_600_000, 3_600_000);
+    when(dashboardService.getExecutiveDashboard(anyInt())).thenReturn(dashboard(1L));
+    cache.get(currentYear);
+    cache.get(CLOSED_YEAR);
+
+    cache.onMessage(null, null);
+
+    assertTrue(cache.get(currentYear).isStale());
+    assertTrue(cache.get(CLOSED_YEAR).isStale());
+  }
+
+  private ExecutiveDashboardCache cache(long freshnessMillis, long closedYearTtlMillis) {
+    // No Redis, so invalidations stay local
+    DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+    return new ExecutiveDashboardCache(
+        dashboardService,
+        beans.getBeanProvider(StringRedisTemplate.class),
+        beans.getBeanProvider(RedisMessageListenerContainer.class),
+        freshnessMillis,
+        closedYearTtlMillis);
+  }
+
+  private static ExecutiveDashboardDTO dashboard(long totalApplications) {
+    return ExecutiveDashboardDTO.builder().totalApplications(totalApplications).build();
+  }
+}
@@ -2,18 +2,25 @@ package com.example.demo.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
+import com.example.demo.base.Cursor;
+import com.example.demo.base.CursorPage;
 import com.example.demo.config.TestConfig;
 import com.example.demo.dto.LoanApplicationDTO;
 import com.example.demo.entity.LoanApplication;
 import com.example.demo.entity.Product;
 import com.example.demo.entity.User;
 import com.example.demo.enums.LoanStatus;
+import com.example.demo.event.LoanApplicationEditedEvent;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.repository.LoanApplicationRepository;
 import com.example.demo.repository.ProductRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.service.DailyLoanStatsService.LoanFacts;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
@@ -24,7 +31,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
 @ExtendWith(MockitoExtension.class)
 @Import(TestConfig.class)
@@ -33,6 +43,8 @@ public class LoanApplicationServiceTest {
   @Mock private LoanApplicationRepository loanApplicationRepository;
   @Mock private UserRepository userRepository;
   @Mock private ProductRepository productRepository;
+  @Mock private DailyLoanStatsService dailyLoanStatsService;
+  @Mock private ApplicationEventPublisher eventPublisher;
 
   @InjectMocks private LoanApplicationService loanApplicationService;
 
@@ -77,6 +89,7 @@ public class LoanApplicationServiceTest {
     assertNotNull(result);
     assertEquals(1000000.0, result.getAmount());
     assertEquals("Bronze", result.getProductName());
+    verify(dailyLoanStatsService).recordChange(isNull(), any(LoanFacts.class));
   }
 
   @Test
@@ -121,7 +134,27 @@ public class LoanApplicationServiceTest {
   @Test
   void getAllLoanApplications_ShouldReturnAllLoans() {
     // Arrange
-    when(loanApplicationRepository.findAll())
+    when(loanApplicationRepository.findPageAfter(
+            eq(Cursor.MAX_CREATED_AT), eq(Long.MAX_VALUE), any(Pageable.class)))
+        .thenReturn(Collections.singletonList(loanApplication));
+
+    // Act
+    CursorPage<LoanApplicationDTO> result = loanApplicationService.getAllLoanApplications(null, 20);
+
+    // Assert
+    assertEquals(1, result.getContent().size());
+    assertFalse(result.isHasNext());
+    assertNull(result.getNextCursor());
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  void getAllLoanApplications_Unpaged_ShouldKeepListShapeCappedToNewestRows() {
+    // Arrange
+    when(loanApplicationRepository.findPageAfter(
+            eq(Cursor.MAX_CREATED_AT),
+            eq(Long.MAX_VALUE),
+            eq(PageRequest.of(0, CursorPage.LEGACY_LIST_LIMIT))))
         .thenReturn(Collections.singletonList(loanApplication));
 
     // Act
@@ -129,6 +162,34 @@ public class LoanApplicationServiceTest {
 
     // Assert
     assertEquals(1, result.size());
+    assertEquals(loanApplication.getLoanApplicationId(), result.get(0).getLoanApplicationId());
+  }
+
+  @Test
+  void getAllLoanApplications_WhenMoreRowsThanSize_ShouldReturnNextCursor() {
+    // Arrange
+    LoanApplication older =
+        LoanApplication.builder()
+            .loanApplicationId(2L)
+            .user(user)
+            .product(product)
+            .amount(500000.0)
+            .tenureMonths(6)
+            .currentStatus(LoanStatus.SUBMITTED.name())
+            .createdAt(loanApplication.getCreatedAt().minusDays(1))
+            .build();
+    when(loanApplicationRepository.findPageAfter(any(), any(), any(Pageable.class)))
+        .thenReturn(List.of(loanApplication, older));
+
+    // Act
+    CursorPage<LoanApplicationDTO> result = loanApplicationService.getAllLoanApplications(null, 1);
+
+    // Assert
+    assertEquals(1, result.getContent().size());
+    assertTrue(result.isHasNext());
+    Cursor next = Cursor.decode(result.getNextCursor());
+    assertEquals(loanApplication.getCreatedAt(), next.createdAt());
+    assertEquals(loanApplication.getLoanApplicationId(), next.id());
   }
 
   @Test
@@ -153,4 +214,27 @@ public class LoanApplicationServiceTest {
     assertEquals(24, result.getTenureMonths());
     assertEquals(LoanStatus.SUBMITTED.name(), result.getCurrentStatus());
   }
+
+  @Test
+  void deleteLoanApplication_ShouldRemoveLoanFromDailyStats() {
+    when(loanApplicationRepository.findById(100L)).thenReturn(Optional.of(loanApplication));
+
+    loanApplicationService.deleteLoanApplication(100L);
+
+    verify(loanApplicationRepository).delete(loanApplication);
+    verify(dailyLoanStatsService)
+        .recordChange(
+            argThat(facts -> facts.amount() == 1000000.0 && "SUBMITTED".equals(facts.status())),
+            isNull());
+    verify(eventPublisher).publishEvent(new LoanApplicationEditedEvent(100L));
+  }
+
+  @Test
+  void deleteLoanApplication_WhenNotExists_ShouldNotTouchDailyStats() {
+    when(loanApplicationRepository.findById(404L)).thenReturn(Optional.empty());
+
+    loanApplicationService.deleteLoanApplication(404L);
+
+    verifyNoInteractions(dailyLoanStatsService);
+  }
 }
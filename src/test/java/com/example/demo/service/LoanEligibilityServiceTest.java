@@ -10,6 +10,7 @@ import com.example.demo.entity.Product;
 import com.example.demo.entity.User;
 import com.example.demo.entity.UserProduct;
 import com.example.demo.enums.LoanStatus;
+import com.example.demo.event.UserEligibilityChangedEvent;
 import com.example.demo.repository.LoanApplicationRepository;
 import com.example.demo.repository.ProductRepository;
 import com.example.demo.repository.UserProductRepository;
@@ -23,6 +24,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Import;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +35,8 @@ public class LoanEligibilityServiceTest {
   @Mock private ProductRepository productRepository;
   @Mock private UserProductRepository userProductRepository;
   @Mock private LoanApplicationRepository loanApplicationRepository;
+  @Mock private ApplicationEventPublisher eventPublisher;
+  @Mock private DailyLoanStatsService dailyLoanStatsService;
 
   @InjectMocks private LoanEligibilityService loanEligibilityService;
 
@@ -209,5 +213,22 @@ public class LoanEligibilityServiceTest {
     // Assert
     assertEquals(50000.0, userProduct.getCurrentUsedAmount());
     verify(userProductRepository).save(userProduct);
+    verify(eventPublisher).publishEvent(new UserEligibilityChangedEvent(user.getId()));
+  }
+
+  @Test
+  void recalculateUsedAmount_ShouldSetActiveTotal_AndPublishInvalidation() {
+    // Arrange
+    userProduct.setCurrentUsedAmount(999.0);
+    when(loanApplicationRepository.findTotalActiveLoanAmount(user.getId())).thenReturn(250000.0);
+    when(userProductRepository.findActiveUserProductsByUserIdOrderByTier(user.getId()))
+        .thenReturn(Collections.singletonList(userProduct));
+
+    // Act
+    loanEligibilityService.recalculateUsedAmount(user.getId());
+
+    // Assert
+    assertEquals(250000.0, userProduct.getCurrentUsedAmount());
+    verify(eventPublisher).publishEvent(new UserEligibilityChangedEvent(user.getId()));
   }
 }
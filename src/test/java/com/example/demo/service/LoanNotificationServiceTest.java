@@ -0,0 +1,79 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.demo.entity.LoanApplication;
+import com.example.demo.entity.User;
+import com.example.demo.enums.RoleName;
+import com.example.demo.event.LoanTransitionEvent;
+import com.example.demo.service.notification.StaffRoutingTable;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class LoanNotificationServiceTest {
+
+  @Mock private NotificationService notificationService;
+  @Mock private StaffRoutingTable staffRoutingTable;
+  @Mock private EmailService emailService;
+
+  private LoanNotificationService loanNotificationService;
+
+  @BeforeEach
+  void setUp() {
+    loanNotificationService =
+        new LoanNotificationService(
+            notificationService, staffRoutingTable, List.of(), emailService);
+  }
+
+  @Test
+  void notifyLoanStatusChange_ShouldLeaveStaffFanOutToTheCommittedTransition() {
+    LoanApplication loan =
+        LoanApplication.builder()
+            .loanApplicationId(10L)
+            .user(User.builder().id(1L).build())
+            .build();
+
+    loanNotificationService.notifyLoanStatusChange(loan, "IN_REVIEW", "WAITING_APPROVAL");
+
+    verify(notificationService, never())
+        .createForUsers(any(), any(), anyString(), anyString(), anyString());
+  }
+
+  @Test
+  void onLoanTransition_ShouldSwallowFanOutFailures() {
+    when(staffRoutingTable.usersOf(RoleName.BACK_OFFICE)).thenReturn(List.of(5L, 6L));
+    when(notificationService.createForUsers(any(), any(), anyString(), anyString(), anyString()))
+        .thenThrow(new IllegalStateException("notifications unavailable"));
+
+    assertThatCode(
+            () ->
+                loanNotificationService.onLoanTransition(
+                    new LoanTransitionEvent(
+                        10L,
+                        2L,
+                        "APPROVE",
+                        "WAITING_APPROVAL",
+                        "APPROVED_WAITING_DISBURSEMENT",
+                        3L,
+                        LocalDateTime.now())))
+        .doesNotThrowAnyException();
+    verify(notificationService)
+        .createForUsers(
+            List.of(5L, 6L),
+            10L,
+            "DISBURSEMENT_REQUIRED",
+            "IN_APP",
+            "Pinjaman yang disetujui menunggu pencairan");
+  }
+}
@@ -25,6 +25,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Import;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -45,6 +46,9 @@ public class LoanWorkflowServiceLocationTest {
   @Mock private UserProfileService userProfileService;
   @Mock private EmailService emailService;
   @Mock private LoanNotificationService loanNotificationService;
+  @Mock private ApplicationEventPublisher eventPublisher;
+  @Mock private LoanCommentSearchService loanCommentSearchService;
+  @Mock private DailyLoanStatsService dailyLoanStatsService;
 
   private LoanWorkflowService loanWorkflowService;
 
@@ -62,7 +66,10 @@ public class LoanWorkflowServiceLocationTest {
             loanEligibilityService,
             userProfileService,
             emailService,
-            loanNotificationService);
+            loanNotificationService,
+            eventPublisher,
+            loanCommentSearchService,
+            dailyLoanStatsService);
   }
 
   @Test
@@ -2,6 +2,7 @@ package com.example.demo.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -15,12 +16,16 @@ import com.example.demo.entity.Product;
 import com.example.demo.entity.User;
 import com.example.demo.enums.LoanAction;
 import com.example.demo.enums.LoanStatus;
+import com.example.demo.enums.SlaStage;
+import com.example.demo.event.LoanStageCompletedEvent;
+import com.example.demo.event.LoanTransitionEvent;
 import com.example.demo.exception.BusinessException;
 import com.example.demo.repository.BranchRepository;
 import com.example.demo.repository.LoanApplicationRepository;
 import com.example.demo.repository.LoanHistoryRepository;
 import com.example.demo.repository.ProductRepository;
 import com.example.demo.repository.UserRepository;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
@@ -29,6 +34,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Import;
 
 @ExtendWith(MockitoExtension.class)
@@ -46,6 +52,9 @@ public class LoanWorkflowServiceTest {
   @Mock private UserProfileService userProfileService;
   @Mock private EmailService emailService;
   @Mock private LoanNotificationService loanNotificationService;
+  @Mock private ApplicationEventPublisher eventPublisher;
+  @Mock private LoanCommentSearchService loanCommentSearchService;
+  @Mock private DailyLoanStatsService dailyLoanStatsService;
 
   @InjectMocks private LoanWorkflowService loanWorkflowService;
 
@@ -117,6 +126,7 @@ public class LoanWorkflowServiceTest {
     request.setLoanApplicationId(loanApplication.getLoanApplicationId());
     request.setAction(LoanAction.COMMENT.name());
     request.setComment("Reviewing");
+    loanApplication.setCreatedAt(LocalDateTime.now().minusHours(2));
 
     when(loanApplicationRepository.findById(100L)).thenReturn(Optional.of(loanApplication));
     when(userRepository.findById(manager.getId())).thenReturn(Optional.of(manager));
@@ -127,9 +137,25 @@ public class LoanWorkflowServiceTest {
 
     // Assert
     assertEquals(LoanStatus.IN_REVIEW.name(), result.getCurrentStatus());
+    assertEquals("Reviewing", loanApplication.getMarketingComment());
+    assertNotNull(loanApplication.getInReviewAt());
     verify(loanNotificationService)
         .notifyLoanStatusChange(
             any(), eq(LoanStatus.SUBMITTED.name()), eq(LoanStatus.IN_REVIEW.name()));
+    verify(eventPublisher)
+        .publishEvent(
+            argThat(
+                (Object event) ->
+                    event instanceof LoanTransitionEvent transition
+                        && LoanStatus.SUBMITTED.name().equals(transition.fromStatus())
+                        && LoanStatus.IN_REVIEW.name().equals(transition.toStatus())));
+    verify(eventPublisher)
+        .publishEvent(
+            argThat(
+                (Object event) ->
+                    event instanceof LoanStageCompletedEvent stage
+                        && stage.stage() == SlaStage.SUBMITTED_TO_IN_REVIEW
+                        && stage.durationSeconds() >= 7200));
   }
 
   @Test
@@ -0,0 +1,215 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.example.demo.base.CursorPage;
+import com.example.demo.dto.BatchJobStatusDTO;
+import com.example.demo.dto.NotificationDTO;
+import com.example.demo.entity.User;
+import com.example.demo.event.NotificationCreatedEvent;
+import com.example.demo.repository.NotificationRepository;
+import com.example.demo.repository.UserRepository;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+/**
+ * Integration tests for the unread counter and inbox of {@link NotificationService}, and for {@link
+ * NotificationRetentionService}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@RecordApplicationEvents
+class NotificationServiceTest {
+
+  @Autowired private NotificationService notificationService;
+  @Autowired private NotificationRetentionService notificationRetentionService;
+  @Autowired private NotificationRepository notificationRepository;
+  @Autowired private UserRepository userRepository;
+  @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private ApplicationEvents applicationEvents;
+
+  private User user;
+  private User colleague;
+
+  @AfterEach
+  void tearDown() {
+    for (User created : new User[] {user, colleague}) {
+      if (created != null) {
+        notificationRepository.deleteAll(
+            notificationRepository.findByUser_IdOrderByCreatedAtDesc(created.getId()));
+        jdbcTemplate.update("DELETE FROM notification_counters WHERE user_id = ?", created.getId());
+        userRepository.delete(created);
+      }
+    }
+  }
+
+  @Test
+  void unreadCount_ShouldFollowCreateReadAndBulkRead() {
+    user =
+        userRepository.save(
+            User.builder().username("unread-counter").email("unread@example.com").build());
+    List<Long> ids = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      ids.add(create("Message " + i).getNotificationId());
+    }
+    assertThat(notificationService.getUnreadNotificationCount(user.getId())).isEqualTo(5);
+
+    // Reading one twice counts once; deleting an unread one counts too
+    notificationService.markAsRead(ids.get(0));
+    notificationService.markAsRead(ids.get(0));
+    notificationService.deleteNotification(ids.get(4));
+    assertThat(notificationService.getUnreadNotificationCount(user.getId())).isEqualTo(3);
+
+    assertThat(notificationService.markAsReadUpTo(user.getId(), ids.get(2))).isEqualTo(2);
+    assertThat(notificationService.getUnreadNotificationCount(user.getId())).isEqualTo(1);
+
+    create("Newest");
+    assertThat(notificationService.markAllAsRead(user.getId())).isEqualTo(2);
+    assertThat(notificationService.getUnreadNotificationCount(user.getId())).isZero();
+    assertThat(notificationRepository.countByUser_IdAndIsRead(user.getId(), false)).isZero();
+  }
+
+  @Test
+  void unreadCount_ShouldBeSeededFromExistingNotifications() {
+    user =
+        userRepository.save(
+            User.builder().username("unread-seeded").email("unread-seeded@example.com").build());
+    create("First");
+    create("Second");
+    // As for users whose notifications predate the counter
+    jdbcTemplate.update("DELETE FROM notification_counters WHERE user_id = ?", user.getId());
+
+    assertThat(notificationService.getUnreadNotificationCount(user.getId())).isEqualTo(2);
+    create("Third");
+    assertThat(notificationService.getUnreadNotificationCount(user.getId())).isEqualTo(3);
+  }
+
+  @Test
+  void inbox_ShouldPageNewestFirst_WithoutGapsOrRepeats() {
+    user =
+        userRepository.save(
+            User.builder().username("inbox-pages").email("inbox-pages@example.com").build());
+    List<Long> ids = new ArrayList<>();
+    for (int i = 0; i < 7; i++) {
+      ids.add(create("Message " + i).getNotificationId());
+    }
+    // Same timestamp for all, so the id breaks the ties
+    jdbcTemplate.update(
+        "UPDATE notifications SET created_at = ? WHERE user_id = ?",
+        Timestamp.valueOf(LocalDateTime.now().withNano(0)),
+        user.getId());
+    notificationService.markAsRead(ids.get(5));
+
+    List<Long> seen = new ArrayList<>();
+    String cursor = null;
+    CursorPage<NotificationDTO> page;
+    do {
+      page = notificationService.getInbox(user.getId(), false, cursor, 3);
+      page.getContent().forEach(n -> seen.add(n.getNotificationId()));
+      cursor = page.getNextCursor();
+    } while (page.isHasNext());
+
+    assertThat(seen).containsExactlyElementsOf(ids.reversed());
+    assertThat(notificationService.getInbox(user.getId(), true, null, 20).getContent())
+        .extracting(NotificationDTO::getNotificationId)
+        .doesNotContain(ids.get(5))
+        .hasSize(6);
+  }
+
+  @Test
+  void retention_ShouldDeleteOnlyOldReadNotifications() {
+    user =
+        userRepository.save(
+            User.builder().username("inbox-retention").email("retention@example.com").build());
+    Long oldRead = create("Old, read").getNotificationId();
+    Long oldUnread = create("Old, unread").getNotificationId();
+    Long newRead = create("New, read").getNotificationId();
+    notificationService.markAsRead(oldRead);
+    notificationService.markAsRead(newRead);
+    jdbcTemplate.update(
+        "UPDATE notifications SET created_at = ? WHERE notification_id IN (?, ?)",
+        Timestamp.valueOf(LocalDateTime.now().minusDays(365)),
+        oldRead,
+        oldUnread);
+
+    BatchJobStatusDTO status = notificationRetentionService.purge();
+
+    assertThat(status.getStatus()).isEqualTo("COMPLETED");
+    assertThat(notificationRepository.existsById(oldRead)).isFalse();
+    assertThat(notificationRepository.existsById(oldUnread)).isTrue();
+    assertThat(notificationRepository.existsById(newRead)).isTrue();
+    assertThat(notificationService.getUnreadNotificationCount(user.getId())).isEqualTo(1);
+  }
+
+  @Test
+  void createForUsers_ShouldShareOneTemplateAndCountEachRecipient() {
+    user =
+        userRepository.save(
+            User.builder().username("fan-out-one").email("fan-out-one@example.com").build());
+    colleague =
+        userRepository.save(
+            User.builder().username("fan-out-two").email("fan-out-two@example.com").build());
+    create("Already unread");
+
+    int created =
+        notificationService.createForUsers(
+            List.of(user.getId(), colleague.getId(), user.getId()),
+            null,
+            "APPROVAL_REQUIRED",
+            "IN_APP",
+            "Shared staff message");
+
+    assertThat(created).isEqualTo(2);
+    assertThat(notificationService.getUnreadNotificationCount(user.getId())).isEqualTo(2);
+    assertThat(notificationService.getUnreadNotificationCount(colleague.getId())).isEqualTo(1);
+    assertThat(notificationService.getInbox(colleague.getId(), true, null, 20).getContent())
+        .extracting(NotificationDTO::getMessage)
+        .containsExactly("Shared staff message");
+    assertThat(
+            jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT template_id) FROM notifications"
+                    + " WHERE user_id IN (?, ?) AND template_id IS NOT NULL",
+                Long.class,
+                user.getId(),
+                colleague.getId()))
+        .isEqualTo(1);
+
+    // Each pushed notification carries the id of its row, so streams can resume from it
+    assertThat(
+            applicationEvents.stream(NotificationCreatedEvent.class)
+                .map(NotificationCreatedEvent::notification)
+                .filter(pushed -> "Shared staff message".equals(pushed.getMessage())))
+        .extracting(NotificationDTO::getUserId, NotificationDTO::getNotificationId)
+        .containsExactlyInAnyOrder(
+            tuple(user.getId(), sharedNotificationId(user)),
+            tuple(colleague.getId(), sharedNotificationId(colleague)));
+  }
+
+  private Long sharedNotificationId(User recipient) {
+    return jdbcTemplate.queryForObject(
+        "SELECT notification_id FROM notifications WHERE user_id = ? AND template_id IS NOT NULL",
+        Long.class,
+        recipient.getId());
+  }
+
+  private NotificationDTO create(String message) {
+    return notificationService.createNotification(
+        NotificationDTO.builder()
+            .userId(user.getId())
+            .notifType("TEST")
+            .channel("IN_APP")
+            .message(message)
+            .build());
+  }
+}
@@ -0,0 +1,184 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.demo.dto.NotificationDTO;
+import com.example.demo.dto.RealtimeNotificationDTO;
+import com.example.demo.event.NotificationCreatedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+class NotificationStreamServiceTest {
+
+  private final List<RecordingEmitter> emitters = new ArrayList<>();
+  private NotificationStreamService service;
+
+  @BeforeEach
+  void setUp() {
+    // No Redis, so messages are delivered locally
+    DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+    service =
+        new NotificationStreamService(
+            new ObjectMapper().findAndRegisterModules(),
+            beans.getBeanProvider(StringRedisTemplate.class),
+            beans.getBeanProvider(RedisMessageListenerContainer.class),
+            60_000,
+            4,
+            2,
+            100) {
+          @Override
+          SseEmitter createEmitter() {
+            RecordingEmitter emitter = new RecordingEmitter();
+            emitters.add(emitter);
+            return emitter;
+          }
+        };
+  }
+
+  @AfterEach
+  void tearDown() {
+    emitters.forEach(emitter -> emitter.release.countDown());
+    service.shutdown();
+  }
+
+  @Test
+  void createdNotification_ShouldReachEveryStreamOfItsUserOnly() throws Exception {
+    service.subscribe(1L);
+    service.subscribe(1L);
+    service.subscribe(2L);
+    emitters.forEach(RecordingEmitter::release);
+
+    NotificationDTO notification =
+        NotificationDTO.builder().notificationId(42L).userId(1L).message("Hello").build();
+    service.onNotificationCreated(new NotificationCreatedEvent(notification));
+
+    // Every stream gets the same single frame, however many streams the user has open
+    String connected = render(SseEmitter.event().comment("connected"));
+    String expected = render(SseEmitter.event().name("notification").id("42").data(notification));
+    for (RecordingEmitter emitter : emitters.subList(0, 2)) {
+      assertThat(drain(emitter)).containsExactly(connected, expected);
+    }
+    assertThat(drain(emitters.get(2))).containsExactly(connected);
+  }
+
+  @Test
+  void streamsOfOneUser_ShouldEachRenderTheirOwnFrames() throws Exception {
+    service.subscribe(1L);
+    service.subscribe(1L);
+    emitters.forEach(RecordingEmitter::release);
+    for (int i = 0; i < 3; i++) {
+      service.publish(message(1L, "Message " + i));
+    }
+
+    List<String> expected = new ArrayList<>();
+    expected.add(render(SseEmitter.event().comment("connected")));
+    for (int i = 0; i < 3; i++) {
+      expected.add(render(SseEmitter.event().name("message").data(message(1L, "Message " + i))));
+    }
+    for (RecordingEmitter emitter : emitters) {
+      assertThat(drain(emitter)).containsExactlyElementsOf(expected);
+    }
+  }
+
+  @Test
+  void slowClient_ShouldGetResync_WithoutHoldingUpOthers() throws Exception {
+    service.subscribe(1L); // Never reads until released
+    service.subscribe(2L);
+    RecordingEmitter slow = emitters.get(0);
+    RecordingEmitter fast = emitters.get(1);
+    fast.release();
+
+    for (int i = 0; i < 20; i++) {
+      service.publish(message(1L, "Slow " + i));
+    }
+    // Fewer than the buffer holds, so only a stall could keep these from arriving
+    for (int i = 0; i < 3; i++) {
+      service.publish(message(2L, "Fast " + i));
+    }
+    assertThat(String.join("", drain(fast))).contains("Fast 0", "Fast 2").doesNotContain("resync");
+
+    // The backlog collapsed into one resync plus what arrived after it
+    slow.release();
+    List<String> received =
+        drain(slow).stream().filter(event -> !event.contains(":connected")).toList();
+    assertThat(received.get(0)).contains("event:resync");
+    assertThat(received).hasSizeLessThan(10);
+  }
+
+  @Test
+  void extraStreamOfOneUser_ShouldCloseTheOldest() {
+    service.subscribe(1L);
+    service.subscribe(1L);
+    service.subscribe(1L);
+
+    assertThat(service.getConnectionCount()).isEqualTo(2);
+    assertThat(emitters.get(0).completed).isTrue();
+    assertThat(emitters.get(2).completed).isFalse();
+  }
+
+  private static RealtimeNotificationDTO message(Long userId, String body) {
+    return RealtimeNotificationDTO.builder().userId(userId).title("Title").body(body).build();
+  }
+
+  private static List<String> drain(RecordingEmitter emitter) throws InterruptedException {
+    List<String> events = new ArrayList<>();
+    String event;
+    while ((event = emitter.events.poll(200, TimeUnit.MILLISECONDS)) != null) {
+      events.add(event);
+    }
+    return events;
+  }
+
+  private static String render(SseEmitter.SseEventBuilder builder) {
+    return builder.build().stream()
+        .map(part -> String.valueOf(part.getData()))
+        .collect(Collectors.joining());
+  }
+
+  /** Records sent frames; the first send blocks until {@link #release()}, like a stalled client. */
+  private static class RecordingEmitter extends SseEmitter {
+
+    final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+    final CountDownLatch release = new CountDownLatch(1);
+    volatile boolean completed;
+
+    void release() {
+      release.countDown();
+    }
+
+    String next() throws InterruptedException {
+      String event = events.poll(5, TimeUnit.SECONDS);
+      assertThat(event).as("event within 5 seconds").isNotNull();
+      return event;
+    }
+
+    @Override
+    public void send(SseEventBuilder builder) {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      events.add(render(builder));
+    }
+
+    @Override
+    public void complete() {
+      completed = true;
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.example.demo.dto.dashboard.PortfolioGroupDTO;
+import com.example.demo.dto.dashboard.PortfolioQueryDTO;
+import com.example.demo.enums.PortfolioDimension;
+import com.example.demo.event.LoanApplicationEditedEvent;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.service.cube.PortfolioCube.Row;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+@ExtendWith(MockitoExtension.class)
+class PortfolioCubeServiceTest {
+
+  private static final LocalDate CREATED = LocalDate.of(2026, 3, 2);
+
+  @Mock private JdbcTemplate jdbcTemplate;
+  @Mock private ProductRepository productRepository;
+
+  private PortfolioCubeService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new PortfolioCubeService(jdbcTemplate, productRepository, true, 100, 10);
+  }
+
+  @Test
+  void onLoanApplicationEdited_ShouldReplaceTheRow_ThenDropItOnceDeleted() {
+    // Arrange: created, then edited, then deleted by an administrator
+    when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(7L)))
+        .thenReturn(List.of(row(1000)))
+        .thenReturn(List.of(row(2500)))
+        .thenReturn(List.of());
+
+    // Act & Assert
+    service.onLoanApplicationEdited(new LoanApplicationEditedEvent(7L));
+    assertEquals(1000.0, totalPrincipal());
+
+    service.onLoanApplicationEdited(new LoanApplicationEditedEvent(7L));
+    assertEquals(2500.0, totalPrincipal());
+    assertEquals(1L, service.getSnapshot().getRows());
+
+    service.onLoanApplicationEdited(new LoanApplicationEditedEvent(7L));
+    assertEquals(0L, service.getSnapshot().getRows());
+  }
+
+  private double totalPrincipal() {
+    PortfolioQueryDTO request = new PortfolioQueryDTO();
+    request.setGroupBy(List.of(PortfolioDimension.STATUS));
+    List<PortfolioGroupDTO> groups = service.query(request).getGroups();
+    assertEquals(1, groups.size());
+    return groups.get(0).getTotalPrincipal();
+  }
+
+  private static Row row(double amount) {
+    return new Row(7L, amount, amount * 1.1, 6, CREATED, "SUBMITTED", 1L, 1L);
+  }
+}
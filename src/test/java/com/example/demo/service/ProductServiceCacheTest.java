@@ -0,0 +1,110 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.demo.entity.Product;
+import com.example.demo.entity.UserProduct;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.UserProductRepository;
+import com.example.demo.repository.UserRepository;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+/** Product edits must not leave users reading a stale cached tier. */
+@SpringJUnitConfig(ProductServiceCacheTest.CacheConfig.class)
+class ProductServiceCacheTest {
+
+  @Autowired private ProductService productService;
+  @Autowired private UserProductService userProductService;
+  @Autowired private ProductRepository productRepository;
+  @Autowired private UserProductRepository userProductRepository;
+
+  @Test
+  void updateProductStatus_ShouldRefreshCachedTierLimits() {
+    Product bronze = product(1L, "BRONZE", 1, 5_000.0);
+    Product gold = product(2L, "GOLD", 3, 50_000.0);
+    when(userProductRepository.findActiveUserProductsByUserIdOrderByTier(7L))
+        .thenReturn(List.of(userProduct(gold), userProduct(bronze)));
+
+    assertThat(userProductService.getCurrentUserTierAndLimits(7L).getTierCode()).isEqualTo("GOLD");
+
+    // Deactivating Gold drops the user back to their next active tier
+    when(productRepository.findById(2L)).thenReturn(Optional.of(gold));
+    when(productRepository.save(gold)).thenReturn(gold);
+    when(userProductRepository.findActiveUserProductsByUserIdOrderByTier(7L))
+        .thenReturn(List.of(userProduct(bronze)));
+    productService.updateProductStatus(2L, false);
+
+    assertThat(userProductService.getCurrentUserTierAndLimits(7L))
+        .satisfies(
+            limits -> {
+              assertThat(limits.getTierCode()).isEqualTo("BRONZE");
+              assertThat(limits.getCreditLimit()).isEqualTo(5_000.0);
+            });
+  }
+
+  private static Product product(Long id, String code, int tierOrder, double creditLimit) {
+    return Product.builder()
+        .id(id)
+        .name(code)
+        .code(code)
+        .tierOrder(tierOrder)
+        .creditLimit(creditLimit)
+        .minAmount(1000.0)
+        .maxAmount(creditLimit)
+        .minTenureMonths(3)
+        .maxTenureMonths(12)
+        .isActive(true)
+        .deleted(false)
+        .build();
+  }
+
+  private static UserProduct userProduct(Product product) {
+    return UserProduct.builder().product(product).status("ACTIVE").currentUsedAmount(0.0).build();
+  }
+
+  @Configuration
+  @EnableCaching
+  static class CacheConfig {
+
+    @Bean
+    CacheManager cacheManager() {
+      return new ConcurrentMapCacheManager();
+    }
+
+    @Bean
+    ProductRepository productRepository() {
+      return mock(ProductRepository.class);
+    }
+
+    @Bean
+    UserProductRepository userProductRepository() {
+      return mock(UserProductRepository.class);
+    }
+
+    @Bean
+    ProductService productService(ProductRepository productRepository) {
+      return new ProductService(productRepository);
+    }
+
+    @Bean
+    UserProductService userProductService(
+        UserProductRepository userProductRepository,
+        ProductRepository productRepository,
+        ApplicationEventPublisher eventPublisher) {
+      return new UserProductService(
+          userProductRepository, mock(UserRepository.class), productRepository, eventPublisher);
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.example.demo.dto.QueueStatsDTO;
+import com.example.demo.enums.LoanStatus;
+import com.example.demo.event.LoanTransitionEvent;
+import com.example.demo.repository.LoanApplicationRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+@ExtendWith(MockitoExtension.class)
+class QueueStatsServiceTest {
+
+  @Mock private LoanApplicationRepository loanApplicationRepository;
+  @Mock private StringRedisTemplate redisTemplate;
+
+  private QueueStatsService queueStatsService;
+
+  @BeforeEach
+  void setUp() {
+    // Redis disabled: figures come from the database
+    queueStatsService = new QueueStatsService(loanApplicationRepository, redisTemplate, false);
+  }
+
+  @Test
+  void getStats_WithoutRedis_ShouldBucketByTimeInQueue() {
+    // Arrange
+    LocalDateTime now = LocalDateTime.now();
+    String submitted = LoanStatus.SUBMITTED.name();
+    when(loanApplicationRepository.findQueueEntries(anyCollection()))
+        .thenReturn(
+            List.of(
+                new Object[] {1L, 10L, submitted, now.minusDays(5), now.minusMinutes(10)},
+                new Object[] {2L, 10L, submitted, now.minusHours(5), null},
+                new Object[] {3L, 10L, submitted, now.minusDays(2), null},
+                new Object[] {4L, 10L, submitted, now.minusDays(4), null},
+                new Object[] {5L, 20L, submitted, now.minusDays(9), null}));
+
+    // Act
+    List<QueueStatsDTO> stats = queueStatsService.getStats(List.of(submitted), 10L);
+
+    // Assert
+    QueueStatsDTO queue = stats.get(0);
+    assertEquals(4, queue.getDepth());
+    assertEquals(1, queue.getAgedUnder1h());
+    assertEquals(1, queue.getAged1hTo24h());
+    assertEquals(1, queue.getAged1dTo3d());
+    assertEquals(1, queue.getAgedOver3d());
+    assertTrue(queue.getOldestAgeSeconds() >= 4 * 24 * 3600);
+  }
+
+  @Test
+  void getStats_WithoutRedis_ShouldReportEmptyQueues() {
+    when(loanApplicationRepository.findQueueEntries(anyCollection())).thenReturn(List.of());
+
+    List<QueueStatsDTO> stats =
+        queueStatsService.getStats(List.of(LoanStatus.WAITING_APPROVAL.name()), null);
+
+    assertEquals(1, stats.size());
+    assertEquals(0, stats.get(0).getDepth());
+    assertNull(stats.get(0).getOldestEnteredAt());
+  }
+
+  @Test
+  void onLoanTransition_WithoutRedis_ShouldNotTouchRedis() {
+    queueStatsService.onLoanTransition(
+        new LoanTransitionEvent(
+            1L, 10L, "SUBMIT", null, LoanStatus.SUBMITTED.name(), 5L, LocalDateTime.now()));
+
+    verifyNoInteractions(redisTemplate);
+  }
+
+  @Test
+  void seedOnStartup_WithoutMarker_ShouldLoadWaitingLoansIntoTheSets() {
+    QueueStatsService withRedis =
+        new QueueStatsService(loanApplicationRepository, redisTemplate, true);
+    ValueOperations<String, String> values = mock();
+    when(redisTemplate.hasKey(QueueStatsService.SEEDED_KEY)).thenReturn(false);
+    when(redisTemplate.opsForValue()).thenReturn(values);
+    LocalDateTime now = LocalDateTime.now();
+    when(loanApplicationRepository.findQueueEntries(anyCollection()))
+        .thenReturn(
+            List.of(
+                new Object[] {1L, 10L, LoanStatus.SUBMITTED.name(), now, null},
+                new Object[] {2L, 10L, LoanStatus.SUBMITTED.name(), now, null},
+                new Object[] {3L, null, LoanStatus.WAITING_APPROVAL.name(), now, null}));
+
+    withRedis.seedOnStartup();
+
+    // One MULTI per queue set, then the marker
+    verify(redisTemplate, times(2)).execute(any(SessionCallback.class));
+    verify(values).set(eq(QueueStatsService.SEEDED_KEY), anyString());
+  }
+
+  @Test
+  void seedOnStartup_WithMarker_ShouldNotReadTheDatabase() {
+    QueueStatsService withRedis =
+        new QueueStatsService(loanApplicationRepository, redisTemplate, true);
+    when(redisTemplate.hasKey(QueueStatsService.SEEDED_KEY)).thenReturn(true);
+
+    withRedis.seedOnStartup();
+
+    verifyNoInteractions(loanApplicationRepository);
+  }
+}
@@ -0,0 +1,139 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.demo.dto.QueueDeltaDTO;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+class QueueStreamServiceTest {
+
+  private static final Set<String> QUEUE = Set.of("WAITING_APPROVAL");
+
+  private final List<RecordingEmitter> emitters = new ArrayList<>();
+  private QueueStreamService service;
+
+  @BeforeEach
+  void setUp() {
+    service =
+        new QueueStreamService(60_000, 100, 4) {
+          @Override
+          SseEmitter createEmitter() {
+            RecordingEmitter emitter = new RecordingEmitter();
+            emitters.add(emitter);
+            return emitter;
+          }
+        };
+  }
+
+  @AfterEach
+  void tearDown() {
+    emitters.forEach(RecordingEmitter::release);
+    service.shutdown();
+  }
+
+  @Test
+  void stalledSubscriber_ShouldNotHoldUpDeliveryOrNewSubscribers() throws Exception {
+    service.subscribe(QUEUE, null, null); // Never reads until released
+    RecordingEmitter stalled = emitters.get(0);
+    for (long id = 1; id <= 20; id++) {
+      service.deliver(delta(id));
+    }
+
+    // Subscribing and resuming do not wait for the stalled client
+    service.subscribe(QUEUE, null, 18L);
+    RecordingEmitter resumed = emitters.get(1);
+    resumed.release();
+    service.deliver(delta(21));
+    assertThat(resumed.next()).contains("id:19");
+    assertThat(resumed.next()).contains("id:20");
+    assertThat(resumed.next()).contains("id:21");
+
+    // The stalled client's backlog collapsed into a resync instead of 21 queued deltas
+    stalled.release();
+    List<String> received = new ArrayList<>();
+    String event;
+    while ((event = stalled.events.poll(200, TimeUnit.MILLISECONDS)) != null) {
+      received.add(event);
+    }
+    assertThat(received).anyMatch(e -> e.contains("event:resync")).hasSizeLessThan(10);
+  }
+
+  @Test
+  void subscribersOfOneQueue_ShouldEachRenderTheirOwnFrames() throws Exception {
+    service.subscribe(QUEUE, null, null);
+    service.subscribe(QUEUE, null, null);
+    emitters.forEach(RecordingEmitter::release);
+    for (long id = 1; id <= 3; id++) {
+      service.deliver(delta(id));
+    }
+
+    List<String> expected = new ArrayList<>();
+    for (long id = 1; id <= 3; id++) {
+      expected.add(
+          render(SseEmitter.event().name("queue-delta").id(String.valueOf(id)).data(delta(id))));
+    }
+    for (RecordingEmitter emitter : emitters) {
+      List<String> received = new ArrayList<>();
+      String event;
+      while ((event = emitter.events.poll(200, TimeUnit.MILLISECONDS)) != null) {
+        received.add(event);
+      }
+      assertThat(received).containsExactlyElementsOf(expected);
+    }
+  }
+
+  private static String render(SseEmitter.SseEventBuilder builder) {
+    return builder.build().stream()
+        .map(part -> String.valueOf(part.getData()))
+        .collect(Collectors.joining());
+  }
+
+  private static QueueDeltaDTO delta(long eventId) {
+    return QueueDeltaDTO.builder()
+        .eventId(eventId)
+        .type("MOVED")
+        .loanApplicationId(eventId)
+        .fromStatus("IN_REVIEW")
+        .toStatus("WAITING_APPROVAL")
+        .build();
+  }
+
+  /** Records sent frames; every send blocks until {@link #release()}, like a stalled client. */
+  private static class RecordingEmitter extends SseEmitter {
+
+    final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+    final CountDownLatch release = new CountDownLatch(1);
+
+    void release() {
+      release.countDown();
+    }
+
+    String next() throws InterruptedException {
+      String event = events.poll(5, TimeUnit.SECONDS);
+      assertThat(event).as("event within 5 seconds").isNotNull();
+      return event;
+    }
+
+    @Override
+    public void send(SseEventBuilder builder) {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      events.add(render(builder));
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.demo.dto.RepaymentImportResultDTO;
+import com.example.demo.entity.LoanApplication;
+import com.example.demo.entity.Product;
+import com.example.demo.entity.User;
+import com.example.demo.entity.UserProduct;
+import com.example.demo.exception.BusinessException;
+import com.example.demo.repository.LoanApplicationRepository;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.UserProductRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.repayment.StatementFormat;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/** Integration tests for {@link RepaymentImportService}. */
+@SpringBootTest
+@ActiveProfiles("test")
+class RepaymentImportServiceTest {
+
+  @Autowired private RepaymentImportService repaymentImportService;
+  @Autowired private UserRepository userRepository;
+  @Autowired private ProductRepository productRepository;
+  @Autowired private UserProductRepository userProductRepository;
+  @Autowired private LoanApplicationRepository loanApplicationRepository;
+
+  @TempDir Path tempDir;
+
+  private User user;
+
+  @AfterEach
+  void tearDown() {
+    if (user != null) {
+      loanApplicationRepository.deleteAll(loanApplicationRepository.findByUser_Id(user.getId()));
+      userProductRepository.deleteAll(userProductRepository.findByUser_Id(user.getId()));
+      userRepository.delete(user);
+    }
+  }
+
+  @Test
+  void importStatement_ShouldSettleMatchedLoans_UpgradeTier_AndReportTheRest() throws Exception {
+    Product bronze = productRepository.findByTierOrderAndDeletedFalse(1).orElseThrow();
+    Product silver = productRepository.findByTierOrderAndDeletedFalse(2).orElseThrow();
+    user =
+        userRepository.save(
+            User.builder().username("repayment-import").email("repayment@example.com").build());
+    double threshold = bronze.getUpgradeThreshold();
+    userProductRepository.save(
+        UserProduct.builder()
+            .user(user)
+            .product(bronze)
+            .totalPaidAmount(0.0)
+            .currentUsedAmount(threshold + 100.0)
+            .build());
+    LoanApplication first = saveLoan(bronze, threshold, "DISBURSED");
+    LoanApplication second = saveLoan(bronze, 100.0, "DISBURSED");
+    LoanApplication pending = saveLoan(bronze, 50.0, "SUBMITTED");
+
+    Path statement = tempDir.resolve("statement.csv");
+    Files.writeString(
+        statement,
+        String.join(
+            "\n",
+            "reference,amount,paid_date",
+            String.format("LOAN-%d,%.2f,2026-03-01", first.getLoanApplicationId(), threshold),
+            second.getLoanApplicationId() + ",100.00,2026-03-01",
+            pending.getLoanApplicationId() + ",50,2026-03-01",
+            "999999999,10,2026-03-01",
+            "not-a-line"));
+
+    RepaymentImportResultDTO result =
+        repaymentImportService.importStatement(statement, StatementFormat.CSV, "statement.csv");
+
+    assertThat(result.getLinesRead()).isEqualTo(6);
+    assertThat(result.getMatchedCount()).isEqualTo(2);
+    assertThat(result.getUnmatchedCount()).isEqualTo(3);
+    assertThat(result.getTierUpgrades()).isEqualTo(1);
+    assertThat(loanApplicationRepository.findById(first.getLoanApplicationId()).orElseThrow())
+        .satisfies(
+            loan -> {
+              assertThat(loan.getCurrentStatus()).isEqualTo("PAID");
+              assertThat(loan.getIsPaid()).isTrue();
+            });
+    assertThat(
+            userProductRepository
+                .findActiveUserProductsByUserIdOrderByTier(user.getId())
+                .get(0)
+                .getProduct()
+                .getId())
+        .isEqualTo(silver.getId());
+
+    List<String> report =
+        Files.readAllLines(repaymentImportService.getReport(result.getImportId()));
+    assertThat(report).hasSize(4);
+    assertThat(String.join("\n", report)).contains("NOT_PAYABLE", "NOT_FOUND", "MALFORMED");
+  }
+
+  @Test
+  void importStatement_ShouldRecomputeUsedAmountFromUnpaidLoans() throws Exception {
+    Product bronze = productRepository.findByTierOrderAndDeletedFalse(1).orElseThrow();
+    user =
+        userRepository.save(
+            User.builder().username("repayment-used").email("repayment-used@example.com").build());
+    // The stored figure has drifted from the loans, as the single-payment path would repair
+    userProductRepository.save(
+        UserProduct.builder()
+            .user(user)
+            .product(bronze)
+            .totalPaidAmount(0.0)
+            .currentUsedAmount(999.0)
+            .build());
+    LoanApplication paid = saveLoan(bronze, 300.0, "DISBURSED");
+    saveLoan(bronze, 200.0, "DISBURSED");
+    Path statement =
+        Files.writeString(
+            tempDir.resolve("statement.csv"), paid.getLoanApplicationId() + ",300,2026-03-01");
+
+    repaymentImportService.importStatement(statement, StatementFormat.CSV, "statement.csv");
+
+    assertThat(userProductRepository.findActiveUserProductsByUserIdOrderByTier(user.getId()))
+        .singleElement()
+        .satisfies(
+            userProduct -> {
+              assertThat(userProduct.getCurrentUsedAmount()).isEqualTo(200.0);
+              assertThat(userProduct.getTotalPaidAmount()).isEqualTo(300.0);
+            });
+  }
+
+  @Test
+  void importStatement_WhenAWorkerDies_ShouldFailInsteadOfHanging() throws Exception {
+    TransactionTemplate failingTransactions = mock(TransactionTemplate.class);
+    when(failingTransactions.execute(any())).thenThrow(new AssertionError("worker died"));
+    RepaymentImportService service =
+        new RepaymentImportService(
+            loanApplicationRepository,
+            userProductRepository,
+            mock(TierEvaluationService.class),
+            mock(JdbcTemplate.class),
+            failingTransactions,
+            mock(ApplicationEventPublisher.class),
+            mock(DailyLoanStatsService.class),
+            tempDir.toString(),
+            1,
+            1);
+    // Far more batches than the queue holds, so the reader would block on a dead worker
+    StringBuilder lines = new StringBuilder();
+    for (int i = 1; i <= 50; i++) {
+      lines.append(i).append(",10,2026-03-01\n");
+    }
+    Path statement = Files.writeString(tempDir.resolve("statement.csv"), lines);
+
+    assertTimeoutPreemptively(
+        Duration.ofSeconds(10),
+        () ->
+            assertThatThrownBy(
+                    () -> service.importStatement(statement, StatementFormat.CSV, "statement.csv"))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("worker died"));
+  }
+
+  private LoanApplication saveLoan(Product product, double amount, String status) {
+    return loanApplicationRepository.save(
+        LoanApplication.builder()
+            .user(user)
+            .product(product)
+            .amount(amount)
+            .tenureMonths(6)
+            .interestRateApplied(0.0)
+            .totalAmountToPay(amount)
+            .currentStatus(status)
+            .build());
+  }
+}
@@ -0,0 +1,80 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.demo.dto.dashboard.SlaStatsDTO;
+import com.example.demo.enums.SlaStage;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/** Integration tests for {@link SlaHistogramService}. */
+@SpringBootTest
+@ActiveProfiles("test")
+class SlaHistogramServiceTest {
+
+  private static final long BRANCH_ID = 987_654L;
+
+  @Autowired private SlaHistogramService slaHistogramService;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @AfterEach
+  void tearDown() {
+    slaHistogramService.flush();
+    jdbcTemplate.update("DELETE FROM sla_histograms WHERE branch_id = ?", BRANCH_ID);
+  }
+
+  @Test
+  void getStats_ShouldMergeFlushedMonthsWithPendingSamples() {
+    LocalDateTime january = LocalDateTime.of(2024, 1, 15, 10, 0);
+    LocalDateTime february = LocalDateTime.of(2024, 2, 15, 10, 0);
+    for (int hours = 1; hours <= 90; hours++) {
+      slaHistogramService.record(SlaStage.SUBMITTED_TO_APPROVED, BRANCH_ID, january, hours * 3600L);
+    }
+    slaHistogramService.flush();
+    // Flushing twice merges into the same row
+    for (int hours = 91; hours <= 95; hours++) {
+      slaHistogramService.record(SlaStage.SUBMITTED_TO_APPROVED, BRANCH_ID, january, hours * 3600L);
+    }
+    slaHistogramService.flush();
+    // Still pending on this instance
+    for (int hours = 96; hours <= 100; hours++) {
+      slaHistogramService.record(
+          SlaStage.SUBMITTED_TO_APPROVED, BRANCH_ID, february, hours * 3600L);
+    }
+
+    List<SlaStatsDTO> stats =
+        slaHistogramService.getStats(
+            SlaStage.SUBMITTED_TO_APPROVED,
+            BRANCH_ID,
+            YearMonth.of(2024, 1),
+            YearMonth.of(2024, 2),
+            List.of(50.0, 99.0));
+    List<SlaStatsDTO> januaryOnly =
+        slaHistogramService.getStats(
+            SlaStage.SUBMITTED_TO_APPROVED,
+            BRANCH_ID,
+            YearMonth.of(2024, 1),
+            YearMonth.of(2024, 1),
+            null);
+
+    assertThat(stats).hasSize(1);
+    SlaStatsDTO both = stats.get(0);
+    assertThat(both.getSampleCount()).isEqualTo(100);
+    assertThat(both.getMaxSeconds()).isEqualTo(100 * 3600L);
+    assertThat(both.getPercentiles().get("p50")).isBetween(50 * 3600L, 52 * 3600L);
+    assertThat(both.getPercentiles().get("p99")).isBetween(99 * 3600L, 100 * 3600L);
+    assertThat(januaryOnly.get(0).getSampleCount()).isEqualTo(95);
+    assertThat(januaryOnly.get(0).getPercentiles()).containsOnlyKeys("p50", "p95", "p99");
+    assertThat(
+            jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM sla_histograms WHERE branch_id = ?", Long.class, BRANCH_ID))
+        .isEqualTo(1L);
+  }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.demo.dto.BatchJobStatusDTO;
+import com.example.demo.entity.Product;
+import com.example.demo.entity.User;
+import com.example.demo.entity.UserProduct;
+import com.example.demo.repository.JobCheckpointRepository;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.UserProductRepository;
+import com.example.demo.repository.UserRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Integration tests for {@link TierEvaluationService}. Runs the bulk job against the tier products
+ * seeded by DataInitializer (Bronze → Silver → Gold).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TierEvaluationServiceTest {
+
+  @Autowired private TierEvaluationService tierEvaluationService;
+  @Autowired private UserRepository userRepository;
+  @Autowired private ProductRepository productRepository;
+  @Autowired private UserProductRepository userProductRepository;
+  @Autowired private JobCheckpointRepository jobCheckpointRepository;
+
+  private final List<User> createdUsers = new ArrayList<>();
+
+  @AfterEach
+  void tearDown() {
+    for (User user : createdUsers) {
+      userProductRepository.deleteAll(userProductRepository.findByUser_Id(user.getId()));
+    }
+    userRepository.deleteAll(createdUsers);
+    jobCheckpointRepository.deleteByJobName(TierEvaluationService.JOB_NAME);
+  }
+
+  @Test
+  void run_ShouldUpgradeEligibleUsers_AndLeaveOthersUntouched() {
+    Product bronze = productRepository.findByTierOrderAndDeletedFalse(1).orElseThrow();
+    Product silver = productRepository.findByTierOrderAndDeletedFalse(2).orElseThrow();
+    Product gold = productRepository.findByTierOrderAndDeletedFalse(3).orElseThrow();
+
+    User eligible = createUserWithTier("tier-eval-eligible", bronze, bronze.getUpgradeThreshold());
+    User notEligible = createUserWithTier("tier-eval-below", bronze, 1.0);
+    User skipsTier =
+        createUserWithTier("tier-eval-skip", bronze, silver.getUpgradeThreshold() + 1.0);
+
+    BatchJobStatusDTO status = tierEvaluationService.run(false);
+
+    assertThat(status.getStatus()).isEqualTo("COMPLETED");
+    assertThat(status.getAffectedCount()).isGreaterThanOrEqualTo(2);
+    assertThat(topActiveProduct(eligible)).isEqualTo(silver.getId());
+    assertThat(topActiveProduct(notEligible)).isEqualTo(bronze.getId());
+    assertThat(topActiveProduct(skipsTier)).isEqualTo(gold.getId());
+    assertThat(userProductRepository.findByUser_IdAndStatus(eligible.getId(), "UPGRADED"))
+        .hasSize(1);
+  }
+
+  @Test
+  void resolveTargetTier_ShouldStopAtHighestTierOrFirstUnmetThreshold() {
+    NavigableMap<Integer, Product> tiers = new TreeMap<>();
+    tiers.put(1, Product.builder().id(1L).tierOrder(1).upgradeThreshold(100.0).build());
+    tiers.put(2, Product.builder().id(2L).tierOrder(2).upgradeThreshold(500.0).build());
+    tiers.put(3, Product.builder().id(3L).tierOrder(3).build());
+
+    assertThat(TierEvaluationService.resolveTargetTier(tiers, 1, 50.0)).isEqualTo(1);
+    assertThat(TierEvaluationService.resolveTargetTier(tiers, 1, 100.0)).isEqualTo(2);
+    assertThat(TierEvaluationService.resolveTargetTier(tiers, 1, 1000.0)).isEqualTo(3);
+    assertThat(TierEvaluationService.resolveTargetTier(tiers, 3, 1000.0)).isEqualTo(3);
+  }
+
+  private User createUserWithTier(String username, Product product, double totalPaid) {
+    User user =
+        userRepository.save(
+            User.builder().username(username).email(username + "@example.com").build());
+    createdUsers.add(user);
+    userProductRepository.save(
+        UserProduct.builder().user(user).product(product).totalPaidAmount(totalPaid).build());
+    return user;
+  }
+
+  private Long topActiveProduct(User user) {
+    return userProductRepository
+        .findActiveUserProductsByUserIdOrderByTier(user.getId())
+        .get(0)
+        .getProduct()
+        .getId();
+  }
+}
@@ -0,0 +1,194 @@
+package com.example.demo.service.cube;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.demo.enums.PortfolioDimension;
+import com.example.demo.exception.BusinessException;
+import com.example.demo.service.cube.PortfolioCube.Group;
+import com.example.demo.service.cube.PortfolioCube.Query;
+import com.example.demo.service.cube.PortfolioCube.Row;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class PortfolioCubeTest {
+
+  private static final LocalDate JAN = LocalDate.of(2026, 1, 15);
+  private static final LocalDate FEB = LocalDate.of(2026, 2, 3);
+
+  @Test
+  void query_ShouldMatchBruteForceTotals_AcrossPartitions() {
+    // Enough rows for several parallel partitions
+    PortfolioCube cube = new PortfolioCube(0, 1_000_000);
+    String[] statuses = {"SUBMITTED", "REJECTED", "DISBURSED", "PAID"};
+    long expectedCount = 0;
+    double expectedAmount = 0;
+    for (long id = 1; id <= 200_000; id++) {
+      String status = statuses[(int) (id % 4)];
+      long branchId = id % 3;
+      cube.upsert(row(id, id % 1000, (id % 2 == 0) ? JAN : FEB, status, branchId, 1 + id % 2));
+      if (branchId == 1 && !"SUBMITTED".equals(status)) {
+        expectedCount++;
+        expectedAmount += id % 1000;
+      }
+    }
+
+    PortfolioCube.Result result =
+        cube.query(
+            query(
+                List.of(PortfolioDimension.BRANCH),
+                List.of("REJECTED", "DISBURSED", "PAID"),
+                List.of(1L)));
+
+    assertThat(result.scannedRows()).isEqualTo(200_000);
+    assertThat(result.matchedRows()).isEqualTo(expectedCount);
+    assertThat(result.groups()).hasSize(1);
+    Group group = result.groups().get(0);
+    assertThat(group.key()).containsEntry(PortfolioDimension.BRANCH, 1L);
+    assertThat(group.loanCount()).isEqualTo(expectedCount);
+    assertThat(group.amount()).isEqualTo(expectedAmount);
+    assertThat(group.approvedCount() + group.rejectedCount()).isEqualTo(expectedCount);
+  }
+
+  @Test
+  void query_ShouldGroupByMonthTierAndAmountBucket() {
+    PortfolioCube cube = new PortfolioCube(0, 100);
+    cube.upsert(row(1, 500, JAN, "APPROVED_WAITING_DISBURSEMENT", 0, 10));
+    cube.upsert(row(2, 1500, JAN, "REJECTED", 0, 10));
+    cube.upsert(row(3, 2500, FEB, "DISBURSED", 7, 20));
+
+    Map<Long, Integer> tierByProduct = Map.of(10L, 1, 20L, 2);
+    Map<List<Object>, Long> counts =
+        cube
+            .query(
+                new Query(
+                    List.of(
+                        PortfolioDimension.CREATED_MONTH,
+                        PortfolioDimension.TIER,
+                        PortfolioDimension.AMOUNT_BUCKET),
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    List.of(1000.0, 2000.0),
+                    tierByProduct))
+            .groups()
+            .stream()
+            .collect(
+                Collectors.toMap(group -> List.copyOf(group.key().values()), Group::loanCount));
+
+    assertThat(counts)
+        .containsOnly(
+            Map.entry(List.of("2026-01", 1, "<1000"), 1L),
+            Map.entry(List.of("2026-01", 1, "1000-2000"), 1L),
+            Map.entry(List.of("2026-02", 2, ">=2000"), 1L));
+
+    // Tier and date filters
+    PortfolioCube.Result silverInFebruary =
+        cube.query(
+            new Query(
+                List.of(),
+                null,
+                null,
+                null,
+                List.of(2),
+                FEB,
+                FEB,
+                null,
+                null,
+                null,
+                tierByProduct));
+    assertThat(silverInFebruary.matchedRows()).isEqualTo(1);
+    assertThat(silverInFebruary.groups().get(0).amount()).isEqualTo(2500.0);
+  }
+
+  @Test
+  void changes_ShouldKeepIdOrder_UpdateStatus_AndRespectMaxRows() {
+    PortfolioCube cube = new PortfolioCube(0, 3);
+    cube.upsert(row(5, 100, JAN, "SUBMITTED", 1, 1));
+    cube.upsert(row(2, 100, JAN, "SUBMITTED", 1, 1)); // Committed out of id order
+    cube.upsert(row(5, 300, JAN, "SUBMITTED", 1, 1)); // Replaces, does not add
+
+    assertThat(cube.setStatus(2, "IN_REVIEW")).isTrue();
+    assertThat(cube.setStatus(4, "IN_REVIEW")).isFalse();
+    assertThat(cube.upsert(row(9, 100, JAN, "SUBMITTED", 1, 1))).isTrue();
+    assertThat(cube.upsert(row(10, 100, JAN, "SUBMITTED", 1, 1))).isFalse();
+
+    Map<Object, Double> amountByStatus =
+        cube.query(query(List.of(PortfolioDimension.STATUS), null, null)).groups().stream()
+            .collect(
+                Collectors.toMap(
+                    group -> group.key().get(PortfolioDimension.STATUS), Group::amount));
+    assertThat(amountByStatus)
+        .containsOnly(Map.entry("IN_REVIEW", 100.0), Map.entry("SUBMITTED", 400.0));
+    assertThat(cube.size()).isEqualTo(3);
+    assertThat(cube.droppedRows()).isEqualTo(1);
+    assertThat(cube.footprintBytes())
+        .isGreaterThanOrEqualTo((long) cube.capacity() * PortfolioCube.BYTES_PER_ROW);
+  }
+
+  @Test
+  void remove_ShouldDropTheRowAndFreeItsSlot() {
+    PortfolioCube cube = new PortfolioCube(0, 3);
+    cube.upsert(row(1, 100, JAN, "SUBMITTED", 1, 1));
+    cube.upsert(row(2, 200, JAN, "SUBMITTED", 1, 1));
+    cube.upsert(row(3, 400, FEB, "DISBURSED", 1, 1));
+
+    assertThat(cube.remove(2)).isTrue();
+    assertThat(cube.remove(2)).isFalse();
+    assertThat(cube.upsert(row(4, 800, FEB, "SUBMITTED", 1, 1))).isTrue();
+    assertThat(cube.setStatus(3, "PAID")).isTrue();
+
+    Map<Object, Double> amountByStatus =
+        cube.query(query(List.of(PortfolioDimension.STATUS), null, null)).groups().stream()
+            .collect(
+                Collectors.toMap(
+                    group -> group.key().get(PortfolioDimension.STATUS), Group::amount));
+    assertThat(amountByStatus)
+        .containsOnly(Map.entry("SUBMITTED", 900.0), Map.entry("PAID", 400.0));
+    assertThat(cube.size()).isEqualTo(3);
+  }
+
+  @Test
+  void query_ShouldRejectTooManyGroups() {
+    PortfolioCube cube = new PortfolioCube(0, 100);
+    cube.upsert(row(1, 100, JAN, "SUBMITTED", 1, 1));
+    List<Double> bounds = IntStream.range(1, 70_000).mapToObj(i -> (double) i).toList();
+
+    assertThatThrownBy(
+            () ->
+                cube.query(
+                    new Query(
+                        List.of(PortfolioDimension.AMOUNT_BUCKET),
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        bounds,
+                        Map.of())))
+        .isInstanceOf(BusinessException.class);
+  }
+
+  private static Query query(
+      List<PortfolioDimension> groupBy, List<String> statuses, List<Long> branchIds) {
+    return new Query(
+        groupBy, statuses, branchIds, null, null, null, null, null, null, null, Map.of());
+  }
+
+  private static Row row(
+      long id, double amount, LocalDate createdOn, String status, long branchId, long productId) {
+    return new Row(id, amount, amount * 1.1, 6, createdOn, status, branchId, productId);
+  }
+}
@@ -0,0 +1,241 @@
+package com.example.demo.service.push;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.demo.dto.PushCampaignDTO;
+import com.example.demo.dto.PushCampaignRequest;
+import com.example.demo.entity.Role;
+import com.example.demo.entity.User;
+import com.example.demo.entity.UserDevice;
+import com.example.demo.exception.BusinessException;
+import com.example.demo.repository.JobCheckpointRepository;
+import com.example.demo.repository.PushCampaignRepository;
+import com.example.demo.repository.RoleRepository;
+import com.example.demo.repository.UserDeviceRepository;
+import com.example.demo.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(
+    properties = {
+      "app.push.transport=loopback",
+      "app.push.loopback.latency-ms=0",
+      "app.push-campaign.chunk-size=2",
+      "app.push-campaign.parallelism=2"
+    })
+class PushCampaignServiceTest {
+
+  private static final String SEGMENT_ROLE = "PUSH_CAMPAIGN_TEST";
+
+  @Autowired private PushCampaignService pushCampaignService;
+  @Autowired private LoopbackPushTransport transport;
+  @Autowired private RoleRepository roleRepository;
+  @Autowired private UserRepository userRepository;
+  @Autowired private UserDeviceRepository userDeviceRepository;
+  @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private PushCampaignRepository pushCampaignRepository;
+  @Autowired private JobCheckpointRepository jobCheckpointRepository;
+  @Autowired private PushDispatcher pushDispatcher;
+  @Autowired private TransactionTemplate transactionTemplate;
+  @Autowired private ObjectMapper objectMapper;
+
+  private Role role;
+  private final List<User> users = new ArrayList<>();
+  private final List<Long> segmentDeviceIds = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    role = roleRepository.save(Role.builder().name(SEGMENT_ROLE).build());
+    // Three users in the segment, one of them with two devices, and one outside it
+    for (int i = 0; i < 4; i++) {
+      User.UserBuilder builder =
+          User.builder().username("campaign-" + i).email("campaign-" + i + "@example.com");
+      if (i < 3) {
+        builder.roles(Set.of(role));
+      }
+      User user = userRepository.save(builder.build());
+      users.add(user);
+      int devices = i == 0 ? 2 : 1;
+      for (int d = 0; d < devices; d++) {
+        UserDevice device =
+            userDeviceRepository.save(
+                UserDevice.builder().user(user).fcmToken("campaign-" + i + "-" + d).build());
+        if (i < 3) {
+          segmentDeviceIds.add(device.getDeviceId());
+        }
+      }
+    }
+  }
+
+  @AfterEach
+  void tearDown() {
+    jdbcTemplate.update("DELETE FROM job_checkpoints WHERE job_name LIKE 'PUSH_CAMPAIGN-%'");
+    jdbcTemplate.update("DELETE FROM push_campaigns");
+    for (User user : users) {
+      jdbcTemplate.update("DELETE FROM user_devices WHERE user_id = ?", user.getId());
+      jdbcTemplate.update("DELETE FROM user_roles WHERE user_id = ?", user.getId());
+      userRepository.deleteById(user.getId());
+    }
+    roleRepository.delete(role);
+  }
+
+  @Test
+  void run_ShouldReachEveryDeviceOfTheSegmentOnce() {
+    long sentBefore = transport.getMessageCount();
+    PushCampaignDTO campaign = pushCampaignService.create(request(), null);
+
+    PushCampaignDTO finished = pushCampaignService.run(campaign.getCampaignId());
+
+    assertThat(finished.getProgress().getStatus()).isEqualTo("COMPLETED");
+    assertThat(finished.getProgress().getProcessedCount()).isEqualTo(4);
+    assertThat(finished.getProgress().getAffectedCount()).isEqualTo(4);
+    assertThat(finished.getProgress().getPartitionsCompleted())
+        .isEqualTo(finished.getProgress().getPartitionsTotal());
+    assertThat(transport.getMessageCount() - sentBefore).isEqualTo(4);
+
+    assertThatThrownBy(() -> pushCampaignService.run(campaign.getCampaignId()))
+        .isInstanceOf(BusinessException.class);
+  }
+
+  @Test
+  void stalledCampaign_ShouldContinueAfterItsCheckpoints() throws Exception {
+    PushCampaignDTO campaign = pushCampaignService.create(request(), null);
+    // As if a node sent the first two devices and died
+    long sentUpTo = segmentDeviceIds.get(1);
+    jdbcTemplate.update(
+        "UPDATE push_campaigns SET status = 'RUNNING', heartbeat_at = ? WHERE campaign_id = ?",
+        Timestamp.valueOf(LocalDateTime.now().minusHours(1)),
+        campaign.getCampaignId());
+    jdbcTemplate.update(
+        "UPDATE job_checkpoints SET last_processed_id = LEAST(range_end, ?)"
+            + " WHERE job_name = ? AND range_start < ?",
+        sentUpTo,
+        PushCampaignService.JOB_PREFIX + campaign.getCampaignId(),
+        sentUpTo);
+    long sentBefore = transport.getMessageCount();
+
+    pushCampaignService.resumeStalled();
+    PushCampaignDTO finished = awaitFinished(campaign.getCampaignId());
+
+    assertThat(finished.getProgress().getStatus()).isEqualTo("COMPLETED");
+    assertThat(finished.getProgress().getAffectedCount()).isEqualTo(2);
+    assertThat(transport.getMessageCount() - sentBefore).isEqualTo(2);
+  }
+
+  @Test
+  void takenOverSender_ShouldStopWithoutMovingCheckpoints() {
+    PushCampaignDTO campaign = pushCampaignService.create(request(), null);
+    String firstClaim = pushCampaignService.claim(campaign.getCampaignId());
+    // The first sender stalls long enough for another node to take the campaign over
+    jdbcTemplate.update(
+        "UPDATE push_campaigns SET heartbeat_at = ? WHERE campaign_id = ?",
+        Timestamp.valueOf(LocalDateTime.now().minusHours(1)),
+        campaign.getCampaignId());
+    PushCampaignService otherNode =
+        new PushCampaignService(
+            pushCampaignRepository,
+            jobCheckpointRepository,
+            pushDispatcher,
+            jdbcTemplate,
+            transactionTemplate,
+            objectMapper,
+            2,
+            2,
+            0,
+            120_000,
+            10_000);
+    String secondClaim = otherNode.claim(campaign.getCampaignId());
+
+    pushCampaignService.execute(campaign.getCampaignId(), firstClaim);
+
+    PushCampaignDTO afterFirst = pushCampaignService.getCampaign(campaign.getCampaignId());
+    assertThat(afterFirst.getProgress().getStatus()).isEqualTo("RUNNING");
+    assertThat(afterFirst.getProgress().getProcessedCount()).isZero();
+    assertThat(afterFirst.getProgress().getPartitionsCompleted()).isZero();
+
+    otherNode.execute(campaign.getCampaignId(), secondClaim);
+
+    PushCampaignDTO finished = pushCampaignService.getCampaign(campaign.getCampaignId());
+    assertThat(finished.getProgress().getStatus()).isEqualTo("COMPLETED");
+    assertThat(finished.getProgress().getAffectedCount()).isEqualTo(4);
+  }
+
+  @Test
+  void rejectedRequests_ShouldFailTheCampaignWithoutMovingCheckpoints() {
+    PushCampaignDTO campaign = pushCampaignService.create(request(), null);
+    PushDispatcher outage =
+        new PushDispatcher(
+            pushes -> {
+              throw new IllegalStateException("Quota exceeded");
+            },
+            new DeviceTokenCache(userDeviceRepository, 60_000, 10_000),
+            userDeviceRepository,
+            0,
+            2,
+            100);
+    outage.start();
+    try {
+      PushCampaignService duringOutage =
+          new PushCampaignService(
+              pushCampaignRepository,
+              jobCheckpointRepository,
+              outage,
+              jdbcTemplate,
+              transactionTemplate,
+              objectMapper,
+              2,
+              2,
+              0,
+              120_000,
+              10_000);
+      duringOutage.execute(campaign.getCampaignId(), duringOutage.claim(campaign.getCampaignId()));
+    } finally {
+      outage.stop();
+    }
+
+    PushCampaignDTO failed = pushCampaignService.getCampaign(campaign.getCampaignId());
+    assertThat(failed.getProgress().getStatus()).isEqualTo("FAILED");
+    assertThat(failed.getProgress().getProcessedCount()).isZero();
+    assertThat(failed.getProgress().getPartitionsCompleted()).isZero();
+
+    // Once FCM is back, resuming reaches every device the outage skipped
+    PushCampaignDTO finished = pushCampaignService.run(campaign.getCampaignId());
+    assertThat(finished.getProgress().getStatus()).isEqualTo("COMPLETED");
+    assertThat(finished.getProgress().getAffectedCount()).isEqualTo(4);
+  }
+
+  private PushCampaignDTO awaitFinished(Long campaignId) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10_000;
+    PushCampaignDTO campaign = pushCampaignService.getCampaign(campaignId);
+    while ("RUNNING".equals(campaign.getProgress().getStatus())
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(50);
+      campaign = pushCampaignService.getCampaign(campaignId);
+    }
+    return campaign;
+  }
+
+  private static PushCampaignRequest request() {
+    return PushCampaignRequest.builder()
+        .title("Promo")
+        .body("New rates this week")
+        .roleName(SEGMENT_ROLE)
+        .build();
+  }
+}
@@ -0,0 +1,135 @@
+package com.example.demo.service.push;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+import com.example.demo.repository.UserDeviceRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PushDispatcherTest {
+
+  @Mock private UserDeviceRepository userDeviceRepository;
+
+  private LoopbackPushTransport transport;
+  private PushDispatcher dispatcher;
+
+  @BeforeEach
+  void setUp() {
+    transport = new LoopbackPushTransport(0);
+    dispatcher =
+        new PushDispatcher(
+            transport,
+            new DeviceTokenCache(userDeviceRepository, 60_000, 10_000),
+            userDeviceRepository,
+            200,
+            4,
+            10_000);
+    dispatcher.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    dispatcher.stop();
+  }
+
+  @Test
+  void sendToUsers_ShouldCoalesceUsersIntoFullRequests() throws Exception {
+    // Arrange: one device per user
+    when(userDeviceRepository.findActiveTokensByUserIds(anyCollection()))
+        .thenAnswer(
+            invocation -> {
+              Collection<Long> userIds = invocation.getArgument(0);
+              return userIds.stream().map(id -> new Object[] {id, "token-" + id}).toList();
+            });
+
+    // Act: 1200 users notified separately within one window
+    List<CompletableFuture<Integer>> results = new ArrayList<>();
+    for (long userId = 1; userId <= 1200; userId++) {
+      results.add(dispatcher.sendToUsers(List.of(userId), "Title", "Body", Map.of()));
+    }
+    CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+    // Assert: 500 + 500 + 200 messages in three requests
+    assertThat(results).allSatisfy(result -> assertThat(result.join()).isEqualTo(1));
+    assertThat(transport.getMessageCount()).isEqualTo(1200);
+    assertThat(transport.getRequestCount()).isEqualTo(3);
+  }
+
+  @Test
+  void invalidTokens_ShouldBeDeactivatedInBulk_AndEvictedFromCache() throws Exception {
+    when(userDeviceRepository.findActiveTokensByUserIds(anyCollection()))
+        .thenReturn(
+            List.of(
+                new Object[] {1L, "device-1"},
+                new Object[] {1L, LoopbackPushTransport.INVALID_PREFIX + "1"},
+                new Object[] {2L, LoopbackPushTransport.INVALID_PREFIX + "2"}));
+
+    int sent =
+        dispatcher.sendToUsers(List.of(1L, 2L), "Title", "Body", null).get(5, TimeUnit.SECONDS);
+
+    assertThat(sent).isEqualTo(1);
+    verify(userDeviceRepository)
+        .deactivateByFcmTokens(
+            List.of(
+                LoopbackPushTransport.INVALID_PREFIX + "1",
+                LoopbackPushTransport.INVALID_PREFIX + "2"));
+
+    // Both users are read again on the next send
+    dispatcher.sendToUsers(List.of(1L, 2L), "Title", "Body", null).get(5, TimeUnit.SECONDS);
+    verify(userDeviceRepository, times(2)).findActiveTokensByUserIds(anyCollection());
+  }
+
+  @Test
+  void tokenCache_ShouldServeRepeatedSendsWithoutQueries() throws Exception {
+    when(userDeviceRepository.findActiveTokensByUserIds(anyCollection()))
+        .thenReturn(List.<Object[]>of(new Object[] {3L, "device-3"}));
+
+    dispatcher.sendToUsers(List.of(3L), "First", "Body", null).get(5, TimeUnit.SECONDS);
+    int sent = dispatcher.sendToUsers(List.of(3L), "Second", "Body", null).get(5, TimeUnit.SECONDS);
+
+    assertThat(sent).isEqualTo(1);
+    verify(userDeviceRepository, times(1)).findActiveTokensByUserIds(anyCollection());
+    verify(userDeviceRepository, never()).deactivateByFcmTokens(anyCollection());
+  }
+
+  @Test
+  void rejectedRequest_ShouldFailTheFutureInsteadOfReportingNoDevices() {
+    PushDispatcher outage =
+        new PushDispatcher(
+            pushes -> {
+              throw new IllegalStateException("FCM unavailable");
+            },
+            new DeviceTokenCache(userDeviceRepository, 60_000, 10_000),
+            userDeviceRepository,
+            0,
+            4,
+            100);
+    outage.start();
+    try {
+      assertThatThrownBy(
+              () ->
+                  outage
+                      .sendToTokens(List.of("device-1", "device-2"), "Title", "Body", null)
+                      .get(5, TimeUnit.SECONDS))
+          .hasCauseInstanceOf(PushTransportException.class)
+          .hasMessageContaining("FCM unavailable");
+    } finally {
+      outage.stop();
+    }
+    verify(userDeviceRepository, never()).deactivateByFcmTokens(anyCollection());
+  }
+}
@@ -0,0 +1,65 @@
+package com.example.demo.service.repayment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RepaymentStatementParserTest {
+
+  @TempDir Path tempDir;
+
+  @Test
+  void parseCsv_ShouldDecodeLinesAcrossWindowBoundaries() throws Exception {
+    Path file =
+        write(
+            "reference,amount,paid_date\n"
+                + "LOAN-12,1500000.50,2026-03-01\r\n"
+                + "\n"
+                + "7,250,20260302\n"
+                + "abc,1,2026-03-03\n"
+                + "99,10.5,2026-03-04");
+    List<RepaymentLine> lines = new ArrayList<>();
+
+    // A 32-byte window forces most lines to straddle two reads
+    long read = new RepaymentStatementParser(StatementFormat.CSV, 32).parse(file, lines::add);
+
+    assertThat(read).isEqualTo(6);
+    assertThat(lines).hasSize(4);
+    assertThat(lines.get(0).loanApplicationId()).isEqualTo(12L);
+    assertThat(lines.get(0).amount()).isEqualTo(1500000.50);
+    assertThat(lines.get(0).paidDate()).isEqualTo(LocalDate.of(2026, 3, 1));
+    assertThat(lines.get(1).lineNumber()).isEqualTo(4);
+    assertThat(lines.get(1).paidDate()).isEqualTo(LocalDate.of(2026, 3, 2));
+    assertThat(lines.get(2).isMalformed()).isTrue();
+    assertThat(lines.get(3).amount()).isEqualTo(10.5);
+  }
+
+  @Test
+  void parseFixedWidth_ShouldReadAmountInMinorUnits() throws Exception {
+    Path file =
+        write(
+            String.format("%-20s%015d%s%n", "LOAN-42", 12345, "20260115")
+                + String.format("%-20s%s%n", "43", "short"));
+    List<RepaymentLine> lines = new ArrayList<>();
+
+    new RepaymentStatementParser(StatementFormat.FIXED_WIDTH).parse(file, lines::add);
+
+    assertThat(lines).hasSize(2);
+    assertThat(lines.get(0).loanApplicationId()).isEqualTo(42L);
+    assertThat(lines.get(0).amount()).isEqualTo(123.45);
+    assertThat(lines.get(0).paidDate()).isEqualTo(LocalDate.of(2026, 1, 15));
+    assertThat(lines.get(1).isMalformed()).isTrue();
+  }
+
+  private Path write(String content) throws Exception {
+    Path file = tempDir.resolve("statement.txt");
+    Files.writeString(file, content);
+    return file;
+  }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.service.sla;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+  @Test
+  void percentiles_ShouldStayWithinBucketPrecision_AndSurviveMergeAndEncoding() {
+    // 1..100000 seconds split over two histograms, as two branches would be
+    LatencyHistogram odd = new LatencyHistogram();
+    LatencyHistogram even = new LatencyHistogram();
+    for (long value = 1; value <= 100_000; value++) {
+      (value % 2 == 0 ? even : odd).record(value);
+    }
+
+    LatencyHistogram merged = LatencyHistogram.decode(odd.encode());
+    merged.merge(LatencyHistogram.decode(even.encode()));
+
+    assertThat(merged.getTotalCount()).isEqualTo(100_000);
+    assertThat(merged.getMax()).isEqualTo(100_000);
+    assertThat(merged.getMean()).isCloseTo(50_000.5, within(1e-6));
+    assertThat(merged.valueAtPercentile(50)).isBetween(50_000L, (long) (50_000 * 1.04));
+    assertThat(merged.valueAtPercentile(95)).isBetween(95_000L, (long) (95_000 * 1.04));
+    assertThat(merged.valueAtPercentile(100)).isEqualTo(100_000);
+    assertThat(new LatencyHistogram().valueAtPercentile(99)).isZero();
+  }
+
+  @Test
+  void buckets_ShouldBeContiguous() {
+    for (int index = 0; index < LatencyHistogram.indexOf(LatencyHistogram.MAX_VALUE); index++) {
+      long lower = LatencyHistogram.lowerBound(index);
+      assertThat(LatencyHistogram.indexOf(lower)).isEqualTo(index);
+      assertThat(LatencyHistogram.indexOf(LatencyHistogram.upperBound(index))).isEqualTo(index);
+      assertThat(LatencyHistogram.lowerBound(index + 1))
+          .isEqualTo(LatencyHistogram.upperBound(index) + 1);
+    }
+  }
+}